@@ -0,0 +1,29 @@
+package com.openway.benchmarks;
+
+import com.openway.utils.DriverFactory;
+import org.openqa.selenium.WebDriver;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * One headless Chrome per benchmark trial
+ */
+@State(Scope.Benchmark)
+public class BrowserState {
+    public WebDriver driver;
+
+    @Setup(Level.Trial)
+    public void startBrowser() {
+        driver = DriverFactory.createDriver("chrome", true);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopBrowser() {
+        if (driver != null) {
+            driver.quit();
+        }
+    }
+}
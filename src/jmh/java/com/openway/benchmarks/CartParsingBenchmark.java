@@ -0,0 +1,67 @@
+package com.openway.benchmarks;
+
+import com.openway.pages.CartPage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of reading the cart as it grows: every product ID is extracted with a regex from the
+ * row text and every line lookup is an XPath text search over all rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CartParsingBenchmark {
+    @Param({"1", "10", "100"})
+    public int lines;
+
+    private CartPage cartPage;
+    private String lastProductId;
+
+    @Setup(Level.Trial)
+    public void loadCart(BrowserState browser) throws IOException {
+        browser.driver.get(Fixtures.cart(lines));
+        cartPage = new CartPage(browser.driver);
+        lastProductId = Fixtures.productId(lines);
+        if (cartPage.getProductIds().size() != lines) {
+            throw new IllegalStateException("Generated cart does not match the CartPage locators");
+        }
+    }
+
+    @Benchmark
+    public List<String> getProductIds() {
+        return cartPage.getProductIds();
+    }
+
+    @Benchmark
+    public double getProductSubtotal() {
+        return cartPage.getProductSubtotal(lastProductId);
+    }
+
+    @Benchmark
+    public int getProductQuantity() {
+        return cartPage.getProductQuantity(lastProductId);
+    }
+
+    @Benchmark
+    public int getSubTotal() {
+        return cartPage.getSubTotal();
+    }
+}
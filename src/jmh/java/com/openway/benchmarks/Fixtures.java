@@ -0,0 +1,90 @@
+package com.openway.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Local HTML fixtures for the benchmarks: the saved pages from {@code src/test/resources/fixtures}
+ * and generated carts with any number of lines, using the same markup as the saved cart page.
+ */
+public class Fixtures {
+    private static final File DIRECTORY = new File("target/benchmark-fixtures");
+
+    private Fixtures() {
+        // Private constructor to prevent instantiation
+    }
+
+    /**
+     * Copy a saved fixture from the test classpath to disk
+     *
+     * @param name fixture file name, e.g. product.html
+     * @return file URL of the fixture
+     * @throws IOException if the fixture cannot be copied
+     */
+    public static String saved(String name) throws IOException {
+        File target = new File(DIRECTORY, name);
+        target.getParentFile().mkdirs();
+        try (InputStream input = Fixtures.class.getClassLoader().getResourceAsStream("fixtures/" + name)) {
+            if (input == null) {
+                throw new IOException("Fixture not found on classpath: fixtures/" + name);
+            }
+            Files.copy(input, target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        return target.toURI().toString();
+    }
+
+    /**
+     * Generate a cart page
+     *
+     * @param lines number of product lines
+     * @return file URL of the generated page
+     * @throws IOException if the page cannot be written
+     */
+    public static String cart(int lines) throws IOException {
+        StringBuilder html = new StringBuilder();
+        html.append("<!DOCTYPE html>\n<html lang=\"en\">\n<head>\n<meta charset=\"UTF-8\">\n")
+                .append("<title>Shopping Cart | Periplus</title>\n</head>\n<body>\n")
+                .append("<div class=\"preloader\" style=\"display:none\"></div>\n")
+                .append("<div class=\"shopping-cart section\">\n<form id=\"basket\">\n");
+        long total = 0;
+        for (int i = 1; i <= lines; i++) {
+            String productId = productId(i);
+            long price = 100_000 + i * 1_000L;
+            int quantity = 1 + i % 3;
+            total += price * quantity;
+            html.append("<div class=\"row row-cart-product\">\n")
+                    .append("<p class=\"product-name\">Benchmark Book ").append(i).append("</p>\n")
+                    .append("<div class=\"row\">").append(productId).append("</div>\n")
+                    .append("<div class=\"row\">Rp ").append(String.format("%,d", price)).append(" or ")
+                    .append(price / 100).append(" points</div>\n")
+                    .append("<div class=\"row qty\">")
+                    .append("<button type=\"button\" data-type=\"minus\" name=\"minus-").append(productId).append("\">-</button>")
+                    .append("<input type=\"text\" class=\"input-number\" value=\"").append(quantity).append("\">")
+                    .append("<button type=\"button\" data-type=\"plus\" name=\"plus-").append(productId).append("\">+</button>")
+                    .append("</div>\n")
+                    .append("<a href=\"#\" class=\"btn-cart-remove\">Remove</a>\n</div>\n");
+        }
+        html.append("<div class=\"button4\"><input type=\"submit\" class=\"btn\" value=\"Update Cart\"></div>\n")
+                .append("</form>\n<div class=\"shopping-summery\"><ul>\n")
+                .append("<li>Sub-Total<span id=\"sub_total\">Rp ").append(String.format("%,d", total)).append("</span></li>\n")
+                .append("<li>Total<span id=\"sub_total\">Rp ").append(String.format("%,d", total)).append("</span></li>\n")
+                .append("</ul></div>\n</div>\n</body>\n</html>\n");
+
+        File target = new File(DIRECTORY, "cart-" + lines + ".html");
+        target.getParentFile().mkdirs();
+        Files.write(target.toPath(), html.toString().getBytes(StandardCharsets.UTF_8));
+        return target.toURI().toString();
+    }
+
+    /**
+     * @param line 1-based cart line number
+     * @return the 13 digit product ID used for that line of a generated cart
+     */
+    public static String productId(int line) {
+        return String.format("978%010d", line);
+    }
+}
@@ -0,0 +1,109 @@
+package com.openway.benchmarks;
+
+import com.openway.pages.BasePage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of the explicit waits in the {@link BasePage} primitives compared to calling
+ * WebDriver directly on an element that is already visible and clickable.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class InteractionBenchmark {
+    private PrimitivesPage page;
+    private WebElement quantityInput;
+    private WebElement plusButton;
+
+    @Setup(Level.Trial)
+    public void loadPage(BrowserState browser) throws IOException {
+        browser.driver.get(Fixtures.cart(1));
+        page = new PrimitivesPage(browser.driver);
+        quantityInput = browser.driver.findElement(By.className("input-number"));
+        plusButton = browser.driver.findElement(By.xpath("//button[@data-type='plus']"));
+    }
+
+    @Benchmark
+    public void clickElementWithWait() {
+        page.clickElement(plusButton);
+    }
+
+    @Benchmark
+    public void clickRaw() {
+        plusButton.click();
+    }
+
+    @Benchmark
+    public void enterTextWithWait() {
+        page.enterText(quantityInput, "2");
+    }
+
+    @Benchmark
+    public void enterTextRaw() {
+        quantityInput.clear();
+        quantityInput.sendKeys("2");
+    }
+
+    @Benchmark
+    public void waitForVisibility() {
+        page.waitForVisibility(quantityInput);
+    }
+
+    @Benchmark
+    public boolean isDisplayedRaw() {
+        return quantityInput.isDisplayed();
+    }
+
+    @Benchmark
+    public void waitForPageLoad() {
+        page.waitForPageLoad();
+    }
+
+    /**
+     * Exposes the protected primitives of {@link BasePage}
+     */
+    static class PrimitivesPage extends BasePage {
+        PrimitivesPage(WebDriver driver) {
+            super(driver);
+        }
+
+        @Override
+        public void clickElement(WebElement element) {
+            super.clickElement(element);
+        }
+
+        @Override
+        public void enterText(WebElement element, String text) {
+            super.enterText(element, text);
+        }
+
+        @Override
+        public void waitForVisibility(WebElement element) {
+            super.waitForVisibility(element);
+        }
+
+        @Override
+        public void waitForPageLoad() {
+            super.waitForPageLoad();
+        }
+    }
+}
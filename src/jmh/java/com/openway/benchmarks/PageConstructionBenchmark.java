@@ -0,0 +1,58 @@
+package com.openway.benchmarks;
+
+import com.openway.pages.CartPage;
+import com.openway.pages.Pages;
+import com.openway.pages.ProductPage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of getting page objects: a new page runs the generated element wiring, while
+ * {@link Pages#create} hands out the page the driver already has, timed subclass included.
+ * No browser round trip is involved, so this is pure framework overhead paid on every page transition.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PageConstructionBenchmark {
+
+    @Setup(Level.Trial)
+    public void loadPage(BrowserState browser) throws IOException {
+        browser.driver.get(Fixtures.saved("product.html"));
+    }
+
+    @Benchmark
+    public CartPage newCartPage(BrowserState browser) {
+        return new CartPage(browser.driver);
+    }
+
+    @Benchmark
+    public CartPage createCartPage(BrowserState browser) {
+        return Pages.create(CartPage.class, browser.driver);
+    }
+
+    @Benchmark
+    public ProductPage newProductPage(BrowserState browser) {
+        return new ProductPage(browser.driver);
+    }
+
+    @Benchmark
+    public ProductPage createProductPage(BrowserState browser) {
+        return Pages.create(ProductPage.class, browser.driver);
+    }
+}
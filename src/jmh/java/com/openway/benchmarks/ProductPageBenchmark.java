@@ -0,0 +1,73 @@
+package com.openway.benchmarks;
+
+import com.openway.pages.Pages;
+import com.openway.pages.ProductPage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.PageFactory;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of reading the product price, which every cart test does for each product it adds: the
+ * generated {@code LazyElement} locates the element by XPath on every call and the text is parsed with
+ * a regex. The page from {@link Pages#create} adds the latency budget timing around the call, and the
+ * page wired by {@link PageFactory#initElements} is the reflective proxy the generated wiring replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProductPageBenchmark {
+    private ProductPage productPage;
+    private ProductPage timedProductPage;
+    private ProductPage pageFactoryProductPage;
+    private WebElement priceElement;
+
+    @Setup(Level.Trial)
+    public void loadPage(BrowserState browser) throws IOException {
+        browser.driver.get(Fixtures.saved("product.html"));
+        productPage = new ProductPage(browser.driver);
+        timedProductPage = Pages.create(ProductPage.class, browser.driver);
+        pageFactoryProductPage = new ProductPage(browser.driver);
+        PageFactory.initElements(browser.driver, pageFactoryProductPage);
+        priceElement = browser.driver.findElement(By.xpath("//div[@class='quickview-price']//span"));
+        if (productPage.getProductPrice() != 250_000) {
+            throw new IllegalStateException("Product fixture does not match the ProductPage locators");
+        }
+    }
+
+    @Benchmark
+    public double getProductPrice() {
+        return productPage.getProductPrice();
+    }
+
+    @Benchmark
+    public double getProductPriceTimed() {
+        return timedProductPage.getProductPrice();
+    }
+
+    @Benchmark
+    public double getProductPricePageFactory() {
+        return pageFactoryProductPage.getProductPrice();
+    }
+
+    @Benchmark
+    public String getPriceTextRaw() {
+        return priceElement.getText();
+    }
+}
@@ -0,0 +1,157 @@
+package com.openway.archive;
+
+import com.openway.utils.ArchiveConfig;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.NetworkInterceptor;
+import org.openqa.selenium.remote.http.Contents;
+import org.openqa.selenium.remote.http.Filter;
+import org.openqa.selenium.remote.http.HttpRequest;
+import org.openqa.selenium.remote.http.HttpResponse;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Records or replays the traffic of one browser session, one archive per scenario.
+ * <p>
+ * Requests are intercepted inside the browser through the DevTools {@link NetworkInterceptor},
+ * which sees HTTPS traffic in the clear without a man-in-the-middle certificate. When recording,
+ * each request is forwarded to the site and the response is archived; when replaying, the
+ * archived response is served and the network is never touched.
+ */
+class ArchiveSession implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(ArchiveSession.class.getName());
+    private static final String STARTED_ATTRIBUTE = "archive.started";
+
+    private final ArchiveConfig.Mode mode;
+    private final File directory;
+    private final RequestMatcher matcher = new RequestMatcher();
+    private final NetworkInterceptor interceptor;
+    private final AtomicInteger misses = new AtomicInteger();
+    private volatile String scenario;
+    private volatile HttpArchive archive;
+
+    ArchiveSession(WebDriver driver, ArchiveConfig.Mode mode, File directory) {
+        this.mode = mode;
+        this.directory = directory;
+        this.interceptor = new NetworkInterceptor(driver, (Filter) next -> request ->
+                mode == ArchiveConfig.Mode.RECORD ? record(next.execute(withBufferedContent(request)), request)
+                        : replay(request));
+    }
+
+    /**
+     * Finish the current scenario and start the next one
+     *
+     * @param name scenario name, used as archive file name
+     */
+    synchronized void startScenario(String name) {
+        finishScenario();
+        scenario = name;
+        misses.set(0);
+        File file = archiveFile(name);
+        if (mode == ArchiveConfig.Mode.RECORD) {
+            archive = new HttpArchive(matcher);
+        } else if (file.isFile()) {
+            try {
+                archive = HttpArchive.load(file, matcher);
+                logger.info("Replaying " + archive.size() + " archived requests for " + name);
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot read HTTP archive " + file, e);
+            }
+        } else {
+            logger.warning("No HTTP archive for " + name + " in " + directory + ", every request will fail");
+            archive = new HttpArchive(matcher);
+        }
+    }
+
+    /**
+     * Finish the current scenario, writing its archive when recording
+     */
+    synchronized void finishScenario() {
+        if (scenario == null) {
+            return;
+        }
+        if (mode == ArchiveConfig.Mode.RECORD && archive.size() > 0) {
+            File file = archiveFile(scenario);
+            try {
+                archive.save(file);
+                logger.info("Recorded " + archive.size() + " requests for " + scenario + " to " + file);
+            } catch (IOException e) {
+                logger.severe("Failed to write HTTP archive " + file + ": " + e.getMessage());
+            }
+        } else if (mode == ArchiveConfig.Mode.REPLAY && misses.get() > 0) {
+            logger.warning(misses.get() + " requests of " + scenario + " were not in the archive");
+        }
+        scenario = null;
+        archive = null;
+    }
+
+    @Override
+    public void close() {
+        finishScenario();
+        interceptor.close();
+    }
+
+    private HttpResponse record(HttpResponse response, HttpRequest request) {
+        HttpArchive current = archive;
+        if (current == null) {
+            return response;
+        }
+        byte[] body = Contents.bytes(response.getContent());
+        response.setContent(Contents.bytes(body));
+
+        List<Map.Entry<String, String>> headers = new ArrayList<>();
+        response.forEachHeader((name, value) -> {
+            // The body is stored decoded, so replaying these would corrupt it
+            if (!"Content-Encoding".equalsIgnoreCase(name) && !"Content-Length".equalsIgnoreCase(name)) {
+                headers.add(new AbstractMap.SimpleImmutableEntry<>(name, value));
+            }
+        });
+        long started = (Long) request.getAttribute(STARTED_ATTRIBUTE);
+        current.add(new ArchivedExchange(request.getMethod().toString(), request.getUri(), requestBody(request),
+                response.getStatus(), headers, body, started, System.currentTimeMillis() - started));
+        return response;
+    }
+
+    private HttpResponse replay(HttpRequest request) {
+        HttpArchive current = archive;
+        ArchivedExchange exchange = current == null ? null
+                : current.replay(request.getMethod().toString(), request.getUri(), requestBody(request));
+        if (exchange == null) {
+            misses.incrementAndGet();
+            logger.fine("Not in archive: " + request.getMethod() + " " + request.getUri());
+            return new HttpResponse()
+                    .setStatus(404)
+                    .setHeader("Content-Type", "text/plain; charset=UTF-8")
+                    .setContent(Contents.utf8String("Not in HTTP archive: " + request.getUri()));
+        }
+
+        HttpResponse response = new HttpResponse().setStatus(exchange.getStatus());
+        for (Map.Entry<String, String> header : exchange.getResponseHeaders()) {
+            response.addHeader(header.getKey(), header.getValue());
+        }
+        return response.setContent(Contents.bytes(exchange.getResponseBody()));
+    }
+
+    private static HttpRequest withBufferedContent(HttpRequest request) {
+        // Read the body once so it can be both forwarded and archived
+        request.setContent(Contents.bytes(Contents.bytes(request.getContent())));
+        request.setAttribute(STARTED_ATTRIBUTE, System.currentTimeMillis());
+        return request;
+    }
+
+    private static String requestBody(HttpRequest request) {
+        return new String(Contents.bytes(request.getContent()), StandardCharsets.UTF_8);
+    }
+
+    private File archiveFile(String name) {
+        return new File(directory, name + HttpArchive.FILE_SUFFIX);
+    }
+}
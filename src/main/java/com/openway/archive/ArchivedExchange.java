@@ -0,0 +1,92 @@
+package com.openway.archive;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One recorded request and its response, as stored in an {@link HttpArchive}
+ */
+public class ArchivedExchange {
+    private final String method;
+    private final String url;
+    private final String requestBody;
+    private final int status;
+    private final List<Map.Entry<String, String>> responseHeaders;
+    private final byte[] responseBody;
+    private final long startedMillis;
+    private final long durationMillis;
+
+    /**
+     * Constructor
+     *
+     * @param method HTTP method
+     * @param url full request URL
+     * @param requestBody request body, empty if there is none
+     * @param status response status
+     * @param responseHeaders response headers in the order they were received
+     * @param responseBody decoded response body
+     * @param startedMillis epoch millis when the request was sent
+     * @param durationMillis time until the response was complete
+     */
+    public ArchivedExchange(String method, String url, String requestBody, int status,
+                            List<Map.Entry<String, String>> responseHeaders, byte[] responseBody,
+                            long startedMillis, long durationMillis) {
+        this.method = method;
+        this.url = url;
+        this.requestBody = requestBody;
+        this.status = status;
+        this.responseHeaders = Collections.unmodifiableList(new ArrayList<>(responseHeaders));
+        this.responseBody = responseBody;
+        this.startedMillis = startedMillis;
+        this.durationMillis = durationMillis;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getRequestBody() {
+        return requestBody;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public List<Map.Entry<String, String>> getResponseHeaders() {
+        return responseHeaders;
+    }
+
+    public byte[] getResponseBody() {
+        return responseBody;
+    }
+
+    public long getStartedMillis() {
+        return startedMillis;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * Get a response header
+     *
+     * @param name header name, ignoring case
+     * @return the value of the first header with the name, or null
+     */
+    public String getResponseHeader(String name) {
+        for (Map.Entry<String, String> header : responseHeaders) {
+            if (header.getKey().equalsIgnoreCase(name)) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+}
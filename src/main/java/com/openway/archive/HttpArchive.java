@@ -0,0 +1,230 @@
+package com.openway.archive;
+
+import org.openqa.selenium.json.Json;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Recorded traffic of one scenario, stored as a gzip compressed HAR 1.2 document
+ * ({@code <scenario>.har.gz}), so archives can also be opened in any HAR viewer after unzipping.
+ * <p>
+ * Replay serves the responses of requests with the same {@link RequestMatcher} key in recording
+ * order; once they are used up the last one is repeated.
+ */
+public class HttpArchive {
+    public static final String FILE_SUFFIX = ".har.gz";
+
+    private final List<ArchivedExchange> exchanges = new ArrayList<>();
+    private final Map<String, List<ArchivedExchange>> exchangesByKey = new HashMap<>();
+    private final Map<String, Integer> replayCursors = new HashMap<>();
+    private final RequestMatcher matcher;
+
+    /**
+     * Constructor
+     *
+     * @param matcher builds the replay keys of requests
+     */
+    public HttpArchive(RequestMatcher matcher) {
+        this.matcher = matcher;
+    }
+
+    /**
+     * Add a recorded exchange
+     *
+     * @param exchange the exchange
+     */
+    public synchronized void add(ArchivedExchange exchange) {
+        exchanges.add(exchange);
+        exchangesByKey.computeIfAbsent(matcher.key(exchange.getMethod(), exchange.getUrl(), exchange.getRequestBody()),
+                key -> new ArrayList<>()).add(exchange);
+    }
+
+    /**
+     * Find the response to replay for a request
+     *
+     * @param method HTTP method
+     * @param url full request URL
+     * @param body request body, empty if there is none
+     * @return the recorded exchange, or null if the request was never recorded
+     */
+    public synchronized ArchivedExchange replay(String method, String url, String body) {
+        String key = matcher.key(method, url, body);
+        List<ArchivedExchange> candidates = exchangesByKey.get(key);
+        if (candidates == null) {
+            return null;
+        }
+        int cursor = replayCursors.getOrDefault(key, 0);
+        replayCursors.put(key, cursor + 1);
+        return candidates.get(Math.min(cursor, candidates.size() - 1));
+    }
+
+    /**
+     * @return number of recorded exchanges
+     */
+    public synchronized int size() {
+        return exchanges.size();
+    }
+
+    /**
+     * Load an archive file
+     *
+     * @param file the {@code .har.gz} file
+     * @param matcher builds the replay keys of requests
+     * @return the archive
+     * @throws IOException if the file cannot be read
+     */
+    @SuppressWarnings("unchecked")
+    public static HttpArchive load(File file, RequestMatcher matcher) throws IOException {
+        Map<String, Object> har;
+        try (InputStream input = new GZIPInputStream(new FileInputStream(file));
+             Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8)) {
+            har = new Json().toType(reader, Json.MAP_TYPE);
+        }
+
+        HttpArchive archive = new HttpArchive(matcher);
+        Map<String, Object> log = (Map<String, Object>) har.get("log");
+        for (Object item : (List<Object>) log.get("entries")) {
+            Map<String, Object> entry = (Map<String, Object>) item;
+            Map<String, Object> request = (Map<String, Object>) entry.get("request");
+            Map<String, Object> response = (Map<String, Object>) entry.get("response");
+            Map<String, Object> postData = (Map<String, Object>) request.get("postData");
+            Map<String, Object> content = (Map<String, Object>) response.get("content");
+
+            List<Map.Entry<String, String>> headers = new ArrayList<>();
+            for (Object header : (List<Object>) response.get("headers")) {
+                Map<String, Object> pair = (Map<String, Object>) header;
+                headers.add(new AbstractMap.SimpleImmutableEntry<>((String) pair.get("name"), (String) pair.get("value")));
+            }
+            String text = content.get("text") == null ? "" : (String) content.get("text");
+            byte[] body = "base64".equals(content.get("encoding"))
+                    ? Base64.getDecoder().decode(text)
+                    : text.getBytes(StandardCharsets.UTF_8);
+
+            archive.add(new ArchivedExchange(
+                    (String) request.get("method"),
+                    (String) request.get("url"),
+                    postData == null ? "" : (String) postData.get("text"),
+                    ((Number) response.get("status")).intValue(),
+                    headers,
+                    body,
+                    Instant.parse((String) entry.get("startedDateTime")).toEpochMilli(),
+                    ((Number) entry.get("time")).longValue()));
+        }
+        return archive;
+    }
+
+    /**
+     * Write the archive
+     *
+     * @param file the {@code .har.gz} file to write
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized void save(File file) throws IOException {
+        List<Object> entries = new ArrayList<>();
+        for (ArchivedExchange exchange : exchanges) {
+            entries.add(toHarEntry(exchange));
+        }
+        Map<String, Object> creator = new LinkedHashMap<>();
+        creator.put("name", "periplus-test");
+        creator.put("version", "1.0");
+        Map<String, Object> log = new LinkedHashMap<>();
+        log.put("version", "1.2");
+        log.put("creator", creator);
+        log.put("entries", entries);
+        Map<String, Object> har = new LinkedHashMap<>();
+        har.put("log", log);
+
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        try (OutputStream output = new GZIPOutputStream(new FileOutputStream(file));
+             Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8)) {
+            writer.write(new Json().toJson(har));
+        }
+    }
+
+    private static Map<String, Object> toHarEntry(ArchivedExchange exchange) {
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("method", exchange.getMethod());
+        request.put("url", exchange.getUrl());
+        request.put("httpVersion", "HTTP/1.1");
+        request.put("headers", new ArrayList<>());
+        if (!exchange.getRequestBody().isEmpty()) {
+            Map<String, Object> postData = new LinkedHashMap<>();
+            postData.put("mimeType", "application/x-www-form-urlencoded");
+            postData.put("text", exchange.getRequestBody());
+            request.put("postData", postData);
+        }
+
+        List<Object> headers = new ArrayList<>();
+        for (Map.Entry<String, String> header : exchange.getResponseHeaders()) {
+            Map<String, Object> pair = new LinkedHashMap<>();
+            pair.put("name", header.getKey());
+            pair.put("value", header.getValue());
+            headers.add(pair);
+        }
+        String mimeType = exchange.getResponseHeader("Content-Type");
+        Map<String, Object> content = new LinkedHashMap<>();
+        content.put("size", exchange.getResponseBody().length);
+        content.put("mimeType", mimeType == null ? "" : mimeType);
+        if (isText(mimeType) && isUtf8(exchange.getResponseBody())) {
+            content.put("text", new String(exchange.getResponseBody(), StandardCharsets.UTF_8));
+        } else {
+            content.put("text", Base64.getEncoder().encodeToString(exchange.getResponseBody()));
+            content.put("encoding", "base64");
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", exchange.getStatus());
+        response.put("httpVersion", "HTTP/1.1");
+        response.put("headers", headers);
+        response.put("content", content);
+
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("startedDateTime", Instant.ofEpochMilli(exchange.getStartedMillis()).toString());
+        entry.put("time", exchange.getDurationMillis());
+        entry.put("request", request);
+        entry.put("response", response);
+        return entry;
+    }
+
+    private static boolean isUtf8(byte[] bytes) {
+        try {
+            StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(bytes));
+            return true;
+        } catch (CharacterCodingException e) {
+            return false;
+        }
+    }
+
+    private static boolean isText(String mimeType) {
+        if (mimeType == null) {
+            return false;
+        }
+        String type = mimeType.toLowerCase(Locale.ROOT);
+        return type.startsWith("text/") || type.contains("json") || type.contains("javascript") || type.contains("xml");
+    }
+}
@@ -0,0 +1,104 @@
+package com.openway.archive;
+
+import com.openway.utils.ArchiveConfig;
+import com.openway.utils.ConfigManager;
+import org.openqa.selenium.WebDriver;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Record-and-replay of browser traffic, per scenario.
+ * <p>
+ * The mode is {@code archive.mode} of the configuration:
+ * <ul>
+ *     <li>{@code off} (default) the browser talks to the site directly</li>
+ *     <li>{@code record} traffic goes to the site and is written to one archive per scenario</li>
+ *     <li>{@code replay} traffic is served from the archives, without network</li>
+ * </ul>
+ * Archives are read from and written to {@code archive.dir}, default {@code src/test/resources/archives}.
+ * Usage: {@code mvn test -Darchive.mode=record} once, then {@code mvn test -Darchive.mode=replay}.
+ */
+public class HttpArchives {
+    private static final Logger logger = Logger.getLogger(HttpArchives.class.getName());
+    private static final Map<WebDriver, ArchiveSession> SESSIONS = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    private HttpArchives() {
+        // Private constructor to prevent instantiation
+    }
+
+    /**
+     * @return the configured mode
+     */
+    public static ArchiveConfig.Mode getMode() {
+        return ConfigManager.get().getArchive().getMode();
+    }
+
+    /**
+     * Start recording or replaying the traffic of a new driver, unless the mode is off
+     *
+     * @param driver the driver
+     */
+    public static void attach(WebDriver driver) {
+        ArchiveConfig.Mode mode = getMode();
+        if (mode == ArchiveConfig.Mode.OFF) {
+            return;
+        }
+        File directory = ConfigManager.get().getArchive().getDirectory();
+        logger.info("HTTP archive mode " + mode + " using " + directory.getAbsolutePath());
+        SESSIONS.put(driver, new ArchiveSession(driver, mode, directory));
+    }
+
+    /**
+     * Start a scenario; the traffic of the driver from now on belongs to its archive
+     *
+     * @param driver the driver
+     * @param scenario scenario name, e.g. {@code ShoppingCartTest.testRemoveProductFromCart}
+     */
+    public static void startScenario(WebDriver driver, String scenario) {
+        ArchiveSession session = SESSIONS.get(driver);
+        if (session != null) {
+            session.startScenario(fileName(scenario));
+        }
+    }
+
+    /**
+     * Finish the current scenario of the driver, writing its archive when recording
+     *
+     * @param driver the driver
+     */
+    public static void finishScenario(WebDriver driver) {
+        ArchiveSession session = SESSIONS.get(driver);
+        if (session != null) {
+            session.finishScenario();
+        }
+    }
+
+    /**
+     * Finish the current scenario and stop intercepting; call before quitting the driver
+     *
+     * @param driver the driver
+     */
+    public static void detach(WebDriver driver) {
+        ArchiveSession session = SESSIONS.remove(driver);
+        if (session != null) {
+            session.close();
+        }
+    }
+
+    /**
+     * Archive file name of a scenario. Data provider rows bring brackets, commas, spaces and slashes into
+     * the name; each is replaced on its own, so rows that differ only in those still get different files.
+     */
+    private static String fileName(String scenario) {
+        String name = scenario.replaceAll("[^A-Za-z0-9._-]", "_");
+        if (name.length() > 120) {
+            // Long data provider rows: keep the file name short but unique
+            name = name.substring(0, 100) + "_" + Integer.toHexString(scenario.hashCode());
+        }
+        return name;
+    }
+}
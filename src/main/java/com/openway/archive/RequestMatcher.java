@@ -0,0 +1,89 @@
+package com.openway.archive;
+
+import com.openway.utils.ConfigManager;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Turns requests into replay keys that ignore session tokens, so a replay matches the recording
+ * although the browser sends different cookies, session IDs and cache busters.
+ * <p>
+ * Cookies and headers are never part of the key. Query and form parameters whose name matches
+ * {@code archive.ignoreParams} (by default names with sess, token, csrf or nonce in them, and the usual
+ * cache busters) are dropped, as are
+ * path parameters such as {@code ;jsessionid=...}. The remaining parameters are sorted.
+ */
+public class RequestMatcher {
+    private static final Pattern PATH_PARAMETER = Pattern.compile(";[^/?#]*");
+
+    private final Pattern ignoredParams;
+
+    /**
+     * Constructor using {@code archive.ignoreParams} of the configuration
+     */
+    public RequestMatcher() {
+        this(ConfigManager.get().getArchive().getIgnoredParams());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param ignoredParams names of query and form parameters to leave out of the key
+     */
+    public RequestMatcher(Pattern ignoredParams) {
+        this.ignoredParams = ignoredParams;
+    }
+
+    /**
+     * Build the replay key of a request
+     *
+     * @param method HTTP method
+     * @param url full request URL
+     * @param body request body, empty if there is none
+     * @return the key; requests with equal keys are replays of each other
+     */
+    public String key(String method, String url, String body) {
+        URI uri = URI.create(url);
+        String path = PATH_PARAMETER.matcher(uri.getRawPath() == null ? "" : uri.getRawPath()).replaceAll("");
+        StringBuilder key = new StringBuilder(method).append(' ')
+                .append(uri.getScheme()).append("://").append(uri.getRawAuthority()).append(path);
+
+        String query = normalizeParams(uri.getRawQuery());
+        if (!query.isEmpty()) {
+            key.append('?').append(query);
+        }
+        if (body != null && !body.isEmpty()) {
+            key.append(' ').append(body.contains("=") && !body.trim().startsWith("{") ? normalizeParams(body) : body);
+        }
+        return key.toString();
+    }
+
+    private String normalizeParams(String params) {
+        if (params == null || params.isEmpty()) {
+            return "";
+        }
+        List<String> kept = new ArrayList<>();
+        for (String pair : params.split("&")) {
+            String name = pair.split("=", 2)[0];
+            if (!ignoredParams.matcher(decode(name)).matches()) {
+                kept.add(pair);
+            }
+        }
+        Collections.sort(kept);
+        return String.join("&", kept);
+    }
+
+    private static String decode(String text) {
+        try {
+            return URLDecoder.decode(text, "UTF-8");
+        } catch (UnsupportedEncodingException | IllegalArgumentException e) {
+            return text;
+        }
+    }
+}
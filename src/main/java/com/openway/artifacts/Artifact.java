@@ -0,0 +1,38 @@
+package com.openway.artifacts;
+
+import java.util.concurrent.Callable;
+
+/**
+ * One file of a failure capture. The content is produced by the background writer, so the test
+ * thread only pays for grabbing the raw data from the browser.
+ */
+class Artifact {
+    private final String fileName;
+    private final boolean compress;
+    private final Callable<byte[]> content;
+
+    /**
+     * Constructor
+     *
+     * @param fileName file name inside the capture, e.g. {@code screenshot.png}
+     * @param compress true to gzip the content; false for formats that are already compressed
+     * @param content produces the bytes to write, called on the writer thread
+     */
+    Artifact(String fileName, boolean compress, Callable<byte[]> content) {
+        this.fileName = fileName;
+        this.compress = compress;
+        this.content = content;
+    }
+
+    String getFileName() {
+        return fileName;
+    }
+
+    boolean isCompressed() {
+        return compress;
+    }
+
+    byte[] getContent() throws Exception {
+        return content.call();
+    }
+}
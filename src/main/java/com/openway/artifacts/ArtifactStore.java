@@ -0,0 +1,234 @@
+package com.openway.artifacts;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes failure captures on background threads.
+ * <p>
+ * Every artifact is stored once under {@code blobs/}, named by the SHA-256 of its content, so the
+ * same page source or the same screenshot of an error page takes disk space only once however many
+ * tests fail on it. Each capture gets its own directory with a {@code manifest.tsv} and, where the
+ * file system allows, hard links to its blobs.
+ * <p>
+ * Both budgets are hard: a capture that finds the queue full is dropped instead of blocking the
+ * test, and a blob that would take the directory over the disk budget is not written.
+ */
+class ArtifactStore implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(ArtifactStore.class.getName());
+    private static final String BLOB_DIRECTORY = "blobs";
+
+    private final File root;
+    private final long diskBudgetBytes;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, Boolean> blobs = new ConcurrentHashMap<>();
+    private final AtomicLong usedBytes = new AtomicLong();
+    private final AtomicInteger captures = new AtomicInteger();
+    private final AtomicInteger dropped = new AtomicInteger();
+    private final AtomicInteger deduplicated = new AtomicInteger();
+    private final AtomicInteger overBudget = new AtomicInteger();
+
+    /**
+     * Constructor
+     *
+     * @param root directory to write to
+     * @param threads number of writer threads
+     * @param queueCapacity number of captures that may wait for a writer
+     * @param diskBudgetBytes maximum size of the directory, including earlier runs
+     */
+    ArtifactStore(File root, int threads, int queueCapacity, long diskBudgetBytes) {
+        this.root = root;
+        this.diskBudgetBytes = diskBudgetBytes;
+        new File(root, BLOB_DIRECTORY).mkdirs();
+        usedBytes.set(sizeOf(root.toPath()));
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "failure-artifacts-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Queue a capture for writing
+     *
+     * @param name capture name, used as directory name
+     * @param artifacts the files of the capture
+     * @return false if the queue was full and the capture was dropped
+     */
+    boolean submit(String name, List<Artifact> artifacts) {
+        try {
+            executor.execute(() -> write(name, artifacts));
+            return true;
+        } catch (RejectedExecutionException e) {
+            dropped.incrementAndGet();
+            logger.warning("Failure artifact queue is full, dropped capture of " + name);
+            return false;
+        }
+    }
+
+    /**
+     * Wait for queued captures to be written, then stop the writer threads
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                logger.warning("Failure artifacts still being written after 30 seconds, giving up");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (captures.get() > 0 || dropped.get() > 0) {
+            logger.info(String.format("Failure artifacts: %d captures in %s, %d duplicate files, %d files over the "
+                            + "%d MB budget, %d captures dropped, %.1f MB used",
+                    captures.get(), root.getAbsolutePath(), deduplicated.get(), overBudget.get(),
+                    diskBudgetBytes >> 20, dropped.get(), usedBytes.get() / 1048576.0));
+        }
+    }
+
+    private void write(String name, List<Artifact> artifacts) {
+        File directory = new File(root, name);
+        directory.mkdirs();
+        StringBuilder manifest = new StringBuilder("# file\tblob\tbytes\tstatus\n");
+        for (Artifact artifact : artifacts) {
+            manifest.append(artifact.getFileName()).append('\t');
+            try {
+                byte[] content = artifact.getContent();
+                String blobName = sha256(content) + extension(artifact.getFileName())
+                        + (artifact.isCompressed() ? ".gz" : "");
+                String status = storeBlob(blobName, content, artifact.isCompressed());
+                manifest.append(BLOB_DIRECTORY).append('/').append(blobName).append('\t')
+                        .append(content.length).append('\t').append(status).append('\n');
+                if (!"over budget".equals(status)) {
+                    link(directory, artifact.getFileName() + (artifact.isCompressed() ? ".gz" : ""), blobName);
+                }
+            } catch (Exception e) {
+                manifest.append("-\t0\tfailed: ").append(e.getMessage()).append('\n');
+            }
+        }
+
+        byte[] manifestBytes = manifest.toString().getBytes(StandardCharsets.UTF_8);
+        try {
+            Files.write(new File(directory, "manifest.tsv").toPath(), manifestBytes);
+            usedBytes.addAndGet(manifestBytes.length);
+            captures.incrementAndGet();
+            logger.info("Failure artifacts written to " + directory.getAbsolutePath());
+        } catch (IOException e) {
+            logger.warning("Failed to write failure artifacts of " + name + ": " + e.getMessage());
+        }
+    }
+
+    private String storeBlob(String blobName, byte[] content, boolean compress) throws IOException {
+        if (blobs.putIfAbsent(blobName, Boolean.TRUE) != null) {
+            deduplicated.incrementAndGet();
+            return "duplicate";
+        }
+        Path blob = new File(new File(root, BLOB_DIRECTORY), blobName).toPath();
+        if (Files.exists(blob)) {
+            // Written by an earlier run into the same directory
+            deduplicated.incrementAndGet();
+            return "duplicate";
+        }
+
+        boolean stored = false;
+        Path temporary = null;
+        try {
+            temporary = Files.createTempFile(blob.getParent(), blobName, ".tmp");
+            try (OutputStream out = compress ? new GZIPOutputStream(Files.newOutputStream(temporary), 64 * 1024)
+                    : Files.newOutputStream(temporary)) {
+                out.write(content);
+            }
+            long size = Files.size(temporary);
+            if (usedBytes.addAndGet(size) > diskBudgetBytes) {
+                usedBytes.addAndGet(-size);
+                overBudget.incrementAndGet();
+                return "over budget";
+            }
+            try {
+                Files.move(temporary, blob, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException | RuntimeException e) {
+                usedBytes.addAndGet(-size);
+                throw e;
+            }
+            stored = true;
+            return "stored";
+        } finally {
+            if (!stored) {
+                // Later captures of the same content must write it again instead of linking to nothing
+                blobs.remove(blobName);
+            }
+            if (temporary != null) {
+                Files.deleteIfExists(temporary);
+            }
+        }
+    }
+
+    private void link(File directory, String fileName, String blobName) {
+        try {
+            Files.createLink(new File(directory, fileName).toPath(),
+                    new File(new File(root, BLOB_DIRECTORY), blobName).toPath());
+        } catch (IOException | UnsupportedOperationException e) {
+            // The manifest still points at the blob
+            logger.fine(() -> "Cannot link " + fileName + " to " + blobName + ": " + e.getMessage());
+        }
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String extension(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot < 0 ? "" : fileName.substring(dot);
+    }
+
+    private static long sizeOf(Path directory) {
+        try (Stream<Path> files = Files.walk(directory)) {
+            // Links in capture directories share their blob's space, so only blobs and manifests count
+            return files.filter(file -> Files.isRegularFile(file) && (file.getParent().endsWith(BLOB_DIRECTORY)
+                    || "manifest.tsv".equals(file.getFileName().toString()))).mapToLong(file -> {
+                try {
+                    return Files.size(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }).sum();
+        } catch (IOException | UncheckedIOException e) {
+            return 0;
+        }
+    }
+}
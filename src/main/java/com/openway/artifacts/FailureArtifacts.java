@@ -0,0 +1,147 @@
+package com.openway.artifacts;
+
+import com.openway.utils.ArtifactsConfig;
+import com.openway.utils.ConfigManager;
+import com.openway.utils.TestConfig;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.logging.LogEntries;
+import org.openqa.selenium.logging.LogEntry;
+import org.openqa.selenium.logging.LogType;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Captures what the browser showed when a test failed: a screenshot, the page source, the browser
+ * console and whatever state the caller adds, e.g. the cart.
+ * <p>
+ * The test thread only grabs the raw data from the browser, which takes a few round trips; decoding,
+ * hashing, compressing and writing happen on background threads of an {@link ArtifactStore}, so the
+ * next test gets the driver back at once. Captures go to
+ * {@code <artifacts.dir>/<run start>/<number>-<name>/}. Settings are read from the {@link TestConfig}:
+ * {@code artifacts.enabled}, {@code artifacts.dir}, {@code artifacts.threads},
+ * {@code artifacts.queueCapacity} and {@code artifacts.diskBudgetMb}.
+ */
+public class FailureArtifacts {
+    private static final Logger logger = Logger.getLogger(FailureArtifacts.class.getName());
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+    private static ArtifactStore store;
+    private static String runDirectory;
+
+    private FailureArtifacts() {
+        // Private constructor to prevent instantiation
+    }
+
+    /**
+     * Capture the state of a browser and queue it for writing
+     *
+     * @param driver the driver of the failed test
+     * @param name capture name, e.g. {@code ShoppingCartTest.testRemoveProductFromCart}
+     * @param extras additional files by file name: strings are written as they are, throwables as
+     *               stack traces and anything else as JSON
+     * @return false if capturing is disabled or the queue was full
+     */
+    public static boolean capture(WebDriver driver, String name, Map<String, ?> extras) {
+        ArtifactStore current = getStore();
+        if (current == null) {
+            return false;
+        }
+
+        List<Artifact> artifacts = new ArrayList<>();
+        if (driver instanceof TakesScreenshot) {
+            try {
+                // Decoding is left to the writer, the test thread only fetches the string
+                String screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BASE64);
+                artifacts.add(new Artifact("screenshot.png", false, () -> Base64.getMimeDecoder().decode(screenshot)));
+            } catch (WebDriverException e) {
+                logger.fine(() -> "No screenshot: " + e.getMessage());
+            }
+        }
+        try {
+            String url = driver.getCurrentUrl();
+            String source = driver.getPageSource();
+            artifacts.add(new Artifact("page-source.html", true,
+                    () -> ("<!-- " + url + " -->\n" + source).getBytes(StandardCharsets.UTF_8)));
+        } catch (WebDriverException e) {
+            logger.fine(() -> "No page source: " + e.getMessage());
+        }
+        try {
+            LogEntries console = driver.manage().logs().get(LogType.BROWSER);
+            artifacts.add(new Artifact("console.log", true, () -> consoleText(console)));
+        } catch (WebDriverException | UnsupportedOperationException e) {
+            logger.fine(() -> "No browser console log: " + e.getMessage());
+        }
+        for (Map.Entry<String, ?> extra : extras.entrySet()) {
+            Object value = extra.getValue();
+            artifacts.add(new Artifact(extra.getKey(), true, () -> text(value).getBytes(StandardCharsets.UTF_8)));
+        }
+
+        String safeName = name.replaceAll("[^A-Za-z0-9._-]+", "_");
+        if (safeName.length() > 100) {
+            safeName = safeName.substring(0, 100);
+        }
+        String directory = runDirectory + File.separator + String.format("%03d-%s", SEQUENCE.incrementAndGet(), safeName);
+        return current.submit(directory, artifacts);
+    }
+
+    /**
+     * Wait for queued captures to be written
+     */
+    public static synchronized void close() {
+        if (store != null) {
+            store.close();
+            store = null;
+        }
+    }
+
+    private static synchronized ArtifactStore getStore() {
+        if (store == null) {
+            TestConfig config = ConfigManager.get();
+            if (!config.getArtifacts().isEnabled()) {
+                return null;
+            }
+            runDirectory = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").format(LocalDateTime.now());
+            ArtifactsConfig artifacts = config.getArtifacts();
+            store = new ArtifactStore(new File(artifacts.getDirectory()), artifacts.getThreads(),
+                    artifacts.getQueueCapacity(), artifacts.getDiskBudgetBytes());
+        }
+        return store;
+    }
+
+    private static byte[] consoleText(LogEntries entries) {
+        StringBuilder text = new StringBuilder();
+        for (LogEntry entry : entries) {
+            text.append(Instant.ofEpochMilli(entry.getTimestamp()).atZone(ZoneId.systemDefault()).toLocalDateTime())
+                    .append(' ').append(entry.getLevel()).append(' ').append(entry.getMessage()).append('\n');
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(Object value) {
+        if (value instanceof String) {
+            return (String) value;
+        }
+        if (value instanceof Throwable) {
+            StringWriter trace = new StringWriter();
+            ((Throwable) value).printStackTrace(new PrintWriter(trace));
+            return trace.toString();
+        }
+        return new Json().toJson(value);
+    }
+}
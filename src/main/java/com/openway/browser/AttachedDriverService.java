@@ -0,0 +1,39 @@
+package com.openway.browser;
+
+import org.openqa.selenium.chrome.ChromeDriverService;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+
+/**
+ * A ChromeDriverService for a chromedriver that is already running, e.g. in the {@link BrowserDaemon}.
+ * Sessions created through it neither start the driver nor stop it when they quit.
+ */
+class AttachedDriverService extends ChromeDriverService {
+
+    /**
+     * @param executable the running chromedriver binary; it is not started again
+     * @param port port the chromedriver listens on
+     * @throws IOException if the service URL cannot be built
+     */
+    AttachedDriverService(File executable, int port) throws IOException {
+        super(executable, port, Duration.ofSeconds(20), Collections.emptyList(), Collections.emptyMap());
+    }
+
+    @Override
+    public void start() {
+        // Already running
+    }
+
+    @Override
+    public boolean isRunning() {
+        return true;
+    }
+
+    @Override
+    public void stop() {
+        // Owned by whoever started it
+    }
+}
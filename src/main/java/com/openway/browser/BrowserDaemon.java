@@ -0,0 +1,421 @@
+package com.openway.browser;
+
+import com.openway.utils.ConfigManager;
+import com.openway.utils.DriverFactory;
+import com.openway.utils.TestConfig;
+import io.github.bonigarcia.wdm.WebDriverManager;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeDriverService;
+import org.openqa.selenium.chrome.ChromeOptions;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * A long-lived local process that keeps Chrome browsers and their chromedriver warm between test runs.
+ * <p>
+ * The daemon publishes the driver URL and the debugger address of each browser in
+ * {@code daemon.properties} in its directory. With {@code browser.daemon=true}, {@link DriverFactory}
+ * calls {@link #attach} first: it leases a free browser through a lock file, checks that the browser
+ * and the driver answer, opens a session on the running chromedriver attached to the browser and
+ * resets it to a blank page without cookies or site storage. A run that finds no daemon, a daemon
+ * started with other browser options or no healthy free browser starts its own browser as usual. The
+ * locks are released when a session quits or its JVM exits, so browsers of crashed runs are reused.
+ * <p>
+ * The daemon checks its browsers every {@value #HEALTH_INTERVAL_SECONDS} seconds and restarts those
+ * that stopped answering while no run leased them.
+ * <p>
+ * Usage: {@code mvn -P browser-daemon test-compile exec:java}, stop it with Ctrl+C.
+ */
+public class BrowserDaemon implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(BrowserDaemon.class.getName());
+    private static final String STATE_FILE = "daemon.properties";
+    private static final long HEALTH_INTERVAL_SECONDS = 30;
+    private static final Duration HEALTH_TIMEOUT = Duration.ofSeconds(2);
+    private static final HttpClient HTTP = HttpClient.newBuilder().connectTimeout(HEALTH_TIMEOUT).build();
+
+    private final File directory;
+    private final ChromeOptions options;
+    private final ChromeDriverService service;
+    private final AttachedDriverService hostService;
+    private final ChromeDriver[] browsers;
+    private final String[] addresses;
+    private final ScheduledExecutorService healthCheck;
+    private final CountDownLatch closed = new CountDownLatch(1);
+
+    /**
+     * Start chromedriver and the browsers and publish them
+     *
+     * @param directory where to publish the browsers and keep the lease files
+     * @param options options of the browsers; runs only attach if theirs are the same
+     * @param sessions number of browsers to keep warm
+     * @throws IOException if chromedriver cannot be started or the state cannot be written
+     */
+    public BrowserDaemon(File directory, ChromeOptions options, int sessions) throws IOException {
+        this.directory = directory;
+        this.options = options;
+        Files.createDirectories(directory.toPath());
+
+        String executable = System.getProperty("webdriver.chrome.driver");
+        ChromeDriverService.Builder builder = new ChromeDriverService.Builder().usingAnyFreePort();
+        if (executable != null) {
+            builder.usingDriverExecutable(new File(executable));
+        }
+        this.service = builder.build();
+        service.start();
+        this.hostService = new AttachedDriverService(new File(service.getExecutable()), service.getUrl().getPort());
+
+        this.browsers = new ChromeDriver[sessions];
+        this.addresses = new String[sessions];
+        try {
+            for (int slot = 0; slot < sessions; slot++) {
+                launch(slot);
+            }
+            writeState();
+        } catch (RuntimeException | IOException e) {
+            close();
+            throw e;
+        }
+
+        this.healthCheck = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "browser-daemon-health");
+            thread.setDaemon(true);
+            return thread;
+        });
+        healthCheck.scheduleWithFixedDelay(this::checkBrowsers, HEALTH_INTERVAL_SECONDS, HEALTH_INTERVAL_SECONDS,
+                TimeUnit.SECONDS);
+    }
+
+    /**
+     * Run the daemon with the browser settings of the configuration until the process is stopped.
+     * Options: {@code browser.daemonSessions} browsers, default 2; {@code browser.daemonDir}.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        TestConfig config = ConfigManager.get();
+        WebDriverManager.chromedriver().setup();
+        BrowserDaemon daemon = new BrowserDaemon(config.getDaemon().getDirectory(),
+                DriverFactory.chromeOptions(config.getBrowser().isHeadless()), config.getDaemon().getSessions());
+        Runtime.getRuntime().addShutdownHook(new Thread(daemon::close, "browser-daemon-shutdown"));
+        logger.info("Browser daemon ready with " + config.getDaemon().getSessions() + " browsers in "
+                + config.getDaemon().getDirectory() + "; run the tests with -Dbrowser.daemon=true, stop with Ctrl+C");
+        daemon.closed.await();
+    }
+
+    /**
+     * Attach to a free, healthy browser of a running daemon
+     *
+     * @param directory directory of the daemon
+     * @param options options the run would start its own browser with
+     * @param appUrl URL of the site under test, whose storage is cleared
+     * @return a driver on the warm browser, or null if there is no daemon or no usable browser
+     */
+    public static WebDriver attach(File directory, ChromeOptions options, String appUrl) {
+        Properties state = readState(directory);
+        if (state == null) {
+            logger.info("No browser daemon in " + directory + ", starting a new browser");
+            return null;
+        }
+        long pid = Long.parseLong(state.getProperty("pid", "-1"));
+        if (!ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false)) {
+            logger.info("Browser daemon " + pid + " is no longer running, starting a new browser");
+            return null;
+        }
+        if (!signature(options).equals(state.getProperty("options"))) {
+            logger.info("Browser daemon runs with " + state.getProperty("options") + " instead of "
+                    + signature(options) + ", starting a new browser");
+            return null;
+        }
+        String driverUrl = state.getProperty("driver.url");
+        if (!isHealthy(driverUrl + "/status")) {
+            logger.warning("Driver of the browser daemon at " + driverUrl + " does not answer, starting a new browser");
+            return null;
+        }
+
+        int count = Integer.parseInt(state.getProperty("browsers", "0"));
+        for (int slot = 0; slot < count; slot++) {
+            String address = state.getProperty("browser." + slot);
+            Lease lease = Lease.tryAcquire(directory, slot);
+            if (lease == null) {
+                continue;
+            }
+            if (address == null || !isHealthy("http://" + address + "/json/version")) {
+                logger.warning("Browser " + slot + " of the browser daemon does not answer");
+                lease.release();
+                continue;
+            }
+
+            long start = System.nanoTime();
+            DaemonDriver driver = null;
+            try {
+                ChromeOptions attach = new ChromeOptions();
+                attach.setExperimentalOption("debuggerAddress", address);
+                Object logging = options.getCapability(ChromeOptions.LOGGING_PREFS);
+                if (logging != null) {
+                    attach.setCapability(ChromeOptions.LOGGING_PREFS, logging);
+                }
+                driver = new DaemonDriver(new AttachedDriverService(
+                        new File(state.getProperty("driver.executable")), URI.create(driverUrl).getPort()), attach, lease);
+                reset(driver, address, appUrl);
+                long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                logger.info("Attached to browser " + slot + " of the browser daemon in " + millis + " ms");
+                return driver;
+            } catch (WebDriverException | IOException | IllegalStateException e) {
+                logger.warning("Cannot use browser " + slot + " of the browser daemon: " + e.getMessage());
+                if (driver != null) {
+                    driver.quit();
+                }
+                lease.release();
+            }
+        }
+        logger.info("No free browser in the browser daemon, starting a new browser");
+        return null;
+    }
+
+    /**
+     * Stop the browsers and chromedriver and withdraw the published state
+     */
+    @Override
+    public synchronized void close() {
+        if (closed.getCount() == 0) {
+            return;
+        }
+        if (healthCheck != null) {
+            healthCheck.shutdownNow();
+        }
+        try {
+            Files.deleteIfExists(new File(directory, STATE_FILE).toPath());
+        } catch (IOException e) {
+            logger.warning("Failed to remove " + STATE_FILE + ": " + e.getMessage());
+        }
+        for (ChromeDriver browser : browsers) {
+            quitQuietly(browser);
+        }
+        service.stop();
+        closed.countDown();
+        logger.info("Browser daemon stopped");
+    }
+
+    private void launch(int slot) {
+        browsers[slot] = new ChromeDriver(hostService, options);
+        addresses[slot] = SharedBrowser.debuggerAddress(browsers[slot].getCapabilities());
+        logger.info("Browser " + slot + " started at " + addresses[slot]);
+    }
+
+    private synchronized void checkBrowsers() {
+        try {
+            boolean restarted = false;
+            for (int slot = 0; slot < browsers.length; slot++) {
+                if (isHealthy("http://" + addresses[slot] + "/json/version")) {
+                    continue;
+                }
+                Lease lease = Lease.tryAcquire(directory, slot);
+                if (lease == null) {
+                    // A run is using it and will give up on it by itself
+                    continue;
+                }
+                try {
+                    logger.warning("Browser " + slot + " at " + addresses[slot] + " does not answer, restarting it");
+                    quitQuietly(browsers[slot]);
+                    launch(slot);
+                    restarted = true;
+                } finally {
+                    lease.release();
+                }
+            }
+            if (restarted) {
+                writeState();
+            }
+        } catch (RuntimeException | IOException e) {
+            logger.warning("Browser daemon health check failed: " + e.getMessage());
+        }
+    }
+
+    private void writeState() throws IOException {
+        Properties state = new Properties();
+        state.setProperty("pid", Long.toString(ProcessHandle.current().pid()));
+        state.setProperty("driver.url", service.getUrl().toString());
+        state.setProperty("driver.executable", service.getExecutable());
+        state.setProperty("options", signature(options));
+        state.setProperty("browsers", Integer.toString(browsers.length));
+        for (int slot = 0; slot < addresses.length; slot++) {
+            state.setProperty("browser." + slot, addresses[slot]);
+        }
+
+        Path file = new File(directory, STATE_FILE).toPath();
+        Path temp = Files.createTempFile(directory.toPath(), STATE_FILE, ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            state.store(out, "Browser daemon");
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Properties readState(File directory) {
+        File file = new File(directory, STATE_FILE);
+        if (!file.isFile()) {
+            return null;
+        }
+        Properties state = new Properties();
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            state.load(in);
+            return state;
+        } catch (IOException e) {
+            logger.warning("Failed to read " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Give a leased browser the state of a freshly started one: a single blank window, no cookies and no
+     * storage of the site under test. The HTTP cache stays warm.
+     */
+    private static void reset(WebDriver driver, String address, String appUrl) throws IOException {
+        try (CdpConnection cdp = new CdpConnection(address)) {
+            List<String> handles = new ArrayList<>(driver.getWindowHandles());
+            if (handles.isEmpty()) {
+                cdp.send("Target.createTarget", Collections.singletonMap("url", "about:blank"));
+                handles.addAll(driver.getWindowHandles());
+            }
+            for (int i = 1; i < handles.size(); i++) {
+                driver.switchTo().window(handles.get(i)).close();
+            }
+            driver.switchTo().window(handles.get(0));
+            driver.get("about:blank");
+
+            cdp.send("Storage.clearCookies", Collections.emptyMap());
+            URI site = URI.create(appUrl);
+            if (site.getScheme() != null && site.getAuthority() != null) {
+                Map<String, Object> params = new HashMap<>();
+                params.put("origin", site.getScheme() + "://" + site.getAuthority());
+                params.put("storageTypes", "local_storage,indexeddb,websql,service_workers,cache_storage");
+                cdp.send("Storage.clearDataForOrigin", params);
+            }
+        }
+    }
+
+    private static boolean isHealthy(String url) {
+        try {
+            HttpResponse<Void> response = HTTP.send(HttpRequest.newBuilder(URI.create(url)).timeout(HEALTH_TIMEOUT).build(),
+                    HttpResponse.BodyHandlers.discarding());
+            return response.statusCode() == 200;
+        } catch (IOException | IllegalArgumentException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * @return the browser arguments of the options, in a stable order
+     */
+    @SuppressWarnings("unchecked")
+    static String signature(ChromeOptions options) {
+        Object chromeOptions = options.asMap().get(ChromeOptions.CAPABILITY);
+        Object arguments = chromeOptions instanceof Map ? ((Map<String, Object>) chromeOptions).get("args") : null;
+        return arguments instanceof List ? new TreeSet<>((List<String>) arguments).toString() : "[]";
+    }
+
+    private static void quitQuietly(ChromeDriver browser) {
+        if (browser == null) {
+            return;
+        }
+        try {
+            browser.quit();
+        } catch (WebDriverException e) {
+            logger.fine(() -> "Browser already gone: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Exclusive use of one browser of the daemon, held as a file lock so it ends with the JVM
+     */
+    static final class Lease {
+        // File locks are per JVM, so threads of one run are kept apart here
+        private static final Set<Path> HELD = ConcurrentHashMap.newKeySet();
+
+        private final Path path;
+        private final FileChannel channel;
+        private FileLock lock;
+
+        private Lease(Path path, FileChannel channel, FileLock lock) {
+            this.path = path;
+            this.channel = channel;
+            this.lock = lock;
+        }
+
+        static Lease tryAcquire(File directory, int slot) {
+            Path path = new File(directory, "browser-" + slot + ".lock").toPath().toAbsolutePath();
+            if (!HELD.add(path)) {
+                return null;
+            }
+            FileChannel channel = null;
+            try {
+                channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                FileLock lock = channel.tryLock();
+                if (lock != null) {
+                    return new Lease(path, channel, lock);
+                }
+            } catch (IOException | OverlappingFileLockException e) {
+                logger.fine(() -> "Cannot lock " + path + ": " + e.getMessage());
+            }
+            closeQuietly(channel);
+            HELD.remove(path);
+            return null;
+        }
+
+        synchronized void release() {
+            if (lock == null) {
+                return;
+            }
+            try {
+                lock.release();
+            } catch (IOException e) {
+                logger.fine(() -> "Failed to release " + path + ": " + e.getMessage());
+            }
+            lock = null;
+            closeQuietly(channel);
+            HELD.remove(path);
+        }
+
+        private static void closeQuietly(FileChannel channel) {
+            if (channel == null) {
+                return;
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.fine(() -> "Failed to close lease file: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.openway.browser;
+
+import org.openqa.selenium.HasCapabilities;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Logger;
+
+/**
+ * Records the browser's own trace, e.g. network, rendering and script activity, through the DevTools
+ * {@code Tracing} domain of the browser endpoint, so it covers every process of the browser.
+ * <p>
+ * A clock sync marker is recorded right after tracing starts; its timestamp in the trace, compared with
+ * {@link System#nanoTime()} around the command, gives the offset between the JVM's clock and the trace
+ * clock, so spans measured in the JVM can be placed on the browser's timeline.
+ * <p>
+ * A browser runs one trace at a time, so with a shared browser only the first of several concurrent
+ * traces records the browser; the others fail to start.
+ */
+public class BrowserTracing {
+    private static final Logger logger = Logger.getLogger(BrowserTracing.class.getName());
+    private static final long COMPLETE_TIMEOUT_SECONDS = 60;
+    private static final String SYNC_ID = "periplus-test-clock-sync";
+
+    private final CdpConnection cdp;
+    private final List<Object> events = Collections.synchronizedList(new ArrayList<>());
+    private final CompletableFuture<Void> complete = new CompletableFuture<>();
+    private final long syncNanos;
+
+    private BrowserTracing(CdpConnection cdp, List<String> categories) {
+        this.cdp = cdp;
+        cdp.onEvent("Tracing.dataCollected", params -> {
+            Object value = params.get("value");
+            if (value instanceof List) {
+                events.addAll((List<?>) value);
+            }
+        });
+        cdp.onEvent("Tracing.tracingComplete", params -> complete.complete(null));
+
+        Map<String, Object> traceConfig = new HashMap<>();
+        traceConfig.put("includedCategories", categories);
+        traceConfig.put("recordMode", "recordContinuously");
+        Map<String, Object> params = new HashMap<>();
+        params.put("traceConfig", traceConfig);
+        params.put("transferMode", "ReportEvents");
+        cdp.send("Tracing.start", params);
+
+        long before = System.nanoTime();
+        try {
+            cdp.send("Tracing.recordClockSyncMarker", Collections.singletonMap("syncId", SYNC_ID));
+        } catch (IllegalStateException e) {
+            logger.fine(() -> "No clock sync marker recorded: " + e.getMessage());
+        }
+        syncNanos = (before + System.nanoTime()) / 2;
+    }
+
+    /**
+     * Start tracing the browser of a Chrome driver
+     *
+     * @param driver the driver
+     * @param categories trace categories, e.g. {@code devtools.timeline} and {@code loading}
+     * @return the running trace, or null if the browser cannot be traced
+     */
+    public static BrowserTracing start(WebDriver driver, List<String> categories) {
+        if (!(driver instanceof HasCapabilities)) {
+            return null;
+        }
+
+        CdpConnection cdp = null;
+        try {
+            cdp = new CdpConnection(SharedBrowser.debuggerAddress(((HasCapabilities) driver).getCapabilities()));
+            return new BrowserTracing(cdp, categories);
+        } catch (IOException | RuntimeException e) {
+            logger.warning("Browser trace not recorded: " + e.getMessage());
+            if (cdp != null) {
+                cdp.close();
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Stop tracing and collect the trace
+     *
+     * @return the browser's trace events, as found in the {@code traceEvents} of a trace file
+     * @throws WebDriverException if the browser does not finish the trace
+     */
+    public List<Object> stop() {
+        try {
+            cdp.send("Tracing.end", Collections.emptyMap());
+            complete.get(COMPLETE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            synchronized (events) {
+                return new ArrayList<>(events);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WebDriverException("Interrupted while collecting the browser trace", e);
+        } catch (ExecutionException | TimeoutException | RuntimeException e) {
+            throw new WebDriverException("Browser trace did not complete: " + e.getMessage(), e);
+        } finally {
+            cdp.close();
+        }
+    }
+
+    /**
+     * Offset to add to {@link System#nanoTime()} in microseconds to get the trace clock. Only known
+     * after {@link #stop()}; 0 if the clock sync marker is missing from the trace, which is right where
+     * both use the monotonic clock of the system, as on Linux.
+     *
+     * @param traceEvents the events returned by {@link #stop()}
+     * @return the offset in microseconds
+     */
+    public long clockOffsetMicros(List<Object> traceEvents) {
+        for (Object event : traceEvents) {
+            if (!(event instanceof Map)) {
+                continue;
+            }
+            Map<?, ?> fields = (Map<?, ?>) event;
+            Object args = fields.get("args");
+            if ("clock_sync".equals(fields.get("name")) && args instanceof Map
+                    && SYNC_ID.equals(((Map<?, ?>) args).get("sync_id")) && fields.get("ts") instanceof Number) {
+                return ((Number) fields.get("ts")).longValue() - syncNanos / 1000;
+            }
+        }
+        logger.fine(() -> "No clock sync marker in the browser trace, assuming a shared monotonic clock");
+        return 0;
+    }
+}
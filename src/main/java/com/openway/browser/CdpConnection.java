@@ -0,0 +1,148 @@
+package com.openway.browser;
+
+import org.openqa.selenium.json.Json;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Browser-level DevTools connection. Page-level sessions, as used by {@code ChromeDriver.getDevTools()},
+ * cannot create browser contexts, so this talks to the browser endpoint directly.
+ */
+class CdpConnection implements AutoCloseable {
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final Json json = new Json();
+    private final WebSocket socket;
+    private final AtomicLong ids = new AtomicLong();
+    private final Map<Long, CompletableFuture<Map<String, Object>>> pending = new ConcurrentHashMap<>();
+    private final Map<String, Consumer<Map<String, Object>>> listeners = new ConcurrentHashMap<>();
+
+    /**
+     * Connect to the browser endpoint of a Chrome started with remote debugging
+     *
+     * @param debuggerAddress host and port, e.g. {@code localhost:9222}
+     * @throws IOException if the endpoint cannot be reached
+     */
+    CdpConnection(String debuggerAddress) throws IOException {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(TIMEOUT).build();
+        try {
+            HttpResponse<String> version = client.send(HttpRequest.newBuilder(
+                    URI.create("http://" + debuggerAddress + "/json/version")).timeout(TIMEOUT).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            Map<String, Object> info = json.toType(version.body(), Json.MAP_TYPE);
+            String url = (String) info.get("webSocketDebuggerUrl");
+            if (url == null) {
+                throw new IOException("No browser endpoint at " + debuggerAddress + ": " + version.body());
+            }
+            this.socket = client.newWebSocketBuilder().connectTimeout(TIMEOUT)
+                    .buildAsync(URI.create(url), new Listener()).get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while connecting to " + debuggerAddress, e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IOException("Cannot connect to the browser at " + debuggerAddress, e);
+        }
+    }
+
+    /**
+     * Send a command and wait for its result
+     *
+     * @param method command name, e.g. {@code Target.createBrowserContext}
+     * @param params command parameters
+     * @return the result object
+     * @throws IllegalStateException if the browser returns an error or does not answer in time
+     */
+    Map<String, Object> send(String method, Map<String, Object> params) {
+        long id = ids.incrementAndGet();
+        CompletableFuture<Map<String, Object>> result = new CompletableFuture<>();
+        pending.put(id, result);
+
+        Map<String, Object> message = new HashMap<>();
+        message.put("id", id);
+        message.put("method", method);
+        message.put("params", params);
+        try {
+            synchronized (socket) {
+                // WebSocket allows only one outstanding send
+                socket.sendText(json.toJson(message), true).join();
+            }
+            return result.get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + method, e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException(method + " failed: " + e.getMessage(), e);
+        } finally {
+            pending.remove(id);
+        }
+    }
+
+    /**
+     * Receive an event. Listeners run on the connection's receiving thread, so they must not send commands.
+     *
+     * @param method event name, e.g. {@code Tracing.dataCollected}
+     * @param listener receives the event parameters; replaces an earlier listener of the event
+     */
+    void onEvent(String method, Consumer<Map<String, Object>> listener) {
+        listeners.put(method, listener);
+    }
+
+    @Override
+    public void close() {
+        socket.sendClose(WebSocket.NORMAL_CLOSURE, "").join();
+    }
+
+    private class Listener implements WebSocket.Listener {
+        private final StringBuilder text = new StringBuilder();
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            text.append(data);
+            if (last) {
+                Map<String, Object> message = json.toType(text.toString(), Json.MAP_TYPE);
+                text.setLength(0);
+                Object id = message.get("id");
+                CompletableFuture<Map<String, Object>> result = id == null ? null
+                        : pending.get(((Number) id).longValue());
+                if (result != null) {
+                    if (message.containsKey("error")) {
+                        result.completeExceptionally(new IllegalStateException(String.valueOf(message.get("error"))));
+                    } else {
+                        result.complete((Map<String, Object>) message.get("result"));
+                    }
+                } else if (id == null && message.get("method") != null) {
+                    Consumer<Map<String, Object>> listener = listeners.get(String.valueOf(message.get("method")));
+                    if (listener != null) {
+                        listener.accept((Map<String, Object>) message.get("params"));
+                    }
+                }
+            }
+            webSocket.request(1);
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket webSocket, Throwable error) {
+            for (CompletableFuture<Map<String, Object>> result : pending.values()) {
+                result.completeExceptionally(error);
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.openway.browser;
+
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+
+/**
+ * A ChromeDriver session attached to the shared browser and pinned to the window of one browser
+ * context. It is an ordinary {@link ChromeDriver}, so page objects, screenshots and DevTools work as
+ * usual; it runs on the chromedriver of the shared browser, and quitting it disposes of the context
+ * instead of closing the browser or stopping the driver.
+ */
+class ContextDriver extends ChromeDriver {
+    private final SharedBrowser browser;
+    private final String contextId;
+
+    ContextDriver(AttachedDriverService service, ChromeOptions options, SharedBrowser browser, String contextId) {
+        super(service, options);
+        this.browser = browser;
+        this.contextId = contextId;
+    }
+
+    String getContextId() {
+        return contextId;
+    }
+
+    @Override
+    public void quit() {
+        try {
+            // An attached session leaves the browser running
+            super.quit();
+        } finally {
+            browser.release(this);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.openway.browser;
+
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+
+/**
+ * A ChromeDriver session attached to a warm browser of the {@link BrowserDaemon}. It is an ordinary
+ * {@link ChromeDriver}; quitting it ends the session and hands the browser back to the daemon instead
+ * of closing it.
+ */
+class DaemonDriver extends ChromeDriver {
+    private final BrowserDaemon.Lease lease;
+
+    DaemonDriver(AttachedDriverService service, ChromeOptions options, BrowserDaemon.Lease lease) {
+        super(service, options);
+        this.lease = lease;
+    }
+
+    @Override
+    public void quit() {
+        try {
+            // An attached session leaves the browser running
+            super.quit();
+        } finally {
+            lease.release();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.openway.browser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Memory of the browser processes started by this JVM, read from {@code /proc}.
+ * <p>
+ * Chrome processes share a lot of memory, so the resident sizes of a browser's processes add up to
+ * far more than it really uses. The proportional set size (PSS) splits shared pages between the
+ * processes that map them and can be summed; it is used when the kernel provides it.
+ */
+public class ProcessMemory {
+
+    private ProcessMemory() {
+        // Private constructor to prevent instantiation
+    }
+
+    /**
+     * @return true if memory can be measured on this system
+     */
+    public static boolean isSupported() {
+        return Files.isReadable(Paths.get("/proc/self/status"));
+    }
+
+    /**
+     * Memory of all processes started by this JVM, i.e. drivers and browsers, and their children
+     *
+     * @return bytes, or -1 if not supported
+     */
+    public static long childProcessBytes() {
+        if (!isSupported()) {
+            return -1;
+        }
+        return ProcessHandle.current().descendants().mapToLong(process -> processBytes(process.pid())).sum();
+    }
+
+    /**
+     * @return bytes of memory available for new processes, or -1 if not supported
+     */
+    public static long availableBytes() {
+        return readKilobytes(Paths.get("/proc/meminfo"), "MemAvailable:") * 1024;
+    }
+
+    private static long processBytes(long pid) {
+        long pss = readKilobytes(Paths.get("/proc", Long.toString(pid), "smaps_rollup"), "Pss:");
+        if (pss < 0) {
+            pss = readKilobytes(Paths.get("/proc", Long.toString(pid), "status"), "VmRSS:");
+        }
+        return Math.max(0, pss) * 1024;
+    }
+
+    private static long readKilobytes(Path file, String field) {
+        try {
+            for (String line : Files.readAllLines(file, StandardCharsets.US_ASCII)) {
+                if (line.startsWith(field)) {
+                    return Long.parseLong(line.substring(field.length()).trim().split("\\s+")[0]);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // The process has exited or the file does not exist on this kernel
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,234 @@
+package com.openway.browser;
+
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeDriverService;
+import org.openqa.selenium.chrome.ChromeOptions;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * One Chrome process serving many tests, each in its own browser context.
+ * <p>
+ * A browser context is what an incognito window is to a user: it has its own cookies, storage and
+ * cache, so tests in different contexts cannot see each other's login or cart, but they share the
+ * browser process and its memory. Each context is opened through the DevTools {@code Target} domain
+ * and handed out as a {@link WebDriver} attached to the same browser through its debugger address and
+ * switched to the context's window. All contexts are sessions of the one chromedriver the browser was
+ * started with, so a context costs no driver process of its own.
+ * <p>
+ * The browser tracks how many contexts are open at once and samples the memory of the browser
+ * processes while they are; {@link #printReport(PrintStream)} shows the peak concurrency and the
+ * memory each additional session cost.
+ */
+public class SharedBrowser implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(SharedBrowser.class.getName());
+
+    private final ChromeDriverService service;
+    private final AttachedDriverService sharedService;
+    private final ChromeDriver host;
+    private final String debuggerAddress;
+    private final CdpConnection cdp;
+    private final Object loggingPreferences;
+    private final AtomicInteger open = new AtomicInteger();
+    private final AtomicInteger created = new AtomicInteger();
+    private final long baselineBytes;
+    private int peakContexts;
+    private long peakBytes;
+    private long peakBytesPerContext;
+
+    /**
+     * Start the shared browser
+     *
+     * @param options options of the browser; they apply to every context
+     * @throws WebDriverException if the driver or the browser cannot be started, or the browser does not
+     *         expose a debugger address
+     */
+    public SharedBrowser(ChromeOptions options) {
+        String executable = System.getProperty("webdriver.chrome.driver");
+        ChromeDriverService.Builder builder = new ChromeDriverService.Builder().usingAnyFreePort();
+        if (executable != null) {
+            builder.usingDriverExecutable(new File(executable));
+        }
+        this.service = builder.build();
+        try {
+            service.start();
+            this.sharedService = new AttachedDriverService(new File(service.getExecutable()), service.getUrl().getPort());
+            this.host = new ChromeDriver(sharedService, options);
+        } catch (IOException | RuntimeException e) {
+            service.stop();
+            throw new WebDriverException("Cannot start the shared browser", e);
+        }
+        this.loggingPreferences = options.getCapability(ChromeOptions.LOGGING_PREFS);
+        this.debuggerAddress = debuggerAddress(host.getCapabilities());
+        try {
+            this.cdp = new CdpConnection(debuggerAddress);
+        } catch (IOException e) {
+            host.quit();
+            service.stop();
+            throw new WebDriverException("Cannot open a DevTools connection to the shared browser", e);
+        }
+        this.baselineBytes = ProcessMemory.childProcessBytes();
+        logger.info("Shared browser started at " + debuggerAddress);
+    }
+
+    /**
+     * Open a new isolated browser context
+     *
+     * @return a driver whose session is confined to the new context; quit it to dispose of the context
+     */
+    public WebDriver newContext() {
+        String contextId = (String) cdp.send("Target.createBrowserContext",
+                Collections.singletonMap("disposeOnDetach", false)).get("browserContextId");
+        Map<String, Object> target = new HashMap<>();
+        target.put("url", "about:blank");
+        target.put("browserContextId", contextId);
+        String targetId = (String) cdp.send("Target.createTarget", target).get("targetId");
+
+        ContextDriver driver;
+        try {
+            ChromeOptions attach = new ChromeOptions();
+            attach.setExperimentalOption("debuggerAddress", debuggerAddress);
+            if (loggingPreferences != null) {
+                attach.setCapability(ChromeOptions.LOGGING_PREFS, loggingPreferences);
+            }
+            driver = new ContextDriver(sharedService, attach, this, contextId);
+        } catch (RuntimeException e) {
+            dispose(contextId);
+            throw e;
+        }
+        created.incrementAndGet();
+        open.incrementAndGet();
+        try {
+            driver.switchTo().window(windowHandle(driver, targetId));
+        } catch (RuntimeException e) {
+            driver.quit();
+            throw e;
+        }
+        sample();
+        return driver;
+    }
+
+    /**
+     * Record the memory of the browser processes now, e.g. after the contexts have loaded their pages
+     */
+    public synchronized void sample() {
+        int contexts = open.get();
+        peakContexts = Math.max(peakContexts, contexts);
+        long bytes = ProcessMemory.childProcessBytes();
+        if (bytes < 0) {
+            return;
+        }
+        peakBytes = Math.max(peakBytes, bytes);
+        if (contexts > 0 && baselineBytes >= 0) {
+            peakBytesPerContext = Math.max(peakBytesPerContext, (bytes - baselineBytes) / contexts);
+        }
+    }
+
+    public int getPeakContexts() {
+        return peakContexts;
+    }
+
+    /**
+     * @return memory of the browser and its one driver process before any context was opened
+     */
+    public long getBaselineBytes() {
+        return baselineBytes;
+    }
+
+    /**
+     * @return the largest memory cost of a context seen in any sample, or 0 if memory cannot be measured
+     */
+    public long getPeakBytesPerContext() {
+        return peakBytesPerContext;
+    }
+
+    /**
+     * Print peak concurrency and memory per session
+     *
+     * @param out the stream to print to
+     */
+    public synchronized void printReport(PrintStream out) {
+        out.println("Shared browser: " + created.get() + " contexts opened, at most " + peakContexts + " at once");
+        if (baselineBytes < 0) {
+            out.println("Memory: not measurable on this system");
+            return;
+        }
+        out.println(String.format(Locale.ROOT,
+                "Memory: %.0f MB for the browser and its driver, %.0f MB at peak, %.1f MB per context",
+                baselineBytes / 1048576.0, peakBytes / 1048576.0, peakBytesPerContext / 1048576.0));
+    }
+
+    /**
+     * Dispose of all contexts and close the browser
+     */
+    @Override
+    public void close() {
+        sample();
+        try {
+            cdp.close();
+        } catch (RuntimeException e) {
+            logger.fine(() -> "DevTools connection already closed: " + e.getMessage());
+        }
+        try {
+            host.quit();
+        } finally {
+            service.stop();
+        }
+    }
+
+    void release(ContextDriver driver) {
+        sample();
+        dispose(driver.getContextId());
+        open.decrementAndGet();
+    }
+
+    private void dispose(String contextId) {
+        try {
+            cdp.send("Target.disposeBrowserContext", Collections.singletonMap("browserContextId", contextId));
+        } catch (RuntimeException e) {
+            logger.warning("Failed to dispose browser context " + contextId + ": " + e.getMessage());
+        }
+    }
+
+    private static String windowHandle(WebDriver driver, String targetId) {
+        // ChromeDriver names windows after their DevTools target; the new one may take a moment to appear
+        long deadline = System.currentTimeMillis() + 5000;
+        while (true) {
+            for (String handle : driver.getWindowHandles()) {
+                if (handle.endsWith(targetId)) {
+                    return handle;
+                }
+            }
+            if (System.currentTimeMillis() > deadline) {
+                throw new WebDriverException("No window for browser context target " + targetId);
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new WebDriverException("Interrupted while waiting for target " + targetId, e);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static String debuggerAddress(Capabilities capabilities) {
+        Object chromeOptions = capabilities.getCapability("goog:chromeOptions");
+        Object address = chromeOptions instanceof Map ? ((Map<String, Object>) chromeOptions).get("debuggerAddress") : null;
+        if (address == null) {
+            throw new WebDriverException("ChromeDriver did not report a debugger address");
+        }
+        return address.toString();
+    }
+}
@@ -0,0 +1,148 @@
+package com.openway.impact;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Files and lines that differ between a git revision and the working tree, including uncommitted and
+ * untracked files, read from {@code git diff --unified=0}.
+ */
+public class ChangeSet {
+    private static final Pattern HUNK = Pattern.compile("^@@ -\\d+(?:,\\d+)? \\+(\\d+)(?:,(\\d+))? @@");
+
+    private final Map<String, FileChange> files = new TreeMap<>();
+
+    /**
+     * A changed file
+     */
+    public static class FileChange {
+        private final String path;
+        private boolean whole;
+        private final List<int[]> lines = new ArrayList<>();
+
+        FileChange(String path) {
+            this.path = path;
+        }
+
+        /**
+         * @return path relative to the repository root, with forward slashes
+         */
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * @return true if the file was added or deleted, so every line counts as changed
+         */
+        public boolean isWhole() {
+            return whole;
+        }
+
+        /**
+         * @return changed line ranges of the new version, 1-based and inclusive; a deletion covers the
+         *         lines on both sides of it
+         */
+        public List<int[]> getLines() {
+            return Collections.unmodifiableList(lines);
+        }
+    }
+
+    /**
+     * Compare the working tree with a revision
+     *
+     * @param directory any directory inside the repository
+     * @param base revision to compare with, e.g. {@code origin/main}
+     * @return the changes
+     * @throws IOException if git fails, e.g. because the revision does not exist
+     */
+    public static ChangeSet fromGit(File directory, String base) throws IOException {
+        ChangeSet changes = parse(git(directory, "diff", "--unified=0", "--no-color", "--no-renames", base, "--"));
+        for (String untracked : git(directory, "ls-files", "--others", "--exclude-standard").split("\n")) {
+            if (!untracked.isEmpty()) {
+                changes.files.computeIfAbsent(untracked, FileChange::new).whole = true;
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Run git in a directory
+     *
+     * @param directory working directory
+     * @param arguments git arguments
+     * @return standard output
+     * @throws IOException if git cannot be started or exits with an error
+     */
+    public static String git(File directory, String... arguments) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add("git");
+        command.addAll(Arrays.asList(arguments));
+        Process process = new ProcessBuilder(command).directory(directory).start();
+        String output;
+        String errors;
+        try (InputStream stdout = process.getInputStream(); InputStream stderr = process.getErrorStream()) {
+            output = new String(stdout.readAllBytes(), StandardCharsets.UTF_8);
+            errors = new String(stderr.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        try {
+            if (process.waitFor() != 0) {
+                throw new IOException("git " + String.join(" ", arguments) + " failed: " + errors.trim());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while running git", e);
+        }
+        return output;
+    }
+
+    static ChangeSet parse(String diff) {
+        ChangeSet changes = new ChangeSet();
+        FileChange current = null;
+        boolean header = false;
+        boolean added = false;
+        for (String line : diff.split("\n")) {
+            if (line.startsWith("diff --git ")) {
+                // Binary and mode-only changes have no hunks and count as a whole
+                current = changes.files.computeIfAbsent(line.substring(line.lastIndexOf(" b/") + 3), FileChange::new);
+                current.whole = true;
+                header = true;
+            } else if (header && line.startsWith("--- ")) {
+                added = "/dev/null".equals(line.substring(4));
+            } else if (header && line.startsWith("+++ ")) {
+                current.whole = added || "/dev/null".equals(line.substring(4));
+                header = false;
+            } else if (current != null && !header) {
+                Matcher hunk = HUNK.matcher(line);
+                if (hunk.find()) {
+                    int start = Integer.parseInt(hunk.group(1));
+                    int count = hunk.group(2) == null ? 1 : Integer.parseInt(hunk.group(2));
+                    current.lines.add(count == 0 ? new int[] {Math.max(1, start), start + 1}
+                            : new int[] {start, start + count - 1});
+                }
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * @return changed files by path
+     */
+    public Collection<FileChange> getFiles() {
+        return Collections.unmodifiableCollection(files.values());
+    }
+
+    public boolean isEmpty() {
+        return files.isEmpty();
+    }
+}
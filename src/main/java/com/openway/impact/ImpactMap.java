@@ -0,0 +1,168 @@
+package com.openway.impact;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.logging.Logger;
+
+/**
+ * Which page-object methods each test, and each data row of a data-driven test, called in the runs
+ * that recorded it.
+ * <p>
+ * The map is a tab separated file that lives outside {@code target} like the performance history,
+ * {@code impact.map}, default {@code ~/.periplus-test/test-impact.tsv}:
+ * <pre>
+ * # commit 1a2b3c...
+ * ShoppingCartTest.testAddProductsToCart  [Blockchain, 0, 1, true]  HomePage.searchForProduct,ProductPage.addToCart,...
+ * ShoppingCartTest.testRemoveFromCart                                 CartPage.removeProduct,...
+ * </pre>
+ * A run only replaces the entries of the tests and rows it ran, so a run of a selection keeps what
+ * earlier runs recorded for the rest. The commit is the one checked out when the map was last saved.
+ */
+public class ImpactMap {
+    private static final Logger logger = Logger.getLogger(ImpactMap.class.getName());
+    private static final String COMMIT_PREFIX = "# commit ";
+
+    private final Map<String, Map<String, Set<String>>> tests = new TreeMap<>();
+    private String commit;
+
+    /**
+     * Load a map
+     *
+     * @param file the map file
+     * @return the map, empty if the file does not exist
+     * @throws IOException if the file cannot be read
+     */
+    public static ImpactMap load(File file) throws IOException {
+        ImpactMap map = new ImpactMap();
+        if (!file.isFile()) {
+            return map;
+        }
+
+        int lineNumber = 0;
+        for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+            lineNumber++;
+            if (line.startsWith(COMMIT_PREFIX)) {
+                map.commit = line.substring(COMMIT_PREFIX.length()).trim();
+                continue;
+            }
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("\t", -1);
+            if (fields.length != 3) {
+                logger.warning("Skipping malformed line " + lineNumber + " of " + file);
+                continue;
+            }
+            Set<String> calls = new TreeSet<>();
+            for (String call : fields[2].split(",")) {
+                if (!call.isEmpty()) {
+                    calls.add(call);
+                }
+            }
+            map.record(fields[0], fields[1], calls);
+        }
+        return map;
+    }
+
+    /**
+     * Write the map, replacing the file in one step so readers never see half of it
+     *
+     * @param file the map file
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized void save(File file) throws IOException {
+        StringBuilder out = new StringBuilder();
+        if (commit != null) {
+            out.append(COMMIT_PREFIX).append(commit).append('\n');
+        }
+        out.append("# test\trow\tpage-object calls\n");
+        for (Map.Entry<String, Map<String, Set<String>>> test : tests.entrySet()) {
+            for (Map.Entry<String, Set<String>> row : test.getValue().entrySet()) {
+                out.append(test.getKey()).append('\t').append(row.getKey()).append('\t')
+                        .append(String.join(",", row.getValue())).append('\n');
+            }
+        }
+
+        File target = file.getAbsoluteFile();
+        target.getParentFile().mkdirs();
+        File temp = new File(target.getParentFile(), target.getName() + ".tmp");
+        Files.write(temp.toPath(), out.toString().getBytes(StandardCharsets.UTF_8));
+        Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Set the calls of a test invocation, replacing what an earlier run recorded for it
+     *
+     * @param test test method as {@code Class.method}
+     * @param row data row as printed by {@code Arrays.toString}, empty if the test takes no data
+     * @param calls page-object methods called as {@code Class.method}
+     */
+    public synchronized void record(String test, String row, Set<String> calls) {
+        tests.computeIfAbsent(test, key -> new TreeMap<>()).put(clean(row), new TreeSet<>(calls));
+    }
+
+    /**
+     * Add calls to a test invocation, e.g. those of its {@code @AfterMethod} cleanup
+     *
+     * @param test test method as {@code Class.method}
+     * @param row data row as printed by {@code Arrays.toString}, empty if the test takes no data
+     * @param calls page-object methods called as {@code Class.method}
+     */
+    public synchronized void addCalls(String test, String row, Set<String> calls) {
+        tests.computeIfAbsent(test, key -> new TreeMap<>()).computeIfAbsent(clean(row), key -> new TreeSet<>())
+                .addAll(calls);
+    }
+
+    public synchronized boolean isEmpty() {
+        return tests.isEmpty();
+    }
+
+    /**
+     * @return the commit checked out when the map was saved, or null if unknown
+     */
+    public String getCommit() {
+        return commit;
+    }
+
+    public void setCommit(String commit) {
+        this.commit = commit;
+    }
+
+    /**
+     * @return recorded tests as {@code Class.method}
+     */
+    public synchronized Set<String> getTests() {
+        return Collections.unmodifiableSet(new TreeSet<>(tests.keySet()));
+    }
+
+    /**
+     * @param test test method as {@code Class.method}
+     * @return calls by data row, empty if the test was never recorded
+     */
+    public synchronized Map<String, Set<String>> getRows(String test) {
+        Map<String, Set<String>> rows = tests.get(test);
+        return rows == null ? Collections.emptyMap() : Collections.unmodifiableMap(new TreeMap<>(rows));
+    }
+
+    /**
+     * @param test test method as {@code Class.method}
+     * @param row data row as printed by {@code Arrays.toString}
+     * @return true if the row of the test was recorded
+     */
+    public synchronized boolean hasRow(String test, String row) {
+        Map<String, Set<String>> rows = tests.get(test);
+        return rows != null && rows.containsKey(clean(row));
+    }
+
+    private static String clean(String row) {
+        return row.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+}
@@ -0,0 +1,345 @@
+package com.openway.impact;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+
+/**
+ * Decides which tests a change can affect, from an {@link ImpactMap} and a {@link ChangeSet}.
+ * <p>
+ * Changed files are mapped as follows:
+ * <ul>
+ *     <li>a page object under {@code src/main/java}: tests whose recorded calls include a changed
+ *     method. A change outside the recorded methods, e.g. a locator field or a private helper, affects
+ *     every test that called the class or a subclass of it, so a change to {@code BasePage} affects
+ *     every test that used a page.</li>
+ *     <li>a test class under {@code src/test/java}: the changed test methods with all their rows, or
+ *     every test of the class if anything else changed, e.g. a {@code @BeforeMethod}</li>
+ *     <li>test data under {@code src/test/resources/data}: every data-driven test, but only rows the
+ *     map has never seen, i.e. new and edited ones</li>
+ *     <li>files matching an ignore pattern: nothing</li>
+ *     <li>anything else, e.g. {@code DriverFactory}: cannot be mapped to tests; the whole suite runs
+ *     unless the fallback is switched off</li>
+ * </ul>
+ * Tests and rows that are not in the map at all always run, since nothing is known about them.
+ */
+public class ImpactSelector {
+    private static final Logger logger = Logger.getLogger(ImpactSelector.class.getName());
+    private static final String MAIN_SOURCES = "src/main/java/";
+    private static final String TEST_SOURCES = "src/test/java/";
+    private static final String TEST_DATA = "src/test/resources/data/";
+
+    private final ImpactMap map;
+    private final File root;
+    private final List<PathMatcher> ignored = new ArrayList<>();
+    private final boolean fullSuiteFallback;
+
+    /**
+     * Constructor
+     *
+     * @param map recorded calls of each test
+     * @param root repository root the changed paths are relative to
+     * @param ignore glob patterns of files that cannot affect any test, e.g. {@code **}{@code /*.md}
+     * @param fullSuiteFallback true to run everything when a change cannot be mapped to tests
+     */
+    public ImpactSelector(ImpactMap map, File root, List<String> ignore, boolean fullSuiteFallback) {
+        this.map = map;
+        this.root = root;
+        for (String pattern : ignore) {
+            ignored.add(FileSystems.getDefault().getPathMatcher("glob:" + pattern));
+        }
+        this.fullSuiteFallback = fullSuiteFallback;
+    }
+
+    /**
+     * Select the tests affected by a change
+     *
+     * @param changes changed files
+     * @return the selection
+     */
+    public Selection select(ChangeSet changes) {
+        Selection selection = new Selection(map);
+        if (map.isEmpty()) {
+            selection.runAll("no recorded test impact map");
+            return selection;
+        }
+
+        for (ChangeSet.FileChange change : changes.getFiles()) {
+            String path = change.getPath();
+            if (isIgnored(path)) {
+                selection.reasons.add(path + ": ignored");
+            } else if (path.startsWith(TEST_DATA)) {
+                selection.dataChanged = true;
+                selection.reasons.add(path + ": new and edited rows of data-driven tests");
+            } else if (path.startsWith(MAIN_SOURCES) && path.endsWith(".java") && isPageObject(path)) {
+                selectPageChange(change, selection);
+            } else if (path.startsWith(TEST_SOURCES) && path.endsWith(".java") && hasRecordedTests(simpleName(path))) {
+                selectTestChange(change, selection);
+            } else if (fullSuiteFallback) {
+                selection.runAll(path + ": not mapped to tests");
+            } else {
+                selection.reasons.add(path + ": not mapped to tests, ignored");
+            }
+        }
+        return selection;
+    }
+
+    private void selectPageChange(ChangeSet.FileChange change, Selection selection) {
+        String className = simpleName(change.getPath());
+        Set<String> changedCalls = new HashSet<>();
+        boolean wholeClass = change.isWhole();
+        if (!wholeClass) {
+            for (String member : changedMembers(change)) {
+                if (JavaMembers.CLASS.equals(member) || !isRecordedCall(className + "." + member)) {
+                    // Fields and helpers that are not page-object calls of their own reach every method
+                    wholeClass = true;
+                } else {
+                    changedCalls.add(className + "." + member);
+                }
+            }
+        }
+
+        String qualifiedName = qualifiedName(change.getPath());
+        Class<?> changedClass = load(qualifiedName);
+        String packageName = qualifiedName.substring(0, qualifiedName.length() - className.length());
+        for (String test : map.getTests()) {
+            for (Map.Entry<String, Set<String>> row : map.getRows(test).entrySet()) {
+                for (String call : row.getValue()) {
+                    String callClass = call.substring(0, call.lastIndexOf('.'));
+                    boolean affected = changedCalls.contains(call) || wholeClass && (callClass.equals(className)
+                            || changedClass != null && isSubclass(changedClass, load(packageName + callClass)));
+                    if (affected) {
+                        selection.add(test, row.getKey(), change.getPath() + ": " + call);
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    private void selectTestChange(ChangeSet.FileChange change, Selection selection) {
+        String className = simpleName(change.getPath());
+        Set<String> changedTests = new LinkedHashSet<>();
+        boolean wholeClass = change.isWhole();
+        if (!wholeClass) {
+            for (String member : changedMembers(change)) {
+                if (map.getTests().contains(className + "." + member)) {
+                    changedTests.add(className + "." + member);
+                } else {
+                    wholeClass = true;
+                }
+            }
+        }
+
+        for (String test : map.getTests()) {
+            if (wholeClass && test.startsWith(className + ".") || changedTests.contains(test)) {
+                selection.addAllRows(test, change.getPath() + (wholeClass ? "" : ": " + test));
+            }
+        }
+    }
+
+    private Set<String> changedMembers(ChangeSet.FileChange change) {
+        Set<String> members = new LinkedHashSet<>();
+        List<String> source;
+        try {
+            source = Files.readAllLines(new File(root, change.getPath()).toPath(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            members.add(JavaMembers.CLASS);
+            return members;
+        }
+
+        JavaMembers javaMembers = new JavaMembers(source);
+        for (int[] range : change.getLines()) {
+            for (int line = range[0]; line <= range[1]; line++) {
+                String owner = javaMembers.ownerOf(line);
+                if (owner != null) {
+                    members.add(owner);
+                }
+            }
+        }
+        return members;
+    }
+
+    private boolean isIgnored(String path) {
+        for (PathMatcher matcher : ignored) {
+            if (matcher.matches(Paths.get(path))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isPageObject(String path) {
+        String className = simpleName(path);
+        for (String test : map.getTests()) {
+            for (Set<String> calls : map.getRows(test).values()) {
+                for (String call : calls) {
+                    if (call.startsWith(className + ".")) {
+                        return true;
+                    }
+                }
+            }
+        }
+        // A page class no test called yet, e.g. a base class of the called ones
+        Class<?> type = load(qualifiedName(path));
+        return type != null && type.getPackage() != null && type.getPackage().getName().endsWith(".pages");
+    }
+
+    private boolean isRecordedCall(String call) {
+        for (String test : map.getTests()) {
+            for (Set<String> calls : map.getRows(test).values()) {
+                if (calls.contains(call)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean hasRecordedTests(String className) {
+        for (String test : map.getTests()) {
+            if (test.startsWith(className + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isSubclass(Class<?> base, Class<?> type) {
+        return type != null && base.isAssignableFrom(type);
+    }
+
+    private static Class<?> load(String className) {
+        try {
+            return Class.forName(className, false, ImpactSelector.class.getClassLoader());
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+    }
+
+    private static String simpleName(String path) {
+        String file = path.substring(path.lastIndexOf('/') + 1);
+        return file.endsWith(".java") ? file.substring(0, file.length() - 5) : file;
+    }
+
+    private static String qualifiedName(String path) {
+        String relative = path.startsWith(MAIN_SOURCES) ? path.substring(MAIN_SOURCES.length()) : path;
+        return relative.substring(0, relative.length() - ".java".length()).replace('/', '.');
+    }
+
+    /**
+     * Tests and rows chosen by a selection
+     */
+    public static class Selection {
+        private final ImpactMap map;
+        private final Map<String, Set<String>> rows = new TreeMap<>();
+        private final Set<String> allRows = new HashSet<>();
+        private final List<String> reasons = new ArrayList<>();
+        private boolean full;
+        private boolean dataChanged;
+
+        Selection(ImpactMap map) {
+            this.map = map;
+        }
+
+        /**
+         * Select everything, e.g. when there is nothing to compare with
+         *
+         * @param reason why the whole suite runs
+         * @return the selection
+         */
+        public static Selection everything(String reason) {
+            Selection selection = new Selection(new ImpactMap());
+            selection.runAll(reason);
+            return selection;
+        }
+
+        /**
+         * @return true if the whole suite runs
+         */
+        public boolean isFull() {
+            return full;
+        }
+
+        /**
+         * @param test test method as {@code Class.method}
+         * @return true if any invocation of the test may run
+         */
+        public boolean includesTest(String test) {
+            return full || rows.containsKey(test) || allRows.contains(test) || !map.getTests().contains(test)
+                    || dataChanged && !map.getRows(test).containsKey("");
+        }
+
+        /**
+         * @param test test method as {@code Class.method}
+         * @param row data row as printed by {@code Arrays.toString}
+         * @return true if the row runs
+         */
+        public boolean includesRow(String test, String row) {
+            return full || allRows.contains(test) || !map.hasRow(test, row)
+                    || rows.getOrDefault(test, Collections.emptySet()).contains(row);
+        }
+
+        /**
+         * @return why each change selected what it did
+         */
+        public List<String> getReasons() {
+            return Collections.unmodifiableList(reasons);
+        }
+
+        /**
+         * Log the selection and its reasons
+         */
+        public void log() {
+            if (full) {
+                logger.info("Test impact: running the whole suite, " + String.join("; ", reasons));
+                return;
+            }
+            StringBuilder summary = new StringBuilder("Test impact: ");
+            summary.append(allRows.size() + rows.size()).append(" of ").append(map.getTests().size())
+                    .append(" recorded tests affected");
+            if (dataChanged) {
+                summary.append(", plus new and edited data rows");
+            }
+            for (String reason : reasons) {
+                summary.append(System.lineSeparator()).append("  ").append(reason);
+            }
+            logger.info(summary.toString());
+        }
+
+        void runAll(String reason) {
+            full = true;
+            reasons.add(reason);
+        }
+
+        void add(String test, String row, String reason) {
+            if (row.isEmpty()) {
+                addAllRows(test, reason);
+                return;
+            }
+            if (!allRows.contains(test) && rows.computeIfAbsent(test, key -> new LinkedHashSet<>()).add(row)) {
+                reasons.add(reason + " -> " + test + " " + row);
+            }
+        }
+
+        void addAllRows(String test, String reason) {
+            rows.remove(test);
+            if (allRows.add(test)) {
+                reasons.add(reason + " -> " + test);
+            }
+        }
+    }
+}
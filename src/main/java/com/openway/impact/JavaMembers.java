@@ -0,0 +1,128 @@
+package com.openway.impact;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Tells which method of a Java source file a line belongs to, without a full parser.
+ * <p>
+ * Braces are counted outside of strings and comments to find the top-level class body; a member line
+ * that looks like a method or constructor declaration starts a method, which ends where its braces
+ * close. Javadoc and annotations right above a declaration belong to the method. Blank lines, comments,
+ * package and import lines belong to nothing; everything else, e.g. fields, belongs to the class.
+ */
+class JavaMembers {
+    private static final Pattern DECLARATION = Pattern.compile(
+            "^\\s*(?:(?:public|protected|private|static|final|synchronized|abstract|default|native)\\s+)*"
+            + "(?:<[^>]*>\\s+)?(?:[\\w.$<>\\[\\],?\\s]+\\s+)?(\\w+)\\s*\\(");
+
+    /** Line owned by the class as a whole */
+    static final String CLASS = "";
+
+    private final String[] owners;
+
+    JavaMembers(List<String> source) {
+        owners = new String[source.size() + 2];
+        int depth = 0;
+        boolean inComment = false;
+        int pendingStart = -1;
+        String method = null;
+        int methodStart = -1;
+        boolean methodOpened = false;
+
+        for (int i = 0; i < source.size(); i++) {
+            int lineNumber = i + 1;
+            String line = source.get(i);
+            String trimmed = line.trim();
+            boolean commentLine = inComment || trimmed.startsWith("//") || trimmed.startsWith("/*") || trimmed.startsWith("*");
+            int depthBefore = depth;
+
+            StringBuilder code = new StringBuilder();
+            for (int c = 0; c < line.length(); c++) {
+                char ch = line.charAt(c);
+                char next = c + 1 < line.length() ? line.charAt(c + 1) : 0;
+                if (inComment) {
+                    if (ch == '*' && next == '/') {
+                        inComment = false;
+                        c++;
+                    }
+                } else if (ch == '/' && next == '*') {
+                    inComment = true;
+                    c++;
+                } else if (ch == '/' && next == '/') {
+                    break;
+                } else if (ch == '"' || ch == '\'') {
+                    // Skip the literal, honouring escapes
+                    c++;
+                    while (c < line.length() && line.charAt(c) != ch) {
+                        if (line.charAt(c) == '\\') {
+                            c++;
+                        }
+                        c++;
+                    }
+                } else {
+                    code.append(ch);
+                    if (ch == '{') {
+                        depth++;
+                    } else if (ch == '}') {
+                        depth--;
+                    }
+                }
+            }
+
+            if (method == null && depthBefore == 1) {
+                String declaration = code.toString();
+                Matcher matcher = DECLARATION.matcher(declaration);
+                if (!commentLine && !trimmed.startsWith("@") && matcher.find()
+                        && !declaration.substring(0, matcher.end()).contains("=")
+                        && !declaration.matches("\\s*(?:return|new|throw)\\b.*")
+                        && !declaration.contains(" class ") && !declaration.contains(" interface ")) {
+                    method = matcher.group(1);
+                    methodStart = pendingStart >= 0 ? pendingStart : lineNumber;
+                    methodOpened = false;
+                } else if (commentLine && trimmed.startsWith("/**") || trimmed.startsWith("@")) {
+                    if (pendingStart < 0) {
+                        pendingStart = lineNumber;
+                    }
+                } else if (!commentLine && !trimmed.isEmpty()) {
+                    pendingStart = -1;
+                }
+            }
+
+            if (method != null) {
+                methodOpened |= depth > 1;
+                boolean ended = methodOpened ? depth <= 1 : code.toString().trim().endsWith(";");
+                if (ended) {
+                    for (int l = methodStart; l <= lineNumber; l++) {
+                        owners[l] = method;
+                    }
+                    method = null;
+                    pendingStart = -1;
+                }
+                continue;
+            }
+
+            if (owners[lineNumber] == null && !trimmed.isEmpty() && !commentLine && depthBefore >= 1
+                    || depthBefore == 0 && !trimmed.isEmpty() && !commentLine
+                    && !trimmed.startsWith("package ") && !trimmed.startsWith("import ")) {
+                owners[lineNumber] = CLASS;
+            }
+        }
+        if (method != null) {
+            for (int l = methodStart; l < owners.length; l++) {
+                owners[l] = method;
+            }
+        }
+    }
+
+    /**
+     * @param lineNumber 1-based line number
+     * @return the method the line belongs to, {@link #CLASS} for class-level code, or null if the line
+     *         does not matter, e.g. a comment or import
+     */
+    String ownerOf(int lineNumber) {
+        return lineNumber >= 1 && lineNumber < owners.length ? owners[lineNumber] : null;
+    }
+}
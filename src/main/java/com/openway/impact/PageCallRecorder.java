@@ -0,0 +1,59 @@
+package com.openway.impact;
+
+import java.lang.reflect.Method;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Collects the page-object methods called on each thread, so they can be attributed to the test that
+ * ran there. Fed by the page-object timing interceptor; does nothing until recording is switched on.
+ */
+public class PageCallRecorder {
+    private static final ThreadLocal<Set<String>> CALLS = ThreadLocal.withInitial(TreeSet::new);
+    private static volatile boolean recording;
+
+    private PageCallRecorder() {
+        // Private constructor to prevent instantiation
+    }
+
+    public static void setRecording(boolean enabled) {
+        recording = enabled;
+    }
+
+    public static boolean isRecording() {
+        return recording;
+    }
+
+    /**
+     * Note a call on the current thread
+     *
+     * @param method the page-object method
+     */
+    public static void record(Method method) {
+        if (recording) {
+            CALLS.get().add(method.getDeclaringClass().getSimpleName() + "." + method.getName());
+        }
+    }
+
+    /**
+     * Note calls that another thread made on behalf of the current one
+     *
+     * @param calls calls as {@code Class.method}, as returned by {@link #drain()} on the other thread
+     */
+    public static void addAll(Set<String> calls) {
+        if (recording) {
+            CALLS.get().addAll(calls);
+        }
+    }
+
+    /**
+     * Get and clear the calls recorded on the current thread
+     *
+     * @return calls as {@code Class.method}, sorted
+     */
+    public static Set<String> drain() {
+        Set<String> calls = CALLS.get();
+        CALLS.remove();
+        return calls;
+    }
+}
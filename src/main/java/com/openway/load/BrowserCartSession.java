@@ -0,0 +1,100 @@
+package com.openway.load;
+
+import com.openway.pages.CartPage;
+import com.openway.pages.LoginPage;
+import com.openway.pages.Pages;
+import com.openway.utils.DriverFactory;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cart session in a browser from {@link DriverFactory}. It logs in through the page objects, sends
+ * mutations from the page with {@code fetch} so they carry the browser's own session cookie, and reads
+ * the cart through {@link CartPage}.
+ */
+class BrowserCartSession implements CartSession {
+    private static final String MUTATE_SCRIPT =
+            "var done = arguments[arguments.length - 1];"
+            + "fetch(arguments[0], {method: 'POST', credentials: 'same-origin',"
+            + "    headers: {'Content-Type': 'application/x-www-form-urlencoded'}, body: arguments[1]})"
+            + "  .then(function (response) { done(response.status); }, function () { done(-1); });";
+
+    private final WebDriver driver;
+    private final String baseUrl;
+    private final String email;
+    private final String password;
+
+    /**
+     * Constructor
+     *
+     * @param browserName browser name of the configuration
+     * @param headless true to run without a window
+     * @param baseUrl base URL of the shop, ending with a slash
+     * @param email account email shared by all sessions
+     * @param password account password
+     */
+    BrowserCartSession(String browserName, boolean headless, String baseUrl, String email, String password) {
+        this.driver = DriverFactory.createDriver(browserName, headless);
+        this.baseUrl = baseUrl;
+        this.email = email;
+        this.password = password;
+        driver.manage().timeouts().scriptTimeout(Duration.ofSeconds(30));
+    }
+
+    @Override
+    public void login() throws IOException {
+        try {
+            driver.get(baseUrl + "account/Login");
+            Pages.navigated(driver);
+            Pages.create(LoginPage.class, driver).login(email, password);
+        } catch (WebDriverException e) {
+            throw new IOException("Browser login of " + email + " failed: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public CartOperation.Outcome mutate(CartOperation.Type type, String productId, int quantity) {
+        try {
+            Object status = ((JavascriptExecutor) driver).executeAsyncScript(MUTATE_SCRIPT,
+                    baseUrl + "cart/" + type.name().toLowerCase(), "product_id=" + productId + "&quantity=" + quantity);
+            long code = status instanceof Number ? ((Number) status).longValue() : -1;
+            return code == 200 ? CartOperation.Outcome.APPLIED
+                    : code == 409 ? CartOperation.Outcome.REJECTED : CartOperation.Outcome.UNKNOWN;
+        } catch (WebDriverException e) {
+            return CartOperation.Outcome.UNKNOWN;
+        }
+    }
+
+    @Override
+    public Map<String, Integer> readCart() throws IOException {
+        try {
+            driver.get(baseUrl + "checkout/cart");
+            Pages.navigated(driver);
+            CartPage cartPage = Pages.create(CartPage.class, driver);
+            Map<String, Integer> lines = new LinkedHashMap<>();
+            for (String productId : cartPage.getProductIds()) {
+                lines.put(productId, cartPage.getProductQuantity(productId));
+            }
+            return lines;
+        } catch (WebDriverException e) {
+            throw new IOException("Cannot read the cart page: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String getKind() {
+        return "browser";
+    }
+
+    @Override
+    public void close() {
+        Pages.release(driver);
+        driver.quit();
+    }
+}
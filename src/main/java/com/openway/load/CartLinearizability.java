@@ -0,0 +1,180 @@
+package com.openway.load;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Checks a history of concurrent operations on one cart line against a sequential model of the cart.
+ * <p>
+ * The history is linearizable if the operations can be put in one order that respects real time (an
+ * operation that was answered before another was sent comes first) and in which every reply and the final
+ * quantity match the model: {@code ADD q} adds q, {@code UPDATE q} sets q or removes the line below 1 and is
+ * refused when the line is absent, {@code REMOVE} empties the line and is refused when it is absent. An
+ * unanswered operation may or may not have taken effect. Cart lines are independent, so a cart is checked
+ * line by line, which keeps the search small.
+ * <p>
+ * The search tries every operation that may come next, remembering the (operations done, quantity) states
+ * already explored, and gives up as inconclusive after a budget of states.
+ */
+class CartLinearizability {
+    /** Result of a check */
+    enum Verdict { LINEARIZABLE, VIOLATION, INCONCLUSIVE }
+
+    private static final long UNANSWERED = Long.MAX_VALUE - 2;
+
+    private final List<CartOperation> operations;
+    private final long[] invoke;
+    private final long[] response;
+    private final Set<State> explored = new HashSet<>();
+    private final long budget;
+
+    private CartLinearizability(List<CartOperation> operations, long budget) {
+        this.operations = operations;
+        this.budget = budget;
+        this.invoke = new long[operations.size()];
+        this.response = new long[operations.size()];
+        for (int i = 0; i < operations.size(); i++) {
+            CartOperation operation = operations.get(i);
+            invoke[i] = operation.invokeNanos;
+            response[i] = operation.outcome == CartOperation.Outcome.UNKNOWN ? UNANSWERED : operation.responseNanos;
+        }
+    }
+
+    /**
+     * Check the history of one cart line
+     *
+     * @param initialQuantity quantity before the first operation, 0 if the line was absent
+     * @param mutations the mutations of the line by all sessions
+     * @param finalQuantity quantity read after all mutations were answered, 0 if the line is absent
+     * @param budget most states to explore before giving up
+     * @return the verdict
+     */
+    static Verdict check(int initialQuantity, List<CartOperation> mutations, int finalQuantity, long budget) {
+        List<CartOperation> history = new ArrayList<>(mutations);
+        history.sort(Comparator.comparingLong(operation -> operation.invokeNanos));
+        String productId = mutations.isEmpty() ? "" : mutations.get(0).productId;
+        history.add(new CartOperation(-1, CartOperation.Type.READ, productId, finalQuantity,
+                Long.MAX_VALUE - 1, Long.MAX_VALUE, CartOperation.Outcome.APPLIED));
+
+        CartLinearizability checker = new CartLinearizability(history, budget);
+        try {
+            return checker.search(new BitSet(history.size()), 0, initialQuantity)
+                    ? Verdict.LINEARIZABLE : Verdict.VIOLATION;
+        } catch (BudgetExceeded e) {
+            return Verdict.INCONCLUSIVE;
+        }
+    }
+
+    /**
+     * @param done operations already placed in the order
+     * @param first index of the first operation not done
+     * @param quantity quantity of the line after the placed operations
+     * @return true if the remaining operations can be placed
+     */
+    private boolean search(BitSet done, int first, int quantity) {
+        if (first == operations.size()) {
+            return true;
+        }
+        if (!explored.add(new State(done, quantity))) {
+            return false;
+        }
+        if (explored.size() > budget) {
+            throw new BudgetExceeded();
+        }
+
+        // An operation can come next if it was sent before every remaining operation was answered
+        long deadline = Long.MAX_VALUE;
+        for (int i = first; i < operations.size() && invoke[i] <= deadline; i++) {
+            if (!done.get(i)) {
+                deadline = Math.min(deadline, response[i]);
+            }
+        }
+        for (int i = first; i < operations.size() && invoke[i] <= deadline; i++) {
+            if (done.get(i)) {
+                continue;
+            }
+            int[] next = apply(operations.get(i), quantity);
+            if (next.length == 0) {
+                continue;
+            }
+            done.set(i);
+            int nextFirst = done.nextClearBit(first);
+            for (int state : next) {
+                if (search(done, nextFirst, state)) {
+                    return true;
+                }
+            }
+            done.clear(i);
+        }
+        return false;
+    }
+
+    /**
+     * @return the quantities the line can have after the operation, none if its reply is impossible
+     */
+    private static int[] apply(CartOperation operation, int quantity) {
+        boolean present = quantity > 0;
+        switch (operation.type) {
+            case ADD:
+                if (operation.outcome == CartOperation.Outcome.APPLIED) {
+                    return new int[] {quantity + operation.quantity};
+                }
+                return operation.outcome == CartOperation.Outcome.UNKNOWN
+                        ? new int[] {quantity + operation.quantity, quantity} : new int[0];
+            case UPDATE:
+                int updated = Math.max(operation.quantity, 0);
+                return outcomeOf(operation, present, updated, quantity);
+            case REMOVE:
+                return outcomeOf(operation, present, 0, quantity);
+            case READ:
+                return quantity == operation.quantity ? new int[] {quantity} : new int[0];
+            default:
+                throw new IllegalArgumentException("Unknown operation: " + operation.type);
+        }
+    }
+
+    /**
+     * Outcome of an operation that needs the line to be present
+     */
+    private static int[] outcomeOf(CartOperation operation, boolean present, int applied, int quantity) {
+        switch (operation.outcome) {
+            case APPLIED:
+                return present ? new int[] {applied} : new int[0];
+            case REJECTED:
+                return present ? new int[0] : new int[] {quantity};
+            default:
+                return present && applied != quantity ? new int[] {applied, quantity} : new int[] {quantity};
+        }
+    }
+
+    private static final class State {
+        private final BitSet done;
+        private final int quantity;
+
+        State(BitSet done, int quantity) {
+            this.done = (BitSet) done.clone();
+            this.quantity = quantity;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof State && ((State) other).quantity == quantity && ((State) other).done.equals(done);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(done, quantity);
+        }
+    }
+
+    private static final class BudgetExceeded extends RuntimeException {
+        BudgetExceeded() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.openway.load;
+
+/**
+ * One operation on the shared cart as a session saw it: what it asked for, when it was invoked and
+ * answered, and what the shop replied. Times are {@link System#nanoTime()} values.
+ */
+class CartOperation {
+    /** What the operation does to its cart line */
+    enum Type { ADD, UPDATE, REMOVE, READ }
+
+    /** What the shop replied to a mutation */
+    enum Outcome {
+        /** The mutation was applied */
+        APPLIED,
+        /** The shop refused it because the product was not in the cart, e.g. removed by another session */
+        REJECTED,
+        /** No answer, e.g. a timeout; the mutation may or may not have been applied */
+        UNKNOWN
+    }
+
+    final int session;
+    final Type type;
+    final String productId;
+    final int quantity;
+    final long invokeNanos;
+    final long responseNanos;
+    final Outcome outcome;
+
+    /**
+     * @param session number of the session that issued the operation
+     * @param type kind of operation
+     * @param productId product of the cart line
+     * @param quantity quantity added or set, or the quantity seen by a read
+     * @param invokeNanos when the request was sent
+     * @param responseNanos when the reply arrived
+     * @param outcome the reply
+     */
+    CartOperation(int session, Type type, String productId, int quantity, long invokeNanos, long responseNanos,
+                  Outcome outcome) {
+        this.session = session;
+        this.type = type;
+        this.productId = productId;
+        this.quantity = quantity;
+        this.invokeNanos = invokeNanos;
+        this.responseNanos = responseNanos;
+        this.outcome = outcome;
+    }
+
+    @Override
+    public String toString() {
+        return "session " + session + " " + type + " " + productId
+                + (type == Type.REMOVE ? "" : " " + quantity) + " -> " + outcome;
+    }
+}
@@ -0,0 +1,43 @@
+package com.openway.load;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * A logged-in session of the stress account that can change and read the shared cart
+ */
+interface CartSession extends AutoCloseable {
+
+    /**
+     * Log in to the stress account
+     *
+     * @throws IOException if the shop cannot be reached or rejects the login
+     */
+    void login() throws IOException;
+
+    /**
+     * Send one cart mutation
+     *
+     * @param type {@code ADD}, {@code UPDATE} or {@code REMOVE}
+     * @param productId the product
+     * @param quantity quantity to add or set, ignored by {@code REMOVE}
+     * @return how the shop answered
+     */
+    CartOperation.Outcome mutate(CartOperation.Type type, String productId, int quantity);
+
+    /**
+     * Read the cart as the shop shows it
+     *
+     * @return product ID to quantity
+     * @throws IOException if the cart page cannot be read
+     */
+    Map<String, Integer> readCart() throws IOException;
+
+    /**
+     * @return short description for the report, e.g. {@code http} or {@code browser}
+     */
+    String getKind();
+
+    @Override
+    void close();
+}
@@ -0,0 +1,135 @@
+package com.openway.load;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of a cart consistency stress run: per concurrency level, how often mutations of different sessions
+ * overlapped and conflicted, how long they took, and whether the final cart is explained by some
+ * linearization of them
+ */
+public class CartStressReport {
+    private final List<Level> levels = new ArrayList<>();
+
+    /**
+     * One concurrency level of the run
+     */
+    static class Level {
+        final int sessions;
+        final int browsers;
+        final long durationMillis;
+        final LatencyHistogram latency = new LatencyHistogram();
+        final Map<CartOperation.Type, LatencyHistogram> latencyByType = new EnumMap<>(CartOperation.Type.class);
+        final List<String> violations = new ArrayList<>();
+        int mutations;
+        int conditional;
+        int rejected;
+        int unanswered;
+        int overlapping;
+        CartLinearizability.Verdict verdict = CartLinearizability.Verdict.LINEARIZABLE;
+
+        Level(int sessions, int browsers, long durationMillis) {
+            this.sessions = sessions;
+            this.browsers = browsers;
+            this.durationMillis = durationMillis;
+        }
+
+        void record(CartOperation operation) {
+            long micros = (operation.responseNanos - operation.invokeNanos) / 1000;
+            latency.record(micros);
+            latencyByType.computeIfAbsent(operation.type, type -> new LatencyHistogram()).record(micros);
+            mutations++;
+            if (operation.type != CartOperation.Type.ADD) {
+                conditional++;
+            }
+            if (operation.outcome == CartOperation.Outcome.REJECTED) {
+                rejected++;
+            } else if (operation.outcome == CartOperation.Outcome.UNKNOWN) {
+                unanswered++;
+            }
+        }
+
+        void verdict(CartLinearizability.Verdict lineVerdict, String description) {
+            if (lineVerdict == CartLinearizability.Verdict.VIOLATION) {
+                verdict = lineVerdict;
+                violations.add(description);
+            } else if (lineVerdict == CartLinearizability.Verdict.INCONCLUSIVE
+                    && verdict == CartLinearizability.Verdict.LINEARIZABLE) {
+                verdict = lineVerdict;
+            }
+        }
+    }
+
+    void add(Level level) {
+        levels.add(level);
+    }
+
+    /**
+     * @return true if no level produced a cart that no linearization explains
+     */
+    public boolean isConsistent() {
+        for (Level level : levels) {
+            if (level.verdict == CartLinearizability.Verdict.VIOLATION) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Print the report as a table, latencies in milliseconds and rates in percent of the mutations.
+     * Conflicts are refused updates and removes, as a share of all updates and removes.
+     *
+     * @param out the stream to print to
+     */
+    public void print(PrintStream out) {
+        out.println("Cart consistency stress run");
+        out.println(String.format("%8s %8s %9s %8s %9s %9s %8s %9s %9s %9s  %s",
+                "Sessions", "Browsers", "Mutations", "Mut/s", "Overlap%", "Conflict%", "NoReply",
+                "p50(ms)", "p95(ms)", "p99(ms)", "Result"));
+        for (Level level : levels) {
+            double seconds = Math.max(level.durationMillis, 1) / 1000.0;
+            out.println(String.format("%8d %8d %9d %8.1f %9.1f %9.1f %8d %9.1f %9.1f %9.1f  %s",
+                    level.sessions,
+                    level.browsers,
+                    level.mutations,
+                    level.mutations / seconds,
+                    percent(level.overlapping, level.mutations),
+                    percent(level.rejected, level.conditional),
+                    level.unanswered,
+                    level.latency.getPercentile(50) / 1000.0,
+                    level.latency.getPercentile(95) / 1000.0,
+                    level.latency.getPercentile(99) / 1000.0,
+                    level.verdict));
+        }
+
+        out.println();
+        out.println(String.format("%8s %-8s %9s %9s %9s %9s", "Sessions", "Action", "Count", "p50(ms)", "p95(ms)",
+                "p99(ms)"));
+        for (Level level : levels) {
+            for (Map.Entry<CartOperation.Type, LatencyHistogram> entry : level.latencyByType.entrySet()) {
+                LatencyHistogram latency = entry.getValue();
+                out.println(String.format("%8d %-8s %9d %9.1f %9.1f %9.1f",
+                        level.sessions,
+                        entry.getKey(),
+                        latency.getCount(),
+                        latency.getPercentile(50) / 1000.0,
+                        latency.getPercentile(95) / 1000.0,
+                        latency.getPercentile(99) / 1000.0));
+            }
+        }
+
+        for (Level level : levels) {
+            for (String violation : level.violations) {
+                out.println("Not linearizable with " + level.sessions + " sessions: " + violation);
+            }
+        }
+    }
+
+    private static double percent(int part, int whole) {
+        return whole == 0 ? 0 : 100.0 * part / whole;
+    }
+}
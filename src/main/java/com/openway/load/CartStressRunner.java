@@ -0,0 +1,268 @@
+package com.openway.load;
+
+import com.openway.standin.Catalog;
+import com.openway.standin.StandInServer;
+import com.openway.utils.ConfigManager;
+import com.openway.utils.TestConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Command line entry point of the cart consistency stress run.
+ * <p>
+ * For every concurrency level, that many sessions log in to the same account and add, update and remove
+ * the same few products at a fixed rate each. When all mutations are answered the cart is read, through
+ * {@link com.openway.pages.CartPage} in the first browser session or over HTTP without browsers, and every
+ * cart line is checked against a linearizable model of the cart with {@link CartLinearizability}. The
+ * report shows the conflict rate and mutation latency as the number of sessions grows.
+ * <p>
+ * Without {@code stress.url} a local stand-in storefront is started. Options, as system properties:
+ * <ul>
+ *     <li>{@code stress.url} shop to stress, default: embedded stand-in</li>
+ *     <li>{@code stress.sessions} comma separated concurrency levels, default {@code 1,2,4,8}</li>
+ *     <li>{@code stress.browsers} sessions of each level that drive a browser from the configuration, default 1</li>
+ *     <li>{@code stress.rate} mutations per second of each session, default 20</li>
+ *     <li>{@code stress.durationSec} duration of each level, default 10</li>
+ *     <li>{@code stress.products} products the sessions compete for, default 3</li>
+ *     <li>{@code stress.searchTerm} search that finds the products, default {@code Blockchains}</li>
+ *     <li>{@code stress.email} and {@code stress.password} the shared account</li>
+ *     <li>{@code stress.latencyMs} and {@code stress.jitterMs} response delay of the stand-in, default 5 and 20</li>
+ * </ul>
+ * Usage: {@code mvn -P cart-stress test-compile exec:java -Dstress.sessions=1,4,16 -Dstress.browsers=0}
+ */
+public class CartStressRunner {
+    private static final Logger logger = Logger.getLogger(CartStressRunner.class.getName());
+    private static final String REPORT_FILE = "target/perf/cart-stress.txt";
+    private static final long SEARCH_BUDGET = 2_000_000;
+
+    private final String baseUrl;
+    private final String email;
+    private final String password;
+    private final int browsers;
+    private final double rate;
+    private final long durationMillis;
+
+    CartStressRunner(String baseUrl, String email, String password, int browsers, double rate, long durationMillis) {
+        this.baseUrl = baseUrl;
+        this.email = email;
+        this.password = password;
+        this.browsers = browsers;
+        this.rate = rate;
+        this.durationMillis = durationMillis;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String url = System.getProperty("stress.url");
+        String email = System.getProperty("stress.email", "stress@load.test");
+        String password = System.getProperty("stress.password", "load-test");
+        int browsers = Integer.parseInt(System.getProperty("stress.browsers", "1"));
+        double rate = Double.parseDouble(System.getProperty("stress.rate", "20"));
+        long durationMillis = Long.parseLong(System.getProperty("stress.durationSec", "10")) * 1000;
+        int productCount = Integer.parseInt(System.getProperty("stress.products", "3"));
+        String searchTerm = System.getProperty("stress.searchTerm", "Blockchains");
+        List<Integer> levels = new ArrayList<>();
+        for (String level : System.getProperty("stress.sessions", "1,2,4,8").split("\\s*,\\s*")) {
+            levels.add(Integer.parseInt(level));
+        }
+
+        StandInServer standIn = null;
+        if (url == null || url.trim().isEmpty()) {
+            standIn = new StandInServer(Catalog.synthetic(1000, 42), 0)
+                    .setLatency(Long.parseLong(System.getProperty("stress.latencyMs", "5")),
+                            Long.parseLong(System.getProperty("stress.jitterMs", "20")))
+                    .start();
+            url = standIn.getBaseUrl();
+        } else if (!url.endsWith("/")) {
+            url += "/";
+        }
+
+        CartStressReport report = new CartStressReport();
+        try {
+            CartStressRunner runner = new CartStressRunner(url, email, password, browsers, rate, durationMillis);
+            HttpCartSession observer = new HttpCartSession(url, email, password);
+            observer.login();
+            List<String> productIds = observer.search(searchTerm, productCount);
+            if (productIds.isEmpty()) {
+                throw new IllegalStateException("No products found for " + searchTerm);
+            }
+            for (int sessions : levels) {
+                report.add(runner.runLevel(sessions, observer, productIds));
+            }
+        } finally {
+            if (standIn != null) {
+                standIn.close();
+            }
+        }
+
+        File reportFile = new File(REPORT_FILE);
+        reportFile.getParentFile().mkdirs();
+        try (PrintStream out = new PrintStream(reportFile, StandardCharsets.UTF_8.name())) {
+            report.print(out);
+        }
+        report.print(System.out);
+        logger.info("Cart stress report written to " + reportFile.getAbsolutePath());
+        if (!report.isConsistent()) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Run one concurrency level
+     *
+     * @param sessions number of concurrent sessions
+     * @param observer logged-in session that prepares the cart and reads it without browsers
+     * @param productIds products to compete for
+     * @return the level's results
+     */
+    CartStressReport.Level runLevel(int sessions, HttpCartSession observer, List<String> productIds)
+            throws IOException, InterruptedException {
+        int browserSessions = Math.min(browsers, sessions);
+        logger.info("Cart stress with " + sessions + " sessions, " + browserSessions + " in browsers");
+
+        // Start from lines that are absent, so the initial state is known
+        for (String productId : productIds) {
+            observer.mutate(CartOperation.Type.REMOVE, productId, 0);
+        }
+        Map<String, Integer> initial = observer.readCart();
+
+        List<CartSession> cartSessions = new ArrayList<>();
+        List<CartOperation> operations = Collections.synchronizedList(new ArrayList<>());
+        CartStressReport.Level level;
+        try {
+            TestConfig config = ConfigManager.get();
+            for (int i = 0; i < sessions; i++) {
+                CartSession session = i < browserSessions
+                        ? new BrowserCartSession(config.getBrowser().getName(), config.getBrowser().isHeadless(),
+                                baseUrl, email, password)
+                        : new HttpCartSession(baseUrl, email, password);
+                cartSessions.add(session);
+                session.login();
+            }
+
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < sessions; i++) {
+                int number = i;
+                CartSession session = cartSessions.get(i);
+                Thread thread = new Thread(() -> mutate(number, session, productIds, start, operations),
+                        "cart-stress-" + i);
+                thread.start();
+                threads.add(thread);
+            }
+            long started = System.nanoTime();
+            start.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            level = new CartStressReport.Level(sessions, browserSessions,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+
+            Map<String, Integer> cart = browserSessions > 0 ? cartSessions.get(0).readCart() : observer.readCart();
+            check(level, productIds, initial, operations, cart);
+        } finally {
+            for (CartSession session : cartSessions) {
+                session.close();
+            }
+        }
+        return level;
+    }
+
+    /**
+     * Mutate the cart at the configured rate until the level's duration is over
+     */
+    private void mutate(int number, CartSession session, List<String> productIds, CountDownLatch start,
+                        List<CartOperation> operations) {
+        Random random = new Random(number);
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        try {
+            start.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        // Spread the sessions over the interval so their mutations interleave rather than arrive together
+        long next = System.nanoTime() + random.nextInt((int) Math.min(intervalNanos, Integer.MAX_VALUE));
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+        while (next < end) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            next += intervalNanos;
+
+            String productId = productIds.get(random.nextInt(productIds.size()));
+            int pick = random.nextInt(10);
+            CartOperation.Type type = pick < 4 ? CartOperation.Type.ADD
+                    : pick < 7 ? CartOperation.Type.UPDATE : CartOperation.Type.REMOVE;
+            int quantity = type == CartOperation.Type.ADD ? 1 + random.nextInt(3)
+                    : type == CartOperation.Type.UPDATE ? random.nextInt(6) : 0;
+
+            long invoked = System.nanoTime();
+            CartOperation.Outcome outcome = session.mutate(type, productId, quantity);
+            operations.add(new CartOperation(number, type, productId, quantity, invoked, System.nanoTime(), outcome));
+        }
+    }
+
+    private static void check(CartStressReport.Level level, List<String> productIds, Map<String, Integer> initial,
+                              List<CartOperation> operations, Map<String, Integer> cart) {
+        Map<String, List<CartOperation>> byProduct = new LinkedHashMap<>();
+        for (String productId : productIds) {
+            byProduct.put(productId, new ArrayList<>());
+        }
+        for (CartOperation operation : operations) {
+            level.record(operation);
+            byProduct.get(operation.productId).add(operation);
+        }
+
+        for (Map.Entry<String, List<CartOperation>> line : byProduct.entrySet()) {
+            List<CartOperation> history = line.getValue();
+            level.overlapping += countOverlapping(history);
+            int observed = cart.getOrDefault(line.getKey(), 0);
+            CartLinearizability.Verdict verdict = CartLinearizability.check(
+                    initial.getOrDefault(line.getKey(), 0), history, observed, SEARCH_BUDGET);
+            level.verdict(verdict, "product " + line.getKey() + " ended with quantity " + observed + " after "
+                    + history.size() + " mutations");
+        }
+    }
+
+    /**
+     * @return mutations that were in flight at the same time as a mutation of another session
+     */
+    private static int countOverlapping(List<CartOperation> history) {
+        List<CartOperation> sorted = new ArrayList<>(history);
+        sorted.sort((a, b) -> Long.compare(a.invokeNanos, b.invokeNanos));
+        boolean[] overlapping = new boolean[sorted.size()];
+        for (int i = 0; i < sorted.size(); i++) {
+            CartOperation operation = sorted.get(i);
+            for (int j = i + 1; j < sorted.size() && sorted.get(j).invokeNanos < operation.responseNanos; j++) {
+                if (sorted.get(j).session != operation.session) {
+                    overlapping[i] = true;
+                    overlapping[j] = true;
+                }
+            }
+        }
+        int count = 0;
+        for (boolean overlaps : overlapping) {
+            count += overlaps ? 1 : 0;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,134 @@
+package com.openway.load;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A cart session over plain HTTP with its own cookies, like a {@link VirtualUser}
+ */
+class HttpCartSession implements CartSession {
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final Pattern PRODUCT_LINK = Pattern.compile("href=['\"][^'\"]*/p/(\\d+)");
+    private static final Pattern CART_QUANTITY = Pattern.compile("name='quantity\\[(\\d+)\\]'[^>]*value='(\\d+)'");
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final String email;
+    private final String password;
+
+    /**
+     * Constructor
+     *
+     * @param baseUrl base URL of the shop, ending with a slash
+     * @param email account email shared by all sessions
+     * @param password account password
+     */
+    HttpCartSession(String baseUrl, String email, String password) {
+        this.client = HttpClient.newBuilder()
+                .cookieHandler(new CookieManager())
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        this.baseUrl = baseUrl;
+        this.email = email;
+        this.password = password;
+    }
+
+    @Override
+    public void login() throws IOException {
+        HttpResponse<String> response = post("account/Login",
+                "email=" + encode(email) + "&password=" + encode(password));
+        if (response.statusCode() != 302) {
+            throw new IOException("Login of " + email + " failed with status " + response.statusCode());
+        }
+    }
+
+    @Override
+    public CartOperation.Outcome mutate(CartOperation.Type type, String productId, int quantity) {
+        try {
+            int status = post("cart/" + type.name().toLowerCase(), "product_id=" + encode(productId)
+                    + "&quantity=" + quantity).statusCode();
+            return status == 200 ? CartOperation.Outcome.APPLIED
+                    : status == 409 ? CartOperation.Outcome.REJECTED : CartOperation.Outcome.UNKNOWN;
+        } catch (IOException e) {
+            return CartOperation.Outcome.UNKNOWN;
+        }
+    }
+
+    @Override
+    public Map<String, Integer> readCart() throws IOException {
+        HttpResponse<String> response = send(HttpRequest.newBuilder(URI.create(baseUrl + "checkout/cart")).GET());
+        if (response.statusCode() != 200) {
+            throw new IOException("Cart page returned status " + response.statusCode());
+        }
+        Map<String, Integer> lines = new LinkedHashMap<>();
+        Matcher matcher = CART_QUANTITY.matcher(response.body());
+        while (matcher.find()) {
+            lines.put(matcher.group(1), Integer.parseInt(matcher.group(2)));
+        }
+        return lines;
+    }
+
+    /**
+     * Search the shop
+     *
+     * @param term search term
+     * @param limit most product IDs to return
+     * @return IDs of the products found, in result order
+     * @throws IOException if the search fails
+     */
+    List<String> search(String term, int limit) throws IOException {
+        HttpResponse<String> response = send(HttpRequest.newBuilder(
+                URI.create(baseUrl + "product/Search?filter_name=" + encode(term))).GET());
+        List<String> productIds = new ArrayList<>();
+        Matcher matcher = PRODUCT_LINK.matcher(response.body());
+        while (matcher.find() && productIds.size() < limit) {
+            if (!productIds.contains(matcher.group(1))) {
+                productIds.add(matcher.group(1));
+            }
+        }
+        return productIds;
+    }
+
+    @Override
+    public String getKind() {
+        return "http";
+    }
+
+    @Override
+    public void close() {
+        // Nothing to release; the client's connections close when it is collected
+    }
+
+    private HttpResponse<String> post(String path, String form) throws IOException {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form)));
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder builder) throws IOException {
+        try {
+            return client.send(builder.timeout(REQUEST_TIMEOUT).build(), HttpResponse.BodyHandlers.ofString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        }
+    }
+
+    private static String encode(String value) throws UnsupportedEncodingException {
+        return URLEncoder.encode(value, "UTF-8");
+    }
+}
@@ -0,0 +1,99 @@
+package com.openway.load;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free log-linear latency histogram in microseconds.
+ * <p>
+ * Values below 64us are recorded exactly; above that every power of two is split into 32 buckets,
+ * which bounds the relative error of a reported percentile to about 3%. Recording is a single
+ * atomic increment, so thousands of virtual users can record into the same histogram.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKETS = 32;
+    private static final int LINEAR_LIMIT = 2 * SUB_BUCKETS;
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKET_COUNT = LINEAR_LIMIT + (MAX_EXPONENT - 5) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Record a latency
+     *
+     * @param micros the latency in microseconds
+     */
+    public void record(long micros) {
+        long value = Math.max(0, micros);
+        counts.incrementAndGet(indexOf(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * @return number of recorded values
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * @return largest recorded value in microseconds
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @return mean of the recorded values in microseconds
+     */
+    public double getMean() {
+        long total = count.get();
+        return total == 0 ? 0 : (double) sum.get() / total;
+    }
+
+    /**
+     * Get the value at a percentile
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return upper bound of the bucket holding the percentile, in microseconds
+     */
+    public long getPercentile(double percentile) {
+        long total = count.get();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(valueOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    private static int indexOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int exponent = Math.min(63 - Long.numberOfLeadingZeros(value), MAX_EXPONENT);
+        int shift = exponent - 5;
+        long mantissa = Math.min(value >> shift, 2 * SUB_BUCKETS - 1);
+        return LINEAR_LIMIT + (exponent - 6) * SUB_BUCKETS + (int) (mantissa - SUB_BUCKETS);
+    }
+
+    private static long valueOf(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int exponent = 6 + (index - LINEAR_LIMIT) / SUB_BUCKETS;
+        long mantissa = SUB_BUCKETS + (index - LINEAR_LIMIT) % SUB_BUCKETS;
+        return ((mantissa + 1) << (exponent - 5)) - 1;
+    }
+}
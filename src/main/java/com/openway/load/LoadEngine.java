@@ -0,0 +1,124 @@
+package com.openway.load;
+
+import java.lang.reflect.Method;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Drives virtual users through the cart flow following a ramp profile.
+ * <p>
+ * Users run on virtual threads when the JVM provides them (Java 21+) and on a cached pool of
+ * platform threads otherwise. A controller adjusts the number of active users every
+ * {@value #CONTROL_INTERVAL_MILLIS}ms: new users are started as the profile ramps up and the most
+ * recently started users are stopped as it ramps down.
+ */
+public class LoadEngine {
+    private static final Logger logger = Logger.getLogger(LoadEngine.class.getName());
+    private static final long CONTROL_INTERVAL_MILLIS = 100;
+
+    private final String baseUrl;
+    private final String emailPattern;
+    private final String password;
+    private final List<String> searchTerms;
+    private final long thinkMillis;
+
+    /**
+     * Constructor
+     *
+     * @param baseUrl base URL of the shop, ending with a slash
+     * @param emailPattern account email per user, formatted with the user number, e.g. {@code vu%d@load.test}
+     * @param password account password
+     * @param searchTerms terms the users search for
+     * @param thinkMillis pause between the steps of a user
+     */
+    public LoadEngine(String baseUrl, String emailPattern, String password, List<String> searchTerms, long thinkMillis) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl : baseUrl + "/";
+        this.emailPattern = emailPattern;
+        this.password = password;
+        this.searchTerms = searchTerms;
+        this.thinkMillis = thinkMillis;
+    }
+
+    /**
+     * Run the load profile to completion
+     *
+     * @param profile the ramp profile
+     * @return throughput and latency per step
+     * @throws InterruptedException if the run is interrupted
+     */
+    public LoadReport run(RampProfile profile) throws InterruptedException {
+        Map<LoadStep, StepStats> stats = new EnumMap<>(LoadStep.class);
+        for (LoadStep step : LoadStep.values()) {
+            stats.put(step, new StepStats(step));
+        }
+
+        ExecutorService executor = newUserExecutor();
+        HttpClient client = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        Deque<VirtualUser> active = new ArrayDeque<>();
+        int started = 0;
+        int peak = 0;
+
+        logger.info("Starting load run: " + profile.getDuration().getSeconds() + "s, up to "
+                + profile.getPeakUsers() + " virtual users against " + baseUrl);
+        long start = System.currentTimeMillis();
+        long end = start + profile.getDuration().toMillis();
+        try {
+            long now;
+            while ((now = System.currentTimeMillis()) < end) {
+                int target = profile.usersAt(now - start);
+                while (active.size() < target) {
+                    VirtualUser user = new VirtualUser(client, baseUrl, String.format(emailPattern, started), password,
+                            searchTerms, thinkMillis, stats, started);
+                    started++;
+                    active.push(user);
+                    executor.execute(user);
+                }
+                while (active.size() > target) {
+                    active.pop().stop();
+                }
+                peak = Math.max(peak, active.size());
+                Thread.sleep(CONTROL_INTERVAL_MILLIS);
+            }
+        } finally {
+            for (VirtualUser user : active) {
+                user.stop();
+            }
+            executor.shutdown();
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        }
+
+        long duration = System.currentTimeMillis() - start;
+        logger.info("Load run finished after " + duration + "ms, " + started + " virtual users started");
+        return new LoadReport(stats.values(), duration, peak);
+    }
+
+    private static ExecutorService newUserExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            logger.info("Running virtual users on virtual threads");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            logger.info("Virtual threads not available on Java " + System.getProperty("java.version")
+                    + ", running virtual users on platform threads");
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "virtual-user");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.openway.load;
+
+import java.io.PrintStream;
+import java.util.Collection;
+
+/**
+ * Result of a load run: throughput and latency percentiles per step
+ */
+public class LoadReport {
+    private final Collection<StepStats> steps;
+    private final long durationMillis;
+    private final int peakUsers;
+
+    /**
+     * Constructor
+     *
+     * @param steps statistics of every step
+     * @param durationMillis wall-clock duration of the run
+     * @param peakUsers highest number of concurrently active virtual users
+     */
+    public LoadReport(Collection<StepStats> steps, long durationMillis, int peakUsers) {
+        this.steps = steps;
+        this.durationMillis = durationMillis;
+        this.peakUsers = peakUsers;
+    }
+
+    public Collection<StepStats> getSteps() {
+        return steps;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public int getPeakUsers() {
+        return peakUsers;
+    }
+
+    /**
+     * Print the report as a table, latencies in milliseconds
+     *
+     * @param out the stream to print to
+     */
+    public void print(PrintStream out) {
+        double seconds = Math.max(durationMillis, 1) / 1000.0;
+        out.println(String.format("Load run: %.1fs, peak %d virtual users", seconds, peakUsers));
+        out.println(String.format("%-18s %9s %7s %9s %9s %9s %9s %9s",
+                "Step", "Count", "Errors", "Req/s", "p50(ms)", "p95(ms)", "p99(ms)", "max(ms)"));
+        for (StepStats stats : steps) {
+            LatencyHistogram latency = stats.getLatency();
+            out.println(String.format("%-18s %9d %7d %9.1f %9.1f %9.1f %9.1f %9.1f",
+                    stats.getStep(),
+                    latency.getCount(),
+                    stats.getErrors(),
+                    latency.getCount() / seconds,
+                    latency.getPercentile(50) / 1000.0,
+                    latency.getPercentile(95) / 1000.0,
+                    latency.getPercentile(99) / 1000.0,
+                    latency.getMax() / 1000.0));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.openway.load;
+
+import com.openway.standin.Catalog;
+import com.openway.standin.StandInServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+/**
+ * Command line entry point of the load engine.
+ * <p>
+ * Without {@code load.url} a local stand-in storefront is started, so runs are repeatable and need no network.
+ * Options, as system properties:
+ * <ul>
+ *     <li>{@code load.url} shop to load, default: embedded stand-in</li>
+ *     <li>{@code load.profile} ramp profile, default {@code 10s:200,20s:200,5s:0}</li>
+ *     <li>{@code load.thinkMs} pause between steps of a user, default 100</li>
+ *     <li>{@code load.searchTerms} comma separated search terms</li>
+ *     <li>{@code load.email} per-user account email pattern, default {@code vu%d@load.test}</li>
+ *     <li>{@code load.password} account password</li>
+ *     <li>{@code load.catalogSize} products of the stand-in catalog, default 10000</li>
+ * </ul>
+ * Usage: {@code mvn -P load compile exec:java -Dload.profile=30s:1000,1m:1000,10s:0}
+ */
+public class LoadRunner {
+    private static final Logger logger = Logger.getLogger(LoadRunner.class.getName());
+    private static final String REPORT_FILE = "target/perf/load-report.txt";
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        RampProfile profile = RampProfile.parse(System.getProperty("load.profile", "10s:200,20s:200,5s:0"));
+        long thinkMillis = Long.parseLong(System.getProperty("load.thinkMs", "100"));
+        String searchTerms = System.getProperty("load.searchTerms", "Blockchains,Java Programming,Python,Data Science");
+        String emailPattern = System.getProperty("load.email", "vu%d@load.test");
+        String password = System.getProperty("load.password", "load-test");
+        String url = System.getProperty("load.url");
+
+        StandInServer standIn = null;
+        if (url == null || url.trim().isEmpty()) {
+            int catalogSize = Integer.parseInt(System.getProperty("load.catalogSize", "10000"));
+            standIn = new StandInServer(Catalog.synthetic(catalogSize, 42), 0).start();
+            url = standIn.getBaseUrl();
+        }
+
+        LoadReport report;
+        try {
+            LoadEngine engine = new LoadEngine(url, emailPattern, password,
+                    Arrays.asList(searchTerms.split("\\s*,\\s*")), thinkMillis);
+            report = engine.run(profile);
+        } finally {
+            if (standIn != null) {
+                standIn.close();
+            }
+        }
+
+        File reportFile = new File(REPORT_FILE);
+        reportFile.getParentFile().mkdirs();
+        try (PrintStream out = new PrintStream(reportFile, StandardCharsets.UTF_8.name())) {
+            report.print(out);
+        }
+        report.print(System.out);
+        logger.info("Load report written to " + reportFile.getAbsolutePath());
+    }
+}
@@ -0,0 +1,21 @@
+package com.openway.load;
+
+/**
+ * Steps of the virtual-user cart flow and the page-object methods they model
+ */
+public enum LoadStep {
+    /** {@code LoginPage.login}: load the login form and post the credentials */
+    LOGIN,
+    /** {@code HomePage.searchForProduct}: load the search results for a term */
+    SEARCH,
+    /** {@code ProductsPage.selectProductByIndex}: load a product page from the results */
+    VIEW_PRODUCT,
+    /** {@code ProductPage.addToCart}: add the product to the cart */
+    ADD_TO_CART,
+    /** {@code CartPage.updateProductQuantity}: change the quantity of the cart line */
+    UPDATE_QUANTITY,
+    /** {@code HomePage.goToCart}: load the cart page */
+    VIEW_CART,
+    /** {@code CartPage.removeProduct}: remove the line from the cart */
+    REMOVE_FROM_CART
+}
@@ -0,0 +1,97 @@
+package com.openway.load;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ramp-up profile: a sequence of stages, each moving the number of active virtual users linearly
+ * from the previous stage's target to its own target over its duration. The profile starts at 0 users.
+ * <p>
+ * Written as {@code duration:users} stages separated by commas, e.g. {@code 30s:500,2m:500,10s:0}
+ * ramps to 500 users over 30 seconds, holds them for two minutes and ramps down in 10 seconds.
+ */
+public class RampProfile {
+    private final List<long[]> stages = new ArrayList<>();
+    private final long totalMillis;
+
+    private RampProfile(List<long[]> stages) {
+        this.stages.addAll(stages);
+        long total = 0;
+        for (long[] stage : stages) {
+            total += stage[0];
+        }
+        this.totalMillis = total;
+    }
+
+    /**
+     * Parse a profile
+     *
+     * @param profile stages as {@code duration:users}, durations in ms, s or m
+     * @return the profile
+     */
+    public static RampProfile parse(String profile) {
+        List<long[]> stages = new ArrayList<>();
+        for (String stage : profile.split(",")) {
+            String[] parts = stage.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid ramp stage '" + stage + "', expected duration:users");
+            }
+            stages.add(new long[] {parseMillis(parts[0].trim()), Long.parseLong(parts[1].trim())});
+        }
+        if (stages.isEmpty()) {
+            throw new IllegalArgumentException("Ramp profile has no stages");
+        }
+        return new RampProfile(stages);
+    }
+
+    /**
+     * Get the number of users that should be active at a point of the run
+     *
+     * @param elapsedMillis time since the start of the run
+     * @return target number of active users
+     */
+    public int usersAt(long elapsedMillis) {
+        long stageStart = 0;
+        long previousUsers = 0;
+        for (long[] stage : stages) {
+            long stageEnd = stageStart + stage[0];
+            if (elapsedMillis < stageEnd) {
+                double progress = stage[0] == 0 ? 1.0 : (double) (elapsedMillis - stageStart) / stage[0];
+                return (int) Math.round(previousUsers + (stage[1] - previousUsers) * progress);
+            }
+            stageStart = stageEnd;
+            previousUsers = stage[1];
+        }
+        return (int) previousUsers;
+    }
+
+    /**
+     * @return highest target number of users of any stage
+     */
+    public int getPeakUsers() {
+        long peak = 0;
+        for (long[] stage : stages) {
+            peak = Math.max(peak, stage[1]);
+        }
+        return (int) peak;
+    }
+
+    /**
+     * @return total duration of the profile
+     */
+    public Duration getDuration() {
+        return Duration.ofMillis(totalMillis);
+    }
+
+    private static long parseMillis(String duration) {
+        if (duration.endsWith("ms")) {
+            return Long.parseLong(duration.substring(0, duration.length() - 2));
+        } else if (duration.endsWith("s")) {
+            return Long.parseLong(duration.substring(0, duration.length() - 1)) * 1000;
+        } else if (duration.endsWith("m")) {
+            return Long.parseLong(duration.substring(0, duration.length() - 1)) * 60_000;
+        }
+        throw new IllegalArgumentException("Invalid duration '" + duration + "', expected ms, s or m suffix");
+    }
+}
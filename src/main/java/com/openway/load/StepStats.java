@@ -0,0 +1,46 @@
+package com.openway.load;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency and error counts of one load step
+ */
+public class StepStats {
+    private final LoadStep step;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicLong errors = new AtomicLong();
+
+    /**
+     * Constructor
+     *
+     * @param step the step the statistics belong to
+     */
+    public StepStats(LoadStep step) {
+        this.step = step;
+    }
+
+    /**
+     * Record a completed step
+     *
+     * @param micros the duration of the step in microseconds
+     * @param success whether the step succeeded
+     */
+    public void record(long micros, boolean success) {
+        latency.record(micros);
+        if (!success) {
+            errors.incrementAndGet();
+        }
+    }
+
+    public LoadStep getStep() {
+        return step;
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public long getErrors() {
+        return errors.get();
+    }
+}
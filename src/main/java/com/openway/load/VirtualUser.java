@@ -0,0 +1,186 @@
+package com.openway.load;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A browserless user that runs the cart flow of {@code ShoppingCartTest} over plain HTTP:
+ * login once, then repeatedly search, open a product, add it to the cart, change its quantity,
+ * view the cart and remove it again. Each user keeps its own session cookies.
+ */
+public class VirtualUser implements Runnable {
+    private static final Logger logger = Logger.getLogger(VirtualUser.class.getName());
+    private static final Pattern PRODUCT_LINK = Pattern.compile("href=['\"][^'\"]*/p/(\\d+)");
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final String email;
+    private final String password;
+    private final List<String> searchTerms;
+    private final long thinkMillis;
+    private final Map<LoadStep, StepStats> stats;
+    private final Random random;
+    private final Map<String, String> cookies = new LinkedHashMap<>();
+    private volatile boolean running = true;
+
+    /**
+     * Constructor
+     *
+     * @param client shared HTTP client, without a cookie handler
+     * @param baseUrl base URL of the shop, ending with a slash
+     * @param email account email of this user
+     * @param password account password of this user
+     * @param searchTerms terms to pick searches from
+     * @param thinkMillis pause between steps
+     * @param stats statistics to record into
+     * @param seed random seed of this user
+     */
+    public VirtualUser(HttpClient client, String baseUrl, String email, String password, List<String> searchTerms,
+                       long thinkMillis, Map<LoadStep, StepStats> stats, long seed) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.email = email;
+        this.password = password;
+        this.searchTerms = searchTerms;
+        this.thinkMillis = thinkMillis;
+        this.stats = stats;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Ask the user to stop after its current step
+     */
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public void run() {
+        try {
+            if (!step(LoadStep.LOGIN, this::login)) {
+                return;
+            }
+            while (running && !Thread.currentThread().isInterrupted()) {
+                iterate();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void iterate() throws InterruptedException {
+        String term = searchTerms.get(random.nextInt(searchTerms.size()));
+        List<String> productIds = new ArrayList<>();
+        if (!step(LoadStep.SEARCH, () -> {
+            HttpResponse<String> response = get("product/Search?filter_name=" + encode(term));
+            Matcher matcher = PRODUCT_LINK.matcher(response.body());
+            while (matcher.find()) {
+                productIds.add(matcher.group(1));
+            }
+            return isSuccess(response) && !productIds.isEmpty();
+        })) {
+            return;
+        }
+
+        String productId = productIds.get(random.nextInt(productIds.size()));
+        int quantity = 2 + random.nextInt(3);
+        if (step(LoadStep.VIEW_PRODUCT, () -> isSuccess(get("p/" + productId)))
+                && step(LoadStep.ADD_TO_CART, () -> isSuccess(post("cart/add", "product_id=" + productId + "&quantity=1")))
+                && step(LoadStep.UPDATE_QUANTITY, () -> isSuccess(post("cart/update",
+                        "product_id=" + productId + "&quantity=" + quantity)))
+                && step(LoadStep.VIEW_CART, () -> {
+                    HttpResponse<String> response = get("checkout/cart");
+                    return isSuccess(response) && response.body().contains(productId);
+                })) {
+            step(LoadStep.REMOVE_FROM_CART, () -> isSuccess(post("cart/remove", "product_id=" + productId)));
+        }
+    }
+
+    private boolean login() throws IOException, InterruptedException {
+        if (!isSuccess(get("account/Login"))) {
+            return false;
+        }
+        HttpResponse<String> response = post("account/Login",
+                "email=" + encode(email) + "&password=" + encode(password));
+        return response.statusCode() == 302 || isSuccess(response) && !response.body().contains("class='warning'");
+    }
+
+    private boolean step(LoadStep step, StepAction action) throws InterruptedException {
+        long start = System.nanoTime();
+        boolean success;
+        try {
+            success = action.run();
+        } catch (IOException e) {
+            logger.fine("Step " + step + " failed for " + email + ": " + e.getMessage());
+            success = false;
+        }
+        stats.get(step).record((System.nanoTime() - start) / 1000, success);
+        if (thinkMillis > 0) {
+            Thread.sleep(thinkMillis);
+        }
+        return success;
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + path)).GET());
+    }
+
+    private HttpResponse<String> post(String path, String form) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form)));
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder builder) throws IOException, InterruptedException {
+        builder.timeout(REQUEST_TIMEOUT);
+        if (!cookies.isEmpty()) {
+            StringBuilder header = new StringBuilder();
+            for (Map.Entry<String, String> cookie : cookies.entrySet()) {
+                if (header.length() > 0) {
+                    header.append("; ");
+                }
+                header.append(cookie.getKey()).append('=').append(cookie.getValue());
+            }
+            builder.header("Cookie", header.toString());
+        }
+
+        HttpResponse<String> response = client.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+        for (String setCookie : response.headers().allValues("Set-Cookie")) {
+            String[] pair = setCookie.split(";", 2)[0].split("=", 2);
+            if (pair.length == 2) {
+                cookies.put(pair[0].trim(), pair[1].trim());
+            }
+        }
+        return response;
+    }
+
+    private static boolean isSuccess(HttpResponse<?> response) {
+        return response.statusCode() >= 200 && response.statusCode() < 400;
+    }
+
+    private static String encode(String value) throws UnsupportedEncodingException {
+        return URLEncoder.encode(value, "UTF-8");
+    }
+
+    /**
+     * A step body that reports whether it succeeded
+     */
+    private interface StepAction {
+        boolean run() throws IOException, InterruptedException;
+    }
+}
@@ -1,12 +1,24 @@
 package com.openway.pages;
 
-import java.time.Duration;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.logging.Logger;
 
+import com.openway.pages.wiring.LazyElement;
+import com.openway.pages.wiring.PageWirings;
+import com.openway.perf.PageActionEvent;
+import com.openway.perf.TimelineTrace;
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.FindAll;
+import org.openqa.selenium.support.FindBy;
+import org.openqa.selenium.support.FindBys;
 import org.openqa.selenium.support.PageFactory;
+import org.openqa.selenium.support.pagefactory.Annotations;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
 
@@ -14,16 +26,33 @@ public abstract class BasePage {
     protected WebDriver driver;
     protected WebDriverWait wait;
     protected final Logger logger = Logger.getLogger(this.getClass().getName());
+    private final BidiPrimitives bidi;
+    private Map<WebElement, String> fieldLocators;
     
     /**
-     * Constructor to initialize page elements and the WebDriver
+     * Constructor to initialize page elements and the WebDriver. Elements are wired by the classes
+     * generated at compile time; PageFactory is only used if annotation processing did not run.
+     * With {@code browser.transport=bidi} the primitives below work over WebDriver BiDi for wired
+     * elements and plain locators, and fall back to classic commands for anything else.
      * 
      * @param driver the WebDriver instance
      */
     public BasePage(WebDriver driver) {
         this.driver = driver;
-        this.wait = new WebDriverWait(driver, Duration.ofSeconds(20));
-        PageFactory.initElements(driver, this);
+        this.wait = Pages.sharedWait(driver);
+        this.bidi = Pages.bidi(driver);
+        if (!PageWirings.wire(this, driver, BasePage.class)) {
+            PageFactory.initElements(driver, this);
+        }
+    }
+    
+    /**
+     * Get the header and navigation shared by all pages, created on first use
+     *
+     * @return PageLayout instance of the driver
+     */
+    protected PageLayout getPageLayout() {
+        return Pages.create(PageLayout.class, driver);
     }
     
     /**
@@ -32,7 +61,14 @@ public abstract class BasePage {
      * @param element the web element to click
      */
     protected void clickElement(WebElement element) {
-        wait.until(ExpectedConditions.elementToBeClickable(element)).click();
+        By locator = bidiLocator(element);
+        traceAction("clickElement", element, () -> {
+            if (locator != null) {
+                bidi.click(locator);
+            } else {
+                wait.until(ExpectedConditions.elementToBeClickable(element)).click();
+            }
+        });
     }
     
     /**
@@ -42,16 +78,30 @@ public abstract class BasePage {
      * @param text the text to enter
      */
     protected void enterText(WebElement element, String text) {
-        wait.until(ExpectedConditions.visibilityOf(element));
-        element.clear();
-        element.sendKeys(text);
+        By locator = bidiLocator(element);
+        traceAction("enterText", element, () -> {
+            if (locator != null) {
+                bidi.type(locator, text);
+                return;
+            }
+            wait.until(ExpectedConditions.visibilityOf(element));
+            element.clear();
+            element.sendKeys(text);
+        });
     }
     
     /**
      * Wait for page load to complete by checking for absence of preloader
      */
     protected void waitForPageLoad() {
-        wait.until(ExpectedConditions.invisibilityOfElementLocated(By.className("preloader")));
+        By preloader = By.className("preloader");
+        traceAction("waitForPageLoad", preloader, () -> {
+            if (bidi != null) {
+                bidi.await(preloader, BidiPrimitives.Condition.INVISIBLE);
+            } else {
+                wait.until(ExpectedConditions.invisibilityOfElementLocated(preloader));
+            }
+        });
     }
     
     /**
@@ -61,6 +111,9 @@ public abstract class BasePage {
      * @return true if element exists, false otherwise
      */
     protected boolean isElementPresent(By locator) {
+        if (bidi != null && BidiPrimitives.supports(locator)) {
+            return bidi.count(locator) > 0;
+        }
         return !driver.findElements(locator).isEmpty();
     }
     
@@ -70,7 +123,14 @@ public abstract class BasePage {
      * @param element the web element to wait for
      */
     protected void waitForVisibility(WebElement element) {
-        wait.until(ExpectedConditions.visibilityOf(element));
+        By locator = bidiLocator(element);
+        traceAction("waitForVisibility", element, () -> {
+            if (locator != null) {
+                bidi.await(locator, BidiPrimitives.Condition.VISIBLE);
+            } else {
+                wait.until(ExpectedConditions.visibilityOf(element));
+            }
+        });
     }
     
     /**
@@ -79,6 +139,116 @@ public abstract class BasePage {
      * @param element the web element to wait for
      */
     protected void waitForClickability(WebElement element) {
-        wait.until(ExpectedConditions.elementToBeClickable(element));
+        By locator = bidiLocator(element);
+        traceAction("waitForClickability", element, () -> {
+            if (locator != null) {
+                bidi.await(locator, BidiPrimitives.Condition.CLICKABLE);
+            } else {
+                wait.until(ExpectedConditions.elementToBeClickable(element));
+            }
+        });
+    }
+    
+    /**
+     * Run a primitive and report it as a {@link PageActionEvent} while a flight recording is running,
+     * and as a span of the thread's {@link TimelineTrace}, if any
+     *
+     * @param action name of the primitive
+     * @param target the element or locator the primitive works on
+     * @param body the primitive
+     */
+    private void traceAction(String action, Object target, Runnable body) {
+        PageActionEvent event = new PageActionEvent();
+        event.begin();
+        long start = System.nanoTime();
+        String outcome = "success";
+        try {
+            body.run();
+        } catch (RuntimeException | Error e) {
+            outcome = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            event.end();
+            if (TimelineTrace.isActive()) {
+                Map<String, Object> args = new LinkedHashMap<>();
+                args.put("locator", describe(target));
+                args.put("outcome", outcome);
+                TimelineTrace.span("action", getPageClass().getSimpleName() + "." + action, start, System.nanoTime(),
+                        args);
+            }
+            if (event.shouldCommit()) {
+                event.pageClass = getPageClass().getSimpleName();
+                event.action = action;
+                event.locator = describe(target);
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+    }
+    
+    /**
+     * @param element an element of the page
+     * @return the locator to use over BiDi, or null to use classic commands, e.g. for an element found
+     *         inside another one or a PageFactory proxy
+     */
+    private By bidiLocator(WebElement element) {
+        if (bidi == null || !(element instanceof LazyElement)) {
+            return null;
+        }
+        LazyElement lazy = (LazyElement) element;
+        return lazy.getSearchContext() == driver && BidiPrimitives.supports(lazy.getLocator()) ? lazy.getLocator() : null;
+    }
+    
+    /**
+     * @return the page class, not the subclass generated by {@link Pages}
+     */
+    private Class<?> getPageClass() {
+        Class<?> type = getClass();
+        while (type.getName().contains("$ByteBuddy$")) {
+            type = type.getSuperclass();
+        }
+        return type;
+    }
+    
+    /**
+     * Describe the locator of an element without asking the browser. Wired elements know their
+     * locator; PageFactory elements are matched to their {@code @FindBy} field by identity, since
+     * any call on them locates the element.
+     *
+     * @param target an element or a locator
+     * @return the locator, e.g. {@code By.id: filter_name}
+     */
+    private String describe(Object target) {
+        if (!(target instanceof WebElement)) {
+            return String.valueOf(target);
+        }
+        if (target instanceof LazyElement) {
+            return ((LazyElement) target).getLocator().toString();
+        }
+        if (!Proxy.isProxyClass(target.getClass())) {
+            // Elements found directly know their locator: "[[ChromeDriver: ...] -> xpath: //div]"
+            String text = target.toString();
+            int arrow = text.lastIndexOf("-> ");
+            return arrow < 0 ? text : text.substring(arrow + 3, text.length() - 1);
+        }
+        
+        if (fieldLocators == null) {
+            fieldLocators = new IdentityHashMap<>();
+            for (Class<?> type = getClass(); type != BasePage.class; type = type.getSuperclass()) {
+                for (Field field : type.getDeclaredFields()) {
+                    if (WebElement.class.equals(field.getType()) && (field.isAnnotationPresent(FindBy.class)
+                            || field.isAnnotationPresent(FindBys.class) || field.isAnnotationPresent(FindAll.class))) {
+                        try {
+                            field.setAccessible(true);
+                            fieldLocators.put((WebElement) field.get(this), new Annotations(field).buildBy().toString());
+                        } catch (IllegalAccessException e) {
+                            logger.fine(() -> "Cannot read locator of " + field.getName() + ": " + e.getMessage());
+                        }
+                    }
+                }
+            }
+        }
+        String locator = fieldLocators.get(target);
+        return locator == null ? "unknown" : locator;
     }
 }
\ No newline at end of file
@@ -0,0 +1,313 @@
+package com.openway.pages;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.bidi.module.Input;
+import org.openqa.selenium.bidi.module.Script;
+import org.openqa.selenium.bidi.script.EvaluateResult;
+import org.openqa.selenium.bidi.script.EvaluateResultExceptionValue;
+import org.openqa.selenium.bidi.script.EvaluateResultSuccess;
+import org.openqa.selenium.bidi.script.LocalValue;
+import org.openqa.selenium.bidi.script.ResultOwnership;
+import org.openqa.selenium.interactions.KeyInput;
+import org.openqa.selenium.interactions.PointerInput;
+import org.openqa.selenium.interactions.Sequence;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The primitives of {@link BasePage} over the WebDriver BiDi WebSocket of a session, used with
+ * {@code browser.transport=bidi}.
+ * <p>
+ * A classic wait polls the driver every half second with one or more HTTP commands per check, and a
+ * click or typing first locates the element in a command of its own. Here a wait is a single
+ * {@code script.callFunction} whose promise checks the condition in the page every 20 ms and resolves
+ * as soon as it holds; for a click or typing it also scrolls the element into view and reports where it
+ * is, and the pointer or key strokes follow as one {@code input.performActions}. A primitive is
+ * therefore one or two messages on an open WebSocket.
+ * <p>
+ * A click waits until the element is visible, enabled and the topmost element at its centre, so an
+ * overlay such as the preloader delays the click instead of taking it. A wait that outlives its page,
+ * e.g. across a navigation, is started again in the new page until the timeout.
+ */
+class BidiPrimitives {
+    private static final long CHUNK_MILLIS = 10_000;
+
+    /**
+     * What a wait waits for
+     */
+    enum Condition {
+        PRESENT, VISIBLE, INVISIBLE, CLICKABLE, TYPEABLE
+    }
+
+    private static final String AWAIT = String.join("\n",
+            "function (using, value, condition, timeout) {",
+            "  function find() {",
+            "    switch (using) {",
+            "      case 'css selector': return document.querySelector(value);",
+            "      case 'xpath': return document.evaluate(value, document, null,",
+            "          XPathResult.FIRST_ORDERED_NODE_TYPE, null).singleNodeValue;",
+            "      case 'tag name': return document.getElementsByTagName(value)[0] || null;",
+            "      case 'link text': return Array.from(document.links)",
+            "          .find(function (a) { return a.textContent.trim() === value; }) || null;",
+            "      case 'partial link text': return Array.from(document.links)",
+            "          .find(function (a) { return a.textContent.indexOf(value) >= 0; }) || null;",
+            "    }",
+            "    throw new Error('Unsupported locator: ' + using);",
+            "  }",
+            "  function visible(element) {",
+            "    if (!element || !element.isConnected || element.getClientRects().length === 0) {",
+            "      return false;",
+            "    }",
+            "    var style = getComputedStyle(element);",
+            "    return style.visibility !== 'hidden' && style.display !== 'none' && style.opacity !== '0';",
+            "  }",
+            "  function centre(element) {",
+            "    element.scrollIntoView({block: 'center', inline: 'center'});",
+            "    var rect = element.getBoundingClientRect();",
+            "    var x = Math.floor(rect.left + rect.width / 2), y = Math.floor(rect.top + rect.height / 2);",
+            "    var hit = document.elementFromPoint(x, y);",
+            "    return hit && (hit === element || element.contains(hit)) ? x + ',' + y : null;",
+            "  }",
+            "  function check() {",
+            "    var element = find();",
+            "    switch (condition) {",
+            "      case 'PRESENT': return element ? 'ok' : null;",
+            "      case 'VISIBLE': return visible(element) ? 'ok' : null;",
+            "      case 'INVISIBLE': return visible(element) ? null : 'ok';",
+            "      case 'CLICKABLE': return visible(element) && !element.disabled ? centre(element) : null;",
+            "      case 'TYPEABLE':",
+            "        if (!visible(element)) {",
+            "          return null;",
+            "        }",
+            "        element.focus();",
+            "        element.value = '';",
+            "        element.dispatchEvent(new Event('input', {bubbles: true}));",
+            "        return 'ok';",
+            "    }",
+            "    throw new Error('Unknown condition: ' + condition);",
+            "  }",
+            "  var deadline = Date.now() + timeout;",
+            "  return new Promise(function (resolve, reject) {",
+            "    (function poll() {",
+            "      var result;",
+            "      try {",
+            "        result = check();",
+            "      } catch (e) {",
+            "        reject(e);",
+            "        return;",
+            "      }",
+            "      if (result) {",
+            "        resolve(result);",
+            "      } else if (Date.now() >= deadline) {",
+            "        resolve('');",
+            "      } else {",
+            "        setTimeout(poll, 20);",
+            "      }",
+            "    })();",
+            "  });",
+            "}");
+
+    private static final String COUNT = String.join("\n",
+            "function (using, value) {",
+            "  switch (using) {",
+            "    case 'css selector': return document.querySelectorAll(value).length;",
+            "    case 'xpath': return document.evaluate(value, document, null,",
+            "        XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null).snapshotLength;",
+            "    case 'tag name': return document.getElementsByTagName(value).length;",
+            "    case 'link text': return Array.from(document.links)",
+            "        .filter(function (a) { return a.textContent.trim() === value; }).length;",
+            "    case 'partial link text': return Array.from(document.links)",
+            "        .filter(function (a) { return a.textContent.indexOf(value) >= 0; }).length;",
+            "  }",
+            "  throw new Error('Unsupported locator: ' + using);",
+            "}");
+
+    private static final List<String> LOCATOR_STRATEGIES = Arrays.asList(
+            "css selector", "xpath", "tag name", "link text", "partial link text");
+
+    /**
+     * Errors of a call whose page or frame went away while it ran: the {@code no such frame} error code of
+     * the protocol, and what Chrome reports when the realm of a pending script is torn down by a navigation
+     */
+    private static final List<String> STALE_REALM_ERRORS = Arrays.asList(
+            "no such frame", "Execution context was destroyed", "Cannot find context with specified id",
+            "Inspected target navigated or closed");
+
+    private final WebDriver driver;
+    private final Duration timeout;
+    private final Script script;
+    private final Input input;
+    private final PointerInput mouse = new PointerInput(PointerInput.Kind.MOUSE, "bidi-mouse");
+    private final KeyInput keyboard = new KeyInput("bidi-keyboard");
+    private volatile String context;
+
+    /**
+     * Constructor
+     *
+     * @param driver a driver with a BiDi connection
+     * @param timeout how long the waits wait, as the classic {@code WebDriverWait}
+     */
+    BidiPrimitives(WebDriver driver, Duration timeout) {
+        this.driver = driver;
+        this.timeout = timeout;
+        this.script = new Script(driver);
+        this.input = new Input(driver);
+    }
+
+    /**
+     * @param locator a locator
+     * @return true if the locator can be evaluated in the page, e.g. not a PageFactory chain
+     */
+    static boolean supports(By locator) {
+        return locator instanceof By.Remotable
+                && LOCATOR_STRATEGIES.contains(((By.Remotable) locator).getRemoteParameters().using());
+    }
+
+    /**
+     * Forget the browsing context after the driver switched to another window
+     */
+    void windowSwitched() {
+        context = null;
+    }
+
+    /**
+     * Wait until a condition of the element holds
+     *
+     * @param locator locator of the element
+     * @param condition the condition
+     * @return what the check in the page returned, e.g. the click point {@code x,y}
+     * @throws TimeoutException if the condition does not hold in time
+     */
+    String await(By locator, Condition condition) {
+        By.Remotable.Parameters parameters = ((By.Remotable) locator).getRemoteParameters();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        WebDriverException lastError = null;
+        while (true) {
+            long remaining = (deadline - System.nanoTime()) / 1_000_000;
+            if (remaining <= 0) {
+                throw new TimeoutException("Expected condition failed: waiting for " + condition.name().toLowerCase()
+                        + " element located by " + locator + " (tried for " + timeout.getSeconds()
+                        + " second(s) over WebDriver BiDi)", lastError);
+            }
+            try {
+                Object result = call(AWAIT, LocalValue.stringValue(parameters.using()),
+                        LocalValue.stringValue(String.valueOf(parameters.value())),
+                        LocalValue.stringValue(condition.name()), LocalValue.numberValue(Math.min(remaining, CHUNK_MILLIS)));
+                if (result instanceof String && !((String) result).isEmpty()) {
+                    return (String) result;
+                }
+            } catch (StaleRealmException e) {
+                // The page went away while the check ran; check again in the next one
+                lastError = e;
+                pause();
+            }
+        }
+    }
+
+    /**
+     * Click the centre of an element once it is clickable
+     *
+     * @param locator locator of the element
+     */
+    void click(By locator) {
+        String[] point = await(locator, Condition.CLICKABLE).split(",");
+        Sequence click = new Sequence(mouse, 0)
+                .addAction(mouse.createPointerMove(Duration.ZERO, PointerInput.Origin.viewport(),
+                        Integer.parseInt(point[0]), Integer.parseInt(point[1])))
+                .addAction(mouse.createPointerDown(PointerInput.MouseButton.LEFT.asArg()))
+                .addAction(mouse.createPointerUp(PointerInput.MouseButton.LEFT.asArg()));
+        input.perform(context(), Collections.singletonList(click));
+    }
+
+    /**
+     * Clear an element once it is visible and type into it
+     *
+     * @param locator locator of the element
+     * @param text the text to type
+     */
+    void type(By locator, String text) {
+        await(locator, Condition.TYPEABLE);
+        Sequence keys = new Sequence(keyboard, 0);
+        text.codePoints().forEach(codePoint -> keys
+                .addAction(keyboard.createKeyDown(codePoint))
+                .addAction(keyboard.createKeyUp(codePoint)));
+        input.perform(context(), Collections.singletonList(keys));
+    }
+
+    /**
+     * @param locator locator of the elements
+     * @return the number of elements it matches now
+     */
+    int count(By locator) {
+        By.Remotable.Parameters parameters = ((By.Remotable) locator).getRemoteParameters();
+        Object result = call(COUNT, LocalValue.stringValue(parameters.using()),
+                LocalValue.stringValue(String.valueOf(parameters.value())));
+        return result instanceof Number ? ((Number) result).intValue() : 0;
+    }
+
+    private Object call(String function, LocalValue... arguments) {
+        EvaluateResult result;
+        try {
+            result = script.callFunctionInBrowsingContext(context(), function, true,
+                    Optional.of(Arrays.asList(arguments)), Optional.empty(), Optional.of(ResultOwnership.NONE));
+        } catch (WebDriverException e) {
+            if (isStaleRealm(e)) {
+                throw new StaleRealmException(e);
+            }
+            throw e;
+        }
+        if (result instanceof EvaluateResultExceptionValue) {
+            throw new WebDriverException("Script failed in the page: "
+                    + ((EvaluateResultExceptionValue) result).getExceptionDetails().getText());
+        }
+        return ((EvaluateResultSuccess) result).getResult().getValue().orElse(null);
+    }
+
+    /**
+     * @return true if the error, or one of its causes, says that the page of the call went away
+     */
+    private static boolean isStaleRealm(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            String message = cause.getMessage();
+            if (message != null && STALE_REALM_ERRORS.stream().anyMatch(message::contains)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void pause() {
+        try {
+            Thread.sleep(50);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WebDriverException("Interrupted while waiting for the page", e);
+        }
+    }
+
+    private String context() {
+        String current = context;
+        if (current == null) {
+            // The window handles of a BiDi session are its top-level browsing context IDs
+            current = driver.getWindowHandle();
+            context = current;
+        }
+        return current;
+    }
+
+    /**
+     * The browser rejected a call because its page was replaced while it ran
+     */
+    private static class StaleRealmException extends WebDriverException {
+        StaleRealmException(WebDriverException cause) {
+            super(cause.getMessage(), cause);
+        }
+    }
+}
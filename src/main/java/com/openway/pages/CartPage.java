@@ -1,5 +1,6 @@
 package com.openway.pages;
 
+import com.openway.perf.MaxDuration;
 import org.openqa.selenium.By;
 import org.openqa.selenium.NoSuchElementException;
 import org.openqa.selenium.WebDriver;
@@ -81,10 +82,11 @@ public class CartPage extends BasePage {
      *
      * @return CartPage instance for method chaining
      */
+    @MaxDuration(ms = 1500)
     public CartPage updateCartPage(){
         clickElement(updateButton);
         waitForPageLoad();
-        return new CartPage(driver);
+        return Pages.create(CartPage.class, driver);
     }
 
     /**
@@ -154,7 +156,7 @@ public class CartPage extends BasePage {
      * @return true if product is in cart, false otherwise
      */
     public boolean isProductInCart(String productId) {
-        logger.info("Checking if product is in cart with ID: " + productId);
+        logger.info(() -> "Checking if product is in cart with ID: " + productId);
         
         return isElementPresent(By.xpath("//div[contains(@class,'row-cart-product')][.//text()[contains(.,'" + productId + "')]]"));
     }
@@ -166,7 +168,7 @@ public class CartPage extends BasePage {
      * @return true if product is in cart, false otherwise
      */
     public boolean isProductTitleInCart(String productTitle) {
-        logger.info("Checking if product is in cart with title: " + productTitle);
+        logger.info(() -> "Checking if product is in cart with title: " + productTitle);
         
         return isElementPresent(By.xpath(
                 "//div[contains(@class,'row-cart-product')]//p[contains(@class,'product-name')][contains(text(),'" + 
@@ -190,12 +192,12 @@ public class CartPage extends BasePage {
      * @return quantity of the product
      */
     public int getProductQuantity(String productId) {
-        logger.info("Getting quantity for product ID: " + productId);
+        logger.info(() -> "Getting quantity for product ID: " + productId);
         
         WebElement productRow = findProductRowById(productId);
         
         if (productRow == null) {
-            logger.warning("Product not found in cart with ID: " + productId);
+            logger.warning(() -> "Product not found in cart with ID: " + productId);
             return 0;
         }
         
@@ -208,7 +210,7 @@ public class CartPage extends BasePage {
                 quantityElement = productRow.findElement(By.xpath(".//div[contains(@class,'row qty')]"));
                 return Integer.parseInt(quantityElement.getText().trim());
             } catch (NoSuchElementException e2) {
-                logger.warning("Could not find quantity element for product ID: " + productId);
+                logger.warning(() -> "Could not find quantity element for product ID: " + productId);
                 return 0;
             }
         }
@@ -221,12 +223,12 @@ public class CartPage extends BasePage {
      * @return subtotal as double
      */
     public double getProductSubtotal(String productId) {
-        logger.info("Getting subtotal for product ID: " + productId);
+        logger.info(() -> "Getting subtotal for product ID: " + productId);
         
         WebElement productRow = findProductRowById(productId);
         
         if (productRow == null) {
-            logger.warning("Product not found in cart with ID: " + productId);
+            logger.warning(() -> "Product not found in cart with ID: " + productId);
             return 0.0;
         }
         
@@ -241,7 +243,7 @@ public class CartPage extends BasePage {
         
         double subtotal = price * quantity;
         
-        logger.info("Calculated subtotal for product ID " + productId + ": " + subtotal);
+        logger.info(() -> "Calculated subtotal for product ID " + productId + ": " + subtotal);
         return subtotal;
     }
     
@@ -253,12 +255,12 @@ public class CartPage extends BasePage {
      * @return CartPage instance for method chaining
      */
     public CartPage updateProductQuantity(String productId, int newQuantity) {
-        logger.info("Updating quantity for product ID: " + productId + " to " + newQuantity);
+        logger.info(() -> "Updating quantity for product ID: " + productId + " to " + newQuantity);
         
         WebElement productRow = findProductRowById(productId);
         
         if (productRow == null) {
-            logger.severe("Product not found in cart with ID: " + productId);
+            logger.severe(() -> "Product not found in cart with ID: " + productId);
             throw new NoSuchElementException("Product not found in cart with ID: " + productId);
         }
         
@@ -282,12 +284,12 @@ public class CartPage extends BasePage {
                     wait.until(ExpectedConditions.attributeToBe(quantityInput, "value", String.valueOf(currentQuantity - i - 1)));
                 }
             } else {
-                logger.info("Quantity is already set to " + newQuantity + ". No action needed.");
+                logger.info(() -> "Quantity is already set to " + newQuantity + ". No action needed.");
                 return this;
             }
             
         } catch (NoSuchElementException e) {
-            logger.severe("Could not find quantity controls for product ID: " + productId);
+            logger.severe(() -> "Could not find quantity controls for product ID: " + productId);
             throw new NoSuchElementException("Could not find quantity controls for product ID: " + productId + ": " + e.getMessage());
         }
         
@@ -298,7 +300,7 @@ public class CartPage extends BasePage {
             logger.info("No updating-cart indicator found or it disappeared quickly");
         }
         
-        logger.info("Product quantity updated successfully to " + newQuantity);
+        logger.info(() -> "Product quantity updated successfully to " + newQuantity);
         return this;
     }
     
@@ -309,12 +311,12 @@ public class CartPage extends BasePage {
      * @return CartPage instance for method chaining
      */
     public CartPage removeProduct(String productId) {
-        logger.info("Removing product from cart with ID: " + productId);
+        logger.info(() -> "Removing product from cart with ID: " + productId);
         
         WebElement productRow = findProductRowById(productId);
         
         if (productRow == null) {
-            logger.severe("Product not found in cart with ID: " + productId);
+            logger.severe(() -> "Product not found in cart with ID: " + productId);
             throw new NoSuchElementException("Product not found in cart with ID: " + productId);
         }
         
@@ -344,11 +346,11 @@ public class CartPage extends BasePage {
             return this;
         }
         
-        logger.info("Found " + productIds.size() + " products to remove from cart");
+        logger.info(() -> "Found " + productIds.size() + " products to remove from cart");
         
         for (String productId : productIds) {
             try {
-                logger.info("Removing product with ID: " + productId);
+                logger.info(() -> "Removing product with ID: " + productId);
                 removeProduct(productId);
                 
                 try {
@@ -358,7 +360,7 @@ public class CartPage extends BasePage {
                     logger.warning("Thread interrupted while waiting between product removals");
                 }
             } catch (NoSuchElementException e) {
-                logger.warning("Failed to remove product with ID: " + productId + ". Error: " + e.getMessage());
+                logger.warning(() -> "Failed to remove product with ID: " + productId + ". Error: " + e.getMessage());
             }
         }
         
@@ -366,7 +368,7 @@ public class CartPage extends BasePage {
         if (isEmpty()) {
             logger.info("Cart successfully cleared");
         } else {
-            logger.warning("Failed to clear cart completely. " + getNumberOfProducts() + " products remain");
+            logger.warning(() -> "Failed to clear cart completely. " + getNumberOfProducts() + " products remain");
         }
         
         return this;
@@ -409,7 +411,7 @@ public class CartPage extends BasePage {
     public boolean verifyCartItem(String expectedProductId, String expectedProductTitle, 
                                  int expectedQuantity, double expectedTotal) {
         logger.info("Performing comprehensive verification of cart item");
-        logger.info("Expected - ID: " + expectedProductId + ", Title: " + expectedProductTitle + 
+        logger.info(() -> "Expected - ID: " + expectedProductId + ", Title: " + expectedProductTitle + 
                    ", Quantity: " + expectedQuantity + ", Total: " + expectedTotal);
         
         boolean idMatches = isProductInCart(expectedProductId);
@@ -420,7 +422,7 @@ public class CartPage extends BasePage {
         boolean quantityMatches = (actualQuantity == expectedQuantity);
         boolean totalMatches = Math.abs(actualTotal - expectedTotal) < 0.01; // Allow small rounding differences
         
-        logger.info("Verification results - ID: " + idMatches + ", Title: " + titleMatches + 
+        logger.info(() -> "Verification results - ID: " + idMatches + ", Title: " + titleMatches + 
                    ", Quantity: " + quantityMatches + ", Total: " + totalMatches);
         
         return idMatches && titleMatches && quantityMatches && totalMatches;
@@ -5,12 +5,14 @@ import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.FindBy;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
 /**
  * Page object for the Home page of Periplus website
  */
 public class HomePage extends BasePage {
-    private PageLayout pageLayout = new PageLayout(driver);
-
     @FindBy(id = "filter_name")
     private WebElement searchBox;
     
@@ -33,8 +35,9 @@ public class HomePage extends BasePage {
      * @return HomePage instance for method chaining
      */
     public HomePage navigateTo(String url) {
-        logger.info("Navigating to Periplus homepage: " + url);
+        logger.info(() -> "Navigating to Periplus homepage: " + url);
         driver.get(url);
+        Pages.navigated(driver);
         wait.until(ExpectedConditions.titleContains("Periplus"));
         logger.info("Homepage loaded successfully");
         return this;
@@ -47,12 +50,22 @@ public class HomePage extends BasePage {
      * @return ProductsPage instance
      */
     public ProductsPage searchForProduct(String searchTerm) {
-        logger.info("Searching for product: " + searchTerm);
+        logger.info(() -> "Searching for product: " + searchTerm);
         enterText(searchBox, searchTerm);
         clickElement(searchButton);
         wait.until(ExpectedConditions.urlContains("filter_name=" + searchTerm.replace(" ", "+")));
         logger.info("Search results displayed");
-        return new ProductsPage(driver);
+        return Pages.create(ProductsPage.class, driver);
+    }
+    
+    /**
+     * Get the address of the search results for a term, as the search box would open them
+     *
+     * @param searchTerm the term to search for
+     * @return URL of the search results
+     */
+    public String getSearchUrl(String searchTerm) {
+        return siteUrl("/product/Search?filter_name=" + URLEncoder.encode(searchTerm, StandardCharsets.UTF_8));
     }
     
     /**
@@ -62,9 +75,9 @@ public class HomePage extends BasePage {
      */
     public CartPage goToCart() {
         logger.info("Navigating to cart page");
-        pageLayout.clickCartIcon();
+        getPageLayout().clickCartIcon();
         waitForPageLoad();
-        return new CartPage(driver);
+        return Pages.create(CartPage.class, driver);
     }
     
     /**
@@ -74,15 +87,32 @@ public class HomePage extends BasePage {
      */
     public LoginPage goToLoginPage() {
         logger.info("Navigating to login page");
-        driver.get("https://www.periplus.com/account/Login");
-        return new LoginPage(driver);
+        driver.get(siteUrl("/account/Login"));
+        Pages.navigated(driver);
+        return Pages.create(LoginPage.class, driver);
     }
 
     /**
      * Logs out of the website
      */
     public void logout(){
-        driver.get("https://www.periplus.com/_index_/Logout");
+        driver.get(siteUrl("/_index_/Logout"));
+        Pages.navigated(driver);
         waitForPageLoad();
     }
+
+    /**
+     * Resolve a path against the site the browser is on, so the same pages work against the live
+     * site and a local stand-in
+     *
+     * @param path absolute path on the site
+     * @return URL of the path
+     */
+    private String siteUrl(String path) {
+        URI current = URI.create(driver.getCurrentUrl());
+        if (!"http".equals(current.getScheme()) && !"https".equals(current.getScheme())) {
+            return "https://www.periplus.com" + path;
+        }
+        return current.resolve(path).toString();
+    }
 }
\ No newline at end of file
@@ -33,7 +33,7 @@ public class LoginPage extends BasePage{
 
     public ProductsPage clickLoginButton(){
         clickElement(loginButton);
-        return new ProductsPage(driver);
+        return Pages.create(ProductsPage.class, driver);
     }
 
     /**
@@ -44,7 +44,7 @@ public class LoginPage extends BasePage{
      * @return HomePage instance after successful login
      */
     public HomePage login(String email, String password) {
-        logger.info("Performing login with email: " + email);
+        logger.info(() -> "Performing login with email: " + email);
         
         waitForVisibility(emailField);
         
@@ -52,7 +52,7 @@ public class LoginPage extends BasePage{
         setPassword(password);
         clickLoginButton();
 
-        return new HomePage(driver);
+        return Pages.create(HomePage.class, driver);
     }
 
     public String getErrorMessage(){
@@ -8,7 +8,7 @@ public class PageLayout extends BasePage{
     @FindBy(xpath = "//span[@id='nav-signin-text']//a")
     private WebElement signInButton;
 
-    @FindBy(xpath = "filter_name")
+    @FindBy(id = "filter_name")
     private WebElement searchBar;
 
     @FindBy(xpath = "//div[@class='search-bar']//button[@type='submit']")
@@ -39,11 +39,11 @@ public class PageLayout extends BasePage{
 
     public ProductsPage clickSearchButton(){
         clickElement(searchButton);
-        return new ProductsPage(driver);
+        return Pages.create(ProductsPage.class, driver);
     }
 
     public CartPage clickCartIcon(){
         clickElement(cartIcon);
-        return new CartPage(driver);
+        return Pages.create(CartPage.class, driver);
     }
 }
@@ -0,0 +1,169 @@
+package com.openway.pages;
+
+import com.openway.perf.StepTimings;
+import com.openway.perf.TimingInterceptor;
+import com.openway.utils.BrowserConfig;
+import com.openway.utils.ConfigManager;
+import com.openway.utils.TestConfig;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+import net.bytebuddy.implementation.MethodDelegation;
+import net.bytebuddy.matcher.ElementMatchers;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.bidi.HasBiDi;
+import org.openqa.selenium.support.ui.WebDriverWait;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Creates page objects. Pages are instances of a generated subclass whose public methods are timed by
+ * {@link TimingInterceptor}, so {@code @MaxDuration} budgets are checked and every call shows up in the
+ * {@link StepTimings} summary.
+ * <p>
+ * Page objects hold no element references of their own, so one instance of each page class is kept
+ * per driver and handed out again on every page transition, together with one shared
+ * {@link WebDriverWait}. The pages of a driver are forgotten when it is sent to a new URL with
+ * {@link #navigated} and when it quits with {@link #release}.
+ * <p>
+ * With {@code browser.transport=bidi} the pages of a driver with a WebDriver BiDi connection share
+ * {@link BidiPrimitives} as well; drivers without one, e.g. attached to a shared or daemon browser,
+ * keep the classic commands.
+ */
+public class Pages {
+    private static final Logger logger = Logger.getLogger(Pages.class.getName());
+    private static final Map<Class<?>, Class<?>> TIMED_TYPES = new ConcurrentHashMap<>();
+    private static final Map<WebDriver, Session> SESSIONS = new ConcurrentHashMap<>();
+
+    /**
+     * Page objects, the wait and the BiDi primitives shared by the pages of one driver
+     */
+    private static class Session {
+        private final WebDriverWait wait;
+        private final BidiPrimitives bidi;
+        private final Map<Class<?>, BasePage> pages = new ConcurrentHashMap<>();
+
+        Session(WebDriver driver) {
+            TestConfig config = ConfigManager.get();
+            this.wait = new WebDriverWait(driver, config.getExplicitWait());
+            if (config.getBrowser().getTransport() != BrowserConfig.Transport.BIDI) {
+                this.bidi = null;
+            } else if (driver instanceof HasBiDi && ((HasBiDi) driver).maybeGetBiDi().isPresent()) {
+                this.bidi = new BidiPrimitives(driver, config.getExplicitWait());
+            } else {
+                logger.warning("No WebDriver BiDi connection on " + driver.getClass().getSimpleName()
+                        + ", its pages use classic commands");
+                this.bidi = null;
+            }
+        }
+    }
+
+    private Pages() {
+        // Private constructor to prevent instantiation
+    }
+
+    /**
+     * Get the page object of a driver, creating it on first use
+     *
+     * @param type the page class
+     * @param driver WebDriver instance
+     * @param <T> the page type
+     * @return the page object bound to the driver
+     */
+    public static <T extends BasePage> T create(Class<T> type, WebDriver driver) {
+        Session session = SESSIONS.computeIfAbsent(driver, Session::new);
+        BasePage page = session.pages.get(type);
+        if (page == null) {
+            page = newPage(type, driver);
+            BasePage existing = session.pages.putIfAbsent(type, page);
+            page = existing != null ? existing : page;
+        }
+        return type.cast(page);
+    }
+
+    /**
+     * Forget the page objects of a driver after it was sent to a new URL
+     *
+     * @param driver WebDriver instance
+     */
+    public static void navigated(WebDriver driver) {
+        Session session = SESSIONS.get(driver);
+        if (session != null) {
+            session.pages.clear();
+        }
+    }
+
+    /**
+     * Note that the driver was switched to another window, so BiDi primitives act on that window
+     *
+     * @param driver WebDriver instance
+     */
+    public static void windowSwitched(WebDriver driver) {
+        Session session = SESSIONS.get(driver);
+        if (session != null && session.bidi != null) {
+            session.bidi.windowSwitched();
+        }
+    }
+
+    /**
+     * Forget the page objects and the wait of a driver that quits
+     *
+     * @param driver WebDriver instance
+     */
+    public static void release(WebDriver driver) {
+        SESSIONS.remove(driver);
+    }
+
+    /**
+     * @param driver WebDriver instance
+     * @return the wait shared by the pages of the driver
+     */
+    static WebDriverWait sharedWait(WebDriver driver) {
+        return SESSIONS.computeIfAbsent(driver, Session::new).wait;
+    }
+
+    /**
+     * @param driver WebDriver instance
+     * @return the BiDi primitives of the driver, or null if its pages use classic commands
+     */
+    static BidiPrimitives bidi(WebDriver driver) {
+        return SESSIONS.computeIfAbsent(driver, Session::new).bidi;
+    }
+
+    private static <T extends BasePage> T newPage(Class<T> type, WebDriver driver) {
+        Class<? extends T> implementation = timedType(type);
+        try {
+            return implementation.getConstructor(WebDriver.class).newInstance(driver);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Failed to create page " + type.getSimpleName(), e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to create page " + type.getSimpleName(), e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends BasePage> Class<? extends T> timedType(Class<T> type) {
+        return (Class<? extends T>) TIMED_TYPES.computeIfAbsent(type, key -> {
+            try {
+                return new ByteBuddy()
+                        .subclass(type)
+                        .method(ElementMatchers.isPublic()
+                                .and(ElementMatchers.isDeclaredBy(type))
+                                .and(ElementMatchers.not(ElementMatchers.isStatic())))
+                        .intercept(MethodDelegation.to(TimingInterceptor.class))
+                        .make()
+                        .load(type.getClassLoader(),
+                                ClassLoadingStrategy.UsingLookup.of(MethodHandles.privateLookupIn(type, MethodHandles.lookup())))
+                        .getLoaded();
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Cannot generate intercepted subclass of " + type.getSimpleName(), e);
+            }
+        });
+    }
+}
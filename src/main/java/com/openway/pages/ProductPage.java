@@ -1,5 +1,6 @@
 package com.openway.pages;
 
+import com.openway.perf.MaxDuration;
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
@@ -7,8 +8,6 @@ import org.openqa.selenium.support.FindBy;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 
 public class ProductPage extends BasePage {
-    private PageLayout pageLayout = new PageLayout(driver);
-
     @FindBy(tagName = "h2")
     private WebElement productTitle;
     
@@ -36,6 +35,27 @@ public class ProductPage extends BasePage {
         super(driver);
     }
 
+    /**
+     * Wait until the product details are shown, e.g. after the page was opened in another tab
+     *
+     * @return ProductPage instance for method chaining
+     */
+    public ProductPage waitUntilLoaded() {
+        waitForPageLoad();
+        wait.until(ExpectedConditions.presenceOfElementLocated(
+                By.xpath("//div[contains(@class,'row-product-detail')]")));
+        return this;
+    }
+
+    /**
+     * Get the ID of the product from the page address
+     *
+     * @return product ID, e.g. {@code 9780143127741}
+     */
+    public String getProductId() {
+        return driver.getCurrentUrl().replaceAll(".*/p/([0-9]+).*", "$1");
+    }
+
     /**
      * Get the price of the product as an integer
      *
@@ -90,7 +110,7 @@ public class ProductPage extends BasePage {
      * @return ProductPage instance for method chaining
      */
     public ProductPage setQuantity(int quantity) {
-        logger.info("Setting product quantity to: " + quantity);
+        logger.info(() -> "Setting product quantity to: " + quantity);
         int difference = quantity - getCurrentQuantity();
         if(difference < 0){
             for(int i = 0; i > difference; i--){
@@ -111,9 +131,10 @@ public class ProductPage extends BasePage {
      *
      * @return ProductPage instance for method chaining
      */
+    @MaxDuration(ms = 1500)
     public ProductPage addToCart() {
         String bookTitle = getProductTitle();
-        logger.info("Adding the book to cart: " + bookTitle);
+        logger.info(() -> "Adding the book to cart: " + bookTitle);
         
         clickElement(addToCartButton);
         
@@ -140,11 +161,11 @@ public class ProductPage extends BasePage {
      */
     public CartPage goToCart() {
         logger.info("Navigating to cart page");
-        pageLayout.clickCartIcon();
+        getPageLayout().clickCartIcon();
         waitForPageLoad();
         wait.until(ExpectedConditions.presenceOfElementLocated(
                 By.xpath("//div[contains(@class,'shopping-summery') or contains(@class,'shopping-cart')]")));
         logger.info("Cart page loaded");
-        return new CartPage(driver);
+        return Pages.create(CartPage.class, driver);
     }
 }
\ No newline at end of file
@@ -0,0 +1,258 @@
+package com.openway.pages;
+
+import com.openway.impact.PageCallRecorder;
+import com.openway.perf.StepTimings;
+import com.openway.perf.TimelineTrace;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Asynchronous page-object API that opens several products in tabs of one browser session, so their
+ * pages load at the same time instead of one after another.
+ * <p>
+ * A WebDriver session sends every command to its one current window, so its commands cannot run
+ * concurrently: all commands of a {@code ProductTabs} run in order on a thread of its own and every
+ * method returns a {@link CompletableFuture}. What overlaps is the waiting on the network. The tabs are
+ * opened and sent on to their product by script, which returns at once, and each tab is only waited on
+ * after all of them have started loading, so opening N products costs about one search and one product
+ * page load rather than N of each. Adding to the cart goes through the same thread, so the clicks that
+ * change the cart never interleave.
+ * <p>
+ * Page-object calls made for the tabs count for the test that created them: they show up in its
+ * timeline trace, and the calls and latency budget violations are handed back to its thread by
+ * {@link #close()}, which must run on that thread. The tabs share the browser context, and so the
+ * login and the cart, of the window they were opened from.
+ */
+public class ProductTabs implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(ProductTabs.class.getName());
+    private static final AtomicInteger LANES = new AtomicInteger();
+
+    private final WebDriver driver;
+    private final String homeHandle;
+    private final TimelineTrace trace;
+    private final ExecutorService lane;
+    private final List<String> handles = Collections.synchronizedList(new ArrayList<>());
+    private final Set<String> calls = Collections.synchronizedSet(new TreeSet<>());
+    private final List<String> violations = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * A product opened in a tab
+     */
+    public static class ProductTab {
+        private final String handle;
+        private final String searchTerm;
+        private final String productId;
+        private final String title;
+        private final double price;
+
+        ProductTab(String handle, String searchTerm, String productId, String title, double price) {
+            this.handle = handle;
+            this.searchTerm = searchTerm;
+            this.productId = productId;
+            this.title = title;
+            this.price = price;
+        }
+
+        public String getSearchTerm() {
+            return searchTerm;
+        }
+
+        public String getProductId() {
+            return productId;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public double getPrice() {
+            return price;
+        }
+    }
+
+    /**
+     * Constructor; the tabs are opened from the driver's current window, which must show a page of the site
+     *
+     * @param driver WebDriver instance, not to be used by the caller until {@link #close()}
+     */
+    public ProductTabs(WebDriver driver) {
+        this.driver = driver;
+        this.homeHandle = driver.getWindowHandle();
+        this.trace = TimelineTrace.current();
+        int number = LANES.incrementAndGet();
+        this.lane = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "product-tabs-" + number);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Search for products and open one result of each search in a tab of its own
+     *
+     * @param searchTerms the terms to search for
+     * @param indices the index of the result to open for each term (0-based)
+     * @return one future per term, completed when its product page has loaded
+     */
+    public List<CompletableFuture<ProductTab>> open(List<String> searchTerms, List<Integer> indices) {
+        logger.info(() -> "Opening " + searchTerms.size() + " products in tabs: " + searchTerms);
+        CompletableFuture<List<String>> searches = submit(() -> {
+            HomePage homePage = Pages.create(HomePage.class, driver);
+            List<String> opened = new ArrayList<>();
+            for (String searchTerm : searchTerms) {
+                opened.add(openTab(homePage.getSearchUrl(searchTerm)));
+            }
+            return opened;
+        });
+
+        List<CompletableFuture<String>> products = new ArrayList<>();
+        for (int i = 0; i < searchTerms.size(); i++) {
+            int tab = i;
+            products.add(submit(() -> {
+                String handle = searches.join().get(tab);
+                switchTo(handle);
+                String url = Pages.create(ProductsPage.class, driver).waitUntilLoaded().getProductUrl(indices.get(tab));
+                ((JavascriptExecutor) driver).executeScript("window.location.href = arguments[0];", url);
+                return handle;
+            }));
+        }
+
+        List<CompletableFuture<ProductTab>> tabs = new ArrayList<>();
+        for (int i = 0; i < searchTerms.size(); i++) {
+            int tab = i;
+            tabs.add(submit(() -> {
+                String handle = products.get(tab).join();
+                switchTo(handle);
+                ProductPage productPage = Pages.create(ProductPage.class, driver).waitUntilLoaded();
+                ProductTab product = new ProductTab(handle, searchTerms.get(tab), productPage.getProductId(),
+                        productPage.getProductTitle(), productPage.getProductPrice());
+                logger.info(() -> "Product " + product.getProductId() + " loaded for: " + product.getSearchTerm());
+                return product;
+            }));
+        }
+        return tabs;
+    }
+
+    /**
+     * Add the product of a tab to the cart, after the cart changes requested before
+     *
+     * @param tab the product's tab
+     * @param quantity quantity to add
+     * @return a future completed when the cart has the product
+     */
+    public CompletableFuture<ProductTab> addToCart(ProductTab tab, int quantity) {
+        return submit(() -> {
+            switchTo(tab.handle);
+            ProductPage productPage = Pages.create(ProductPage.class, driver);
+            if (quantity > 1) {
+                productPage.setQuantity(quantity);
+            }
+            productPage.addToCart();
+            return tab;
+        });
+    }
+
+    /**
+     * Wait for a future of this API and rethrow its failure as thrown on the lane, e.g. a failed assertion
+     * or a {@code TimeoutException}, rather than wrapped in a {@link CompletionException}
+     *
+     * @param future the future
+     * @param <T> the result type
+     * @return the result
+     */
+    public static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Close the tabs, switch back to the window they were opened from and hand the page-object calls
+     * made for them to the current thread
+     */
+    @Override
+    public void close() {
+        try {
+            await(submit(() -> {
+                synchronized (handles) {
+                    for (String handle : handles) {
+                        try {
+                            driver.switchTo().window(handle).close();
+                        } catch (WebDriverException e) {
+                            logger.fine(() -> "Tab " + handle + " already closed: " + e.getMessage());
+                        }
+                    }
+                }
+                switchTo(homeHandle);
+                return null;
+            }));
+        } finally {
+            lane.shutdown();
+            PageCallRecorder.addAll(calls);
+            StepTimings.addViolations(violations);
+        }
+    }
+
+    /**
+     * Open a tab that starts loading a page, without waiting for it
+     *
+     * @return the handle of the tab
+     */
+    private String openTab(String url) {
+        switchTo(homeHandle);
+        Set<String> before = driver.getWindowHandles();
+        // A tab opened by the page shares the browser context, and so the session, of the window
+        ((JavascriptExecutor) driver).executeScript("window.open(arguments[0], '_blank');", url);
+        for (String handle : driver.getWindowHandles()) {
+            if (!before.contains(handle)) {
+                handles.add(handle);
+                return handle;
+            }
+        }
+        throw new WebDriverException("The browser did not open a tab for " + url);
+    }
+
+    private void switchTo(String handle) {
+        driver.switchTo().window(handle);
+        Pages.windowSwitched(driver);
+    }
+
+    /**
+     * Run a task on the lane on behalf of the thread that created the tabs
+     */
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            TimelineTrace.attach(trace);
+            try {
+                return task.get();
+            } finally {
+                calls.addAll(PageCallRecorder.drain());
+                violations.addAll(StepTimings.drainViolations());
+                TimelineTrace.attach(null);
+            }
+        }, lane);
+    }
+}
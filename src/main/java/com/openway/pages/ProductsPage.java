@@ -28,6 +28,17 @@ public class ProductsPage extends BasePage {
         super(driver);
     }
 
+    /**
+     * Wait until the search results are shown, e.g. after they were opened in another tab
+     *
+     * @return ProductsPage instance for method chaining
+     */
+    public ProductsPage waitUntilLoaded() {
+        waitForPageLoad();
+        wait.until(ExpectedConditions.presenceOfElementLocated(By.className("product-area")));
+        return this;
+    }
+
     /**
      * Check if product area is displayed
      * 
@@ -55,7 +66,7 @@ public class ProductsPage extends BasePage {
                 By.xpath("//div[contains(@class,'row-product-detail')]")));
         
         logger.info("Product page loaded");
-        return new ProductPage(driver);
+        return Pages.create(ProductPage.class, driver);
     }
     
     /**
@@ -65,12 +76,12 @@ public class ProductsPage extends BasePage {
      * @return ProductPage instance
      */
     public ProductPage selectProductByIndex(int index) {
-        logger.info("Selecting product at index " + index + " from search results");
+        logger.info(() -> "Selecting product at index " + index + " from search results");
         
         waitForPageLoad();
         
         if (productLinks.size() <= index) {
-            logger.severe("Product index out of bounds. Requested: " + index + ", Available: " + productLinks.size());
+            logger.severe(() -> "Product index out of bounds. Requested: " + index + ", Available: " + productLinks.size());
             throw new IndexOutOfBoundsException("Product index out of bounds: " + index);
         }
         
@@ -83,7 +94,23 @@ public class ProductsPage extends BasePage {
                 By.xpath("//div[contains(@class,'row-product-detail')]")));
         
         logger.info("Product page loaded");
-        return new ProductPage(driver);
+        return Pages.create(ProductPage.class, driver);
+    }
+    
+    /**
+     * Get the address of a product in the search results without opening it
+     *
+     * @param index the index of the product (0-based)
+     * @return absolute URL of the product page
+     */
+    public String getProductUrl(int index) {
+        waitForPageLoad();
+        
+        if (productLinks.size() <= index) {
+            logger.severe(() -> "Product index out of bounds. Requested: " + index + ", Available: " + productLinks.size());
+            throw new IndexOutOfBoundsException("Product index out of bounds: " + index);
+        }
+        return productLinks.get(index).getDomProperty("href");
     }
     
     /**
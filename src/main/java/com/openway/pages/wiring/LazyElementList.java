@@ -0,0 +1,75 @@
+package com.openway.pages.wiring;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebElement;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The elements of a {@code List<WebElement>} page object field, located again on every call like
+ * the PageFactory list proxy. Iterating locates the elements once for the whole loop.
+ */
+public class LazyElementList extends AbstractList<WebElement> {
+    private final SearchContext context;
+    private final By locator;
+
+    /**
+     * Constructor
+     *
+     * @param context driver or element to search in
+     * @param locator locator of the elements
+     */
+    public LazyElementList(SearchContext context, By locator) {
+        this.context = context;
+        this.locator = locator;
+    }
+
+    /**
+     * @return the locator of the elements, without asking the browser
+     */
+    public By getLocator() {
+        return locator;
+    }
+
+    @Override
+    public WebElement get(int index) {
+        return locate().get(index);
+    }
+
+    @Override
+    public int size() {
+        return locate().size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return locate().isEmpty();
+    }
+
+    @Override
+    public Iterator<WebElement> iterator() {
+        return locate().iterator();
+    }
+
+    @Override
+    public Object[] toArray() {
+        return locate().toArray();
+    }
+
+    @Override
+    public <T> T[] toArray(T[] array) {
+        return locate().toArray(array);
+    }
+
+    @Override
+    public String toString() {
+        return "Lazy elements located by " + locator;
+    }
+
+    private List<WebElement> locate() {
+        return context.findElements(locator);
+    }
+}
@@ -0,0 +1,23 @@
+package com.openway.pages.wiring;
+
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Assigns the elements of one page class, generated at compile time by {@link PageWiringProcessor}
+ *
+ * @param <T> the page class
+ */
+public interface PageWiring<T> {
+    /**
+     * @return the page class whose fields this wiring assigns
+     */
+    Class<T> getPageType();
+
+    /**
+     * Assign a lazily located element to every locator field declared by the page class
+     *
+     * @param page the page object
+     * @param driver WebDriver instance the elements are located with
+     */
+    void wire(T page, WebDriver driver);
+}
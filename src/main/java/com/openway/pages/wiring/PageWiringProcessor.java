@@ -0,0 +1,300 @@
+package com.openway.pages.wiring;
+
+import org.openqa.selenium.support.FindAll;
+import org.openqa.selenium.support.FindBy;
+import org.openqa.selenium.support.FindBys;
+import org.openqa.selenium.support.How;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Generates a {@link PageWiring} for every class with {@code @FindBy}, {@code @FindBys} or
+ * {@code @FindAll} fields, so page objects are wired without PageFactory reflection.
+ * <p>
+ * The locators are turned into {@code By} expressions at compile time and the generated
+ * {@code <Page>_Wiring} class, in the page's package, assigns a {@link LazyElement} or
+ * {@link LazyElementList} to each field. The fields stay private to the page: the wiring looks up a
+ * {@code VarHandle} per field once, through a private lookup in the page class, so the page declares
+ * no setters and wiring a page costs one handle write per field. The fields must not be final or static.
+ * The generated classes are listed in {@code META-INF/services} for {@link PageWirings} to find.
+ */
+public class PageWiringProcessor extends AbstractProcessor {
+    // Names rather than class literals, so the processor compiles on its own before the pages
+    private static final String PAGE_WIRING = "com.openway.pages.wiring.PageWiring";
+    private static final String LAZY_ELEMENT = "com.openway.pages.wiring.LazyElement";
+    private static final String LAZY_ELEMENT_LIST = "com.openway.pages.wiring.LazyElementList";
+    private static final String SERVICE_FILE = "META-INF/services/" + PAGE_WIRING;
+
+    private final Set<String> wirings = new TreeSet<>();
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return new LinkedHashSet<>(Arrays.asList(
+                FindBy.class.getName(), FindBys.class.getName(), FindAll.class.getName()));
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        Map<TypeElement, List<VariableElement>> fieldsByPage = new LinkedHashMap<>();
+        for (TypeElement annotation : annotations) {
+            for (Element element : round.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() == ElementKind.FIELD) {
+                    List<VariableElement> fields = fieldsByPage.computeIfAbsent(
+                            (TypeElement) element.getEnclosingElement(), key -> new ArrayList<>());
+                    if (!fields.contains(element)) {
+                        fields.add((VariableElement) element);
+                    }
+                }
+            }
+        }
+
+        for (Map.Entry<TypeElement, List<VariableElement>> page : fieldsByPage.entrySet()) {
+            writeWiring(page.getKey(), page.getValue());
+        }
+
+        if (round.processingOver() && !wirings.isEmpty()) {
+            writeServiceFile();
+        }
+        return false;
+    }
+
+    private void writeWiring(TypeElement page, List<VariableElement> fields) {
+        String pageName = page.getQualifiedName().toString();
+        String simpleName = wiringName(page);
+        StringBuilder handles = new StringBuilder();
+        StringBuilder lookups = new StringBuilder();
+        StringBuilder body = new StringBuilder();
+        boolean valid = true;
+        for (VariableElement field : fields) {
+            String value = wiringOf(field);
+            if (value == null) {
+                valid = false;
+                continue;
+            }
+            String name = field.getSimpleName().toString();
+            String type = processingEnv.getTypeUtils().erasure(field.asType()).toString();
+            handles.append("    private static final java.lang.invoke.VarHandle ").append(name).append(";\n");
+            lookups.append("            ").append(name).append(" = lookup.findVarHandle(").append(pageName).append(".class, ")
+                    .append(literal(name)).append(", ").append(type).append(".class);\n");
+            body.append("        ").append(simpleName).append(".").append(name)
+                    .append(".set(page, ").append(value).append(");\n");
+        }
+        if (!valid) {
+            return;
+        }
+
+        String packageName = processingEnv.getElementUtils().getPackageOf(page).getQualifiedName().toString();
+        String qualifiedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        String source = (packageName.isEmpty() ? "" : "package " + packageName + ";\n\n")
+                + "/**\n"
+                + " * Element wiring of {@link " + pageName + "}, generated by " + getClass().getSimpleName() + "\n"
+                + " */\n"
+                + "@javax.annotation.processing.Generated(\"" + getClass().getName() + "\")\n"
+                + "public final class " + simpleName + " implements " + PAGE_WIRING
+                + "<" + pageName + "> {\n"
+                + handles
+                + "\n"
+                + "    static {\n"
+                + "        try {\n"
+                + "            java.lang.invoke.MethodHandles.Lookup lookup = java.lang.invoke.MethodHandles"
+                + ".privateLookupIn(" + pageName + ".class, java.lang.invoke.MethodHandles.lookup());\n"
+                + lookups
+                + "        } catch (ReflectiveOperationException e) {\n"
+                + "            throw new ExceptionInInitializerError(e);\n"
+                + "        }\n"
+                + "    }\n"
+                + "\n"
+                + "    @Override\n"
+                + "    public Class<" + pageName + "> getPageType() {\n"
+                + "        return " + pageName + ".class;\n"
+                + "    }\n"
+                + "\n"
+                + "    @Override\n"
+                + "    public void wire(" + pageName + " page, org.openqa.selenium.WebDriver driver) {\n"
+                + body
+                + "    }\n"
+                + "}\n";
+
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, page);
+            try (Writer writer = file.openWriter()) {
+                writer.write(source);
+            }
+            wirings.add(qualifiedName);
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Failed to write " + qualifiedName + ": " + e.getMessage(), page);
+        }
+    }
+
+    private String wiringOf(VariableElement field) {
+        Set<Modifier> modifiers = field.getModifiers();
+        if (modifiers.contains(Modifier.FINAL) || modifiers.contains(Modifier.STATIC)) {
+            error(field, "Page element fields must not be final or static to be wired at compile time");
+            return null;
+        }
+
+        String by = locatorOf(field);
+        if (by == null) {
+            return null;
+        }
+
+        TypeMirror type = processingEnv.getTypeUtils().erasure(field.asType());
+        String typeName = type.toString();
+        if ("org.openqa.selenium.WebElement".equals(typeName)) {
+            return "new " + LAZY_ELEMENT + "(driver, " + by + ")";
+        } else if ("java.util.List".equals(typeName)) {
+            return "new " + LAZY_ELEMENT_LIST + "(driver, " + by + ")";
+        }
+        error(field, "Page element fields must be WebElement or List<WebElement>");
+        return null;
+    }
+
+    private String locatorOf(VariableElement field) {
+        FindBy findBy = field.getAnnotation(FindBy.class);
+        FindBys findBys = field.getAnnotation(FindBys.class);
+        FindAll findAll = field.getAnnotation(FindAll.class);
+        if ((findBy != null ? 1 : 0) + (findBys != null ? 1 : 0) + (findAll != null ? 1 : 0) > 1) {
+            error(field, "Use only one of @FindBy, @FindBys and @FindAll");
+            return null;
+        }
+
+        if (findBy != null) {
+            return locatorOf(field, findBy);
+        }
+        FindBy[] parts = findBys != null ? findBys.value() : findAll.value();
+        List<String> locators = new ArrayList<>();
+        for (FindBy part : parts) {
+            String locator = locatorOf(field, part);
+            if (locator == null) {
+                return null;
+            }
+            locators.add(locator);
+        }
+        String composite = findBys != null ? "org.openqa.selenium.support.pagefactory.ByChained"
+                : "org.openqa.selenium.support.pagefactory.ByAll";
+        return "new " + composite + "(" + String.join(", ", locators) + ")";
+    }
+
+    /**
+     * Build the {@code By} expression of a {@code @FindBy}, which must set exactly one locator
+     */
+    private String locatorOf(VariableElement field, FindBy findBy) {
+        List<String> locators = new ArrayList<>();
+        if (findBy.how() != How.UNSET) {
+            locators.add(locatorOf(findBy.how(), findBy.using()));
+        }
+        addLocator(locators, "id", findBy.id());
+        addLocator(locators, "name", findBy.name());
+        addLocator(locators, "className", findBy.className());
+        addLocator(locators, "cssSelector", findBy.css());
+        addLocator(locators, "tagName", findBy.tagName());
+        addLocator(locators, "linkText", findBy.linkText());
+        addLocator(locators, "partialLinkText", findBy.partialLinkText());
+        addLocator(locators, "xpath", findBy.xpath());
+
+        if (locators.size() != 1) {
+            error(field, "@FindBy must set exactly one locator, found " + locators.size());
+            return null;
+        }
+        return locators.get(0);
+    }
+
+    private String locatorOf(How how, String using) {
+        switch (how) {
+            case CLASS_NAME:
+                return byMethod("className", using);
+            case CSS:
+                return byMethod("cssSelector", using);
+            case ID:
+                return byMethod("id", using);
+            case ID_OR_NAME:
+                return "new org.openqa.selenium.support.pagefactory.ByIdOrName(" + literal(using) + ")";
+            case LINK_TEXT:
+                return byMethod("linkText", using);
+            case NAME:
+                return byMethod("name", using);
+            case PARTIAL_LINK_TEXT:
+                return byMethod("partialLinkText", using);
+            case TAG_NAME:
+                return byMethod("tagName", using);
+            case XPATH:
+                return byMethod("xpath", using);
+            default:
+                throw new IllegalArgumentException("Unsupported locator strategy: " + how);
+        }
+    }
+
+    private void addLocator(List<String> locators, String method, String value) {
+        if (!value.isEmpty()) {
+            locators.add(byMethod(method, value));
+        }
+    }
+
+    private String byMethod(String method, String value) {
+        return "org.openqa.selenium.By." + method + "(" + literal(value) + ")";
+    }
+
+    private String literal(String value) {
+        return processingEnv.getElementUtils().getConstantExpression(value);
+    }
+
+    /**
+     * @return e.g. {@code HomePage_Wiring}, or {@code Outer_Inner_Wiring} for a nested page class
+     */
+    private static String wiringName(TypeElement page) {
+        StringBuilder name = new StringBuilder(page.getSimpleName());
+        for (Element outer = page.getEnclosingElement(); !(outer instanceof PackageElement);
+                outer = outer.getEnclosingElement()) {
+            name.insert(0, outer.getSimpleName() + "_");
+        }
+        return name.append("_Wiring").toString();
+    }
+
+    private void writeServiceFile() {
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+            try (Writer writer = file.openWriter()) {
+                for (String wiring : wirings) {
+                    writer.write(wiring);
+                    writer.write("\n");
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Failed to write " + SERVICE_FILE + ": " + e.getMessage());
+        }
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
@@ -0,0 +1,55 @@
+package com.openway.pages.wiring;
+
+import org.openqa.selenium.WebDriver;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.logging.Logger;
+
+/**
+ * Finds the {@link PageWiring} generated for each page class. The wirings are loaded once, from the
+ * {@code META-INF/services} file written by {@link PageWiringProcessor}.
+ */
+public class PageWirings {
+    private static final Logger logger = Logger.getLogger(PageWirings.class.getName());
+    private static final Map<Class<?>, PageWiring<?>> WIRINGS = load();
+
+    private PageWirings() {
+        // Private constructor to prevent instantiation
+    }
+
+    /**
+     * Wire a page and the page classes it extends, up to but not including {@code stopAt}
+     *
+     * @param page the page object
+     * @param driver WebDriver instance the elements are located with
+     * @param stopAt the first superclass that declares no elements
+     * @return false if no wirings were generated, e.g. because annotation processing was switched off
+     */
+    @SuppressWarnings("unchecked")
+    public static boolean wire(Object page, WebDriver driver, Class<?> stopAt) {
+        if (WIRINGS.isEmpty()) {
+            return false;
+        }
+        for (Class<?> type = page.getClass(); type != stopAt && type != null; type = type.getSuperclass()) {
+            PageWiring<Object> wiring = (PageWiring<Object>) WIRINGS.get(type);
+            if (wiring != null) {
+                wiring.wire(page, driver);
+            }
+        }
+        return true;
+    }
+
+    private static Map<Class<?>, PageWiring<?>> load() {
+        Map<Class<?>, PageWiring<?>> wirings = new HashMap<>();
+        for (PageWiring<?> wiring : ServiceLoader.load(PageWiring.class, PageWirings.class.getClassLoader())) {
+            wirings.put(wiring.getPageType(), wiring);
+        }
+        if (wirings.isEmpty()) {
+            logger.warning("No generated page wirings found, falling back to PageFactory");
+        }
+        return Collections.unmodifiableMap(wirings);
+    }
+}
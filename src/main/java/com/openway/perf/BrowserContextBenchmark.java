@@ -0,0 +1,142 @@
+package com.openway.perf;
+
+import com.openway.browser.ProcessMemory;
+import com.openway.browser.SharedBrowser;
+import com.openway.standin.Catalog;
+import com.openway.standin.StandInServer;
+import com.openway.utils.DriverFactory;
+import io.github.bonigarcia.wdm.WebDriverManager;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Compares one Chrome process per session with one shared Chrome and a browser context per session.
+ * <p>
+ * Both modes open the same number of sessions against the embedded stand-in storefront, keep them all
+ * open and measure the proportional memory of the browser and driver processes, the time to open a
+ * session, and whether a cookie set in one session is visible in another. A process per session pays
+ * for a chromedriver per session as well; the contexts all share the chromedriver of the shared browser,
+ * which is counted in its fixed cost, not per session. From the fixed cost and the cost per session
+ * the report estimates how many concurrent sessions fit into the memory that was available when the
+ * benchmark started.
+ * <p>
+ * Options: {@code bench.sessions} sessions per mode, default 8.
+ * Usage: {@code mvn -P context-bench compile exec:java -Dbench.sessions=16}
+ */
+public class BrowserContextBenchmark {
+    private static final Logger logger = Logger.getLogger(BrowserContextBenchmark.class.getName());
+    private static final String REPORT_FILE = "target/perf/browser-contexts.txt";
+
+    public static void main(String[] args) throws IOException {
+        int sessions = Integer.getInteger("bench.sessions", 8);
+        if (!ProcessMemory.isSupported()) {
+            logger.warning("Process memory cannot be read on this system, only timings will be reported");
+        }
+        long availableBytes = ProcessMemory.availableBytes();
+        WebDriverManager.chromedriver().setup();
+
+        List<Result> results = new ArrayList<>();
+        try (StandInServer standIn = new StandInServer(Catalog.synthetic(10000, 42), 0).start()) {
+            String url = standIn.getBaseUrl() + "product/Search?filter_name=Blockchains";
+
+            results.add(measure("process per session", sessions, url, null,
+                    () -> new ChromeDriver(DriverFactory.chromeOptions(true))));
+
+            long before = ProcessMemory.childProcessBytes();
+            try (SharedBrowser browser = new SharedBrowser(DriverFactory.chromeOptions(true))) {
+                long fixed = before < 0 ? -1 : ProcessMemory.childProcessBytes() - before;
+                results.add(measure("context per session", sessions, url, fixed, browser::newContext));
+            }
+        }
+
+        File report = new File(REPORT_FILE);
+        report.getParentFile().mkdirs();
+        try (PrintStream out = new PrintStream(report, StandardCharsets.UTF_8.name())) {
+            printTable(results, availableBytes, out);
+        }
+        printTable(results, availableBytes, System.out);
+        logger.info("Browser context report written to " + report.getAbsolutePath());
+    }
+
+    private static Result measure(String mode, int sessions, String url, Long fixedBytes,
+                                  Supplier<WebDriver> newSession) {
+        logger.info("Opening " + sessions + " sessions, " + mode);
+        long before = ProcessMemory.childProcessBytes();
+        List<WebDriver> drivers = new ArrayList<>();
+        long openNanos = 0;
+        try {
+            for (int i = 0; i < sessions; i++) {
+                long start = System.nanoTime();
+                WebDriver driver = newSession.get();
+                drivers.add(driver);
+                driver.get(url);
+                openNanos += System.nanoTime() - start;
+            }
+
+            boolean isolated = true;
+            if (drivers.size() > 1) {
+                drivers.get(0).manage().addCookie(new Cookie("isolation-probe", "1"));
+                isolated = drivers.get(1).manage().getCookieNamed("isolation-probe") == null;
+            }
+
+            long after = ProcessMemory.childProcessBytes();
+            Result result = new Result();
+            result.mode = mode;
+            result.sessions = sessions;
+            result.openMillis = openNanos / 1e6 / sessions;
+            result.isolated = isolated;
+            if (before >= 0 && after >= 0) {
+                long total = after - before;
+                result.fixedBytes = fixedBytes == null ? 0 : fixedBytes;
+                result.bytesPerSession = (total - (fixedBytes == null ? 0 : fixedBytes)) / (double) sessions;
+            }
+            return result;
+        } finally {
+            for (WebDriver driver : drivers) {
+                driver.quit();
+            }
+        }
+    }
+
+    private static void printTable(List<Result> results, long availableBytes, PrintStream out) {
+        out.println(String.format("%-22s %8s %10s %10s %12s %14s %9s",
+                "Mode", "Sessions", "Open (ms)", "Fixed MB", "MB/session", "Max sessions", "Isolated"));
+        for (Result result : results) {
+            String maxSessions = "-";
+            if (availableBytes > 0 && result.bytesPerSession > 0) {
+                maxSessions = Long.toString((long) ((availableBytes - result.fixedBytes) / result.bytesPerSession));
+            }
+            out.println(String.format(Locale.ROOT, "%-22s %8d %10.0f %10s %12s %14s %9s",
+                    result.mode, result.sessions, result.openMillis,
+                    result.bytesPerSession > 0 ? String.format(Locale.ROOT, "%.0f", result.fixedBytes / 1048576.0) : "-",
+                    result.bytesPerSession > 0 ? String.format(Locale.ROOT, "%.1f", result.bytesPerSession / 1048576.0) : "-",
+                    maxSessions, result.isolated ? "yes" : "NO"));
+        }
+        out.println("Memory includes the chromedriver processes: one per session for a process per session, "
+                + "one in the fixed cost for contexts");
+        if (availableBytes > 0) {
+            out.println(String.format(Locale.ROOT, "Max sessions: how many fit into the %.0f MB available at the start",
+                    availableBytes / 1048576.0));
+        }
+    }
+
+    private static class Result {
+        private String mode;
+        private int sessions;
+        private double openMillis;
+        private boolean isolated;
+        private long fixedBytes;
+        private double bytesPerSession;
+    }
+}
@@ -0,0 +1,331 @@
+package com.openway.perf;
+
+import com.openway.browser.ProcessMemory;
+import com.openway.utils.GovernorConfig;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Adapts the number of browser sessions that run tests at the same time to what the host can take.
+ * <p>
+ * Every test holds a permit while it runs; the governor owns the number of permits. Every
+ * {@code governor.intervalMs} it samples host CPU load, available memory and how much slower than
+ * usual page-object steps have become, and adjusts the limit the way TCP adjusts its congestion
+ * window (AIMD):
+ * <ul>
+ *     <li>if CPU load is above {@code governor.cpuHigh}, available memory below
+ *     {@code governor.minFreeMb}, steps take more than {@code governor.latencyRatio} times their usual
+ *     time, or a step failed, the limit is multiplied by {@code governor.backoff}; the next interval
+ *     does not back off again, so sessions that were already running can finish first</li>
+ *     <li>otherwise, if all permits were in use or a test was waiting for one, the limit grows by one</li>
+ * </ul>
+ * The limit stays between {@code governor.minSessions} and {@code governor.maxSessions}. The usual time
+ * of a step is the fastest call of its method, raised by 1% every interval, so a lasting change of the
+ * site's speed is absorbed over minutes while congestion shows up within one interval.
+ * <p>
+ * Every change of the limit is logged with the measurements behind it; {@link #close()} logs the
+ * throughput reached at each limit.
+ */
+public class ConcurrencyGovernor implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(ConcurrencyGovernor.class.getName());
+    private static final double MAX_STEP_RATIO = 10.0;
+    private static final int BASELINE_DRIFT = 100;
+    private static volatile ConcurrencyGovernor active;
+
+    private final int minSessions;
+    private final int maxSessions;
+    private final double cpuHigh;
+    private final long minFreeBytes;
+    private final double latencyRatio;
+    private final double backoff;
+    private final OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+    private final ScheduledExecutorService timer;
+
+    private final Map<String, long[]> stepBaselines = new ConcurrentHashMap<>();
+    private final DoubleAdder stepRatios = new DoubleAdder();
+    private final LongAdder steps = new LongAdder();
+    private final LongAdder failedSteps = new LongAdder();
+    private final LongAdder completedTests = new LongAdder();
+
+    private final Object lock = new Object();
+    private int limit;
+    private int inUse;
+    private int waiting;
+    private int busiest;
+    private boolean backedOff;
+    private long lastAdjustNanos = System.nanoTime();
+
+    private final long startNanos = System.nanoTime();
+    private final Map<Integer, double[]> throughputByLimit = new ConcurrentHashMap<>();
+    private long totalTests;
+    private int increases;
+    private int decreases;
+
+    /**
+     * Create a governor and start sampling
+     *
+     * @param config the {@code governor.*} settings
+     */
+    public ConcurrencyGovernor(GovernorConfig config) {
+        this.minSessions = config.getMinSessions();
+        this.maxSessions = config.getMaxSessions();
+        this.cpuHigh = config.getCpuHigh();
+        this.minFreeBytes = config.getMinFreeBytes();
+        this.latencyRatio = config.getLatencyRatio();
+        this.backoff = config.getBackoff();
+        this.limit = config.getInitialSessions();
+        long intervalMillis = config.getIntervalMillis();
+
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "concurrency-governor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleWithFixedDelay(() -> {
+            try {
+                adjust();
+            } catch (RuntimeException e) {
+                // An exception would cancel the schedule and freeze the limit
+                logger.warning("Concurrency governor failed to adjust: " + e);
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        active = this;
+        logger.info("Concurrency governor started with " + limit + " sessions, between " + minSessions
+                + " and " + maxSessions);
+    }
+
+    /**
+     * @return the running governor whose step measurements are fed by {@link StepTimings}, or null
+     */
+    public static ConcurrencyGovernor getActive() {
+        return active;
+    }
+
+    /**
+     * @return the highest limit the governor may reach, i.e. the number of worker threads it can use
+     */
+    public int getMaxSessions() {
+        return maxSessions;
+    }
+
+    /**
+     * @return the current number of sessions allowed to run tests at the same time
+     */
+    public int getLimit() {
+        synchronized (lock) {
+            return limit;
+        }
+    }
+
+    /**
+     * Take a permit if one is free
+     *
+     * @return true if the caller may run a test now and must call {@link #release()} afterwards
+     */
+    public boolean tryAcquire() {
+        synchronized (lock) {
+            if (inUse >= limit) {
+                return false;
+            }
+            take();
+            return true;
+        }
+    }
+
+    /**
+     * Take a permit, waiting until the limit allows one more session
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void acquire() throws InterruptedException {
+        synchronized (lock) {
+            waiting++;
+            try {
+                while (inUse >= limit) {
+                    lock.wait();
+                }
+            } finally {
+                waiting--;
+            }
+            take();
+        }
+    }
+
+    /**
+     * Return the permit of a finished test
+     */
+    public void release() {
+        completedTests.increment();
+        synchronized (lock) {
+            inUse--;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Stop sampling and log the throughput reached at each limit
+     */
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        if (active == this) {
+            active = null;
+        }
+        adjust();
+
+        double minutes = (System.nanoTime() - startNanos) / 60e9;
+        StringBuilder summary;
+        synchronized (lock) {
+            summary = new StringBuilder(String.format(Locale.ROOT,
+                    "Concurrency governor: %d tests in %.1f min (%.1f tests/min), %d increases, %d decreases",
+                    totalTests, minutes, minutes > 0 ? totalTests / minutes : 0.0, increases, decreases));
+        }
+        throughputByLimit.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> summary.append(String.format(Locale.ROOT, "%n  %2d sessions: %.1f tests/min over %.0f s",
+                        entry.getKey(), entry.getValue()[0] / entry.getValue()[1] * 60, entry.getValue()[1])));
+        logger.info(summary.toString());
+
+        synchronized (lock) {
+            // Nobody should be waiting at the end of the suite, but never leave a thread stuck
+            limit = Integer.MAX_VALUE;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Feed one page-object call into the step latency signal
+     *
+     * @param step method name
+     * @param nanos duration of the call
+     * @param success false if the call threw, e.g. because a wait timed out
+     */
+    void observeStep(String step, long nanos, boolean success) {
+        if (!success) {
+            failedSteps.increment();
+            return;
+        }
+
+        long[] baseline = stepBaselines.computeIfAbsent(step, key -> new long[] {nanos});
+        double ratio;
+        synchronized (baseline) {
+            ratio = (double) nanos / Math.max(1, baseline[0]);
+            baseline[0] = Math.min(baseline[0], nanos);
+        }
+        stepRatios.add(Math.min(ratio, MAX_STEP_RATIO));
+        steps.increment();
+    }
+
+    /**
+     * Sample the host and move the limit; runs every interval on the governor's thread
+     */
+    void adjust() {
+        double cpu = cpuLoad();
+        long free = ProcessMemory.availableBytes();
+        long stepCount = steps.sumThenReset();
+        double stepRatio = stepCount == 0 ? 1.0 : stepRatios.sumThenReset() / stepCount;
+        long failures = failedSteps.sumThenReset();
+        long tests = completedTests.sumThenReset();
+        for (long[] baseline : stepBaselines.values()) {
+            synchronized (baseline) {
+                baseline[0] += baseline[0] / BASELINE_DRIFT;
+            }
+        }
+
+        List<String> congestion = new ArrayList<>();
+        if (cpu > cpuHigh) {
+            congestion.add(String.format(Locale.ROOT, "cpu %.0f%%", cpu * 100));
+        }
+        if (free >= 0 && free < minFreeBytes) {
+            congestion.add("free memory " + (free >> 20) + " MB");
+        }
+        if (stepRatio > latencyRatio) {
+            congestion.add(String.format(Locale.ROOT, "steps x%.1f slower", stepRatio));
+        }
+        if (failures > 0) {
+            congestion.add(failures + " failed steps");
+        }
+
+        int before;
+        int after;
+        boolean saturated;
+        long now = System.nanoTime();
+        double seconds = (now - lastAdjustNanos) / 1e9;
+        synchronized (lock) {
+            lastAdjustNanos = now;
+            before = limit;
+            saturated = busiest >= limit || waiting > 0;
+            if (!congestion.isEmpty()) {
+                if (!backedOff) {
+                    limit = Math.max(minSessions, (int) (limit * backoff));
+                }
+                backedOff = !backedOff;
+            } else {
+                backedOff = false;
+                if (saturated && limit < maxSessions) {
+                    limit++;
+                    lock.notifyAll();
+                }
+            }
+            after = limit;
+            busiest = inUse;
+            totalTests += tests;
+            if (after < before) {
+                decreases++;
+            } else if (after > before) {
+                increases++;
+            }
+        }
+
+        if (seconds > 0) {
+            double[] throughput = throughputByLimit.computeIfAbsent(before, key -> new double[2]);
+            synchronized (throughput) {
+                throughput[0] += tests;
+                throughput[1] += seconds;
+            }
+        }
+
+        String measurements = String.format(Locale.ROOT,
+                "cpu %s, free %s, steps x%.2f of usual over %d calls, %.1f tests/min",
+                cpu < 0 ? "n/a" : String.format(Locale.ROOT, "%.0f%%", cpu * 100),
+                free < 0 ? "n/a" : (free >> 20) + " MB", stepRatio, stepCount, seconds > 0 ? tests / seconds * 60 : 0.0);
+        if (after < before) {
+            logger.info("Concurrency " + before + " -> " + after + " sessions, backing off (" + String.join(", ", congestion)
+                    + "): " + measurements);
+        } else if (after > before) {
+            logger.info("Concurrency " + before + " -> " + after + " sessions: " + measurements);
+        } else {
+            String reason = !congestion.isEmpty() ? " (" + String.join(", ", congestion) + ")"
+                    : saturated ? "" : ", not all in use";
+            logger.fine(() -> "Concurrency stays at " + after + " sessions" + reason + ": " + measurements);
+        }
+    }
+
+    private void take() {
+        inUse++;
+        busiest = Math.max(busiest, inUse);
+    }
+
+    private double cpuLoad() {
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            double load = ((com.sun.management.OperatingSystemMXBean) os).getCpuLoad();
+            if (load >= 0) {
+                return load;
+            }
+        }
+        double average = os.getSystemLoadAverage();
+        return average < 0 ? -1 : Math.min(1.0, average / os.getAvailableProcessors());
+    }
+}
@@ -0,0 +1,181 @@
+package com.openway.perf;
+
+import com.openway.browser.ProcessMemory;
+import com.openway.standin.Catalog;
+import com.openway.standin.StandInServer;
+import com.openway.utils.DriverFactory;
+import org.openqa.selenium.WebDriver;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.logging.Logger;
+
+/**
+ * Compares the browser engines of {@code browser.name}: Chrome in its new headless mode,
+ * {@code chrome-headless-shell} and headless Firefox.
+ * <p>
+ * For every engine the benchmark starts a browser a number of times, cold, opens a search page of the
+ * embedded stand-in storefront and quits. It reports the time to a ready driver and to the first page,
+ * and the proportional memory of the browser and driver processes with that page open. One untimed start
+ * before resolves the driver binaries; an engine that cannot start is reported with the reason. The
+ * wall-clock time of the full suite, the time of its successful test methods and its failures come from
+ * the last run in the engine's {@link PerfHistory} file, {@code target/perf/engine-<engine>.tsv}, written
+ * by the suite with that {@code browser.name}.
+ * <p>
+ * Options: {@code bench.engines}, comma-separated, default all; {@code bench.starts} cold starts per
+ * engine, default 5.
+ * Usage: {@code mvn -P engine-bench test -Dconfig.profile=standin}, which runs the suite on every engine
+ * first, or {@code mvn -P engine-bench compile exec:java@engine-report} for the startup part alone.
+ */
+public class EngineBenchmark {
+    private static final Logger logger = Logger.getLogger(EngineBenchmark.class.getName());
+    private static final String REPORT_FILE = "target/perf/engine-bench.txt";
+
+    private static class Result {
+        final String engine;
+        final String error;
+        final double[] startMillis;
+        final double[] loadMillis;
+        final double[] memoryBytes;
+        final PerfHistory.Run suite;
+
+        Result(String engine, String error, double[] startMillis, double[] loadMillis, double[] memoryBytes,
+               PerfHistory.Run suite) {
+            this.engine = engine;
+            this.error = error;
+            this.startMillis = startMillis;
+            this.loadMillis = loadMillis;
+            this.memoryBytes = memoryBytes;
+            this.suite = suite;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<String> engines = Arrays.asList(System.getProperty("bench.engines",
+                "chrome,chrome-headless-shell,firefox").split("\\s*,\\s*"));
+        int starts = Math.max(1, Integer.getInteger("bench.starts", 5));
+        if (!ProcessMemory.isSupported()) {
+            logger.warning("Process memory cannot be read on this system, only timings will be reported");
+        }
+
+        List<Result> results = new ArrayList<>();
+        try (StandInServer standIn = new StandInServer(Catalog.synthetic(10000, 42), 0).start()) {
+            String url = standIn.getBaseUrl() + "product/Search?filter_name=Blockchains";
+            for (String engine : engines) {
+                results.add(measure(engine, starts, url, lastRun("target/perf/engine-" + engine + ".tsv")));
+            }
+        }
+
+        File report = new File(REPORT_FILE);
+        report.getParentFile().mkdirs();
+        try (PrintStream out = new PrintStream(report, StandardCharsets.UTF_8.name())) {
+            printTable(results, starts, out);
+        }
+        printTable(results, starts, System.out);
+        logger.info("Engine benchmark written to " + report.getAbsolutePath());
+    }
+
+    private static Result measure(String engine, int starts, String url, PerfHistory.Run suite) {
+        logger.info("Starting " + engine + " " + starts + " times");
+        try {
+            // Resolves and downloads the driver, which is not part of a cold start
+            DriverFactory.createDriver(engine, true).quit();
+        } catch (RuntimeException e) {
+            logger.warning(engine + " is not available: " + e.getMessage());
+            String reason = String.valueOf(e.getMessage()).split("\\R", 2)[0];
+            return new Result(engine, reason, new double[0], new double[0], new double[0], suite);
+        }
+
+        double[] startMillis = new double[starts];
+        double[] loadMillis = new double[starts];
+        double[] memoryBytes = new double[starts];
+        for (int i = 0; i < starts; i++) {
+            long start = System.nanoTime();
+            WebDriver driver = DriverFactory.createDriver(engine, true);
+            try {
+                long started = System.nanoTime();
+                driver.get(url);
+                long loaded = System.nanoTime();
+                startMillis[i] = (started - start) / 1e6;
+                loadMillis[i] = (loaded - started) / 1e6;
+                memoryBytes[i] = ProcessMemory.childProcessBytes();
+            } finally {
+                driver.quit();
+            }
+        }
+        return new Result(engine, null, startMillis, loadMillis, memoryBytes, suite);
+    }
+
+    private static PerfHistory.Run lastRun(String file) throws IOException {
+        List<PerfHistory.Run> runs = new PerfHistory(new File(file)).loadRecent(1);
+        if (runs.isEmpty()) {
+            logger.info("No suite run in " + file + ", the suite columns stay empty");
+            return null;
+        }
+        return runs.get(0);
+    }
+
+    private static void printTable(List<Result> results, int starts, PrintStream out) {
+        out.println(String.format(Locale.ROOT, "%d cold starts per engine, headless", starts));
+        out.println(String.format(Locale.ROOT, "%-22s %10s %10s %10s %10s %10s %10s %9s", "Engine",
+                "start p50", "start max", "load p50", "memory MB", "suite s", "tests s", "failures"));
+        for (Result result : results) {
+            String suiteSeconds = result.suite == null ? "-" : seconds(result.suite.getWallMillis() / 1000);
+            String testSeconds = result.suite == null ? "-" : seconds(totalSeconds(result.suite));
+            String failures = result.suite == null ? "-" : Long.toString(totalFailures(result.suite));
+            if (result.error != null) {
+                out.println(String.format(Locale.ROOT, "%-22s %10s %10s %10s %10s %10s %10s %9s  %s", result.engine,
+                        "-", "-", "-", "-", suiteSeconds, testSeconds, failures, "not available: " + result.error));
+                continue;
+            }
+            double[] start = sorted(result.startMillis);
+            double[] memory = sorted(result.memoryBytes);
+            out.println(String.format(Locale.ROOT, "%-22s %10.0f %10.0f %10.0f %10s %10s %10s %9s", result.engine,
+                    RegressionReport.percentile(start, 50), start[start.length - 1],
+                    RegressionReport.percentile(sorted(result.loadMillis), 50),
+                    memory[0] < 0 ? "-" : String.format(Locale.ROOT, "%.0f",
+                            RegressionReport.percentile(memory, 50) / (1024 * 1024)),
+                    suiteSeconds, testSeconds, failures));
+        }
+        out.println("suite s: wall clock of the whole suite; tests s: its successful test methods only");
+    }
+
+    /**
+     * @return seconds spent in the successful test invocations of the run
+     */
+    private static double totalSeconds(PerfHistory.Run run) {
+        double millis = 0;
+        for (String name : run.getNames()) {
+            if (run.isTest(name)) {
+                millis += Arrays.stream(run.getDurations(name)).sum();
+            }
+        }
+        return millis / 1000;
+    }
+
+    private static long totalFailures(PerfHistory.Run run) {
+        long failures = 0;
+        for (String name : run.getNames()) {
+            if (run.isTest(name)) {
+                failures += run.getFailures(name);
+            }
+        }
+        return failures;
+    }
+
+    private static String seconds(double value) {
+        return Double.isNaN(value) ? "-" : String.format(Locale.ROOT, "%.1f", value);
+    }
+
+    private static double[] sorted(double[] values) {
+        double[] copy = values.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+}
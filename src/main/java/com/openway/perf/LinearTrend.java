@@ -0,0 +1,87 @@
+package com.openway.perf;
+
+/**
+ * Least-squares straight line through a series of measurements, e.g. memory after every iteration of a soak run
+ */
+public class LinearTrend {
+    private final int count;
+    private final double slope;
+    private final double intercept;
+    private final double rSquared;
+
+    private LinearTrend(int count, double slope, double intercept, double rSquared) {
+        this.count = count;
+        this.slope = slope;
+        this.intercept = intercept;
+        this.rSquared = rSquared;
+    }
+
+    /**
+     * Fit a line to the points
+     *
+     * @param x positions, e.g. iteration numbers
+     * @param y measurements at the positions
+     * @param count number of points to use from the start of the arrays
+     * @return the trend; flat with an R-squared of 0 for fewer than two distinct positions
+     */
+    public static LinearTrend fit(double[] x, double[] y, int count) {
+        if (count < 2) {
+            return new LinearTrend(count, 0, count == 1 ? y[0] : 0, 0);
+        }
+
+        double meanX = 0;
+        double meanY = 0;
+        for (int i = 0; i < count; i++) {
+            meanX += x[i];
+            meanY += y[i];
+        }
+        meanX /= count;
+        meanY /= count;
+
+        double sxx = 0;
+        double sxy = 0;
+        double syy = 0;
+        for (int i = 0; i < count; i++) {
+            double dx = x[i] - meanX;
+            double dy = y[i] - meanY;
+            sxx += dx * dx;
+            sxy += dx * dy;
+            syy += dy * dy;
+        }
+        if (sxx == 0) {
+            return new LinearTrend(count, 0, meanY, 0);
+        }
+
+        double slope = sxy / sxx;
+        double rSquared = syy == 0 ? 0 : sxy * sxy / (sxx * syy);
+        return new LinearTrend(count, slope, meanY - slope * meanX, rSquared);
+    }
+
+    /**
+     * @return number of points fitted
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return growth of the measurement per unit of position
+     */
+    public double getSlope() {
+        return slope;
+    }
+
+    /**
+     * @return fitted measurement at position 0
+     */
+    public double getIntercept() {
+        return intercept;
+    }
+
+    /**
+     * @return share of the measurements' variance explained by the line, 0 to 1; low for noise around a flat line
+     */
+    public double getRSquared() {
+        return rSquared;
+    }
+}
@@ -0,0 +1,231 @@
+package com.openway.perf;
+
+import com.openway.utils.DriverFactory;
+import org.openqa.selenium.By;
+import org.openqa.selenium.InvalidSelectorException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Times every page-object locator against saved page fixtures in headless Chrome,
+ * proposes equivalent CSS/ID locators and prints a table ranked by locator cost.
+ * <p>
+ * A proposal is only accepted when it returns exactly the same elements as the original
+ * locator on every fixture. Locators that match nothing on any fixture are reported as broken.
+ * <p>
+ * Usage: {@code mvn -P locator-bench test-compile exec:java}
+ */
+public class LocatorBenchmark {
+    private static final Logger logger = Logger.getLogger(LocatorBenchmark.class.getName());
+    private static final String DEFAULT_SOURCE_DIR = "src/main/java/com/openway/pages";
+    private static final String DEFAULT_FIXTURE_DIR = "src/test/resources/fixtures";
+    private static final String REPORT_FILE = "target/perf/locator-cost.txt";
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASURED_ITERATIONS = 15;
+
+    private final WebDriver driver;
+    private final List<File> fixtures;
+
+    /**
+     * Constructor
+     *
+     * @param driver WebDriver instance used to load the fixtures
+     * @param fixtures HTML fixture files
+     */
+    public LocatorBenchmark(WebDriver driver, List<File> fixtures) {
+        this.driver = driver;
+        this.fixtures = fixtures;
+    }
+
+    public static void main(String[] args) throws IOException {
+        File sourceDir = new File(args.length > 0 ? args[0] : DEFAULT_SOURCE_DIR);
+        File fixtureDir = new File(args.length > 1 ? args[1] : DEFAULT_FIXTURE_DIR);
+
+        File[] fixtureFiles = fixtureDir.listFiles((dir, name) -> name.endsWith(".html"));
+        if (fixtureFiles == null || fixtureFiles.length == 0) {
+            throw new IllegalStateException("No HTML fixtures found in " + fixtureDir.getAbsolutePath());
+        }
+        Arrays.sort(fixtureFiles);
+
+        List<LocatorEntry> entries = new LocatorInventory(sourceDir).load();
+
+        WebDriver driver = DriverFactory.createDriver("chrome", true);
+        List<LocatorCost> costs;
+        try {
+            costs = new LocatorBenchmark(driver, Arrays.asList(fixtureFiles)).run(entries);
+        } finally {
+            driver.quit();
+        }
+
+        File report = new File(REPORT_FILE);
+        report.getParentFile().mkdirs();
+        try (PrintStream out = new PrintStream(report, StandardCharsets.UTF_8.name())) {
+            printTable(costs, out);
+        }
+        printTable(costs, System.out);
+        logger.info("Locator cost report written to " + report.getAbsolutePath());
+    }
+
+    /**
+     * Measure every locator and search for a faster equivalent
+     *
+     * @param entries locators to measure
+     * @return costs ranked from most to least expensive
+     */
+    public List<LocatorCost> run(List<LocatorEntry> entries) {
+        List<LocatorCost> costs = new ArrayList<>();
+        for (LocatorEntry entry : entries) {
+            costs.add(new LocatorCost(entry));
+        }
+
+        for (File fixture : fixtures) {
+            logger.info("Measuring locators on fixture " + fixture.getName());
+            driver.get(fixture.toURI().toString());
+            for (LocatorCost cost : costs) {
+                List<WebElement> found = findAll(cost.entry.getBy());
+                cost.originalNanos += measure(cost.entry.getBy());
+                cost.originalMatches += found.size();
+            }
+        }
+
+        for (LocatorCost cost : costs) {
+            if (!"xpath".equals(cost.entry.getStrategy())) {
+                continue;
+            }
+            List<String> candidates = cost.isBroken()
+                    ? XPathToCss.repairBareIdentifier(cost.entry.getExpression())
+                    : XPathToCss.translate(cost.entry.getExpression());
+            for (String candidate : candidates) {
+                long candidateNanos = evaluate(cost, By.cssSelector(candidate));
+                if (candidateNanos >= 0) {
+                    cost.proposal = candidate;
+                    cost.proposalNanos = candidateNanos;
+                    break;
+                }
+            }
+        }
+
+        costs.sort(Comparator.comparingLong((LocatorCost cost) -> cost.originalNanos).reversed());
+        return costs;
+    }
+
+    /**
+     * Verify a candidate against every fixture and measure it
+     *
+     * @return sum of per-fixture median costs in nanoseconds, or -1 if the candidate is not equivalent
+     */
+    private long evaluate(LocatorCost cost, By candidate) {
+        long total = 0;
+        boolean matchedAnything = false;
+        for (File fixture : fixtures) {
+            driver.get(fixture.toURI().toString());
+            List<WebElement> actual = findAll(candidate);
+            // A broken locator has nothing to be equivalent to, so any candidate that matches something is a fix
+            if (!cost.isBroken() && !findAll(cost.entry.getBy()).equals(actual)) {
+                return -1;
+            }
+            matchedAnything |= !actual.isEmpty();
+            total += measure(candidate);
+        }
+        return matchedAnything ? total : -1;
+    }
+
+    private List<WebElement> findAll(By by) {
+        try {
+            return driver.findElements(by);
+        } catch (InvalidSelectorException e) {
+            return new ArrayList<>();
+        }
+    }
+
+    private long measure(By by) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            findAll(by);
+        }
+        long[] samples = new long[MEASURED_ITERATIONS];
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            long start = System.nanoTime();
+            findAll(by);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples[samples.length / 2];
+    }
+
+    private static void printTable(List<LocatorCost> costs, PrintStream out) {
+        out.println(String.format("%-4s %-40s %-10s %10s %7s  %-12s %10s  %s",
+                "Rank", "Locator", "Strategy", "Cost(us)", "Matches", "Status", "Prop.(us)", "Proposal"));
+        int rank = 1;
+        for (LocatorCost cost : costs) {
+            out.println(String.format("%-4d %-40s %-10s %10d %7d  %-12s %10s  %s",
+                    rank++,
+                    cost.entry.getName(),
+                    cost.entry.getStrategy(),
+                    cost.originalNanos / 1000,
+                    cost.originalMatches,
+                    cost.getStatus(),
+                    cost.proposal == null ? "-" : String.valueOf(cost.proposalNanos / 1000),
+                    cost.proposal == null ? cost.entry.getExpression() : "css=" + cost.proposal));
+        }
+    }
+
+    /**
+     * Measured cost of a single locator across all fixtures
+     */
+    public static class LocatorCost {
+        private final LocatorEntry entry;
+        private long originalNanos;
+        private int originalMatches;
+        private String proposal;
+        private long proposalNanos;
+
+        LocatorCost(LocatorEntry entry) {
+            this.entry = entry;
+        }
+
+        public LocatorEntry getEntry() {
+            return entry;
+        }
+
+        public long getOriginalNanos() {
+            return originalNanos;
+        }
+
+        public String getProposal() {
+            return proposal;
+        }
+
+        public long getProposalNanos() {
+            return proposalNanos;
+        }
+
+        /**
+         * A locator is broken when it matched nothing on any fixture
+         *
+         * @return true if the locator never matched
+         */
+        public boolean isBroken() {
+            return originalMatches == 0;
+        }
+
+        String getStatus() {
+            if (isBroken()) {
+                return proposal == null ? "BROKEN" : "BROKEN/fix";
+            }
+            if (!"xpath".equals(entry.getStrategy())) {
+                return "native";
+            }
+            return proposal == null ? "no-css" : "equivalent";
+        }
+    }
+}
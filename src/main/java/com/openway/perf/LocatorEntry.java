@@ -0,0 +1,66 @@
+package com.openway.perf;
+
+import org.openqa.selenium.By;
+
+/**
+ * A single locator declared by a page object, either through {@code @FindBy}
+ * or as an inline {@code By} call inside a method body
+ */
+public class LocatorEntry {
+    private final String owner;
+    private final String member;
+    private final String strategy;
+    private final String expression;
+    private final By by;
+
+    /**
+     * Constructor
+     *
+     * @param owner simple name of the declaring page class
+     * @param member field name for {@code @FindBy}, or {@code line N} for inline locators
+     * @param strategy locator strategy, e.g. xpath, css, id
+     * @param expression the raw locator expression
+     * @param by the Selenium locator
+     */
+    public LocatorEntry(String owner, String member, String strategy, String expression, By by) {
+        this.owner = owner;
+        this.member = member;
+        this.strategy = strategy;
+        this.expression = expression;
+        this.by = by;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public String getMember() {
+        return member;
+    }
+
+    public String getStrategy() {
+        return strategy;
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    public By getBy() {
+        return by;
+    }
+
+    /**
+     * Get the fully qualified display name of this locator
+     *
+     * @return owner and member joined by a dot
+     */
+    public String getName() {
+        return owner + "." + member;
+    }
+
+    @Override
+    public String toString() {
+        return getName() + " [" + strategy + "=" + expression + "]";
+    }
+}
@@ -0,0 +1,137 @@
+package com.openway.perf;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.support.FindBy;
+import org.openqa.selenium.support.pagefactory.Annotations;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Collects every locator used by the page objects: {@code @FindBy} fields through
+ * reflection, and inline {@code By.xxx("...")} calls by scanning the page sources.
+ * Inline locators built by string concatenation depend on runtime data and are skipped.
+ */
+public class LocatorInventory {
+    private static final Logger logger = Logger.getLogger(LocatorInventory.class.getName());
+    private static final String PAGES_PACKAGE = "com.openway.pages";
+    private static final Pattern INLINE_BY = Pattern.compile(
+            "By\\.(xpath|cssSelector|id|className|name|tagName)\\(\\s*\"((?:[^\"\\\\]|\\\\.)*)\"\\s*\\)");
+
+    private final File sourceDir;
+
+    /**
+     * Constructor
+     *
+     * @param sourceDir directory holding the sources of the com.openway.pages package
+     */
+    public LocatorInventory(File sourceDir) {
+        this.sourceDir = sourceDir;
+    }
+
+    /**
+     * Load all locators from the page package
+     *
+     * @return list of locator entries, {@code @FindBy} fields first then inline locators, per class
+     */
+    public List<LocatorEntry> load() {
+        File[] sources = sourceDir.listFiles((dir, name) -> name.endsWith(".java"));
+        if (sources == null) {
+            throw new IllegalStateException("Page source directory not found: " + sourceDir.getAbsolutePath());
+        }
+        Arrays.sort(sources);
+
+        List<LocatorEntry> entries = new ArrayList<>();
+        for (File source : sources) {
+            String simpleName = source.getName().replace(".java", "");
+            entries.addAll(loadFindByFields(simpleName));
+            entries.addAll(loadInlineLocators(simpleName, source));
+        }
+
+        logger.info("Loaded " + entries.size() + " locators from " + sources.length + " page classes");
+        return entries;
+    }
+
+    private List<LocatorEntry> loadFindByFields(String simpleName) {
+        List<LocatorEntry> entries = new ArrayList<>();
+        Class<?> pageClass;
+        try {
+            pageClass = Class.forName(PAGES_PACKAGE + "." + simpleName);
+        } catch (ClassNotFoundException e) {
+            logger.warning("Could not load page class " + simpleName + ": " + e.getMessage());
+            return entries;
+        }
+
+        for (Field field : pageClass.getDeclaredFields()) {
+            if (field.isAnnotationPresent(FindBy.class)) {
+                By by = new Annotations(field).buildBy();
+                entries.add(toEntry(simpleName, field.getName(), by));
+            }
+        }
+        return entries;
+    }
+
+    private List<LocatorEntry> loadInlineLocators(String simpleName, File source) {
+        List<LocatorEntry> entries = new ArrayList<>();
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(source.toPath(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            logger.warning("Could not read " + source + ": " + e.getMessage());
+            return entries;
+        }
+
+        for (int i = 0; i < lines.size(); i++) {
+            Matcher matcher = INLINE_BY.matcher(lines.get(i));
+            while (matcher.find()) {
+                String expression = matcher.group(2).replace("\\\"", "\"").replace("\\\\", "\\");
+                By by = createBy(matcher.group(1), expression);
+                entries.add(toEntry(simpleName, "line " + (i + 1), by));
+            }
+        }
+        return entries;
+    }
+
+    private static LocatorEntry toEntry(String owner, String member, By by) {
+        String description = by.toString();
+        int separator = description.indexOf(": ");
+        String strategy = description.substring("By.".length(), separator);
+        String expression = description.substring(separator + 2);
+        return new LocatorEntry(owner, member, strategy, expression, by);
+    }
+
+    /**
+     * Create a Selenium locator from a strategy name as used in the {@code By} factory methods
+     *
+     * @param strategy the strategy name
+     * @param expression the locator expression
+     * @return the locator
+     */
+    static By createBy(String strategy, String expression) {
+        switch (strategy) {
+            case "xpath":
+                return By.xpath(expression);
+            case "cssSelector":
+                return By.cssSelector(expression);
+            case "id":
+                return By.id(expression);
+            case "className":
+                return By.className(expression);
+            case "name":
+                return By.name(expression);
+            case "tagName":
+                return By.tagName(expression);
+            default:
+                throw new IllegalArgumentException("Unsupported locator strategy: " + strategy);
+        }
+    }
+}
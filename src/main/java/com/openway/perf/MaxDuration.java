@@ -0,0 +1,22 @@
+package com.openway.perf;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Time budget of a page-object method or test method.
+ * <p>
+ * Page objects created through {@link com.openway.pages.Pages} are measured on every call; a call that
+ * takes longer than its budget is recorded as a violation in {@link StepTimings}, which warns or fails
+ * the running test depending on {@code sla.mode}.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface MaxDuration {
+    /**
+     * @return the budget in milliseconds
+     */
+    long ms();
+}
@@ -0,0 +1,29 @@
+package com.openway.perf;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event of a {@code BasePage} primitive: a click, text entry or wait against one element
+ */
+@Name("com.openway.PageAction")
+@Label("Page Action")
+@Category({"Periplus", "Page Objects"})
+@Description("Click, text entry or wait performed by a page object")
+public class PageActionEvent extends Event {
+    @Label("Page Class")
+    public String pageClass;
+
+    @Label("Action")
+    public String action;
+
+    @Label("Locator")
+    public String locator;
+
+    @Label("Outcome")
+    @Description("success, or the simple name of the exception that ended the action")
+    public String outcome;
+}
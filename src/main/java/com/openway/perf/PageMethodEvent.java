@@ -0,0 +1,26 @@
+package com.openway.perf;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event of a public page-object method, enclosing the {@link PageActionEvent}s it performs
+ */
+@Name("com.openway.PageMethod")
+@Label("Page Method")
+@Category({"Periplus", "Page Objects"})
+@Description("Call of a public page-object method")
+public class PageMethodEvent extends Event {
+    @Label("Page Class")
+    public String pageClass;
+
+    @Label("Method")
+    public String method;
+
+    @Label("Outcome")
+    @Description("success, or the simple name of the exception thrown by the method")
+    public String outcome;
+}
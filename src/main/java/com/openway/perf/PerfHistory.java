@@ -0,0 +1,251 @@
+package com.openway.perf;
+
+import com.openway.utils.ConfigManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+
+/**
+ * Append-only store of per-test and per-step timings of every run.
+ * <p>
+ * The store is a single tab separated file that lives outside {@code target}, so it survives
+ * {@code mvn clean}: {@code perf.history} of the configuration, default {@code ~/.periplus-test/perf-history.tsv}.
+ * Every line holds the successful durations of one method in one run:
+ * <pre>
+ * run-id  started-at  test|step  Class.method  failures  12.5,13.1,...
+ * </pre>
+ * plus one line of kind {@code suite} with the wall-clock time of the whole run, from the start of the
+ * suite to its end, including browser startup, configuration methods and failed tests.
+ * Lines are only ever appended, under a file lock, so concurrent runs cannot corrupt the file and
+ * old runs can be pruned by simply cutting lines from the top.
+ */
+public class PerfHistory {
+    private static final Logger logger = Logger.getLogger(PerfHistory.class.getName());
+    private static final String HEADER = "# run\tstarted\tkind\tname\tfailures\tdurations-ms\n";
+    private static final String SUITE_KIND = "suite";
+    private static final String SUITE_NAME = "wall-clock";
+
+    private final File file;
+
+    /**
+     * Constructor
+     *
+     * @param file the history file, created on first append
+     */
+    public PerfHistory(File file) {
+        this.file = file;
+    }
+
+    /**
+     * @return the history of {@code perf.history} in the configuration
+     */
+    public static PerfHistory fromConfig() {
+        return new PerfHistory(ConfigManager.get().getPerf().getHistory());
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Append a run
+     *
+     * @param run the run
+     * @throws IOException if the file cannot be written
+     */
+    public void append(Run run) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (Map.Entry<String, Series> entry : run.series.entrySet()) {
+            Series series = entry.getValue();
+            lines.append(run.id).append('\t').append(run.started).append('\t')
+                    .append(series.test ? "test" : "step").append('\t')
+                    .append(entry.getKey()).append('\t')
+                    .append(series.failures).append('\t');
+            for (int i = 0; i < series.durations.length; i++) {
+                if (i > 0) {
+                    lines.append(',');
+                }
+                lines.append(String.format(Locale.ROOT, "%.1f", series.durations[i]));
+            }
+            lines.append('\n');
+        }
+        if (!Double.isNaN(run.wallMillis)) {
+            lines.append(run.id).append('\t').append(run.started).append('\t').append(SUITE_KIND).append('\t')
+                    .append(SUITE_NAME).append("\t0\t").append(String.format(Locale.ROOT, "%.1f", run.wallMillis))
+                    .append('\n');
+        }
+
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+             FileLock lock = channel.lock()) {
+            if (channel.size() == 0) {
+                channel.write(ByteBuffer.wrap(HEADER.getBytes(StandardCharsets.UTF_8)));
+            }
+            channel.write(ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    /**
+     * Load the most recent runs
+     *
+     * @param maxRuns maximum number of runs to return
+     * @return runs in the order they were appended, oldest first
+     * @throws IOException if the file cannot be read
+     */
+    public List<Run> loadRecent(int maxRuns) throws IOException {
+        if (!file.isFile()) {
+            return new ArrayList<>();
+        }
+
+        Map<String, Run> runs = new LinkedHashMap<>();
+        int lineNumber = 0;
+        for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+            lineNumber++;
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("\t", -1);
+            if (fields.length != 6) {
+                logger.warning("Skipping malformed line " + lineNumber + " of " + file);
+                continue;
+            }
+            Run run = runs.computeIfAbsent(fields[0], id -> new Run(id, Instant.parse(fields[1])));
+            String[] values = fields[5].isEmpty() ? new String[0] : fields[5].split(",");
+            double[] durations = new double[values.length];
+            for (int i = 0; i < values.length; i++) {
+                durations[i] = Double.parseDouble(values[i]);
+            }
+            if (SUITE_KIND.equals(fields[2])) {
+                run.setWallMillis(durations.length == 0 ? Double.NaN : durations[0]);
+            } else {
+                run.add(fields[3], "test".equals(fields[2]), Long.parseLong(fields[4]), durations);
+            }
+        }
+
+        List<Run> recent = new ArrayList<>(runs.values());
+        return recent.subList(Math.max(0, recent.size() - maxRuns), recent.size());
+    }
+
+    /**
+     * Timings of one run
+     */
+    public static class Run {
+        private final String id;
+        private final Instant started;
+        private final Map<String, Series> series = new TreeMap<>();
+        private double wallMillis = Double.NaN;
+
+        /**
+         * Constructor
+         *
+         * @param id unique run ID
+         * @param started when the run started
+         */
+        public Run(String id, Instant started) {
+            this.id = id;
+            this.started = started;
+        }
+
+        /**
+         * Add the timings of a method
+         *
+         * @param name method name, e.g. {@code CartPage.updateCartPage}
+         * @param test true for a test method, false for a page-object step
+         * @param failures number of failed calls
+         * @param durations durations of the successful calls in milliseconds
+         * @return this run for method chaining
+         */
+        public Run add(String name, boolean test, long failures, double[] durations) {
+            series.put(name, new Series(test, failures, durations));
+            return this;
+        }
+
+        /**
+         * @param wallMillis wall-clock time of the whole suite in milliseconds
+         * @return this run for method chaining
+         */
+        public Run setWallMillis(double wallMillis) {
+            this.wallMillis = wallMillis;
+            return this;
+        }
+
+        /**
+         * @return wall-clock time of the whole suite in milliseconds, NaN if the run did not record it
+         */
+        public double getWallMillis() {
+            return wallMillis;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public Instant getStarted() {
+            return started;
+        }
+
+        /**
+         * @return method names in alphabetical order
+         */
+        public Iterable<String> getNames() {
+            return series.keySet();
+        }
+
+        /**
+         * @param name method name
+         * @return true if the method is a test method
+         */
+        public boolean isTest(String name) {
+            Series entry = series.get(name);
+            return entry != null && entry.test;
+        }
+
+        /**
+         * @param name method name
+         * @return durations of the successful calls in milliseconds, empty if the method was not called
+         */
+        public double[] getDurations(String name) {
+            Series entry = series.get(name);
+            return entry == null ? new double[0] : entry.durations;
+        }
+
+        /**
+         * @param name method name
+         * @return number of failed calls
+         */
+        public long getFailures(String name) {
+            Series entry = series.get(name);
+            return entry == null ? 0 : entry.failures;
+        }
+    }
+
+    private static class Series {
+        private final boolean test;
+        private final long failures;
+        private final double[] durations;
+
+        Series(boolean test, long failures, double[] durations) {
+            this.test = test;
+            this.failures = failures;
+            this.durations = durations;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.openway.perf;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Compares the timings of a run with a rolling baseline of the runs before it.
+ * <p>
+ * A method counts as a significant slowdown when its median is at least {@code minSlowdown}
+ * slower than the baseline and the one-sided p-value is below {@code alpha}:
+ * <ul>
+ *     <li>with at least {@value #MIN_SAMPLES} calls in both the run and the baseline, the
+ *     Mann-Whitney U test of the run's durations against all baseline durations</li>
+ *     <li>otherwise, e.g. for tests that run once per run, a robust z-score of the run's median
+ *     against the medians of the baseline runs, using the median absolute deviation</li>
+ * </ul>
+ * Both are rank based, so a single very slow call in the baseline does not hide a regression.
+ */
+public class RegressionReport {
+    private static final int MIN_SAMPLES = 5;
+    private static final int MIN_BASELINE_RUNS = 3;
+
+    private final int baselineRuns;
+    private final List<Row> rows = new ArrayList<>();
+
+    private RegressionReport(int baselineRuns) {
+        this.baselineRuns = baselineRuns;
+    }
+
+    /**
+     * Compare a run with its baseline
+     *
+     * @param current the run to check
+     * @param baseline earlier runs, oldest first
+     * @param alpha significance level, e.g. 0.01
+     * @param minSlowdown smallest relative slowdown of the median worth reporting, e.g. 0.10 for 10%
+     * @return the report
+     */
+    public static RegressionReport compare(PerfHistory.Run current, List<PerfHistory.Run> baseline,
+                                           double alpha, double minSlowdown) {
+        RegressionReport report = new RegressionReport(baseline.size());
+        for (String name : current.getNames()) {
+            double[] durations = sorted(current.getDurations(name));
+            List<Double> pooled = new ArrayList<>();
+            List<Double> runMedians = new ArrayList<>();
+            for (PerfHistory.Run run : baseline) {
+                double[] runDurations = run.getDurations(name);
+                if (runDurations.length > 0) {
+                    runMedians.add(percentile(sorted(runDurations), 50));
+                    for (double duration : runDurations) {
+                        pooled.add(duration);
+                    }
+                }
+            }
+
+            Row row = new Row(name, current.isTest(name), durations, sorted(toArray(pooled)), current.getFailures(name));
+            if (durations.length > 0 && runMedians.size() >= MIN_BASELINE_RUNS) {
+                row.pValue = durations.length >= MIN_SAMPLES && pooled.size() >= MIN_SAMPLES
+                        ? mannWhitneyGreater(durations, row.baseline)
+                        : robustZGreater(row.median, sorted(toArray(runMedians)));
+                row.slowdown = row.baselineMedian > 0 ? row.median / row.baselineMedian - 1 : 0;
+                row.significant = row.pValue < alpha && row.slowdown >= minSlowdown;
+            }
+            report.rows.add(row);
+        }
+        report.rows.sort((a, b) -> {
+            if (a.significant != b.significant) {
+                return a.significant ? -1 : 1;
+            }
+            if (a.test != b.test) {
+                return a.test ? -1 : 1;
+            }
+            return Double.compare(b.slowdown, a.slowdown);
+        });
+        return report;
+    }
+
+    /**
+     * @return names of the methods that got significantly slower
+     */
+    public List<String> getSlowdowns() {
+        List<String> names = new ArrayList<>();
+        for (Row row : rows) {
+            if (row.significant) {
+                names.add(row.name);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Print the report: significant slowdowns first, then tests, then steps
+     *
+     * @param out the stream to print to
+     */
+    public void print(PrintStream out) {
+        List<String> slowdowns = getSlowdowns();
+        out.println("Regression report against a baseline of " + baselineRuns + " runs: "
+                + (slowdowns.isEmpty() ? "no significant slowdowns" : slowdowns.size() + " significant slowdowns"));
+        out.println(String.format("%-2s %-4s %-44s %6s %10s %10s %10s %10s %8s %8s %6s",
+                "", "Kind", "Method", "Calls", "p50(ms)", "p95(ms)", "Base p50", "Base p95", "Change", "p", "Errors"));
+        for (Row row : rows) {
+            out.println(String.format(Locale.ROOT, "%-2s %-4s %-44s %6d %10.1f %10.1f %10s %10s %8s %8s %6d",
+                    row.significant ? "!!" : "",
+                    row.test ? "test" : "step",
+                    row.name,
+                    row.durations.length,
+                    row.median,
+                    percentile(row.durations, 95),
+                    row.baseline.length == 0 ? "-" : String.format(Locale.ROOT, "%.1f", row.baselineMedian),
+                    row.baseline.length == 0 ? "-" : String.format(Locale.ROOT, "%.1f", percentile(row.baseline, 95)),
+                    Double.isNaN(row.pValue) ? "-" : String.format(Locale.ROOT, "%+.0f%%", row.slowdown * 100),
+                    Double.isNaN(row.pValue) ? "-" : String.format(Locale.ROOT, "%.4f", row.pValue),
+                    row.failures));
+        }
+    }
+
+    /**
+     * One-sided Mann-Whitney U test with tie correction, normal approximation
+     *
+     * @return p-value of the hypothesis that the sample tends to be larger than the baseline
+     */
+    static double mannWhitneyGreater(double[] sample, double[] baseline) {
+        int n1 = sample.length;
+        int n2 = baseline.length;
+        int n = n1 + n2;
+        double[][] values = new double[n][];
+        for (int i = 0; i < n1; i++) {
+            values[i] = new double[]{sample[i], 1};
+        }
+        for (int i = 0; i < n2; i++) {
+            values[n1 + i] = new double[]{baseline[i], 0};
+        }
+        Arrays.sort(values, (a, b) -> Double.compare(a[0], b[0]));
+
+        double rankSum = 0;
+        double tieTerm = 0;
+        for (int i = 0; i < n; ) {
+            int j = i;
+            while (j < n && values[j][0] == values[i][0]) {
+                j++;
+            }
+            double rank = (i + 1 + j) / 2.0;
+            for (int k = i; k < j; k++) {
+                rankSum += values[k][1] * rank;
+            }
+            double ties = j - i;
+            tieTerm += ties * ties * ties - ties;
+            i = j;
+        }
+
+        double u = rankSum - n1 * (n1 + 1) / 2.0;
+        double mean = n1 * (double) n2 / 2;
+        double variance = n1 * (double) n2 / 12 * ((n + 1) - tieTerm / ((double) n * (n - 1)));
+        if (variance <= 0) {
+            return 1;
+        }
+        return upperTail((u - mean - 0.5) / Math.sqrt(variance));
+    }
+
+    /**
+     * One-sided test of a value against a few baseline values, using the median absolute deviation
+     *
+     * @return p-value of the hypothesis that the value is larger than the baseline
+     */
+    static double robustZGreater(double value, double[] sortedBaseline) {
+        double median = percentile(sortedBaseline, 50);
+        double[] deviations = new double[sortedBaseline.length];
+        for (int i = 0; i < deviations.length; i++) {
+            deviations[i] = Math.abs(sortedBaseline[i] - median);
+        }
+        // 1.4826 makes the MAD a consistent estimate of the standard deviation; the floor keeps
+        // perfectly stable baselines from flagging every tiny change
+        double scale = Math.max(1.4826 * percentile(sorted(deviations), 50), 0.01 * median);
+        if (scale <= 0) {
+            return 1;
+        }
+        return upperTail((value - median) / scale);
+    }
+
+    private static double upperTail(double z) {
+        return 0.5 * erfc(z / Math.sqrt(2));
+    }
+
+    private static double erfc(double x) {
+        // Chebyshev approximation, fractional error below 1.2e-7
+        double z = Math.abs(x);
+        double t = 1 / (1 + 0.5 * z);
+        double r = t * Math.exp(-z * z - 1.26551223 + t * (1.00002368 + t * (0.37409196 + t * (0.09678418
+                + t * (-0.18628806 + t * (0.27886807 + t * (-1.13520398 + t * (1.48851587
+                + t * (-0.82215223 + t * 0.17087277)))))))));
+        return x >= 0 ? r : 2 - r;
+    }
+
+    static double percentile(double[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+
+    private static double[] sorted(double[] values) {
+        double[] copy = values.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+
+    private static double[] toArray(List<Double> values) {
+        double[] array = new double[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * Comparison of one method
+     */
+    private static class Row {
+        private final String name;
+        private final boolean test;
+        private final double[] durations;
+        private final double[] baseline;
+        private final long failures;
+        private final double median;
+        private final double baselineMedian;
+        private double pValue = Double.NaN;
+        private double slowdown;
+        private boolean significant;
+
+        Row(String name, boolean test, double[] durations, double[] baseline, long failures) {
+            this.name = name;
+            this.test = test;
+            this.durations = durations;
+            this.baseline = baseline;
+            this.failures = failures;
+            this.median = percentile(durations, 50);
+            this.baselineMedian = percentile(baseline, 50);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.openway.perf;
+
+import com.openway.browser.ProcessMemory;
+import com.openway.utils.SoakConfig;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.chromium.HasCdp;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Samples the memory of the browser and of the JVM while one test is repeated in a soak run, and flags a
+ * leak when a measurement keeps growing.
+ * <p>
+ * Every sample first collects garbage in the page and in the JVM, so it measures what is retained rather
+ * than what is merely not yet collected. It reads the page's JS heap, DOM nodes and event listeners through
+ * the DevTools {@code Performance.getMetrics} command, the memory of the browser processes started by this
+ * JVM from {@link ProcessMemory}, and the JVM heap. The samples are written to
+ * {@code target/perf/soak/<test>.tsv} as they are taken.
+ * <p>
+ * When the run ends, a straight line is fitted to each measurement over the iterations after
+ * {@code soak.warmupIterations}. A measurement leaks if the line rises by more than its threshold per
+ * iteration ({@code soak.jsHeapSlopeKb}, {@code soak.domNodeSlope}, {@code soak.listenerSlope},
+ * {@code soak.chromeSlopeKb}, {@code soak.jvmHeapSlopeKb}) and explains at least
+ * {@value #MIN_R_SQUARED} of the measurement's variance, so a flat but noisy series is not flagged.
+ * At least {@value #MIN_SAMPLES} samples are needed to judge.
+ */
+public class SoakMonitor {
+    private static final Logger logger = Logger.getLogger(SoakMonitor.class.getName());
+    private static final String SAMPLE_DIRECTORY = "target/perf/soak";
+    private static final String REPORT_FILE = "target/perf/soak-report.txt";
+    private static final double MIN_R_SQUARED = 0.5;
+    private static final int MIN_SAMPLES = 5;
+
+    /**
+     * A measurement taken in every sample
+     */
+    public enum Metric {
+        JS_HEAP("JS heap", "KB"),
+        DOM_NODES("DOM nodes", "nodes"),
+        LISTENERS("JS event listeners", "listeners"),
+        CHROME_MEMORY("Browser processes", "KB"),
+        JVM_HEAP("JVM heap", "KB");
+
+        private final String label;
+        private final String unit;
+
+        Metric(String label, String unit) {
+            this.label = label;
+            this.unit = unit;
+        }
+    }
+
+    private final String name;
+    private final int warmupIterations;
+    private final double[] thresholds = new double[Metric.values().length];
+    private final List<double[]> samples = new ArrayList<>();
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final long started = System.nanoTime();
+    private PrintWriter sampleWriter;
+    private boolean performanceEnabled;
+
+    /**
+     * Constructor
+     *
+     * @param config the soak settings with the thresholds
+     * @param name name of the soaked test, e.g. {@code ShoppingCartTest.testRemoveFromCart}
+     */
+    public SoakMonitor(SoakConfig config, String name) {
+        this.name = name;
+        this.warmupIterations = config.getWarmupIterations();
+        thresholds[Metric.JS_HEAP.ordinal()] = config.getJsHeapSlopeKb();
+        thresholds[Metric.DOM_NODES.ordinal()] = config.getDomNodeSlope();
+        thresholds[Metric.LISTENERS.ordinal()] = config.getListenerSlope();
+        thresholds[Metric.CHROME_MEMORY.ordinal()] = config.getChromeSlopeKb();
+        thresholds[Metric.JVM_HEAP.ordinal()] = config.getJvmHeapSlopeKb();
+
+        File file = new File(SAMPLE_DIRECTORY, name.replaceAll("[^A-Za-z0-9._-]", "_") + ".tsv");
+        file.getParentFile().mkdirs();
+        try {
+            sampleWriter = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+            sampleWriter.println("iteration\telapsedSec\tjsHeapKb\tdomNodes\tlisteners\tchromeKb\tjvmHeapKb");
+        } catch (IOException e) {
+            logger.warning("Cannot write soak samples to " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Take a sample after an iteration. Measurements that cannot be read, e.g. the page metrics of a
+     * browser without DevTools, are left out of the analysis.
+     *
+     * @param driver the driver running the soaked test
+     * @param iteration number of the iteration just finished, from 1
+     */
+    public void sample(WebDriver driver, int iteration) {
+        double[] sample = new double[Metric.values().length + 2];
+        Arrays.fill(sample, Double.NaN);
+        sample[0] = iteration;
+        sample[1] = (System.nanoTime() - started) / 1e9;
+
+        Map<String, Object> metrics = pageMetrics(driver);
+        sample[2 + Metric.JS_HEAP.ordinal()] = metric(metrics, "JSHeapUsedSize") / 1024;
+        sample[2 + Metric.DOM_NODES.ordinal()] = metric(metrics, "Nodes");
+        sample[2 + Metric.LISTENERS.ordinal()] = metric(metrics, "JSEventListeners");
+
+        long browserBytes = ProcessMemory.childProcessBytes();
+        if (browserBytes > 0) {
+            sample[2 + Metric.CHROME_MEMORY.ordinal()] = browserBytes / 1024.0;
+        }
+        System.gc();
+        sample[2 + Metric.JVM_HEAP.ordinal()] = memory.getHeapMemoryUsage().getUsed() / 1024.0;
+
+        samples.add(sample);
+        if (sampleWriter != null) {
+            StringBuilder line = new StringBuilder();
+            for (int i = 0; i < sample.length; i++) {
+                line.append(i == 0 ? "" : "\t").append(Double.isNaN(sample[i]) ? ""
+                        : i == 0 ? Long.toString((long) sample[i]) : String.format(Locale.ROOT, "%.1f", sample[i]));
+            }
+            sampleWriter.println(line);
+            sampleWriter.flush();
+        }
+    }
+
+    /**
+     * Fit the trends, log them and append them to {@code target/perf/soak-report.txt}
+     *
+     * @param iterations iterations run
+     * @return a description of every leaking measurement, empty if none leaks
+     */
+    public List<String> finish(int iterations) {
+        if (sampleWriter != null) {
+            sampleWriter.close();
+        }
+
+        List<String> lines = new ArrayList<>();
+        List<String> leaks = new ArrayList<>();
+        double seconds = (System.nanoTime() - started) / 1e9;
+        lines.add(String.format(Locale.ROOT, "Soak of %s: %d iterations in %.0fs, trends after %d warm-up iterations",
+                name, iterations, seconds, warmupIterations));
+        lines.add(String.format(Locale.ROOT, "%-20s %12s %12s %12s %6s %8s  %s",
+                "Measurement", "First", "Last", "Slope/iter", "R2", "Limit", "Result"));
+
+        for (Metric metric : Metric.values()) {
+            double[] x = new double[samples.size()];
+            double[] y = new double[samples.size()];
+            int count = 0;
+            for (double[] sample : samples) {
+                double value = sample[2 + metric.ordinal()];
+                if (sample[0] > warmupIterations && !Double.isNaN(value)) {
+                    x[count] = sample[0];
+                    y[count] = value;
+                    count++;
+                }
+            }
+            if (count == 0) {
+                lines.add(String.format(Locale.ROOT, "%-20s %12s %12s %12s %6s %8s  %s",
+                        metric.label, "-", "-", "-", "-", "-", "not measured"));
+                continue;
+            }
+
+            LinearTrend trend = LinearTrend.fit(x, y, count);
+            double threshold = thresholds[metric.ordinal()];
+            String result;
+            if (count < MIN_SAMPLES) {
+                result = "too few samples";
+            } else if (trend.getSlope() > threshold && trend.getRSquared() >= MIN_R_SQUARED) {
+                result = "LEAK";
+                leaks.add(String.format(Locale.ROOT, "%s grows by %.2f %s per iteration (limit %.2f, R2 %.2f)",
+                        metric.label, trend.getSlope(), metric.unit, threshold, trend.getRSquared()));
+            } else {
+                result = "ok";
+            }
+            lines.add(String.format(Locale.ROOT, "%-20s %12.1f %12.1f %12.2f %6.2f %8.2f  %s",
+                    metric.label, y[0], y[count - 1], trend.getSlope(), trend.getRSquared(), threshold, result));
+        }
+
+        logger.info(String.join(System.lineSeparator(), lines));
+        File report = new File(REPORT_FILE);
+        report.getParentFile().mkdirs();
+        try (PrintWriter out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(report, true),
+                StandardCharsets.UTF_8))) {
+            for (String line : lines) {
+                out.println(line);
+            }
+            out.println();
+        } catch (IOException e) {
+            logger.warning("Cannot write soak report " + report + ": " + e.getMessage());
+        }
+        return leaks;
+    }
+
+    /**
+     * Collect garbage in the page and read its performance metrics
+     *
+     * @return metric name to value, empty if the browser has no DevTools
+     */
+    private Map<String, Object> pageMetrics(WebDriver driver) {
+        if (!(driver instanceof HasCdp)) {
+            return Collections.emptyMap();
+        }
+
+        HasCdp cdp = (HasCdp) driver;
+        try {
+            if (!performanceEnabled) {
+                cdp.executeCdpCommand("Performance.enable", Collections.emptyMap());
+                performanceEnabled = true;
+            }
+            cdp.executeCdpCommand("HeapProfiler.collectGarbage", Collections.emptyMap());
+            Object metrics = cdp.executeCdpCommand("Performance.getMetrics", Collections.emptyMap()).get("metrics");
+            Map<String, Object> values = new HashMap<>();
+            if (metrics instanceof List) {
+                for (Object metric : (List<?>) metrics) {
+                    Map<?, ?> entry = (Map<?, ?>) metric;
+                    values.put(String.valueOf(entry.get("name")), entry.get("value"));
+                }
+            }
+            return values;
+        } catch (WebDriverException e) {
+            logger.fine(() -> "Cannot read page metrics: " + e.getMessage());
+            return Collections.emptyMap();
+        }
+    }
+
+    private static double metric(Map<String, Object> metrics, String name) {
+        Object value = metrics.get(name);
+        return value instanceof Number ? ((Number) value).doubleValue() : Double.NaN;
+    }
+}
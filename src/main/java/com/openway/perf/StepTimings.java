@@ -0,0 +1,222 @@
+package com.openway.perf;
+
+import com.openway.load.LatencyHistogram;
+import com.openway.utils.ConfigManager;
+import com.openway.utils.SlaConfig;
+
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Run-wide latency registry of page-object and test methods, with {@link MaxDuration} budget checks.
+ * <p>
+ * The budget policy is {@code sla.mode} of the configuration:
+ * <ul>
+ *     <li>{@code warn} (default) logs every call that exceeds its budget</li>
+ *     <li>{@code fail} also fails the test during which the budget was exceeded</li>
+ *     <li>{@code off} ignores the budgets</li>
+ * </ul>
+ * Calls are measured in every mode, so the summary, the run history and the governor do not depend on it.
+ */
+public class StepTimings {
+    private static final Logger logger = Logger.getLogger(StepTimings.class.getName());
+    private static final Map<String, MethodTimings> TIMINGS = new ConcurrentHashMap<>();
+    private static final ThreadLocal<List<String>> VIOLATIONS = ThreadLocal.withInitial(ArrayList::new);
+    private static final int MAX_SAMPLES = 1024;
+
+    private StepTimings() {
+        // Private constructor to prevent instantiation
+    }
+
+    /**
+     * @return the configured budget policy
+     */
+    public static SlaConfig.Mode getMode() {
+        return ConfigManager.get().getSla().getMode();
+    }
+
+    /**
+     * Record a completed call and check it against the method's budget
+     *
+     * @param method the method that was called
+     * @param nanos duration of the call
+     * @param success false if the call threw
+     */
+    public static void record(Method method, long nanos, boolean success) {
+        record(method, nanos, success, false);
+    }
+
+    /**
+     * Record a completed test method and check it against the method's budget
+     *
+     * @param method the test method
+     * @param nanos duration of the test
+     * @param success false if the test failed
+     */
+    public static void recordTest(Method method, long nanos, boolean success) {
+        record(method, nanos, success, true);
+    }
+
+    private static void record(Method method, long nanos, boolean success, boolean test) {
+        String name = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+        MaxDuration budget = method.getAnnotation(MaxDuration.class);
+        MethodTimings timings = TIMINGS.computeIfAbsent(name,
+                key -> new MethodTimings(budget == null ? -1 : budget.ms(), test));
+        timings.latency.record(nanos / 1000);
+        if (success) {
+            timings.addSample(nanos / 1000);
+        } else {
+            timings.failures.incrementAndGet();
+        }
+        ConcurrencyGovernor governor = ConcurrencyGovernor.getActive();
+        if (governor != null && !test) {
+            governor.observeStep(name, nanos, success);
+        }
+
+        long millis = nanos / 1_000_000;
+        if (budget != null && millis > budget.ms() && getMode() != SlaConfig.Mode.OFF) {
+            timings.violations.incrementAndGet();
+            String violation = name + " took " + millis + "ms, budget " + budget.ms() + "ms";
+            logger.warning("Latency budget exceeded: " + violation);
+            VIOLATIONS.get().add(violation);
+        }
+    }
+
+    /**
+     * Get and clear the budget violations recorded on the current thread
+     *
+     * @return violations since the previous call
+     */
+    public static List<String> drainViolations() {
+        List<String> violations = new ArrayList<>(VIOLATIONS.get());
+        VIOLATIONS.get().clear();
+        return violations;
+    }
+
+    /**
+     * Add budget violations that another thread recorded on behalf of the current one
+     *
+     * @param violations violations, as returned by {@link #drainViolations()} on the other thread
+     */
+    public static void addViolations(List<String> violations) {
+        VIOLATIONS.get().addAll(violations);
+    }
+
+    /**
+     * Print p50/p95/max latency of every measured method, slowest p95 first
+     *
+     * @param out the stream to print to
+     */
+    public static void printSummary(PrintStream out) {
+        List<Map.Entry<String, MethodTimings>> entries = new ArrayList<>(TIMINGS.entrySet());
+        entries.sort((a, b) -> {
+            int byP95 = Long.compare(b.getValue().latency.getPercentile(95), a.getValue().latency.getPercentile(95));
+            return byP95 != 0 ? byP95 : a.getKey().compareTo(b.getKey());
+        });
+
+        out.println(String.format("%-44s %7s %9s %9s %9s %9s %6s %6s",
+                "Method", "Calls", "p50(ms)", "p95(ms)", "max(ms)", "Budget", "Over", "Errors"));
+        for (Map.Entry<String, MethodTimings> entry : entries) {
+            MethodTimings timings = entry.getValue();
+            out.println(String.format("%-44s %7d %9.1f %9.1f %9.1f %9s %6d %6d",
+                    entry.getKey(),
+                    timings.latency.getCount(),
+                    timings.latency.getPercentile(50) / 1000.0,
+                    timings.latency.getPercentile(95) / 1000.0,
+                    timings.latency.getMax() / 1000.0,
+                    timings.budgetMillis < 0 ? "-" : timings.budgetMillis + "ms",
+                    timings.violations.get(),
+                    timings.failures.get()));
+        }
+    }
+
+    /**
+     * Get the durations of the successful calls of every measured method, e.g. for the run history. Up to
+     * {@value #MAX_SAMPLES} calls of a method are all kept; beyond that, e.g. in a soak run, a uniform random
+     * sample of that many stands in for them, so memory stays bounded however long the run is.
+     *
+     * @return method name to durations in milliseconds, in call order while all calls are kept
+     */
+    public static Map<String, double[]> getSamples() {
+        Map<String, double[]> samples = new TreeMap<>();
+        for (Map.Entry<String, MethodTimings> entry : TIMINGS.entrySet()) {
+            samples.put(entry.getKey(), entry.getValue().getSamples());
+        }
+        return samples;
+    }
+
+    /**
+     * @param name method name as in {@link #getSamples()}
+     * @return true if the method is a test method, false if it is a page-object step
+     */
+    public static boolean isTest(String name) {
+        MethodTimings timings = TIMINGS.get(name);
+        return timings != null && timings.test;
+    }
+
+    /**
+     * @param name method name as in {@link #getSamples()}
+     * @return number of failed calls of the method
+     */
+    public static long getFailures(String name) {
+        MethodTimings timings = TIMINGS.get(name);
+        return timings == null ? 0 : timings.failures.get();
+    }
+
+    /**
+     * Forget all measurements
+     */
+    public static void reset() {
+        TIMINGS.clear();
+        VIOLATIONS.remove();
+    }
+
+    /**
+     * Measurements of a single method
+     */
+    private static class MethodTimings {
+        private final long budgetMillis;
+        private final boolean test;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final AtomicLong violations = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final long[] samplesMicros = new long[MAX_SAMPLES];
+        private long successes;
+
+        MethodTimings(long budgetMillis, boolean test) {
+            this.budgetMillis = budgetMillis;
+            this.test = test;
+        }
+
+        /**
+         * Keep a call's duration in the reservoir of samples: every call has the same chance to be in it
+         */
+        synchronized void addSample(long micros) {
+            successes++;
+            if (successes <= MAX_SAMPLES) {
+                samplesMicros[(int) successes - 1] = micros;
+            } else {
+                long slot = ThreadLocalRandom.current().nextLong(successes);
+                if (slot < MAX_SAMPLES) {
+                    samplesMicros[(int) slot] = micros;
+                }
+            }
+        }
+
+        synchronized double[] getSamples() {
+            double[] millis = new double[(int) Math.min(successes, MAX_SAMPLES)];
+            for (int i = 0; i < millis.length; i++) {
+                millis[i] = samplesMicros[i] / 1000.0;
+            }
+            return millis;
+        }
+    }
+}
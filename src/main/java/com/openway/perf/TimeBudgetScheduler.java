@@ -0,0 +1,281 @@
+package com.openway.perf;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Plans a suite run that has to fit in a wall-clock budget, so the tests most likely to find a defect
+ * per second of runtime run first and the rest is left out rather than cut off.
+ * <p>
+ * Each test is estimated from the recent runs of the {@link PerfHistory}:
+ * <ul>
+ *     <li>the probability that an invocation fails, {@code (failures + 1) / (invocations + 2)}, so a test
+ *     without history counts as a coin flip and runs early</li>
+ *     <li>the mean duration of an invocation plus a fixed overhead for its setup and cleanup, which the
+ *     history does not time; the median of the known tests for a test without history</li>
+ *     <li>the number of data provider rows of a run</li>
+ * </ul>
+ * Rows of a parallel data provider are packed onto the workers in waves of {@code workers} rows. Tests are
+ * taken in the order of their probability of at least one failure per second of planned time while they
+ * fit in the budget; a data-driven test that does not fit entirely gets as many rows as do. While the suite
+ * runs, an invocation is only launched if it can still finish within the budget by its estimate, so a run
+ * that is slower than planned stops early instead of overrunning. Rows of a sequential data provider are
+ * checked when they are read, see {@link #acceptRow}, so a row that does not fit is never invoked; other
+ * invocations are checked with {@link #tryLaunch} just before they run.
+ */
+public class TimeBudgetScheduler {
+    private static final double DEFAULT_SECONDS = 30;
+    private static volatile TimeBudgetScheduler active;
+
+    private final Duration budget;
+    private final int workers;
+    private final double overheadSeconds;
+    private final List<PerfHistory.Run> history;
+    private final long startNanos = System.nanoTime();
+    private final double defaultSeconds;
+    private final Map<String, Planned> plan = new LinkedHashMap<>();
+
+    /**
+     * What the scheduler expects of a test and what it decided for it
+     */
+    private static class Planned {
+        private final String test;
+        private final double failureProbability;
+        private final double seconds;
+        private final int rows;
+        private final boolean dataDriven;
+        private final boolean parallel;
+        private final boolean known;
+        private double score;
+        private int grantedRows;
+        private double plannedSeconds;
+        private final AtomicInteger rowsOffered = new AtomicInteger();
+        private final AtomicInteger launched = new AtomicInteger();
+        private final AtomicInteger skipped = new AtomicInteger();
+
+        Planned(String test, double failureProbability, double seconds, int rows, boolean dataDriven,
+                boolean parallel, boolean known) {
+            this.test = test;
+            this.failureProbability = failureProbability;
+            this.seconds = seconds;
+            this.rows = rows;
+            this.dataDriven = dataDriven;
+            this.parallel = parallel;
+            this.known = known;
+        }
+    }
+
+    /**
+     * Constructor; the budget starts now
+     *
+     * @param budget wall-clock budget of the suite
+     * @param workers data provider rows that run at the same time
+     * @param overheadSeconds setup and cleanup time of an invocation, added to its measured duration
+     * @param history recent runs, oldest first
+     */
+    public TimeBudgetScheduler(Duration budget, int workers, double overheadSeconds, List<PerfHistory.Run> history) {
+        this.budget = budget;
+        this.workers = Math.max(1, workers);
+        this.overheadSeconds = overheadSeconds;
+        this.history = history;
+
+        List<Double> means = new ArrayList<>();
+        for (String test : testNames()) {
+            double[] stats = stats(test);
+            if (stats[1] > 0) {
+                means.add(stats[1] / (stats[0] - stats[2]));
+            }
+        }
+        means.sort(Double::compare);
+        this.defaultSeconds = means.isEmpty() ? DEFAULT_SECONDS : means.get(means.size() / 2);
+    }
+
+    /**
+     * @return the scheduler of the running suite, or null if it has no time budget
+     */
+    public static TimeBudgetScheduler getActive() {
+        return active;
+    }
+
+    /**
+     * @param scheduler the scheduler of the suite about to run, or null when it has finished
+     */
+    public static void setActive(TimeBudgetScheduler scheduler) {
+        active = scheduler;
+    }
+
+    /**
+     * Decide which tests run, in which order, and how many rows of each
+     *
+     * @param tests test names, e.g. {@code ShoppingCartTest.testRemoveFromCart}, to whether they are data-driven
+     * @param parallelTests the data-driven tests whose rows run in parallel
+     * @return the tests to run, in launch order; the others are left out
+     */
+    public synchronized List<String> plan(Map<String, Boolean> tests, List<String> parallelTests) {
+        List<Planned> candidates = new ArrayList<>();
+        for (Map.Entry<String, Boolean> entry : tests.entrySet()) {
+            String test = entry.getKey();
+            double[] stats = stats(test);
+            double invocations = stats[0];
+            boolean known = invocations > 0;
+            double failureProbability = (stats[2] + 1) / (invocations + 2);
+            double seconds = (stats[1] > 0 ? stats[1] / (invocations - stats[2]) : defaultSeconds) + overheadSeconds;
+            int rows = !entry.getValue() ? 1 : known ? Math.max(1, (int) Math.round(invocations / stats[3])) : 1;
+            Planned planned = new Planned(test, failureProbability, seconds, rows, entry.getValue(),
+                    parallelTests.contains(test), known);
+            planned.score = (1 - Math.pow(1 - failureProbability, rows)) / (waves(planned, rows) * seconds);
+            candidates.add(planned);
+        }
+        candidates.sort((a, b) -> Double.compare(b.score, a.score));
+
+        double remaining = budget.toMillis() / 1000.0;
+        List<String> order = new ArrayList<>();
+        for (Planned planned : candidates) {
+            double cost = waves(planned, planned.rows) * planned.seconds;
+            if (cost <= remaining) {
+                // Without history the number of rows is unknown; the launch check stops them in time
+                planned.grantedRows = tests.get(planned.test) && !planned.known ? Integer.MAX_VALUE : planned.rows;
+            } else if (tests.get(planned.test)) {
+                int waves = (int) (remaining / planned.seconds);
+                planned.grantedRows = Math.min(planned.rows, waves * (planned.parallel ? workers : 1));
+                cost = waves(planned, planned.grantedRows) * planned.seconds;
+            }
+            if (planned.grantedRows > 0) {
+                planned.plannedSeconds = cost;
+                remaining -= cost;
+                order.add(planned.test);
+            }
+            plan.put(planned.test, planned);
+        }
+        return order;
+    }
+
+    /**
+     * Take a data provider row of a test if the plan has room for it. A row of a sequential data provider is
+     * read just before it would run, so it is also launched here, see {@link #isLaunchedByRow}.
+     *
+     * @param test the test name
+     * @return false once the test has used up its planned rows, or the row cannot finish in time
+     */
+    public boolean acceptRow(String test) {
+        Planned planned = plan.get(test);
+        if (planned == null) {
+            return true;
+        }
+        if (planned.rowsOffered.incrementAndGet() > planned.grantedRows) {
+            return false;
+        }
+        return planned.parallel || tryLaunch(test);
+    }
+
+    /**
+     * @param test the test name
+     * @return true if the invocations of the test are launched by {@link #acceptRow} as their rows are read,
+     *         false if each has to be checked with {@link #tryLaunch} before it runs
+     */
+    public boolean isLaunchedByRow(String test) {
+        Planned planned = plan.get(test);
+        return planned != null && planned.dataDriven && !planned.parallel;
+    }
+
+    /**
+     * Check, just before an invocation, that it can finish within the budget by its estimate
+     *
+     * @param test the test name
+     * @return true to run the invocation, false to skip it
+     */
+    public boolean tryLaunch(String test) {
+        Planned planned = plan.get(test);
+        double seconds = planned == null ? defaultSeconds + overheadSeconds : planned.seconds;
+        boolean fits = getElapsedSeconds() + seconds <= budget.toMillis() / 1000.0;
+        if (planned != null) {
+            (fits ? planned.launched : planned.skipped).incrementAndGet();
+        }
+        return fits;
+    }
+
+    /**
+     * @return seconds since the budget started
+     */
+    public double getElapsedSeconds() {
+        return (System.nanoTime() - startNanos) / 1e9;
+    }
+
+    /**
+     * @return the budget left, never negative
+     */
+    public Duration getRemaining() {
+        return Duration.ofMillis(Math.max(0, budget.toMillis() - (long) (getElapsedSeconds() * 1000)));
+    }
+
+    /**
+     * Print the plan and what became of it
+     *
+     * @param out the stream to print to
+     */
+    public synchronized void print(PrintStream out) {
+        out.println(String.format(Locale.ROOT, "Time budget %ds on %d workers, %.0fs used", budget.getSeconds(), workers,
+                getElapsedSeconds()));
+        out.println(String.format(Locale.ROOT, "%-45s %7s %8s %9s %9s %9s %8s %8s", "Test", "P(fail)", "Sec/inv",
+                "Rows", "Planned s", "Fail/s", "Launched", "Skipped"));
+        List<String> leftOut = new ArrayList<>();
+        for (Planned planned : plan.values()) {
+            String rows = (planned.grantedRows == Integer.MAX_VALUE ? "all" : Integer.toString(planned.grantedRows))
+                    + "/" + (planned.known ? Integer.toString(planned.rows) : "?");
+            out.println(String.format(Locale.ROOT, "%-45s %7.3f %8.1f %9s %9.1f %9.5f %8d %8d", planned.test,
+                    planned.failureProbability, planned.seconds, rows, planned.plannedSeconds, planned.score,
+                    planned.launched.get(), planned.skipped.get()));
+            int rowsLeftOut = planned.grantedRows == Integer.MAX_VALUE ? 0
+                    : Math.max(planned.rows, planned.rowsOffered.get()) - planned.grantedRows;
+            if (planned.grantedRows == 0) {
+                leftOut.add(planned.test + " (not planned)");
+            } else if (rowsLeftOut > 0 || planned.skipped.get() > 0) {
+                leftOut.add(planned.test + " (" + Math.max(0, rowsLeftOut) + " rows not planned, "
+                        + planned.skipped.get() + " invocations skipped at launch)");
+            }
+        }
+        out.println(leftOut.isEmpty() ? "Nothing was skipped" : "Skipped for the time budget: " + String.join(", ", leftOut));
+    }
+
+    private int waves(Planned planned, int rows) {
+        return planned.parallel ? (rows + workers - 1) / workers : rows;
+    }
+
+    private List<String> testNames() {
+        List<String> names = new ArrayList<>();
+        for (PerfHistory.Run run : history) {
+            for (String name : run.getNames()) {
+                if (run.isTest(name) && !names.contains(name)) {
+                    names.add(name);
+                }
+            }
+        }
+        return names;
+    }
+
+    /**
+     * @return invocations, total seconds of the successful ones, failures and runs that had the test
+     */
+    private double[] stats(String test) {
+        double[] stats = new double[4];
+        for (PerfHistory.Run run : history) {
+            double[] durations = run.getDurations(test);
+            long failures = run.getFailures(test);
+            if (durations.length == 0 && failures == 0) {
+                continue;
+            }
+            stats[0] += durations.length + failures;
+            stats[1] += Arrays.stream(durations).sum() / 1000;
+            stats[2] += failures;
+            stats[3]++;
+        }
+        return stats;
+    }
+}
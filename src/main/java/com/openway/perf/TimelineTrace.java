@@ -0,0 +1,229 @@
+package com.openway.perf;
+
+import com.openway.browser.BrowserTracing;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.json.JsonOutput;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * One trace file per test in the Chrome trace-event format, which Perfetto and {@code chrome://tracing}
+ * open, combining the framework's own spans with the browser's trace on one timeline.
+ * <p>
+ * While a trace is active on a thread, the page-object methods, the primitives of {@code BasePage} and
+ * any other span reported with {@link #span} on that thread are recorded as complete events of the
+ * JVM's process. The browser is traced at the same time by {@link BrowserTracing}; when the trace is
+ * written, the JVM spans are shifted onto the browser's clock with the offset found from its clock sync
+ * marker. If the browser cannot be traced, the file holds the framework spans only.
+ */
+public class TimelineTrace {
+    private static final Logger logger = Logger.getLogger(TimelineTrace.class.getName());
+    private static final ThreadLocal<TimelineTrace> ACTIVE = new ThreadLocal<>();
+    private static final long PID = ProcessHandle.current().pid();
+
+    private final String name;
+    private final long startNanos;
+    private final List<Span> spans = Collections.synchronizedList(new ArrayList<>());
+    private final BrowserTracing browser;
+
+    private TimelineTrace(String name, BrowserTracing browser) {
+        this.name = name;
+        this.browser = browser;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Start a trace on the current thread, replacing a trace that was not finished
+     *
+     * @param name name of the test, used as the name of its outermost span
+     * @param driver the test's driver, whose browser is traced
+     * @param categories browser trace categories, none to record the framework spans only
+     * @return the trace
+     */
+    public static TimelineTrace start(String name, WebDriver driver, List<String> categories) {
+        TimelineTrace unfinished = ACTIVE.get();
+        if (unfinished != null && unfinished.browser != null) {
+            try {
+                unfinished.browser.stop();
+            } catch (WebDriverException e) {
+                logger.fine(() -> "Unfinished browser trace of " + unfinished.name + ": " + e.getMessage());
+            }
+        }
+        BrowserTracing browser = driver == null || categories.isEmpty() ? null
+                : BrowserTracing.start(driver, categories);
+        TimelineTrace trace = new TimelineTrace(name, browser);
+        ACTIVE.set(trace);
+        return trace;
+    }
+
+    /**
+     * @return the trace of the current thread, or null if it records none
+     */
+    public static TimelineTrace current() {
+        return ACTIVE.get();
+    }
+
+    /**
+     * Record the spans of the current thread in a trace started on another thread, e.g. by a helper
+     * thread working for a test; its spans appear on the test's track
+     *
+     * @param trace the trace, or null to stop recording on this thread
+     */
+    public static void attach(TimelineTrace trace) {
+        if (trace == null) {
+            ACTIVE.remove();
+        } else {
+            ACTIVE.set(trace);
+        }
+    }
+
+    /**
+     * @return true if the current thread records a trace, so spans are worth describing
+     */
+    public static boolean isActive() {
+        return ACTIVE.get() != null;
+    }
+
+    /**
+     * Record a span in the trace of the current thread, if it has one
+     *
+     * @param category span category, e.g. {@code page} or {@code action}
+     * @param spanName span name, e.g. {@code LoginPage.login}
+     * @param startNanos {@link System#nanoTime()} at the start of the span
+     * @param endNanos {@link System#nanoTime()} at the end of the span
+     * @param args details shown with the span, e.g. the locator and the outcome; may be null
+     */
+    public static void span(String category, String spanName, long startNanos, long endNanos,
+                            Map<String, Object> args) {
+        TimelineTrace trace = ACTIVE.get();
+        if (trace != null) {
+            trace.spans.add(new Span(category, spanName, startNanos, endNanos, args));
+        }
+    }
+
+    /**
+     * Stop the trace of the current thread and write it as {@code <directory>/<name>.json}, with the
+     * characters of the name that are not safe in file names replaced
+     *
+     * @param directory directory of the trace files
+     * @param outcome outcome of the test, shown on its span
+     * @return the trace file, or null if no trace was active or it could not be written
+     */
+    public static File finish(File directory, String outcome) {
+        TimelineTrace trace = ACTIVE.get();
+        if (trace == null) {
+            return null;
+        }
+        ACTIVE.remove();
+        return trace.write(directory, outcome, System.nanoTime());
+    }
+
+    private File write(File directory, String outcome, long endNanos) {
+        List<Object> browserEvents = Collections.emptyList();
+        long offsetMicros = 0;
+        if (browser != null) {
+            try {
+                browserEvents = browser.stop();
+                offsetMicros = browser.clockOffsetMicros(browserEvents);
+            } catch (WebDriverException e) {
+                logger.warning("Trace of " + name + " has no browser events: " + e.getMessage());
+            }
+        }
+
+        File file = new File(directory, fileName(name) + ".json");
+        directory.mkdirs();
+        long tid = Thread.currentThread().getId();
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8);
+             JsonOutput out = new Json().newOutput(writer)) {
+            out.setPrettyPrint(false);
+            out.beginObject().name("traceEvents").beginArray();
+            out.write(metadata("process_name", tid, "JVM " + PID + " (tests)"));
+            out.write(metadata("thread_name", tid, Thread.currentThread().getName()));
+            out.write(complete("test", name, startNanos, endNanos, offsetMicros, tid,
+                    Collections.singletonMap("outcome", outcome)));
+            synchronized (spans) {
+                for (Span span : spans) {
+                    out.write(complete(span.category, span.name, span.startNanos, span.endNanos, offsetMicros, tid,
+                            span.args));
+                }
+            }
+            for (Object event : browserEvents) {
+                out.write(event);
+            }
+            out.endArray().name("displayTimeUnit").write("ms").endObject();
+        } catch (IOException | RuntimeException e) {
+            logger.warning("Failed to write trace " + file + ": " + e.getMessage());
+            return null;
+        }
+        logger.info("Timeline trace of " + name + " written to " + file.getAbsolutePath() + " (" + spans.size()
+                + " framework spans, " + browserEvents.size() + " browser events)");
+        return file;
+    }
+
+    private static Map<String, Object> complete(String category, String spanName, long startNanos, long endNanos,
+                                                long offsetMicros, long tid, Map<String, Object> args) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("name", spanName);
+        event.put("cat", "framework." + category);
+        event.put("ph", "X");
+        event.put("ts", startNanos / 1000 + offsetMicros);
+        event.put("dur", Math.max(0, (endNanos - startNanos) / 1000));
+        event.put("pid", PID);
+        event.put("tid", tid);
+        if (args != null) {
+            event.put("args", args);
+        }
+        return event;
+    }
+
+    private static Map<String, Object> metadata(String type, long tid, String value) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("name", type);
+        event.put("ph", "M");
+        event.put("pid", PID);
+        event.put("tid", tid);
+        event.put("args", Collections.singletonMap("name", value));
+        return event;
+    }
+
+    /**
+     * File name of a trace: characters of the data provider row outside {@code [A-Za-z0-9._-]}, such as
+     * brackets, commas, spaces and slashes, become underscores, and long rows are shortened
+     */
+    private static String fileName(String name) {
+        String safe = name.replaceAll("[^A-Za-z0-9._-]", "_");
+        if (safe.length() > 120) {
+            safe = safe.substring(0, 100) + "_" + Integer.toHexString(name.hashCode());
+        }
+        return safe;
+    }
+
+    private static final class Span {
+        private final String category;
+        private final String name;
+        private final long startNanos;
+        private final long endNanos;
+        private final Map<String, Object> args;
+
+        Span(String category, String name, long startNanos, long endNanos, Map<String, Object> args) {
+            this.category = category;
+            this.name = name;
+            this.startNanos = startNanos;
+            this.endNanos = endNanos;
+            this.args = args;
+        }
+    }
+}
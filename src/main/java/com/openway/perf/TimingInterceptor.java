@@ -0,0 +1,52 @@
+package com.openway.perf;
+
+import com.openway.impact.PageCallRecorder;
+import net.bytebuddy.implementation.bind.annotation.Origin;
+import net.bytebuddy.implementation.bind.annotation.RuntimeType;
+import net.bytebuddy.implementation.bind.annotation.SuperCall;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.concurrent.Callable;
+
+/**
+ * Byte Buddy interceptor that times every public page-object method and reports it to {@link StepTimings}
+ * and, while a flight recording is running, as a {@link PageMethodEvent}. Calls are also noted by the
+ * {@link PageCallRecorder} for test impact analysis and added to the thread's {@link TimelineTrace}, if any.
+ */
+public class TimingInterceptor {
+
+    private TimingInterceptor() {
+        // Private constructor to prevent instantiation
+    }
+
+    @RuntimeType
+    public static Object intercept(@Origin Method method, @SuperCall Callable<?> call)
+            throws Exception {
+        PageCallRecorder.record(method);
+        PageMethodEvent event = new PageMethodEvent();
+        event.begin();
+        long start = System.nanoTime();
+        String outcome = "success";
+        try {
+            return call.call();
+        } catch (Exception | Error e) {
+            outcome = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            long end = System.nanoTime();
+            StepTimings.record(method, end - start, "success".equals(outcome));
+            if (TimelineTrace.isActive()) {
+                TimelineTrace.span("page", method.getDeclaringClass().getSimpleName() + "." + method.getName(),
+                        start, end, Collections.singletonMap("outcome", outcome));
+            }
+            event.end();
+            if (event.shouldCommit()) {
+                event.pageClass = method.getDeclaringClass().getSimpleName();
+                event.method = method.getName();
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+    }
+}
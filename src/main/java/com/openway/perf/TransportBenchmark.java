@@ -0,0 +1,144 @@
+package com.openway.perf;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Logger;
+
+/**
+ * Compares a run of the suite on classic WebDriver commands with a run on WebDriver BiDi, side by side
+ * for the suite, every test and every page-object step.
+ * <p>
+ * Each run is the last one in its own {@link PerfHistory} file, written by the suite with
+ * {@code browser.transport=classic} and {@code browser.transport=bidi}. For every method the report
+ * shows the median and p95 of both runs, the change of the median, and the one-sided Mann-Whitney
+ * p-value that the BiDi durations are shorter, where both runs have enough calls for it. The suite is
+ * compared by its wall-clock time, and separately by the time of its successful test methods.
+ * <p>
+ * Options: {@code bench.classicHistory} and {@code bench.bidiHistory}, the two history files.
+ * Usage: {@code mvn -P transport-bench test}, which runs the suite both ways first.
+ */
+public class TransportBenchmark {
+    private static final Logger logger = Logger.getLogger(TransportBenchmark.class.getName());
+    private static final String REPORT_FILE = "target/perf/transport-bench.txt";
+    private static final int MIN_SAMPLES = 5;
+
+    public static void main(String[] args) throws IOException {
+        PerfHistory.Run classic = lastRun(System.getProperty("bench.classicHistory",
+                "target/perf/transport-classic.tsv"));
+        PerfHistory.Run bidi = lastRun(System.getProperty("bench.bidiHistory", "target/perf/transport-bidi.tsv"));
+        if (classic == null || bidi == null) {
+            logger.severe("Both a classic and a BiDi run are needed; run mvn -P transport-bench test");
+            System.exit(1);
+        }
+
+        File report = new File(REPORT_FILE);
+        report.getParentFile().mkdirs();
+        try (PrintStream out = new PrintStream(report, StandardCharsets.UTF_8.name())) {
+            printTable(classic, bidi, out);
+        }
+        printTable(classic, bidi, System.out);
+        logger.info("Transport benchmark written to " + report.getAbsolutePath());
+    }
+
+    private static PerfHistory.Run lastRun(String file) throws IOException {
+        List<PerfHistory.Run> runs = new PerfHistory(new File(file)).loadRecent(1);
+        if (runs.isEmpty()) {
+            logger.warning("No run in " + file);
+            return null;
+        }
+        return runs.get(0);
+    }
+
+    private static void printTable(PerfHistory.Run classic, PerfHistory.Run bidi, PrintStream out) {
+        out.println(String.format(Locale.ROOT, "Classic run %s, BiDi run %s", classic.getId(), bidi.getId()));
+        out.println(String.format(Locale.ROOT, "Suite wall clock: %s classic, %s BiDi (%s), failures %d classic, %d BiDi",
+                seconds(wallSeconds(classic)), seconds(wallSeconds(bidi)),
+                change(wallSeconds(classic), wallSeconds(bidi)), totalFailures(classic), totalFailures(bidi)));
+        out.println(String.format(Locale.ROOT, "Successful test methods: %s classic, %s BiDi (%s)",
+                seconds(totalSeconds(classic)), seconds(totalSeconds(bidi)),
+                change(totalSeconds(classic), totalSeconds(bidi))));
+        out.println();
+        out.println(String.format(Locale.ROOT, "%-45s %5s %6s %10s %10s %10s %10s %8s %8s", "Method", "Kind",
+                "Calls", "p50 cls", "p50 BiDi", "p95 cls", "p95 BiDi", "p50 chg", "p"));
+
+        Set<String> names = new TreeSet<>();
+        classic.getNames().forEach(names::add);
+        bidi.getNames().forEach(names::add);
+        for (String name : names) {
+            double[] before = sorted(classic.getDurations(name));
+            double[] after = sorted(bidi.getDurations(name));
+            if (before.length == 0 && after.length == 0) {
+                continue;
+            }
+            double beforeMedian = before.length == 0 ? Double.NaN : RegressionReport.percentile(before, 50);
+            double afterMedian = after.length == 0 ? Double.NaN : RegressionReport.percentile(after, 50);
+            String p = before.length >= MIN_SAMPLES && after.length >= MIN_SAMPLES
+                    ? String.format(Locale.ROOT, "%.4f", RegressionReport.mannWhitneyGreater(before, after)) : "-";
+            out.println(String.format(Locale.ROOT, "%-45s %5s %6s %10s %10s %10s %10s %8s %8s", name,
+                    classic.isTest(name) || bidi.isTest(name) ? "test" : "step",
+                    before.length + "/" + after.length,
+                    millis(beforeMedian), millis(afterMedian),
+                    millis(before.length == 0 ? Double.NaN : RegressionReport.percentile(before, 95)),
+                    millis(after.length == 0 ? Double.NaN : RegressionReport.percentile(after, 95)),
+                    change(beforeMedian, afterMedian), p));
+        }
+    }
+
+    /**
+     * @return wall-clock seconds of the whole suite, NaN for a run that did not record it
+     */
+    private static double wallSeconds(PerfHistory.Run run) {
+        return run.getWallMillis() / 1000;
+    }
+
+    /**
+     * @return seconds spent in the successful test invocations of the run
+     */
+    private static double totalSeconds(PerfHistory.Run run) {
+        double millis = 0;
+        for (String name : run.getNames()) {
+            if (run.isTest(name)) {
+                millis += Arrays.stream(run.getDurations(name)).sum();
+            }
+        }
+        return millis / 1000;
+    }
+
+    private static long totalFailures(PerfHistory.Run run) {
+        long failures = 0;
+        for (String name : run.getNames()) {
+            if (run.isTest(name)) {
+                failures += run.getFailures(name);
+            }
+        }
+        return failures;
+    }
+
+    private static String millis(double value) {
+        return Double.isNaN(value) ? "-" : String.format(Locale.ROOT, "%.1f", value);
+    }
+
+    private static String seconds(double value) {
+        return Double.isNaN(value) ? "-" : String.format(Locale.ROOT, "%.1fs", value);
+    }
+
+    private static String change(double before, double after) {
+        if (Double.isNaN(before) || Double.isNaN(after) || before == 0) {
+            return "-";
+        }
+        return String.format(Locale.ROOT, "%+.1f%%", (after - before) / before * 100);
+    }
+
+    private static double[] sorted(double[] values) {
+        double[] copy = values.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+}
@@ -0,0 +1,159 @@
+package com.openway.perf;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Translates the subset of XPath used by the page objects into CSS selector candidates.
+ * <p>
+ * Supported: descendant and child steps, {@code following-sibling::}, unions, and predicates made of
+ * {@code @attr='value'} and {@code contains(@attr,'value')} joined with {@code and}.
+ * Text predicates, positional predicates and other axes have no CSS equivalent and yield no candidates.
+ * Candidates are not guaranteed to be equivalent ({@code .cls} matches a class token while
+ * {@code contains(@class,'cls')} matches a substring), so callers must verify them against real markup.
+ */
+public class XPathToCss {
+    private static final Pattern STEP = Pattern.compile(
+            "(following-sibling::)?([A-Za-z][\\w-]*|\\*)((?:\\[[^\\[\\]]+\\])*)");
+    private static final Pattern PREDICATE = Pattern.compile("\\[([^\\[\\]]+)\\]");
+    private static final Pattern EQUALS = Pattern.compile("^@([\\w-]+)\\s*=\\s*'([^']*)'$");
+    private static final Pattern CONTAINS = Pattern.compile("^contains\\(\\s*@([\\w-]+)\\s*,\\s*'([^']*)'\\s*\\)$");
+    private static final Pattern IDENTIFIER = Pattern.compile("^[A-Za-z][\\w-]*$");
+
+    private XPathToCss() {
+        // Private constructor to prevent instantiation
+    }
+
+    /**
+     * Propose CSS selectors for an XPath expression, most idiomatic first
+     *
+     * @param xpath the XPath expression
+     * @return candidate CSS selectors, empty when the expression cannot be expressed in CSS
+     */
+    public static List<String> translate(String xpath) {
+        List<String> idiomaticBranches = new ArrayList<>();
+        List<String> strictBranches = new ArrayList<>();
+        for (String branch : xpath.split("\\s*\\|\\s*")) {
+            String idiomaticBranch = translatePath(branch.trim(), true);
+            String strictBranch = translatePath(branch.trim(), false);
+            if (idiomaticBranch == null || strictBranch == null) {
+                return new ArrayList<>();
+            }
+            idiomaticBranches.add(idiomaticBranch);
+            strictBranches.add(strictBranch);
+        }
+
+        List<String> candidates = new ArrayList<>();
+        candidates.add(String.join(", ", idiomaticBranches));
+        String strict = String.join(", ", strictBranches);
+        if (!candidates.contains(strict)) {
+            candidates.add(strict);
+        }
+        return candidates;
+    }
+
+    /**
+     * Propose CSS selectors for an XPath expression that is a bare identifier, which XPath
+     * interprets as a child element name and therefore almost never matches anything.
+     * This covers mistakes like {@code @FindBy(xpath = "filter_name")}.
+     *
+     * @param xpath the XPath expression
+     * @return id and name based candidates, empty when the expression is not a bare identifier
+     */
+    public static List<String> repairBareIdentifier(String xpath) {
+        List<String> candidates = new ArrayList<>();
+        if (IDENTIFIER.matcher(xpath).matches()) {
+            candidates.add("#" + xpath);
+            candidates.add("[name='" + xpath + "']");
+            candidates.add("." + xpath);
+        }
+        return candidates;
+    }
+
+    private static String translatePath(String path, boolean idiomatic) {
+        String remaining = path;
+        if (remaining.startsWith(".//")) {
+            remaining = remaining.substring(1);
+        }
+        if (!remaining.startsWith("//")) {
+            return null;
+        }
+
+        StringBuilder css = new StringBuilder();
+        while (!remaining.isEmpty()) {
+            String combinator;
+            if (remaining.startsWith("//")) {
+                combinator = " ";
+                remaining = remaining.substring(2);
+            } else if (remaining.startsWith("/")) {
+                combinator = " > ";
+                remaining = remaining.substring(1);
+            } else {
+                return null;
+            }
+
+            Matcher step = STEP.matcher(remaining);
+            if (!step.lookingAt()) {
+                return null;
+            }
+            if (step.group(1) != null) {
+                if (!" > ".equals(combinator)) {
+                    return null;
+                }
+                combinator = " ~ ";
+            }
+
+            String selector = translateStep(step.group(2), step.group(3), idiomatic);
+            if (selector == null) {
+                return null;
+            }
+            if (css.length() > 0) {
+                css.append(combinator);
+            }
+            css.append(selector);
+            remaining = remaining.substring(step.end());
+        }
+        return css.toString();
+    }
+
+    private static String translateStep(String tag, String predicates, boolean idiomatic) {
+        StringBuilder selector = new StringBuilder("*".equals(tag) ? "" : tag);
+        Matcher predicate = PREDICATE.matcher(predicates);
+        while (predicate.find()) {
+            for (String term : predicate.group(1).split("\\s+and\\s+")) {
+                String condition = translateCondition(term.trim(), idiomatic);
+                if (condition == null) {
+                    return null;
+                }
+                selector.append(condition);
+            }
+        }
+        return selector.length() == 0 ? "*" : selector.toString();
+    }
+
+    private static String translateCondition(String term, boolean idiomatic) {
+        Matcher equals = EQUALS.matcher(term);
+        if (equals.matches()) {
+            String attribute = equals.group(1);
+            String value = equals.group(2);
+            if (idiomatic && "id".equals(attribute) && IDENTIFIER.matcher(value).matches()) {
+                return "#" + value;
+            }
+            return "[" + attribute + "='" + value + "']";
+        }
+
+        Matcher contains = CONTAINS.matcher(term);
+        if (contains.matches()) {
+            String attribute = contains.group(1);
+            String value = contains.group(2);
+            if (idiomatic && "class".equals(attribute) && value.trim().matches("[\\w-]+(\\s+[\\w-]+)*")) {
+                return "." + String.join(".", value.trim().split("\\s+"));
+            }
+            return "[" + attribute + "*='" + value + "']";
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,68 @@
+package com.openway.standin;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-memory cart of the stand-in storefront. Lines keep the order in which products were added.
+ */
+public class Cart {
+    private final Map<String, Integer> lines = new LinkedHashMap<>();
+
+    /**
+     * Add a quantity of a product, merging with an existing line
+     *
+     * @param productId the product ID
+     * @param quantity the quantity to add
+     */
+    public synchronized void add(String productId, int quantity) {
+        lines.merge(productId, quantity, Integer::sum);
+    }
+
+    /**
+     * Set the quantity of a product; a quantity below 1 removes the line
+     *
+     * @param productId the product ID
+     * @param quantity the new quantity
+     * @return false if the product is not in the cart
+     */
+    public synchronized boolean update(String productId, int quantity) {
+        if (!lines.containsKey(productId)) {
+            return false;
+        }
+        if (quantity < 1) {
+            lines.remove(productId);
+        } else {
+            lines.put(productId, quantity);
+        }
+        return true;
+    }
+
+    /**
+     * Remove a product from the cart
+     *
+     * @param productId the product ID
+     * @return false if the product was not in the cart
+     */
+    public synchronized boolean remove(String productId) {
+        return lines.remove(productId) != null;
+    }
+
+    /**
+     * @return a copy of the cart lines, product ID to quantity
+     */
+    public synchronized Map<String, Integer> getLines() {
+        return new LinkedHashMap<>(lines);
+    }
+
+    /**
+     * @return total number of items in the cart
+     */
+    public synchronized int getItemCount() {
+        int count = 0;
+        for (int quantity : lines.values()) {
+            count += quantity;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,173 @@
+package com.openway.standin;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Synthetic product catalog of the stand-in storefront. The same size and seed always produce the
+ * same products, so runs against the stand-in are repeatable.
+ * <p>
+ * Search is backed by a word index so catalogs of 100k products still answer in microseconds:
+ * a term made of whole title words only looks at the products containing its rarest word, and
+ * any other term falls back to a scan of the pre-lowercased titles.
+ */
+public class Catalog {
+    private static final String[] TOPICS = {
+            "Blockchains", "Java Programming", "Python", "Data Science", "Design Patterns",
+            "Machine Learning", "Cloud Computing", "Algorithms", "Databases", "Networking"
+    };
+    private static final String[] FORMS = {
+            "%s Explained", "Mastering %s", "%s for Business", "The %s Handbook", "Practical %s",
+            "%s in Action", "Learning %s", "%s Cookbook"
+    };
+
+    private final List<Product> products;
+    private final String[] lowerCaseTitles;
+    private final Map<String, Product> productsById = new HashMap<>();
+    private final Map<String, int[]> postingsByWord = new HashMap<>();
+
+    private Catalog(List<Product> products) {
+        this.products = Collections.unmodifiableList(products);
+        this.lowerCaseTitles = new String[products.size()];
+
+        Map<String, List<Integer>> postings = new HashMap<>();
+        for (int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
+            productsById.put(product.getId(), product);
+            lowerCaseTitles[i] = product.getTitle().toLowerCase(Locale.ROOT);
+            for (String word : words(lowerCaseTitles[i])) {
+                List<Integer> list = postings.computeIfAbsent(word, key -> new ArrayList<>());
+                if (list.isEmpty() || list.get(list.size() - 1) != i) {
+                    list.add(i);
+                }
+            }
+        }
+        for (Map.Entry<String, List<Integer>> entry : postings.entrySet()) {
+            int[] indexes = new int[entry.getValue().size()];
+            for (int i = 0; i < indexes.length; i++) {
+                indexes[i] = entry.getValue().get(i);
+            }
+            postingsByWord.put(entry.getKey(), indexes);
+        }
+    }
+
+    /**
+     * Generate a synthetic catalog
+     *
+     * @param size number of products
+     * @param seed random seed for titles and prices
+     * @return the catalog
+     */
+    public static Catalog synthetic(int size, long seed) {
+        Random random = new Random(seed);
+        List<Product> products = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String topic = TOPICS[i % TOPICS.length];
+            String form = FORMS[random.nextInt(FORMS.length)];
+            String title = String.format(form, topic);
+            if (i >= TOPICS.length * FORMS.length) {
+                title += ", Volume " + (i / (TOPICS.length * FORMS.length) + 1);
+            }
+            long price = (50 + random.nextInt(451)) * 1000L;
+            products.add(new Product(String.format("978%010d", i + 1), title, price));
+        }
+        return new Catalog(products);
+    }
+
+    /**
+     * Get a product by ID
+     *
+     * @param id the product ID
+     * @return the product, or null if there is no such product
+     */
+    public Product get(String id) {
+        return productsById.get(id);
+    }
+
+    /**
+     * Find products whose title contains the search term, ignoring case
+     *
+     * @param term the search term
+     * @param limit maximum number of results
+     * @return matching products in catalog order
+     */
+    public List<Product> search(String term, int limit) {
+        String needle = term.toLowerCase(Locale.ROOT).trim();
+        List<Product> results = new ArrayList<>();
+        int[] candidates = candidates(needle);
+        int count = candidates == null ? lowerCaseTitles.length : candidates.length;
+        for (int i = 0; i < count && results.size() < limit; i++) {
+            int index = candidates == null ? i : candidates[i];
+            if (lowerCaseTitles[index].contains(needle)) {
+                results.add(products.get(index));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Narrow a search down with the word index. Inner words of the term must be whole title words;
+     * its first word may end a longer title word and its last word may start one.
+     *
+     * @param needle the lowercase search term
+     * @return indexes of the products that can match in catalog order, or null if every product has to be checked
+     */
+    private int[] candidates(String needle) {
+        String[] words = words(needle);
+        List<int[]> best = null;
+        int bestSize = Integer.MAX_VALUE;
+        for (int i = 0; i < words.length; i++) {
+            boolean openStart = i == 0 && needle.startsWith(words[i]);
+            boolean openEnd = i == words.length - 1 && needle.endsWith(words[i]);
+            List<int[]> lists = new ArrayList<>();
+            int size = 0;
+            for (Map.Entry<String, int[]> entry : postingsByWord.entrySet()) {
+                String word = entry.getKey();
+                boolean matches = openStart && openEnd ? word.contains(words[i])
+                        : openStart ? word.endsWith(words[i])
+                        : openEnd ? word.startsWith(words[i])
+                        : word.equals(words[i]);
+                if (matches) {
+                    lists.add(entry.getValue());
+                    size += entry.getValue().length;
+                }
+            }
+            if (size < bestSize) {
+                best = lists;
+                bestSize = size;
+            }
+        }
+        if (best == null) {
+            return null;
+        }
+        if (best.size() == 1) {
+            return best.get(0);
+        }
+        int[] merged = new int[bestSize];
+        int offset = 0;
+        for (int[] list : best) {
+            System.arraycopy(list, 0, merged, offset, list.length);
+            offset += list.length;
+        }
+        // Lists of different words may share products
+        return Arrays.stream(merged).sorted().distinct().toArray();
+    }
+
+    private static String[] words(String text) {
+        String trimmed = text.replaceAll("^[^\\p{L}\\p{N}]+", "");
+        return trimmed.isEmpty() ? new String[0] : trimmed.split("[^\\p{L}\\p{N}]+");
+    }
+
+    /**
+     * @return number of products in the catalog
+     */
+    public int size() {
+        return products.size();
+    }
+}
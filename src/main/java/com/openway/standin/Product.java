@@ -0,0 +1,35 @@
+package com.openway.standin;
+
+/**
+ * A product of the stand-in catalog
+ */
+public class Product {
+    private final String id;
+    private final String title;
+    private final long price;
+
+    /**
+     * Constructor
+     *
+     * @param id 13 digit product ID (ISBN)
+     * @param title product title
+     * @param price price in Rupiah
+     */
+    public Product(String id, String title, long price) {
+        this.id = id;
+        this.title = title;
+        this.price = price;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public long getPrice() {
+        return price;
+    }
+}
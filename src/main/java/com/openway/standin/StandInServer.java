@@ -0,0 +1,386 @@
+package com.openway.standin;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Embedded local stand-in for the Periplus storefront, for repeatable runs without the real site.
+ * <p>
+ * It keeps a real in-memory session and cart model: carts of logged-in sessions belong to the
+ * account, so they survive logout and login, while anonymous sessions get a cart of their own.
+ * Accounts are created on their first login; later logins must use the same password.
+ * Pages use the markup the page objects expect, see {@link StorefrontPages}.
+ * <p>
+ * A session ends when it logs out. The server cannot tell when a browser quits, so sessions unused for
+ * {@value #SESSION_IDLE_MINUTES} minutes expire as well, and beyond {@value #MAX_SESSIONS} sessions the
+ * least recently used ones are dropped. Sessions are kept in access order, so both only look at the
+ * oldest sessions when one is added. Account carts are kept for the lifetime of the server.
+ * <p>
+ * Latency can be injected with {@link #setLatency(long, long)} to mimic the live site, also
+ * while tests are running.
+ * <p>
+ * Endpoints:
+ * <ul>
+ *     <li>{@code GET /} home page</li>
+ *     <li>{@code GET|POST /account/Login} login form and login with {@code email} and {@code password}</li>
+ *     <li>{@code GET /_index_/Logout} logout</li>
+ *     <li>{@code GET /product/Search?filter_name=term} search results</li>
+ *     <li>{@code GET /p/{id}} product page</li>
+ *     <li>{@code POST /cart/add|update|remove} cart mutations with {@code product_id} and {@code quantity}</li>
+ *     <li>{@code GET /checkout/cart} cart page</li>
+ *     <li>{@code POST /checkout/cart} update cart quantities with {@code quantity[id]} fields</li>
+ * </ul>
+ */
+public class StandInServer implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(StandInServer.class.getName());
+    public static final String SESSION_COOKIE = "PHPSESSID";
+    private static final int SEARCH_LIMIT = 24;
+    private static final long SESSION_IDLE_MINUTES = 30;
+    private static final int MAX_SESSIONS = 10000;
+
+    private final Catalog catalog;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    // Access-ordered, so the least recently used session comes first; guarded by its own lock
+    private final Map<String, Session> sessions = new LinkedHashMap<String, Session>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Session> eldest) {
+            return size() > MAX_SESSIONS;
+        }
+    };
+    private final Map<String, Cart> accountCarts = new ConcurrentHashMap<>();
+    private final Map<String, String> accountPasswords = new ConcurrentHashMap<>();
+    private volatile long latencyMillis;
+    private volatile long jitterMillis;
+
+    /**
+     * Constructor
+     *
+     * @param catalog the catalog to serve
+     * @param port port to listen on, 0 for any free port
+     * @throws IOException if the server socket cannot be bound
+     */
+    public StandInServer(Catalog catalog, int port) throws IOException {
+        this.catalog = catalog;
+        // Without TCP_NODELAY small responses wait on delayed ACKs and every request takes ~40ms
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        this.executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+    }
+
+    /**
+     * Start serving requests
+     *
+     * @return this server for method chaining
+     */
+    public StandInServer start() {
+        server.start();
+        logger.info("Stand-in storefront with " + catalog.size() + " products listening on " + getBaseUrl());
+        return this;
+    }
+
+    /**
+     * @return base URL of the server, ending with a slash
+     */
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    /**
+     * Delay every response, e.g. to run against latency similar to the live site
+     *
+     * @param latencyMillis fixed delay per request
+     * @param jitterMillis maximum random delay added on top of the fixed delay
+     * @return this server for method chaining
+     */
+    public StandInServer setLatency(long latencyMillis, long jitterMillis) {
+        if (latencyMillis < 0 || jitterMillis < 0) {
+            throw new IllegalArgumentException("Latency must not be negative: " + latencyMillis + "+" + jitterMillis);
+        }
+        this.latencyMillis = latencyMillis;
+        this.jitterMillis = jitterMillis;
+        logger.info("Stand-in latency set to " + latencyMillis + "ms + up to " + jitterMillis + "ms jitter");
+        return this;
+    }
+
+    /**
+     * Get the cart of an account
+     *
+     * @param email the account email
+     * @return the cart of the account, created if it does not exist
+     */
+    public Cart getAccountCart(String email) {
+        return accountCarts.computeIfAbsent(email, key -> new Cart());
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+        logger.info("Stand-in storefront stopped");
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            delay();
+            String path = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestMethod();
+            Map<String, String> params = parseParams(exchange);
+            Session session = resolveSession(exchange);
+
+            if ("/".equals(path)) {
+                respondHtml(exchange, 200, StorefrontPages.home(session.email, session.cart.getItemCount()));
+            } else if (StorefrontPages.SCRIPT_PATH.equals(path)) {
+                respond(exchange, 200, "application/javascript", StorefrontPages.SCRIPT);
+            } else if ("/account/Login".equals(path) && "POST".equals(method)) {
+                login(exchange, session, params);
+            } else if ("/account/Login".equals(path)) {
+                respondHtml(exchange, 200, StorefrontPages.login(false));
+            } else if ("/_index_/Logout".equals(path)) {
+                synchronized (sessions) {
+                    sessions.remove(session.id);
+                }
+                exchange.getResponseHeaders().set("Set-Cookie", SESSION_COOKIE + "=; Path=/; Max-Age=0; HttpOnly");
+                redirect(exchange, "/");
+            } else if ("/product/Search".equals(path)) {
+                List<Product> products = catalog.search(params.getOrDefault("filter_name", ""), SEARCH_LIMIT);
+                respondHtml(exchange, 200,
+                        StorefrontPages.searchResults(session.email, session.cart.getItemCount(), products));
+            } else if (path.startsWith("/p/")) {
+                product(exchange, session, path.substring(3).split("/")[0]);
+            } else if (path.startsWith("/cart/") && "POST".equals(method)) {
+                mutateCart(exchange, session, path.substring("/cart/".length()), params);
+            } else if ("/checkout/cart".equals(path) && "POST".equals(method)) {
+                updateCart(exchange, session, params);
+            } else if ("/checkout/cart".equals(path)) {
+                respondHtml(exchange, 200, StorefrontPages.cart(session.email, catalog, session.cart.getLines()));
+            } else {
+                respondHtml(exchange, 404, StorefrontPages.notFound("Page"));
+            }
+        } catch (RuntimeException e) {
+            logger.warning("Stand-in request failed: " + exchange.getRequestURI() + ": " + e);
+            respondHtml(exchange, 500, StorefrontPages.error());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void delay() throws InterruptedException {
+        long millis = latencyMillis;
+        long jitter = jitterMillis;
+        if (jitter > 0) {
+            millis += ThreadLocalRandom.current().nextLong(jitter + 1);
+        }
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+    }
+
+    private void login(HttpExchange exchange, Session session, Map<String, String> params) throws IOException {
+        String email = params.get("email");
+        String password = params.get("password");
+        if (email == null || email.isEmpty() || password == null || password.isEmpty()
+                || !password.equals(accountPasswords.computeIfAbsent(email, key -> password))) {
+            respondHtml(exchange, 200, StorefrontPages.login(true));
+            return;
+        }
+        session.email = email;
+        session.cart = getAccountCart(email);
+        redirect(exchange, "/");
+    }
+
+    private void product(HttpExchange exchange, Session session, String productId) throws IOException {
+        Product product = catalog.get(productId);
+        if (product == null) {
+            respondHtml(exchange, 404, StorefrontPages.notFound("Product"));
+            return;
+        }
+        respondHtml(exchange, 200, StorefrontPages.product(session.email, session.cart.getItemCount(), product));
+    }
+
+    private void mutateCart(HttpExchange exchange, Session session, String action, Map<String, String> params)
+            throws IOException {
+        String productId = params.get("product_id");
+        int quantity = Integer.parseInt(params.getOrDefault("quantity", "1"));
+        if (productId == null || catalog.get(productId) == null) {
+            respondJson(exchange, 404, "{\"success\":false,\"error\":\"unknown product\"}");
+            return;
+        }
+
+        boolean success;
+        switch (action) {
+            case "add":
+                session.cart.add(productId, quantity);
+                success = true;
+                break;
+            case "update":
+                success = session.cart.update(productId, quantity);
+                break;
+            case "remove":
+                success = session.cart.remove(productId);
+                break;
+            default:
+                respondJson(exchange, 404, "{\"success\":false,\"error\":\"unknown action\"}");
+                return;
+        }
+        respondJson(exchange, success ? 200 : 409,
+                "{\"success\":" + success + ",\"total\":" + session.cart.getItemCount() + "}");
+    }
+
+    private void updateCart(HttpExchange exchange, Session session, Map<String, String> params) throws IOException {
+        for (Map.Entry<String, String> param : params.entrySet()) {
+            String key = param.getKey();
+            if (key.startsWith("quantity[") && key.endsWith("]")) {
+                session.cart.update(key.substring("quantity[".length(), key.length() - 1),
+                        Integer.parseInt(param.getValue().trim()));
+            }
+        }
+        redirect(exchange, "/checkout/cart");
+    }
+
+    private Session resolveSession(HttpExchange exchange) {
+        List<String> cookieHeaders = exchange.getRequestHeaders().get("Cookie");
+        if (cookieHeaders != null) {
+            for (String header : cookieHeaders) {
+                for (String cookie : header.split(";")) {
+                    String[] pair = cookie.trim().split("=", 2);
+                    if (pair.length == 2 && SESSION_COOKIE.equals(pair[0])) {
+                        Session session = findSession(pair[1]);
+                        if (session != null) {
+                            return session;
+                        }
+                    }
+                }
+            }
+        }
+
+        Session session = new Session(UUID.randomUUID().toString());
+        synchronized (sessions) {
+            expireSessions(session.lastSeenNanos);
+            sessions.put(session.id, session);
+        }
+        exchange.getResponseHeaders().add("Set-Cookie", SESSION_COOKIE + "=" + session.id + "; Path=/; HttpOnly");
+        return session;
+    }
+
+    /**
+     * Look up a session and mark it as used now
+     *
+     * @return the session, or null if it ended
+     */
+    private Session findSession(String id) {
+        synchronized (sessions) {
+            Session session = sessions.get(id);
+            if (session != null) {
+                session.lastSeenNanos = System.nanoTime();
+            }
+            return session;
+        }
+    }
+
+    /**
+     * Drop the sessions unused for {@value #SESSION_IDLE_MINUTES} minutes. They are the oldest in access
+     * order, so this stops at the first one still in use; must hold the lock of {@code sessions}.
+     */
+    private void expireSessions(long now) {
+        long idleNanos = TimeUnit.MINUTES.toNanos(SESSION_IDLE_MINUTES);
+        Iterator<Session> oldest = sessions.values().iterator();
+        while (oldest.hasNext() && now - oldest.next().lastSeenNanos > idleNanos) {
+            oldest.remove();
+        }
+    }
+
+    private static Map<String, String> parseParams(HttpExchange exchange) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        parseQuery(exchange.getRequestURI().getRawQuery(), params);
+        if ("POST".equals(exchange.getRequestMethod())) {
+            parseQuery(new String(readAll(exchange.getRequestBody()), StandardCharsets.UTF_8), params);
+        }
+        return params;
+    }
+
+    private static void parseQuery(String query, Map<String, String> params) throws UnsupportedEncodingException {
+        if (query == null || query.isEmpty()) {
+            return;
+        }
+        for (String pair : query.split("&")) {
+            String[] parts = pair.split("=", 2);
+            String key = URLDecoder.decode(parts[0], "UTF-8");
+            String value = parts.length > 1 ? URLDecoder.decode(parts[1], "UTF-8") : "";
+            params.put(key, value);
+        }
+    }
+
+    private static byte[] readAll(InputStream input) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        byte[] chunk = new byte[4096];
+        int read;
+        while ((read = input.read(chunk)) != -1) {
+            buffer.write(chunk, 0, read);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static void redirect(HttpExchange exchange, String location) throws IOException {
+        exchange.getResponseHeaders().set("Location", location);
+        exchange.sendResponseHeaders(302, -1);
+    }
+
+    private static void respondHtml(HttpExchange exchange, int status, String html) throws IOException {
+        respond(exchange, status, "text/html; charset=UTF-8", html);
+    }
+
+    private static void respondJson(HttpExchange exchange, int status, String json) throws IOException {
+        respond(exchange, status, "application/json", json);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+
+    /**
+     * Server-side session; the cart is the account cart while logged in
+     */
+    private static class Session {
+        private final String id;
+        private volatile String email;
+        private volatile Cart cart = new Cart();
+        private volatile long lastSeenNanos = System.nanoTime();
+
+        Session(String id) {
+            this.id = id;
+        }
+    }
+}
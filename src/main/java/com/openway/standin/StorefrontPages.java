@@ -0,0 +1,187 @@
+package com.openway.standin;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * HTML of the stand-in storefront. The markup follows the live site closely enough for the page
+ * objects: the same ids and classes ({@code filter_name}, {@code preloader}, {@code show-your-cart},
+ * {@code quickview-price}, {@code btn-add-to-cart}, {@code row-cart-product}, {@code sub_total}, ...)
+ * and the same quantity controls, driven by {@code /assets/shop.js}.
+ */
+class StorefrontPages {
+    static final String SCRIPT_PATH = "/assets/shop.js";
+
+    static final String SCRIPT = String.join("\n",
+            "function post(path, data) {",
+            "  var preloader = document.querySelector('.preloader');",
+            "  preloader.style.display = 'block';",
+            "  return fetch(path, {method: 'POST', credentials: 'same-origin',",
+            "      headers: {'Content-Type': 'application/x-www-form-urlencoded'}, body: new URLSearchParams(data)})",
+            "    .then(function (response) { return response.json(); })",
+            "    .finally(function () { preloader.style.display = 'none'; });",
+            "}",
+            "function setQuantity(input, quantity) {",
+            "  input.value = quantity;",
+            "  input.setAttribute('value', quantity);",
+            "}",
+            "document.addEventListener('click', function (event) {",
+            "  var step = event.target.closest('button[data-type]');",
+            "  if (step) {",
+            "    var input = step.parentNode.querySelector('input.input-number');",
+            "    var quantity = parseInt(input.value, 10) + (step.getAttribute('data-type') === 'plus' ? 1 : -1);",
+            "    if (quantity >= 1) {",
+            "      setQuantity(input, quantity);",
+            "    }",
+            "    return;",
+            "  }",
+            "  var add = event.target.closest('.btn-add-to-cart');",
+            "  if (add) {",
+            "    var notification = document.querySelector('.notification');",
+            "    notification.style.display = 'block';",
+            "    post('/cart/add', {product_id: add.getAttribute('data-product-id'),",
+            "        quantity: document.querySelector('.quickview-content input.input-number').value})",
+            "      .then(function (result) {",
+            "        document.querySelector('.cart-icon .total-count').textContent = result.total;",
+            "        setTimeout(function () { notification.style.display = 'none'; }, 300);",
+            "      });",
+            "    return;",
+            "  }",
+            "  var remove = event.target.closest('.btn-cart-remove');",
+            "  if (remove) {",
+            "    event.preventDefault();",
+            "    post('/cart/remove', {product_id: remove.getAttribute('data-product-id')})",
+            "      .then(function () { location.reload(); });",
+            "  }",
+            "});",
+            "");
+
+    private StorefrontPages() {
+        // Private constructor to prevent instantiation
+    }
+
+    static String home(String email, int cartCount) {
+        return page("Periplus Online Bookstore", email, cartCount,
+                "<section class='hero-slider'><div class='single-slider'><h1>Books for everyone</h1></div></section>");
+    }
+
+    static String login(boolean failed) {
+        return page("Account Login | Periplus", null, 0,
+                "<div class='login section'>"
+                        + "<div class='warning'" + (failed ? "" : " style='display:none'")
+                        + ">Warning: No match for E-Mail Address and/or Password.</div>"
+                        + "<form id='login' action='/account/Login' method='post'>"
+                        + "<input type='email' name='email'>"
+                        + "<input type='password' name='password'>"
+                        + "<input type='submit' id='button-login' value='Login'>"
+                        + "</form></div>");
+    }
+
+    static String searchResults(String email, int cartCount, List<Product> products) {
+        StringBuilder body = new StringBuilder("<section class='product-area shop-sidebar shop section'><div class='row'>");
+        for (Product product : products) {
+            body.append("<div class='col-lg-3 single-product'><div class='product-img'><a href='/p/")
+                    .append(product.getId()).append("'>").append(escape(product.getTitle())).append("</a></div></div>");
+        }
+        body.append("</div></section>");
+        return page("Search Results | Periplus", email, cartCount, body.toString());
+    }
+
+    static String product(String email, int cartCount, Product product) {
+        return page(escape(product.getTitle()) + " | Periplus", email, cartCount,
+                "<section class='shop single section'><div class='row row-product-detail'><div class='col-lg-6 col-12'>"
+                        + "<div class='quickview-content'>"
+                        + "<h2>" + escape(product.getTitle()) + "</h2>"
+                        + "<div class='quickview-price'><span>" + formatPrice(product.getPrice()) + "</span></div>"
+                        + "<div class='quantity'><div class='input-group'>"
+                        + "<button type='button' class='btn btn-product-minus' data-type='minus'>-</button>"
+                        + "<input type='text' name='quantity' class='input-number form-control' value='1'>"
+                        + "<button type='button' class='btn btn-product-plus' data-type='plus'>+</button>"
+                        + "</div></div>"
+                        + "<button type='button' class='btn btn-add-to-cart' data-product-id='" + product.getId()
+                        + "'>Add to Cart</button>"
+                        + "<div class='notification' style='display:none'>Success add to cart</div>"
+                        + "</div></div></div></section>");
+    }
+
+    static String cart(String email, Catalog catalog, Map<String, Integer> lines) {
+        int cartCount = 0;
+        for (int quantity : lines.values()) {
+            cartCount += quantity;
+        }
+        if (lines.isEmpty()) {
+            return page("Shopping Cart | Periplus", email, cartCount,
+                    "<div class='shopping-cart section'><h1>Shopping Cart</h1>"
+                            + "<div class='content'>Your shopping cart is empty</div></div>");
+        }
+
+        StringBuilder body = new StringBuilder("<div class='shopping-cart section'>")
+                .append("<form id='basket' action='/checkout/cart' method='post'>");
+        long total = 0;
+        for (Map.Entry<String, Integer> line : lines.entrySet()) {
+            Product product = catalog.get(line.getKey());
+            String id = product.getId();
+            total += product.getPrice() * line.getValue();
+            body.append("<div class='row row-cart-product'>")
+                    .append("<p class='product-name'>").append(escape(product.getTitle())).append("</p>")
+                    .append("<div class='row'>").append(id).append("</div>")
+                    .append("<div class='row'>").append(formatPrice(product.getPrice())).append(" or ")
+                    .append(String.format("%,d", product.getPrice() / 100)).append(" points</div>")
+                    .append("<div class='row qty'>")
+                    .append("<button type='button' data-type='minus' name='minus-").append(id).append("'>-</button>")
+                    .append("<input type='text' name='quantity[").append(id).append("]' class='input-number' value='")
+                    .append(line.getValue()).append("'>")
+                    .append("<button type='button' data-type='plus' name='plus-").append(id).append("'>+</button>")
+                    .append("</div>")
+                    .append("<a href='#' class='btn-cart-remove' data-product-id='").append(id).append("'>Remove</a>")
+                    .append("</div>");
+        }
+        body.append("<div class='button4'><input type='submit' class='btn' value='Update Cart'></div></form>")
+                .append("<div class='shopping-summery'><ul>")
+                .append("<li>Sub-Total<span id='sub_total'>").append(formatPrice(total)).append("</span></li>")
+                .append("<li>Total<span id='sub_total'>").append(formatPrice(total)).append("</span></li>")
+                .append("</ul></div></div>");
+        return page("Shopping Cart | Periplus", email, cartCount, body.toString());
+    }
+
+    static String notFound(String what) {
+        return page("Not Found | Periplus", null, 0, "<h1>" + what + " not found</h1>");
+    }
+
+    static String error() {
+        return page("Error | Periplus", null, 0, "<h1>Internal error</h1>");
+    }
+
+    private static String page(String title, String email, int cartCount, String content) {
+        return "<!DOCTYPE html><html lang='en'><head><meta charset='UTF-8'><title>" + title + "</title>"
+                + "<script src='" + SCRIPT_PATH + "' defer></script></head><body>"
+                + "<div class='preloader' style='display:none'></div>"
+                + "<header class='header shop'>"
+                + "<div class='topbar'><span id='nav-signin-text'>"
+                + (email == null ? "<a href='/account/Login'>Sign In</a>" : "<a href='/_index_/Logout'>" + escape(email) + "</a>")
+                + "</span></div>"
+                + "<div class='middle-inner'>"
+                + "<div class='search-bar'><form action='/product/Search' method='get'>"
+                + "<input id='filter_name' name='filter_name' type='text' placeholder='Search books'>"
+                + "<button type='submit' class='btnn'>Search</button></form></div>"
+                + "<div class='right-bar'>"
+                + "<div class='sinlge-bar shopping'><a class='single-icon' href='/account/Login'>My Account</a></div>"
+                + "<div class='sinlge-bar shopping'><a id='show-your-cart' class='cart-icon' href='/checkout/cart'>Cart "
+                + "<span class='total-count'>" + cartCount + "</span></a></div>"
+                + "</div></div></header>"
+                + content
+                + "</body></html>";
+    }
+
+    /**
+     * Format a price as the storefront shows it, e.g. {@code Rp 250,000}, whatever the JVM's locale
+     */
+    static String formatPrice(long price) {
+        return String.format(Locale.ROOT, "Rp %,d", price);
+    }
+
+    static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("'", "&#39;");
+    }
+}
@@ -0,0 +1,59 @@
+package com.openway.utils;
+
+import java.io.File;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Recording and replay of browser traffic, the {@code archive.*} settings of a {@link TestConfig}
+ */
+public final class ArchiveConfig {
+    /**
+     * Whether browser traffic is recorded or replayed, {@code archive.mode}
+     */
+    public enum Mode {
+        /** The browser talks to the site directly */
+        OFF,
+        /** Traffic goes to the site and is written to one archive per scenario */
+        RECORD,
+        /** Traffic is served from the archives, without network */
+        REPLAY
+    }
+
+    private final Mode mode;
+    private final File directory;
+    private final Pattern ignoredParams;
+
+    ArchiveConfig(ConfigValues values) {
+        mode = values.choice("archive.mode", Mode.class, Mode.OFF);
+        directory = values.file("archive.dir");
+        ignoredParams = values.pattern("archive.ignoreParams");
+    }
+
+    static void defaults(Map<String, String> defaults) {
+        defaults.put("archive.mode", "off");
+        defaults.put("archive.dir", "src/test/resources/archives");
+        defaults.put("archive.ignoreParams", "(?i)(.*(sess|token|csrf|nonce).*|sid|_|t|ts|timestamp)");
+    }
+
+    /**
+     * @return whether browser traffic is recorded, replayed or left alone
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * @return where HTTP archives are read and written, {@code archive.dir}
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return names of query and form parameters left out of replay keys, {@code archive.ignoreParams}
+     */
+    public Pattern getIgnoredParams() {
+        return ignoredParams;
+    }
+}
@@ -0,0 +1,59 @@
+package com.openway.utils;
+
+import java.util.Map;
+
+/**
+ * Evidence captured from failed tests, the {@code artifacts.*} settings of a {@link TestConfig}
+ */
+public final class ArtifactsConfig {
+    private final boolean enabled;
+    private final String directory;
+    private final int threads;
+    private final int queueCapacity;
+    private final long diskBudgetBytes;
+
+    ArtifactsConfig(ConfigValues values) {
+        enabled = values.bool("artifacts.enabled");
+        directory = values.string("artifacts.dir");
+        threads = (int) values.number("artifacts.threads", 1);
+        queueCapacity = (int) values.number("artifacts.queueCapacity", 1);
+        diskBudgetBytes = values.number("artifacts.diskBudgetMb", 0) << 20;
+    }
+
+    static void defaults(Map<String, String> defaults) {
+        defaults.put("artifacts.enabled", "true");
+        defaults.put("artifacts.dir", "target/failure-artifacts");
+        defaults.put("artifacts.threads", "1");
+        defaults.put("artifacts.queueCapacity", "8");
+        defaults.put("artifacts.diskBudgetMb", "256");
+    }
+
+    /**
+     * @return true to capture screenshots, page source, console logs and cart state of failed tests
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @return number of failure captures that may wait for a writer thread before new ones are dropped
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * @return maximum size of the artifacts directory, {@code artifacts.diskBudgetMb}
+     */
+    public long getDiskBudgetBytes() {
+        return diskBudgetBytes;
+    }
+}
@@ -0,0 +1,251 @@
+package com.openway.utils;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.ErrorManager;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.SimpleFormatter;
+
+/**
+ * Logging handler that hands records to a single writer thread instead of writing them on the
+ * calling thread.
+ * <p>
+ * Logging threads only put the record into a {@link LogRingBuffer}, so parallel tests never contend
+ * on a handler lock or wait for the disk. The writer thread wakes up every {@code flushMillis}, or
+ * sooner when the buffer is half full or a SEVERE record arrives, formats everything queued into one
+ * reused buffer and writes it to the log file and the console in a single batch.
+ * <p>
+ * What happens when the buffer is full is decided by the {@link OverflowPolicy}. Dropped records are
+ * counted and reported in the log as soon as there is room again.
+ */
+public class AsyncLogHandler extends Handler {
+    private static final long FLUSH_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final DateTimeFormatter SECONDS = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+            .withZone(ZoneId.systemDefault());
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    /**
+     * What {@link #publish(LogRecord)} does when the buffer is full
+     */
+    public enum OverflowPolicy {
+        /** Wait until the writer has made room, so no record is ever lost */
+        BLOCK,
+        /** Drop the new record */
+        DROP,
+        /** Drop the new record unless it is a WARNING or SEVERE, which wait for room */
+        DROP_BELOW_WARNING
+    }
+
+    private final LogRingBuffer<LogRecord> buffer;
+    private final OverflowPolicy overflowPolicy;
+    private final long flushNanos;
+    private final Writer file;
+    private final Writer console;
+    private final Thread writer;
+    private final AtomicLong dropped = new AtomicLong();
+    private final Formatter messages = new SimpleFormatter();
+    private final StringBuilder batch = new StringBuilder(8192);
+    private char[] chars = new char[8192];
+    private long cachedSecond = Long.MIN_VALUE;
+    private String cachedTimestamp;
+    private volatile long written;
+    private volatile boolean closed;
+
+    /**
+     * Constructor, starts the writer thread
+     *
+     * @param logFile file to append to, or null to log to the console only
+     * @param toConsole true to also write to standard error, like a {@link java.util.logging.ConsoleHandler}
+     * @param capacity number of records the buffer holds, rounded up to a power of two
+     * @param overflowPolicy what to do when the buffer is full
+     * @param flushMillis how often the writer thread writes out what has been queued
+     * @throws IOException if the log file cannot be opened
+     */
+    public AsyncLogHandler(File logFile, boolean toConsole, int capacity, OverflowPolicy overflowPolicy,
+                           long flushMillis) throws IOException {
+        this.buffer = new LogRingBuffer<>(capacity);
+        this.overflowPolicy = overflowPolicy;
+        this.flushNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, flushMillis));
+        this.file = logFile == null ? null : new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(logFile, true), StandardCharsets.UTF_8), 64 * 1024);
+        this.console = toConsole ? new OutputStreamWriter(System.err, StandardCharsets.UTF_8) : null;
+        this.writer = new Thread(this::writeLoop, "async-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (closed || !isLoggable(record)) {
+            return;
+        }
+
+        while (!buffer.offer(record)) {
+            if (overflowPolicy == OverflowPolicy.DROP || (overflowPolicy == OverflowPolicy.DROP_BELOW_WARNING
+                    && record.getLevel().intValue() < Level.WARNING.intValue())) {
+                dropped.incrementAndGet();
+                return;
+            }
+            if (closed || !writer.isAlive()) {
+                return;
+            }
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(100_000);
+        }
+
+        if (record.getLevel().intValue() >= Level.SEVERE.intValue() || buffer.size() >= buffer.capacity() / 2) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+     * Wait until every record published so far has been written, at most five seconds
+     */
+    @Override
+    public void flush() {
+        long target = buffer.claimed();
+        long deadline = System.nanoTime() + FLUSH_TIMEOUT_NANOS;
+        while (written < target && writer.isAlive() && System.nanoTime() < deadline) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(100_000);
+        }
+    }
+
+    /**
+     * Write out everything queued and stop the writer thread
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.NANOSECONDS.toMillis(FLUSH_TIMEOUT_NANOS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            if (file != null) {
+                file.close();
+            }
+            if (console != null) {
+                console.flush();
+            }
+        } catch (IOException e) {
+            reportError("Failed to close log file", e, ErrorManager.CLOSE_FAILURE);
+        }
+    }
+
+    /**
+     * @return number of records dropped because the buffer was full and not yet reported in the log
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    private void writeLoop() {
+        while (true) {
+            // Read before draining, so every record published before close() is still written
+            boolean stopping = closed;
+            if (writeBatch() == 0) {
+                if (stopping && buffer.consumed() == buffer.claimed()) {
+                    return;
+                }
+                LockSupport.parkNanos(stopping ? 100_000 : flushNanos);
+            }
+        }
+    }
+
+    private int writeBatch() {
+        batch.setLength(0);
+        int count = 0;
+        LogRecord record;
+        while (count < buffer.capacity() && (record = buffer.poll()) != null) {
+            format(record);
+            count++;
+        }
+        long droppedRecords = dropped.getAndSet(0);
+        if (droppedRecords > 0) {
+            appendHeader(System.currentTimeMillis(), Level.WARNING, Thread.currentThread().getId(),
+                    AsyncLogHandler.class.getName());
+            batch.append(droppedRecords).append(" log records dropped, buffer of ")
+                    .append(buffer.capacity()).append(" was full").append(LINE_SEPARATOR);
+        }
+        if (batch.length() == 0) {
+            return 0;
+        }
+
+        if (chars.length < batch.length()) {
+            chars = new char[Math.max(batch.length(), chars.length * 2)];
+        }
+        batch.getChars(0, batch.length(), chars, 0);
+        try {
+            if (file != null) {
+                file.write(chars, 0, batch.length());
+                file.flush();
+            }
+            if (console != null) {
+                console.write(chars, 0, batch.length());
+                console.flush();
+            }
+        } catch (IOException e) {
+            reportError("Failed to write log records", e, ErrorManager.WRITE_FAILURE);
+        }
+        written = buffer.consumed();
+        return Math.max(count, 1);
+    }
+
+    private void format(LogRecord record) {
+        appendHeader(record.getMillis(), record.getLevel(), record.getLongThreadID(), record.getLoggerName());
+        try {
+            batch.append(messages.formatMessage(record));
+        } catch (RuntimeException e) {
+            batch.append(record.getMessage());
+        }
+        batch.append(LINE_SEPARATOR);
+        if (record.getThrown() != null) {
+            StringWriter trace = new StringWriter();
+            record.getThrown().printStackTrace(new PrintWriter(trace));
+            batch.append(trace);
+        }
+    }
+
+    private void appendHeader(long millis, Level level, long threadId, String loggerName) {
+        long second = Math.floorDiv(millis, 1000);
+        if (second != cachedSecond) {
+            cachedSecond = second;
+            cachedTimestamp = SECONDS.format(Instant.ofEpochSecond(second));
+        }
+        int fraction = (int) Math.floorMod(millis, 1000);
+        batch.append(cachedTimestamp).append('.')
+                .append((char) ('0' + fraction / 100))
+                .append((char) ('0' + fraction / 10 % 10))
+                .append((char) ('0' + fraction % 10))
+                .append(' ').append(level.getName())
+                .append(" [").append(threadId).append("] ");
+        if (loggerName != null) {
+            // Pages created through Pages.create log under their generated subclass
+            int generated = loggerName.indexOf("$ByteBuddy$");
+            batch.append(loggerName, 0, generated < 0 ? loggerName.length() : generated);
+        }
+        batch.append(": ");
+    }
+}
@@ -0,0 +1,111 @@
+package com.openway.utils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Which browser the tests drive and how, the {@code browser.*} settings of a {@link TestConfig}
+ */
+public final class BrowserConfig {
+    /**
+     * Browser engines of {@code browser.name}
+     */
+    public static final List<String> ENGINES = Arrays.asList("chrome", "chrome-headless-shell", "firefox");
+
+    /**
+     * How drivers are isolated from each other, {@code browser.isolation}
+     */
+    public enum Isolation {
+        /** Every driver starts its own browser */
+        PROCESS,
+        /** Drivers share one browser, each in its own browser context with separate cookies and storage */
+        CONTEXT
+    }
+
+    /**
+     * How page objects talk to the browser, {@code browser.transport}
+     */
+    public enum Transport {
+        /** Every primitive is one or more WebDriver HTTP commands through the driver */
+        CLASSIC,
+        /** Primitives are scripts and input actions over the session's WebDriver BiDi WebSocket */
+        BIDI
+    }
+
+    private final String name;
+    private final boolean headless;
+    private final List<String> arguments;
+    private final String headlessShellBinary;
+    private final String firefoxBinary;
+    private final Isolation isolation;
+    private final Transport transport;
+
+    BrowserConfig(ConfigValues values) {
+        name = values.string("browser.name").toLowerCase(Locale.ROOT);
+        headless = values.bool("browser.headless");
+        arguments = values.list("browser.arguments");
+        headlessShellBinary = values.string("browser.headlessShellBinary").trim();
+        firefoxBinary = values.string("browser.firefoxBinary").trim();
+        isolation = values.choice("browser.isolation", Isolation.class, Isolation.PROCESS);
+        transport = values.choice("browser.transport", Transport.class, Transport.CLASSIC);
+    }
+
+    static void defaults(Map<String, String> defaults) {
+        defaults.put("browser.name", "chrome");
+        defaults.put("browser.headless", "false");
+        defaults.put("browser.arguments", "--disable-notifications");
+        defaults.put("browser.headlessShellBinary", "");
+        defaults.put("browser.firefoxBinary", "");
+        defaults.put("browser.isolation", "process");
+        defaults.put("browser.transport", "classic");
+    }
+
+    /**
+     * @return the engine, {@code browser.name}, one of {@link #ENGINES} once the snapshot is validated
+     */
+    public String getName() {
+        return name;
+    }
+
+    public boolean isHeadless() {
+        return headless;
+    }
+
+    /**
+     * @return extra command-line arguments for the Chrome engines, from the comma separated {@code browser.arguments}
+     */
+    public List<String> getArguments() {
+        return arguments;
+    }
+
+    /**
+     * @return path of the {@code chrome-headless-shell} executable, {@code browser.headlessShellBinary};
+     *         empty to look for it on the {@code PATH}
+     */
+    public String getHeadlessShellBinary() {
+        return headlessShellBinary;
+    }
+
+    /**
+     * @return path of the Firefox executable, {@code browser.firefoxBinary}; empty for the installed Firefox
+     */
+    public String getFirefoxBinary() {
+        return firefoxBinary;
+    }
+
+    /**
+     * @return whether each driver gets its own browser process or a context in a shared one
+     */
+    public Isolation getIsolation() {
+        return isolation;
+    }
+
+    /**
+     * @return whether page-object primitives use classic WebDriver commands or WebDriver BiDi
+     */
+    public Transport getTransport() {
+        return transport;
+    }
+}
@@ -1,65 +1,68 @@
 package com.openway.utils;
 
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.io.InputStream;
-import java.util.Properties;
 import java.util.logging.Logger;
 
-
+/**
+ * Holds the {@link TestConfig} snapshot of the run. The configuration is loaded once; lookups read the
+ * shared immutable snapshot and overrides replace it with a new one, so readers on other threads always
+ * see a complete, consistent configuration.
+ */
 public class ConfigManager {
     private static final Logger logger = Logger.getLogger(ConfigManager.class.getName());
-    private static final Properties properties = new Properties();
-    private static final String CONFIG_FILE = "src/test/resources/config.properties";
-    private static boolean isInitialized = false;
+    private static volatile TestConfig config;
+    private static boolean isValidated = false;
     
     private ConfigManager() {
         // Private constructor to prevent instantiation
     }
     
     /**
-     * Initialize the configuration manager
+     * Initialize the configuration manager and check that the configuration is complete
+     *
+     * @throws IllegalStateException if the configuration is invalid
      */
-    public static void init() {
-        if (!isInitialized) {
-            try (InputStream input = new FileInputStream(CONFIG_FILE)) {
-                properties.load(input);
-                isInitialized = true;
-                logger.info("Configuration loaded successfully");
-            } catch (IOException e) {
+    public static synchronized void init() {
+        if (!isValidated) {
+            try {
+                get().validate();
+                isValidated = true;
+                logger.info(() -> "Configuration loaded successfully, profile " + config.getProfile());
+            } catch (IllegalStateException e) {
                 logger.severe("Failed to load configuration: " + e.getMessage());
-                throw new RuntimeException("Failed to load configuration", e);
+                throw e;
+            }
+        }
+    }
+    
+    /**
+     * Get the configuration snapshot, loading it on first use
+     *
+     * @return the current snapshot
+     * @throws IllegalStateException if a value cannot be parsed
+     */
+    public static TestConfig get() {
+        TestConfig current = config;
+        if (current == null) {
+            synchronized (ConfigManager.class) {
+                if (config == null) {
+                    config = TestConfig.load();
+                }
+                current = config;
             }
         }
+        return current;
     }
     
     /**
-     * Get a property value with fallback to system property and environment variable
+     * Get a property value
      *
      * @param key the property key
      * @param defaultValue default value if property is not found
      * @return the property value
      */
     public static String getProperty(String key, String defaultValue) {
-        if (!isInitialized) {
-            init();
-        }
-        
-        String value = properties.getProperty(key);
-        
-        if (value == null) {
-            value = System.getProperty(key);
-        }
-        
-        if (value == null) {
-            value = System.getenv(key);
-        }
-        
-        if (value == null) {
-            value = defaultValue;
-        }
-        
-        return value;
+        String value = get().get(key);
+        return value == null ? defaultValue : value;
     }
     
     /**
@@ -71,4 +74,14 @@ public class ConfigManager {
     public static String getProperty(String key) {
         return getProperty(key, null);
     }
-}
\ No newline at end of file
+    
+    /**
+     * Override a property for the rest of the run, e.g. with a URL only known at runtime
+     *
+     * @param key the property key
+     * @param value the new value
+     */
+    public static synchronized void setProperty(String key, String value) {
+        config = get().with(key, value);
+    }
+}
@@ -0,0 +1,169 @@
+package com.openway.utils;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * The raw values a {@link TestConfig} snapshot is built from, with the parsers its sections share.
+ * A value that cannot be parsed is noted as a problem and replaced by a safe fallback, so one run
+ * reports every malformed value at once.
+ */
+final class ConfigValues {
+    private final Map<String, String> values;
+    private final List<String> problems = new ArrayList<>();
+
+    ConfigValues(Map<String, String> values) {
+        this.values = values;
+    }
+
+    /**
+     * @return the problems found so far
+     */
+    List<String> getProblems() {
+        return problems;
+    }
+
+    /**
+     * Note a problem that no single value shows, e.g. two settings that contradict each other
+     *
+     * @param problem description of the problem
+     */
+    void problem(String problem) {
+        problems.add(problem);
+    }
+
+    String string(String key) {
+        return values.get(key);
+    }
+
+    File file(String key) {
+        return new File(values.get(key).trim());
+    }
+
+    List<String> list(String key) {
+        List<String> items = new ArrayList<>();
+        String value = values.get(key);
+        if (value != null) {
+            for (String item : value.split(",")) {
+                if (!item.trim().isEmpty()) {
+                    items.add(item.trim());
+                }
+            }
+        }
+        return Collections.unmodifiableList(items);
+    }
+
+    boolean bool(String key) {
+        String value = values.get(key).trim();
+        if (!"true".equalsIgnoreCase(value) && !"false".equalsIgnoreCase(value)) {
+            problems.add(key + " must be true or false: " + value);
+        }
+        return Boolean.parseBoolean(value);
+    }
+
+    long number(String key, long min) {
+        String value = values.get(key).trim();
+        try {
+            long number = Long.parseLong(value);
+            if (number < min || number > Integer.MAX_VALUE) {
+                problems.add(key + " must be between " + min + " and " + Integer.MAX_VALUE + ": " + value);
+                return min;
+            }
+            return number;
+        } catch (NumberFormatException e) {
+            problems.add(key + " is not a number: " + value);
+            return min;
+        }
+    }
+
+    double decimal(String key, double min, double max) {
+        String value = values.get(key).trim();
+        try {
+            double number = Double.parseDouble(value);
+            if (!(number >= min && number <= max)) {
+                problems.add(key + " must be between " + min + " and " + max + ": " + value);
+                return min;
+            }
+            return number;
+        } catch (NumberFormatException e) {
+            problems.add(key + " is not a number: " + value);
+            return min;
+        }
+    }
+
+    /**
+     * Parse a duration such as {@code 90s}, {@code 15m} or {@code 1h}; a plain number counts seconds and
+     * an empty value is zero
+     */
+    Duration duration(String key) {
+        String value = values.get(key).trim().toLowerCase(Locale.ROOT);
+        if (value.isEmpty()) {
+            return Duration.ZERO;
+        }
+        try {
+            char unit = value.charAt(value.length() - 1);
+            long amount = Character.isDigit(unit) ? Long.parseLong(value)
+                    : Long.parseLong(value.substring(0, value.length() - 1).trim());
+            Duration duration = unit == 'h' ? Duration.ofHours(amount) : unit == 'm' ? Duration.ofMinutes(amount)
+                    : unit == 's' || Character.isDigit(unit) ? Duration.ofSeconds(amount) : null;
+            if (duration == null || duration.isNegative()) {
+                problems.add(key + " must be a duration such as 90s, 15m or 1h: " + value);
+                return Duration.ZERO;
+            }
+            return duration;
+        } catch (NumberFormatException e) {
+            problems.add(key + " must be a duration such as 90s, 15m or 1h: " + value);
+            return Duration.ZERO;
+        }
+    }
+
+    Level level(String key) {
+        String value = values.get(key).trim().toUpperCase(Locale.ROOT);
+        try {
+            return Level.parse(value);
+        } catch (IllegalArgumentException e) {
+            problems.add(key + " is not a log level: " + value);
+            return Level.INFO;
+        }
+    }
+
+    Pattern pattern(String key) {
+        String value = values.get(key).trim();
+        try {
+            return Pattern.compile(value);
+        } catch (PatternSyntaxException e) {
+            problems.add(key + " is not a regular expression: " + value);
+            return Pattern.compile("(?!)");
+        }
+    }
+
+    /**
+     * Parse one of the constants of an enum, written in any case
+     *
+     * @param key the property key
+     * @param type the enum
+     * @param fallback the constant used when the value is not one of them
+     * @return the constant
+     */
+    <E extends Enum<E>> E choice(String key, Class<E> type, E fallback) {
+        String value = values.get(key).trim();
+        try {
+            return Enum.valueOf(type, value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            List<String> names = new ArrayList<>();
+            for (E constant : type.getEnumConstants()) {
+                names.add(constant.name().toLowerCase(Locale.ROOT));
+            }
+            problems.add(key + " must be one of " + String.join(", ", names) + ": " + value);
+            return fallback;
+        }
+    }
+}
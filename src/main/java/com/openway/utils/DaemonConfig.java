@@ -0,0 +1,48 @@
+package com.openway.utils;
+
+import java.io.File;
+import java.util.Map;
+
+/**
+ * Warm browsers kept by a {@code BrowserDaemon}, the {@code browser.daemon*} settings of a {@link TestConfig}
+ */
+public final class DaemonConfig {
+    private final boolean enabled;
+    private final File directory;
+    private final int sessions;
+
+    DaemonConfig(ConfigValues values) {
+        enabled = values.bool("browser.daemon");
+        directory = values.file("browser.daemonDir");
+        sessions = (int) values.number("browser.daemonSessions", 1);
+    }
+
+    static void defaults(Map<String, String> defaults) {
+        defaults.put("browser.daemon", "false");
+        defaults.put("browser.daemonDir", System.getProperty("user.home") + File.separator + ".periplus-test"
+                + File.separator + "browser-daemon");
+        defaults.put("browser.daemonSessions", "2");
+    }
+
+    /**
+     * @return true to attach to the warm browsers of a running {@code BrowserDaemon} when there is one,
+     *         {@code browser.daemon}
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return where the browser daemon publishes its browsers and drivers lease them, {@code browser.daemonDir}
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return how many browsers the daemon keeps warm, {@code browser.daemonSessions}
+     */
+    public int getSessions() {
+        return sessions;
+    }
+}
@@ -0,0 +1,40 @@
+package com.openway.utils;
+
+import java.util.Map;
+
+/**
+ * Test data of the data-driven tests, the {@code data.*} settings of a {@link TestConfig}
+ */
+public final class DataConfig {
+    private final String cartTestData;
+    private final String multipleProductsData;
+    private final boolean parallel;
+
+    DataConfig(ConfigValues values) {
+        cartTestData = values.string("data.cartTestData");
+        multipleProductsData = values.string("data.multipleProductsData");
+        parallel = values.bool("data.parallel");
+    }
+
+    static void defaults(Map<String, String> defaults) {
+        defaults.put("data.cartTestData", "data/cart-test-data.csv");
+        defaults.put("data.multipleProductsData", "data/multiple-products-data.jsonl");
+        defaults.put("data.parallel", "false");
+    }
+
+    public String getCartTestData() {
+        return cartTestData;
+    }
+
+    public String getMultipleProductsData() {
+        return multipleProductsData;
+    }
+
+    /**
+     * @return true to run the rows of every data provider on {@code data-provider-thread-count} worker threads,
+     *         {@code data.parallel}; each worker opens its own browser session and logs in
+     */
+    public boolean isParallel() {
+        return parallel;
+    }
+}
@@ -1,50 +1,267 @@
 package com.openway.utils;
 
+import com.openway.archive.HttpArchives;
+import com.openway.browser.BrowserDaemon;
+import com.openway.browser.SharedBrowser;
 import io.github.bonigarcia.wdm.WebDriverManager;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.firefox.FirefoxDriver;
+import org.openqa.selenium.firefox.FirefoxOptions;
+import org.openqa.selenium.logging.LogType;
+import org.openqa.selenium.logging.LoggingPreferences;
 
+import java.io.File;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class DriverFactory {
     private static final Logger logger = Logger.getLogger(DriverFactory.class.getName());
+    private static SharedBrowser sharedBrowser;
+    
+    /**
+     * Chrome flags that keep the browser from doing anything a test does not ask for: first-run UI,
+     * extensions, background networking and updates, and throttling of background tabs
+     */
+    private static final List<String> CHROME_ARGUMENTS = Arrays.asList(
+            "--no-first-run",
+            "--no-default-browser-check",
+            "--disable-extensions",
+            "--disable-component-extensions-with-background-pages",
+            "--disable-background-networking",
+            "--disable-component-update",
+            "--disable-default-apps",
+            "--disable-sync",
+            "--disable-domain-reliability",
+            "--disable-client-side-phishing-detection",
+            "--disable-breakpad",
+            "--disable-background-timer-throttling",
+            "--disable-backgrounding-occluded-windows",
+            "--disable-renderer-backgrounding",
+            "--disable-features=Translate,OptimizationHints,MediaRouter",
+            "--metrics-recording-only",
+            "--mute-audio",
+            "--password-store=basic",
+            "--use-mock-keychain");
+    
+    /**
+     * Firefox preferences with the same purpose as {@link #CHROME_ARGUMENTS}
+     */
+    private static final Map<String, Object> FIREFOX_PREFERENCES = new LinkedHashMap<>();
+    
+    static {
+        FIREFOX_PREFERENCES.put("browser.shell.checkDefaultBrowser", false);
+        FIREFOX_PREFERENCES.put("browser.startup.homepage_override.mstone", "ignore");
+        FIREFOX_PREFERENCES.put("browser.aboutwelcome.enabled", false);
+        FIREFOX_PREFERENCES.put("app.update.auto", false);
+        FIREFOX_PREFERENCES.put("extensions.update.enabled", false);
+        FIREFOX_PREFERENCES.put("extensions.getAddons.cache.enabled", false);
+        FIREFOX_PREFERENCES.put("datareporting.policy.dataSubmissionEnabled", false);
+        FIREFOX_PREFERENCES.put("datareporting.healthreport.uploadEnabled", false);
+        FIREFOX_PREFERENCES.put("toolkit.telemetry.enabled", false);
+        FIREFOX_PREFERENCES.put("browser.safebrowsing.malware.enabled", false);
+        FIREFOX_PREFERENCES.put("browser.safebrowsing.phishing.enabled", false);
+        FIREFOX_PREFERENCES.put("network.captive-portal-service.enabled", false);
+        FIREFOX_PREFERENCES.put("network.connectivity-service.enabled", false);
+        FIREFOX_PREFERENCES.put("browser.newtabpage.enabled", false);
+        FIREFOX_PREFERENCES.put("dom.webnotifications.enabled", false);
+        FIREFOX_PREFERENCES.put("media.autoplay.default", 5);
+    }
     
     private DriverFactory() {
         // Private constructor to prevent instantiation
     }
     
-    
+    /**
+     * Create a driver. With {@code browser.isolation=context} all Chrome drivers share one browser and
+     * each gets its own browser context, with separate cookies and storage. With {@code browser.daemon=true}
+     * a warm Chrome of a running {@link BrowserDaemon} is used when one is free.
+     *
+     * @param browserName browser engine: {@code chrome}, which runs headless with {@code --headless=new},
+     *                    {@code chrome-headless-shell}, always headless, or {@code firefox}
+     * @param headless true to run without a window
+     * @return the driver
+     * @throws IllegalArgumentException if the engine is unknown
+     */
     public static WebDriver createDriver(String browserName, boolean headless) {
         WebDriver driver;
-        browserName = browserName.toLowerCase();
+        browserName = browserName.toLowerCase(Locale.ROOT);
         
         logger.info("Creating " + browserName + " driver" + (headless ? " in headless mode" : ""));
         
         switch (browserName) {
             case "chrome":
-                driver = createChromeDriver(headless);
+                driver = createChromeDriver(chromeOptions(headless), null);
+                break;
+            case "chrome-headless-shell":
+                driver = createChromeDriver(headlessShellOptions(), headlessShellBinary());
+                break;
+            case "firefox":
+                driver = createFirefoxDriver(headless);
                 break;
             default:
-                logger.warning("Unknown browser: " + browserName + ". Defaulting to Chrome.");
-                driver = createChromeDriver(headless);
+                throw new IllegalArgumentException("Unknown browser: " + browserName + ", use one of "
+                        + BrowserConfig.ENGINES);
         }
         
         driver.manage().window().maximize();
+        HttpArchives.attach(driver);
         return driver;
     }
     
-    private static WebDriver createChromeDriver(boolean headless) {
-        WebDriverManager.chromedriver().setup();
+    /**
+     * @param binary the Chrome binary of the options, or null for the Chrome installed on the machine
+     */
+    private static WebDriver createChromeDriver(ChromeOptions options, String binary) {
+        if (ConfigManager.get().getBrowser().getIsolation() == BrowserConfig.Isolation.CONTEXT) {
+            return getSharedBrowser(options, binary).newContext();
+        }
+        
+        TestConfig config = ConfigManager.get();
+        if (config.getDaemon().isEnabled()) {
+            WebDriver driver = BrowserDaemon.attach(config.getDaemon().getDirectory(), options, config.getAppUrl());
+            if (driver != null) {
+                return driver;
+            }
+        }
+        
+        setupChromeDriver(binary);
+        return new ChromeDriver(options);
+    }
+    
+    private static void setupChromeDriver(String binary) {
+        if (binary != null) {
+            // The driver has to match the binary, which is not the Chrome installed on the machine
+            WebDriverManager.chromedriver().browserVersionDetectionCommand(binary + " --version").setup();
+        } else {
+            WebDriverManager.chromedriver().setup();
+        }
+    }
+    
+    private static WebDriver createFirefoxDriver(boolean headless) {
+        TestConfig config = ConfigManager.get();
+        if (config.getBrowser().getIsolation() == BrowserConfig.Isolation.CONTEXT || config.getDaemon().isEnabled()) {
+            logger.warning("Browser contexts and the browser daemon need Chrome, Firefox runs in its own process");
+        }
         
+        WebDriverManager.firefoxdriver().setup();
+        return new FirefoxDriver(firefoxOptions(headless));
+    }
+    
+    /**
+     * Close the shared browser of {@code browser.isolation=context}, if one was started, and print
+     * how many contexts ran at once and what each cost
+     */
+    public static synchronized void closeSharedBrowser() {
+        if (sharedBrowser != null) {
+            sharedBrowser.printReport(System.out);
+            sharedBrowser.close();
+            sharedBrowser = null;
+        }
+    }
+    
+    /**
+     * Build the Chrome options of the configuration
+     *
+     * @param headless true to run without a window, in Chrome's new headless mode
+     * @return the options
+     */
+    public static ChromeOptions chromeOptions(boolean headless) {
         ChromeOptions options = new ChromeOptions();
-        options.addArguments("--disable-notifications");
+        options.addArguments(CHROME_ARGUMENTS);
+        options.addArguments(ConfigManager.get().getBrowser().getArguments());
+        
+        // Keeps the browser console available to failure artifacts
+        LoggingPreferences logging = new LoggingPreferences();
+        logging.enable(LogType.BROWSER, Level.ALL);
+        options.setCapability(ChromeOptions.LOGGING_PREFS, logging);
         
         if (headless) {
-            options.addArguments("--headless");
+            // The new mode is the full browser without a window; the old one is now chrome-headless-shell
+            options.addArguments("--headless=new");
         }
         
-        return new ChromeDriver(options);
+        if (ConfigManager.get().getBrowser().getTransport() == BrowserConfig.Transport.BIDI) {
+            // Asks the driver for a WebDriver BiDi WebSocket next to the classic HTTP endpoint
+            options.setCapability("webSocketUrl", true);
+        }
+        
+        return options;
+    }
+    
+    /**
+     * Build the options of {@code chrome-headless-shell}, the old headless Chrome shipped on its own: no
+     * browser UI code at all, so it starts fastest and uses the least memory, but renders like Chrome
+     *
+     * @return the options
+     * @throws IllegalStateException if the shell is not configured and not on the {@code PATH}
+     */
+    public static ChromeOptions headlessShellOptions() {
+        ChromeOptions options = chromeOptions(false);
+        options.setBinary(headlessShellBinary());
+        return options;
+    }
+    
+    /**
+     * Build the Firefox options of the configuration
+     *
+     * @param headless true to run without a window
+     * @return the options
+     */
+    public static FirefoxOptions firefoxOptions(boolean headless) {
+        FirefoxOptions options = new FirefoxOptions();
+        String binary = ConfigManager.get().getBrowser().getFirefoxBinary();
+        if (!binary.isEmpty()) {
+            options.setBinary(binary);
+        }
+        for (Map.Entry<String, Object> preference : FIREFOX_PREFERENCES.entrySet()) {
+            options.addPreference(preference.getKey(), preference.getValue());
+        }
+        
+        if (headless) {
+            options.addArguments("-headless");
+        }
+        
+        if (ConfigManager.get().getBrowser().getTransport() == BrowserConfig.Transport.BIDI) {
+            options.setCapability("webSocketUrl", true);
+        }
+        
+        return options;
+    }
+    
+    private static String headlessShellBinary() {
+        String configured = ConfigManager.get().getBrowser().getHeadlessShellBinary();
+        if (!configured.isEmpty()) {
+            return configured;
+        }
+        
+        String path = System.getenv("PATH");
+        if (path != null) {
+            for (String directory : path.split(File.pathSeparator)) {
+                for (String name : new String[] {"chrome-headless-shell", "chrome-headless-shell.exe"}) {
+                    File candidate = new File(directory, name);
+                    if (candidate.isFile() && candidate.canExecute()) {
+                        return candidate.getAbsolutePath();
+                    }
+                }
+            }
+        }
+        throw new IllegalStateException("chrome-headless-shell is not on the PATH; set browser.headlessShellBinary, "
+                + "e.g. to the one installed by: npx @puppeteer/browsers install chrome-headless-shell@stable");
+    }
+    
+    private static synchronized SharedBrowser getSharedBrowser(ChromeOptions options, String binary) {
+        if (sharedBrowser == null) {
+            setupChromeDriver(binary);
+            sharedBrowser = new SharedBrowser(options);
+        }
+        return sharedBrowser;
     }
   
 }
\ No newline at end of file
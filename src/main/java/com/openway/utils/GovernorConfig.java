@@ -0,0 +1,100 @@
+package com.openway.utils;
+
+import java.util.Map;
+
+/**
+ * Adaptive limit on concurrent browser sessions, the {@code governor.*} settings of a {@link TestConfig}
+ */
+public final class GovernorConfig {
+    private final boolean enabled;
+    private final int minSessions;
+    private final int initialSessions;
+    private final int maxSessions;
+    private final long intervalMillis;
+    private final double cpuHigh;
+    private final long minFreeBytes;
+    private final double latencyRatio;
+    private final double backoff;
+
+    GovernorConfig(ConfigValues values) {
+        enabled = values.bool("governor.enabled");
+        minSessions = (int) values.number("governor.minSessions", 1);
+        initialSessions = (int) values.number("governor.initialSessions", 1);
+        maxSessions = (int) values.number("governor.maxSessions", 1);
+        intervalMillis = values.number("governor.intervalMs", 100);
+        cpuHigh = values.decimal("governor.cpuHigh", 0.01, 1.0);
+        minFreeBytes = values.number("governor.minFreeMb", 0) << 20;
+        latencyRatio = values.decimal("governor.latencyRatio", 1.0, 100.0);
+        backoff = values.decimal("governor.backoff", 0.01, 0.99);
+        if (minSessions > initialSessions || initialSessions > maxSessions) {
+            values.problem("governor sessions must satisfy minSessions <= initialSessions <= maxSessions: "
+                    + minSessions + ", " + initialSessions + ", " + maxSessions);
+        }
+    }
+
+    static void defaults(Map<String, String> defaults) {
+        defaults.put("governor.enabled", "false");
+        defaults.put("governor.minSessions", "1");
+        defaults.put("governor.initialSessions", "2");
+        defaults.put("governor.maxSessions", Integer.toString(Math.max(2, Runtime.getRuntime().availableProcessors())));
+        defaults.put("governor.intervalMs", "5000");
+        defaults.put("governor.cpuHigh", "0.85");
+        defaults.put("governor.minFreeMb", "1024");
+        defaults.put("governor.latencyRatio", "2.0");
+        defaults.put("governor.backoff", "0.5");
+    }
+
+    /**
+     * @return true to adapt the number of concurrent browser sessions to the load of the host
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getMinSessions() {
+        return minSessions;
+    }
+
+    public int getInitialSessions() {
+        return initialSessions;
+    }
+
+    public int getMaxSessions() {
+        return maxSessions;
+    }
+
+    /**
+     * @return how often the governor samples the host and adjusts the limit, {@code governor.intervalMs}
+     */
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    /**
+     * @return host CPU load, between 0 and 1, from which the governor backs off
+     */
+    public double getCpuHigh() {
+        return cpuHigh;
+    }
+
+    /**
+     * @return available memory below which the governor backs off, {@code governor.minFreeMb}
+     */
+    public long getMinFreeBytes() {
+        return minFreeBytes;
+    }
+
+    /**
+     * @return how many times slower than usual page-object steps may get before the governor backs off
+     */
+    public double getLatencyRatio() {
+        return latencyRatio;
+    }
+
+    /**
+     * @return factor the session limit is multiplied with when backing off, {@code governor.backoff}
+     */
+    public double getBackoff() {
+        return backoff;
+    }
+}
@@ -0,0 +1,76 @@
+package com.openway.utils;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Test impact analysis, the {@code impact.*} settings of a {@link TestConfig}
+ */
+public final class ImpactConfig {
+    private final boolean record;
+    private final File map;
+    private final boolean select;
+    private final String since;
+    private final boolean fullSuiteFallback;
+    private final List<String> ignore;
+
+    ImpactConfig(ConfigValues values) {
+        record = values.bool("impact.record");
+        map = values.file("impact.map");
+        select = values.bool("impact.select");
+        since = values.string("impact.since").trim();
+        fullSuiteFallback = values.bool("impact.fullSuiteFallback");
+        ignore = values.list("impact.ignore");
+    }
+
+    static void defaults(Map<String, String> defaults) {
+        defaults.put("impact.record", "true");
+        defaults.put("impact.map", System.getProperty("user.home") + File.separator + ".periplus-test"
+                + File.separator + "test-impact.tsv");
+        defaults.put("impact.select", "false");
+        defaults.put("impact.since", "");
+        defaults.put("impact.fullSuiteFallback", "true");
+        defaults.put("impact.ignore", "*.md,**/*.md,src/jmh/**,src/main/java/com/openway/load/**");
+    }
+
+    /**
+     * @return true to record which page-object methods each test calls, {@code impact.record}
+     */
+    public boolean isRecord() {
+        return record;
+    }
+
+    public File getMap() {
+        return map;
+    }
+
+    /**
+     * @return true to run only the tests affected by changes since {@link #getSince()}
+     */
+    public boolean isSelect() {
+        return select;
+    }
+
+    /**
+     * @return git revision to compare the working tree with, empty for the commit the impact map was
+     *         recorded at
+     */
+    public String getSince() {
+        return since;
+    }
+
+    /**
+     * @return true to run the whole suite when a changed file cannot be mapped to tests
+     */
+    public boolean isFullSuiteFallback() {
+        return fullSuiteFallback;
+    }
+
+    /**
+     * @return glob patterns of files that cannot affect any test, from the comma separated {@code impact.ignore}
+     */
+    public List<String> getIgnore() {
+        return ignore;
+    }
+}
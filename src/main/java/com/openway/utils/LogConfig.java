@@ -0,0 +1,52 @@
+package com.openway.utils;
+
+import java.util.Map;
+import java.util.logging.Level;
+
+/**
+ * Logging of the framework, the {@code log.*} settings of a {@link TestConfig}
+ */
+public final class LogConfig {
+    private final Level level;
+    private final boolean async;
+    private final int asyncCapacity;
+    private final AsyncLogHandler.OverflowPolicy overflowPolicy;
+    private final long flushMillis;
+
+    LogConfig(ConfigValues values) {
+        level = values.level("log.level");
+        async = values.bool("log.async");
+        asyncCapacity = (int) values.number("log.async.capacity", 2);
+        overflowPolicy = values.choice("log.async.overflow", AsyncLogHandler.OverflowPolicy.class,
+                AsyncLogHandler.OverflowPolicy.BLOCK);
+        flushMillis = values.number("log.async.flushMs", 1);
+    }
+
+    static void defaults(Map<String, String> defaults) {
+        defaults.put("log.level", "INFO");
+        defaults.put("log.async", "true");
+        defaults.put("log.async.capacity", "8192");
+        defaults.put("log.async.overflow", "block");
+        defaults.put("log.async.flushMs", "100");
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    public int getAsyncCapacity() {
+        return asyncCapacity;
+    }
+
+    public AsyncLogHandler.OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public long getFlushMillis() {
+        return flushMillis;
+    }
+}
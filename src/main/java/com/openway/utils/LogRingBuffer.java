@@ -0,0 +1,112 @@
+package com.openway.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free queue for many producers and a single consumer.
+ * <p>
+ * Every slot carries a sequence number: a producer claims a position with one compare-and-set on the
+ * tail and publishes the element by advancing the slot's sequence; the consumer takes the element once
+ * the sequence says it is published and hands the slot back for the next lap. Producers never wait for
+ * each other, and a full buffer is reported to the caller instead of blocking.
+ *
+ * @param <E> element type
+ */
+class LogRingBuffer<E> {
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    /**
+     * Constructor
+     *
+     * @param capacity minimum capacity, rounded up to a power of two
+     */
+    LogRingBuffer(int capacity) {
+        if (capacity < 2 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity must be between 2 and 2^30: " + capacity);
+        }
+        this.capacity = Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.elements = new AtomicReferenceArray<>(this.capacity);
+        this.sequences = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Add an element, from any thread
+     *
+     * @param element the element
+     * @return false if the buffer is full
+     */
+    boolean offer(E element) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements.lazySet(index, element);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                // The consumer has not freed this slot since the previous lap
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Take the oldest element, from the consumer thread only
+     *
+     * @return the element, or null if the buffer is empty
+     */
+    E poll() {
+        long position = head;
+        int index = (int) (position & mask);
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        E element = elements.get(index);
+        elements.lazySet(index, null);
+        sequences.set(index, position + capacity);
+        head = position + 1;
+        return element;
+    }
+
+    /**
+     * @return number of elements taken by the consumer so far
+     */
+    long consumed() {
+        return head;
+    }
+
+    /**
+     * @return number of positions claimed by producers so far
+     */
+    long claimed() {
+        return tail.get();
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return approximate number of elements in the buffer
+     */
+    int size() {
+        return (int) Math.max(0, Math.min(capacity, tail.get() - head));
+    }
+}
@@ -1,8 +1,6 @@
 package com.openway.utils;
 
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.util.Properties;
 import java.util.logging.ConsoleHandler;
 import java.util.logging.FileHandler;
 import java.util.logging.Level;
@@ -10,22 +8,33 @@ import java.util.logging.Logger;
 import java.util.logging.SimpleFormatter;
 
 /**
- * Utility class for setting up logging for test execution
+ * Utility class for setting up logging for test execution.
+ * <p>
+ * By default records are written by an {@link AsyncLogHandler}, so logging never blocks a test on
+ * the console or the disk. Settings, read from the {@link TestConfig} of the run:
+ * <ul>
+ *     <li>{@code log.level} default INFO</li>
+ *     <li>{@code log.async} false to write synchronously with a console and a file handler, default true</li>
+ *     <li>{@code log.async.capacity} number of records the buffer holds, default 8192</li>
+ *     <li>{@code log.async.overflow} block, drop or drop_below_warning when the buffer is full, default block</li>
+ *     <li>{@code log.async.flushMs} how often queued records are written, default 100</li>
+ * </ul>
  */
 public class LoggerUtil {
     private static final String LOG_FILE_PATH = "target/logs/test-execution.log";
     private static boolean isInitialized = false;
     
     /**
-     * Initialize logger with console and file handlers
+     * Initialize logger writing to the console and the log file
      */
-    public static void initLogger() {
+    public static synchronized void initLogger() {
         if (isInitialized) {
             return;
         }
         
         try {
-            Level logLevel = getLogLevel();
+            TestConfig config = ConfigManager.get();
+            Level logLevel = config.getLog().getLevel();
             
             Logger rootLogger = Logger.getLogger("");
             rootLogger.setLevel(logLevel);
@@ -34,55 +43,37 @@ public class LoggerUtil {
                 rootLogger.removeHandler(handler);
             }
             
-            ConsoleHandler consoleHandler = new ConsoleHandler();
-            consoleHandler.setLevel(logLevel);
-            rootLogger.addHandler(consoleHandler);
-            
             java.io.File logDir = new java.io.File("target/logs");
             if (!logDir.exists()) {
                 logDir.mkdirs();
             }
             
-            FileHandler fileHandler = new FileHandler(LOG_FILE_PATH, true);
-            fileHandler.setLevel(logLevel);
-            fileHandler.setFormatter(new SimpleFormatter());
-            rootLogger.addHandler(fileHandler);
+            boolean async = config.getLog().isAsync();
+            if (async) {
+                AsyncLogHandler asyncHandler = new AsyncLogHandler(new java.io.File(LOG_FILE_PATH), true,
+                        config.getLog().getAsyncCapacity(), config.getLog().getOverflowPolicy(),
+                        config.getLog().getFlushMillis());
+                asyncHandler.setLevel(logLevel);
+                rootLogger.addHandler(asyncHandler);
+            } else {
+                ConsoleHandler consoleHandler = new ConsoleHandler();
+                consoleHandler.setLevel(logLevel);
+                rootLogger.addHandler(consoleHandler);
+                
+                FileHandler fileHandler = new FileHandler(LOG_FILE_PATH, true);
+                fileHandler.setLevel(logLevel);
+                fileHandler.setFormatter(new SimpleFormatter());
+                rootLogger.addHandler(fileHandler);
+            }
             
             isInitialized = true;
             
             Logger logger = Logger.getLogger(LoggerUtil.class.getName());
-            logger.info("Logger initialized with level: " + logLevel.getName());
+            logger.info(() -> "Logger initialized with level: " + logLevel.getName() + (async ? ", asynchronous" : ""));
             
         } catch (IOException e) {
             System.err.println("Failed to initialize logger: " + e.getMessage());
             e.printStackTrace();
         }
     }
-    
-    /**
-     * Get log level from properties file or default to INFO
-     * 
-     * @return logging level
-     */
-    private static Level getLogLevel() {
-        String logLevelStr = "INFO"; 
-        
-        try {
-            Properties properties = new Properties();
-            FileInputStream input = new FileInputStream("src/test/resources/config.properties");
-            properties.load(input);
-            
-            logLevelStr = properties.getProperty("log.level", "INFO").toUpperCase();
-            input.close();
-        } catch (IOException e) {
-            System.out.println("Could not load log level from properties, using default: " + logLevelStr);
-        }
-        
-        try {
-            return Level.parse(logLevelStr);
-        } catch (IllegalArgumentException e) {
-            System.out.println("Invalid log level: " + logLevelStr + ", using INFO");
-            return Level.INFO;
-        }
-    }
 }
\ No newline at end of file
@@ -0,0 +1,66 @@
+package com.openway.utils;
+
+import java.io.File;
+import java.util.Map;
+
+/**
+ * Run history and regression detection, the {@code perf.*} settings of a {@link TestConfig}
+ */
+public final class PerfConfig {
+    private final boolean historyEnabled;
+    private final File history;
+    private final int baselineRuns;
+    private final double alpha;
+    private final double minSlowdown;
+
+    PerfConfig(ConfigValues values) {
+        historyEnabled = !"off".equalsIgnoreCase(values.string("perf.history").trim());
+        history = values.file("perf.history");
+        baselineRuns = (int) values.number("perf.baselineRuns", 1);
+        alpha = values.decimal("perf.alpha", 0, 1);
+        minSlowdown = values.decimal("perf.minSlowdown", 0, Double.MAX_VALUE);
+    }
+
+    static void defaults(Map<String, String> defaults) {
+        defaults.put("perf.history", System.getProperty("user.home") + File.separator + ".periplus-test"
+                + File.separator + "perf-history.tsv");
+        defaults.put("perf.baselineRuns", "10");
+        defaults.put("perf.alpha", "0.01");
+        defaults.put("perf.minSlowdown", "0.10");
+    }
+
+    /**
+     * @return false with {@code perf.history=off}, to keep no run history
+     */
+    public boolean isHistoryEnabled() {
+        return historyEnabled;
+    }
+
+    /**
+     * @return the run history file, {@code perf.history}
+     */
+    public File getHistory() {
+        return history;
+    }
+
+    /**
+     * @return number of previous runs a run is compared with, {@code perf.baselineRuns}
+     */
+    public int getBaselineRuns() {
+        return baselineRuns;
+    }
+
+    /**
+     * @return p-value below which a slowdown is significant, {@code perf.alpha}
+     */
+    public double getAlpha() {
+        return alpha;
+    }
+
+    /**
+     * @return smallest relative growth of a median that counts as a slowdown, {@code perf.minSlowdown}
+     */
+    public double getMinSlowdown() {
+        return minSlowdown;
+    }
+}
@@ -0,0 +1,47 @@
+package com.openway.utils;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Time-budgeted test selection, the {@code schedule.*} settings of a {@link TestConfig}
+ */
+public final class ScheduleConfig {
+    private final Duration timeBudget;
+    private final int historyRuns;
+    private final double overheadSeconds;
+
+    ScheduleConfig(ConfigValues values) {
+        timeBudget = values.duration("schedule.timeBudget");
+        historyRuns = (int) values.number("schedule.historyRuns", 1);
+        overheadSeconds = values.decimal("schedule.overheadSeconds", 0, 3600);
+    }
+
+    static void defaults(Map<String, String> defaults) {
+        defaults.put("schedule.timeBudget", "");
+        defaults.put("schedule.historyRuns", "20");
+        defaults.put("schedule.overheadSeconds", "5");
+    }
+
+    /**
+     * @return wall-clock budget of the suite, from {@code schedule.timeBudget} such as {@code 15m}, {@code 90s}
+     *         or {@code 1h}; zero for no budget
+     */
+    public Duration getTimeBudget() {
+        return timeBudget;
+    }
+
+    /**
+     * @return recent runs of the performance history that estimate failure probability and duration
+     */
+    public int getHistoryRuns() {
+        return historyRuns;
+    }
+
+    /**
+     * @return seconds of setup and cleanup added to the measured duration of every test invocation
+     */
+    public double getOverheadSeconds() {
+        return overheadSeconds;
+    }
+}
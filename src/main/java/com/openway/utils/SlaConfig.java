@@ -0,0 +1,37 @@
+package com.openway.utils;
+
+import java.util.Map;
+
+/**
+ * Latency budgets of page-object methods, the {@code sla.*} settings of a {@link TestConfig}
+ */
+public final class SlaConfig {
+    /**
+     * What to do when a page-object method exceeds its latency budget, {@code sla.mode}
+     */
+    public enum Mode {
+        /** Budgets are not checked; calls are still timed for the latency summary and the run history */
+        OFF,
+        /** Calls over budget are logged */
+        WARN,
+        /** Calls over budget are logged and fail the test during which they ran */
+        FAIL
+    }
+
+    private final Mode mode;
+
+    SlaConfig(ConfigValues values) {
+        mode = values.choice("sla.mode", Mode.class, Mode.WARN);
+    }
+
+    static void defaults(Map<String, String> defaults) {
+        defaults.put("sla.mode", "warn");
+    }
+
+    /**
+     * @return what to do when a page-object method exceeds its {@code @MaxDuration} budget
+     */
+    public Mode getMode() {
+        return mode;
+    }
+}
@@ -0,0 +1,131 @@
+package com.openway.utils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Soak runs that repeat tests to find leaks, the {@code soak.*} settings of a {@link TestConfig}
+ */
+public final class SoakConfig {
+    private final List<String> tests;
+    private final int iterations;
+    private final Duration duration;
+    private final int sampleEvery;
+    private final int warmupIterations;
+    private final double jsHeapSlopeKb;
+    private final double domNodeSlope;
+    private final double listenerSlope;
+    private final double chromeSlopeKb;
+    private final double jvmHeapSlopeKb;
+    private final boolean failOnLeak;
+
+    SoakConfig(ConfigValues values) {
+        tests = values.list("soak.tests");
+        iterations = (int) values.number("soak.iterations", 0);
+        duration = Duration.ofMinutes(values.number("soak.durationMinutes", 0));
+        sampleEvery = (int) values.number("soak.sampleEvery", 1);
+        warmupIterations = (int) values.number("soak.warmupIterations", 0);
+        jsHeapSlopeKb = values.decimal("soak.jsHeapSlopeKb", 0, Double.MAX_VALUE);
+        domNodeSlope = values.decimal("soak.domNodeSlope", 0, Double.MAX_VALUE);
+        listenerSlope = values.decimal("soak.listenerSlope", 0, Double.MAX_VALUE);
+        chromeSlopeKb = values.decimal("soak.chromeSlopeKb", 0, Double.MAX_VALUE);
+        jvmHeapSlopeKb = values.decimal("soak.jvmHeapSlopeKb", 0, Double.MAX_VALUE);
+        failOnLeak = values.bool("soak.failOnLeak");
+        if (!tests.isEmpty() && iterations == 0 && duration.isZero()) {
+            values.problem("soak.iterations or soak.durationMinutes must be set to soak " + tests);
+        }
+    }
+
+    static void defaults(Map<String, String> defaults) {
+        defaults.put("soak.tests", "");
+        defaults.put("soak.iterations", "100");
+        defaults.put("soak.durationMinutes", "0");
+        defaults.put("soak.sampleEvery", "1");
+        defaults.put("soak.warmupIterations", "5");
+        defaults.put("soak.jsHeapSlopeKb", "32");
+        defaults.put("soak.domNodeSlope", "1");
+        defaults.put("soak.listenerSlope", "0.5");
+        defaults.put("soak.chromeSlopeKb", "256");
+        defaults.put("soak.jvmHeapSlopeKb", "64");
+        defaults.put("soak.failOnLeak", "true");
+    }
+
+    /**
+     * @return test methods to repeat in a soak run, from the comma separated {@code soak.tests}; {@code *} for
+     *         every test, empty for no soak run
+     */
+    public List<String> getTests() {
+        return tests;
+    }
+
+    /**
+     * @return times to run each soaked test, 0 to run it until {@link #getDuration()} is over
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * @return how long to run each soaked test, zero to stop only after {@link #getIterations()}
+     */
+    public Duration getDuration() {
+        return duration;
+    }
+
+    /**
+     * @return iterations between two memory samples of a soak run
+     */
+    public int getSampleEvery() {
+        return sampleEvery;
+    }
+
+    /**
+     * @return first iterations of a soak run left out of the growth trends, while caches fill
+     */
+    public int getWarmupIterations() {
+        return warmupIterations;
+    }
+
+    /**
+     * @return growth of the page's JS heap per iteration above which it leaks, in kilobytes
+     */
+    public double getJsHeapSlopeKb() {
+        return jsHeapSlopeKb;
+    }
+
+    /**
+     * @return growth of the page's DOM node count per iteration above which it leaks
+     */
+    public double getDomNodeSlope() {
+        return domNodeSlope;
+    }
+
+    /**
+     * @return growth of the page's event listener count per iteration above which it leaks
+     */
+    public double getListenerSlope() {
+        return listenerSlope;
+    }
+
+    /**
+     * @return growth of the browser processes' memory per iteration above which it leaks, in kilobytes
+     */
+    public double getChromeSlopeKb() {
+        return chromeSlopeKb;
+    }
+
+    /**
+     * @return growth of the JVM heap per iteration above which it leaks, in kilobytes
+     */
+    public double getJvmHeapSlopeKb() {
+        return jvmHeapSlopeKb;
+    }
+
+    /**
+     * @return true to fail a soaked test when a leak is found, false to only report it
+     */
+    public boolean isFailOnLeak() {
+        return failOnLeak;
+    }
+}
@@ -0,0 +1,50 @@
+package com.openway.utils;
+
+import java.util.Map;
+
+/**
+ * The local stand-in storefront, the {@code standin.*} settings of a {@link TestConfig}
+ */
+public final class StandInConfig {
+    private final boolean enabled;
+    private final int catalogSize;
+    private final long latencyMillis;
+    private final long jitterMillis;
+    private final int port;
+
+    StandInConfig(ConfigValues values) {
+        enabled = values.bool("standin.enabled");
+        catalogSize = (int) values.number("standin.catalogSize", 1);
+        latencyMillis = values.number("standin.latencyMs", 0);
+        jitterMillis = values.number("standin.jitterMs", 0);
+        port = (int) values.number("standin.port", 0);
+    }
+
+    static void defaults(Map<String, String> defaults) {
+        defaults.put("standin.enabled", "false");
+        defaults.put("standin.catalogSize", "10000");
+        defaults.put("standin.latencyMs", "0");
+        defaults.put("standin.jitterMs", "0");
+        defaults.put("standin.port", "0");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getCatalogSize() {
+        return catalogSize;
+    }
+
+    public long getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    public long getJitterMillis() {
+        return jitterMillis;
+    }
+
+    public int getPort() {
+        return port;
+    }
+}
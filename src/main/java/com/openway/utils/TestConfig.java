@@ -0,0 +1,378 @@
+package com.openway.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Immutable, typed snapshot of the test configuration.
+ * <p>
+ * A snapshot is built once from these sources, each overriding the one before:
+ * <ol>
+ *     <li>built-in defaults</li>
+ *     <li>{@code config.properties} on the classpath</li>
+ *     <li>{@code config-<profile>.properties} on the classpath, where the profile is the
+ *     {@code config.profile} system property or {@code CONFIG_PROFILE} environment variable,
+ *     default {@code local}; the repository ships {@code ci} and {@code standin}</li>
+ *     <li>environment variables, either the key itself or its upper-case form, e.g. {@code TEST_EMAIL}</li>
+ *     <li>system properties</li>
+ * </ol>
+ * Values are parsed when the snapshot is built, so a malformed number fails the run at once instead
+ * of in the middle of a test. Since nothing changes after construction, a snapshot can be shared by
+ * any number of threads without locking; overrides produce a new snapshot with {@link #with}.
+ * <p>
+ * Each feature owns a section of the snapshot, e.g. {@link GovernorConfig} for the {@code governor.*}
+ * keys, with its own defaults, parsing and checks; this class keeps the settings every run needs.
+ */
+public final class TestConfig {
+    public static final String DEFAULT_PROFILE = "local";
+
+    private static final String BASE_RESOURCE = "config.properties";
+
+    private static final Map<String, String> DEFAULTS;
+
+    static {
+        Map<String, String> defaults = new HashMap<>();
+        defaults.put("app.url", "https://www.periplus.com/");
+        defaults.put("search.term", "Blockchains");
+        defaults.put("timeout.explicitWaitSeconds", "20");
+        BrowserConfig.defaults(defaults);
+        DaemonConfig.defaults(defaults);
+        DataConfig.defaults(defaults);
+        LogConfig.defaults(defaults);
+        StandInConfig.defaults(defaults);
+        ArtifactsConfig.defaults(defaults);
+        GovernorConfig.defaults(defaults);
+        ImpactConfig.defaults(defaults);
+        SoakConfig.defaults(defaults);
+        ScheduleConfig.defaults(defaults);
+        TraceConfig.defaults(defaults);
+        SlaConfig.defaults(defaults);
+        ArchiveConfig.defaults(defaults);
+        PerfConfig.defaults(defaults);
+        DEFAULTS = Collections.unmodifiableMap(defaults);
+    }
+
+    private final String profile;
+    private final Map<String, String> values;
+    private final String appUrl;
+    private final String testEmail;
+    private final String testPassword;
+    private final String searchTerm;
+    private final Duration explicitWait;
+    private final BrowserConfig browser;
+    private final DaemonConfig daemon;
+    private final DataConfig data;
+    private final LogConfig log;
+    private final StandInConfig standIn;
+    private final ArtifactsConfig artifacts;
+    private final GovernorConfig governor;
+    private final ImpactConfig impact;
+    private final SoakConfig soak;
+    private final ScheduleConfig schedule;
+    private final TraceConfig trace;
+    private final SlaConfig sla;
+    private final ArchiveConfig archive;
+    private final PerfConfig perf;
+
+    private TestConfig(String profile, Map<String, String> values) {
+        this.profile = profile;
+        this.values = Collections.unmodifiableMap(new TreeMap<>(values));
+
+        ConfigValues parsed = new ConfigValues(this.values);
+        appUrl = parsed.string("app.url");
+        testEmail = parsed.string("test.email");
+        testPassword = parsed.string("test.password");
+        searchTerm = parsed.string("search.term");
+        explicitWait = Duration.ofSeconds(parsed.number("timeout.explicitWaitSeconds", 1));
+        browser = new BrowserConfig(parsed);
+        daemon = new DaemonConfig(parsed);
+        data = new DataConfig(parsed);
+        log = new LogConfig(parsed);
+        standIn = new StandInConfig(parsed);
+        artifacts = new ArtifactsConfig(parsed);
+        governor = new GovernorConfig(parsed);
+        impact = new ImpactConfig(parsed);
+        soak = new SoakConfig(parsed);
+        schedule = new ScheduleConfig(parsed);
+        trace = new TraceConfig(parsed);
+        sla = new SlaConfig(parsed);
+        archive = new ArchiveConfig(parsed);
+        perf = new PerfConfig(parsed);
+
+        List<String> problems = parsed.getProblems();
+        if (!problems.isEmpty()) {
+            throw new IllegalStateException("Invalid configuration (profile " + profile + "): "
+                    + String.join("; ", problems));
+        }
+    }
+
+
+    /**
+     * Load the configuration of the profile selected by {@code config.profile}
+     *
+     * @return the snapshot
+     * @throws IllegalStateException if the profile does not exist or a value cannot be parsed
+     */
+    public static TestConfig load() {
+        Map<String, String> environment = System.getenv();
+        String profile = System.getProperty("config.profile", environment.getOrDefault("CONFIG_PROFILE", DEFAULT_PROFILE));
+        return load(profile, System.getProperties(), environment);
+    }
+
+    /**
+     * Load the configuration of a profile
+     *
+     * @param profile profile name, e.g. {@code ci}
+     * @param systemProperties highest-precedence overrides
+     * @param environment environment variables
+     * @return the snapshot
+     * @throws IllegalStateException if the profile does not exist or a value cannot be parsed
+     */
+    public static TestConfig load(String profile, Properties systemProperties, Map<String, String> environment) {
+        Map<String, String> values = new HashMap<>(DEFAULTS);
+        readResource(BASE_RESOURCE, values);
+        if (!readResource("config-" + profile + ".properties", values) && !DEFAULT_PROFILE.equals(profile)) {
+            throw new IllegalStateException("Unknown configuration profile: " + profile
+                    + ", no config-" + profile + ".properties on the classpath");
+        }
+
+        // Credentials have no default, so they are looked up even when no file mentions them
+        Set<String> keys = new HashSet<>(values.keySet());
+        keys.addAll(Arrays.asList("test.email", "test.password"));
+        for (String key : keys) {
+            String value = environment.get(key);
+            if (value == null) {
+                value = environment.get(key.toUpperCase(Locale.ROOT).replace('.', '_'));
+            }
+            if (value != null) {
+                values.put(key, value);
+            }
+        }
+        for (String key : systemProperties.stringPropertyNames()) {
+            values.put(key, systemProperties.getProperty(key));
+        }
+        return new TestConfig(profile, values);
+    }
+
+    /**
+     * Check that everything a test run needs is present
+     *
+     * @return this snapshot for method chaining
+     * @throws IllegalStateException listing every problem found
+     */
+    public TestConfig validate() {
+        List<String> problems = new ArrayList<>();
+        if (!standIn.isEnabled()) {
+            try {
+                URI uri = new URI(appUrl);
+                if (!"http".equals(uri.getScheme()) && !"https".equals(uri.getScheme()) || uri.getHost() == null) {
+                    problems.add("app.url must be an absolute http(s) URL: " + appUrl);
+                }
+            } catch (URISyntaxException e) {
+                problems.add("app.url is not a valid URL: " + appUrl);
+            }
+        }
+        if (isBlank(testEmail)) {
+            problems.add("test.email is not set");
+        }
+        if (isBlank(testPassword)) {
+            problems.add("test.password is not set");
+        }
+        if (!BrowserConfig.ENGINES.contains(browser.getName())) {
+            problems.add("browser.name " + browser.getName() + " is not supported, use one of "
+                    + BrowserConfig.ENGINES);
+        }
+
+        if (!problems.isEmpty()) {
+            throw new IllegalStateException("Invalid configuration (profile " + profile + "): "
+                    + String.join("; ", problems));
+        }
+        return this;
+    }
+
+    /**
+     * Create a snapshot with one value replaced, e.g. a URL only known at runtime
+     *
+     * @param key the property key
+     * @param value the new value
+     * @return the new snapshot; this one is unchanged
+     */
+    public TestConfig with(String key, String value) {
+        Map<String, String> changed = new HashMap<>(values);
+        changed.put(key, value);
+        return new TestConfig(profile, changed);
+    }
+
+    /**
+     * Get a raw value, e.g. for settings without a typed getter
+     *
+     * @param key the property key
+     * @return the value, or null if it is not set
+     */
+    public String get(String key) {
+        return values.get(key);
+    }
+
+    public String getProfile() {
+        return profile;
+    }
+
+    public String getAppUrl() {
+        return appUrl;
+    }
+
+    public String getTestEmail() {
+        return testEmail;
+    }
+
+    public String getTestPassword() {
+        return testPassword;
+    }
+
+    public String getSearchTerm() {
+        return searchTerm;
+    }
+
+    /**
+     * @return how long page objects wait for elements, {@code timeout.explicitWaitSeconds}
+     */
+    public Duration getExplicitWait() {
+        return explicitWait;
+    }
+
+    /**
+     * @return settings of the browser engine and how drivers talk to it
+     */
+    public BrowserConfig getBrowser() {
+        return browser;
+    }
+
+    /**
+     * @return settings of the warm browsers of the browser daemon
+     */
+    public DaemonConfig getDaemon() {
+        return daemon;
+    }
+
+    /**
+     * @return settings of the test data of the data-driven tests
+     */
+    public DataConfig getData() {
+        return data;
+    }
+
+    /**
+     * @return settings of logging of the framework
+     */
+    public LogConfig getLog() {
+        return log;
+    }
+
+    /**
+     * @return settings of the local stand-in storefront
+     */
+    public StandInConfig getStandIn() {
+        return standIn;
+    }
+
+    /**
+     * @return settings of capture of failure artifacts
+     */
+    public ArtifactsConfig getArtifacts() {
+        return artifacts;
+    }
+
+    /**
+     * @return settings of the adaptive limit on concurrent browser sessions
+     */
+    public GovernorConfig getGovernor() {
+        return governor;
+    }
+
+    /**
+     * @return settings of test impact analysis
+     */
+    public ImpactConfig getImpact() {
+        return impact;
+    }
+
+    /**
+     * @return settings of soak runs
+     */
+    public SoakConfig getSoak() {
+        return soak;
+    }
+
+    /**
+     * @return settings of the time-budgeted test selection
+     */
+    public ScheduleConfig getSchedule() {
+        return schedule;
+    }
+
+    /**
+     * @return settings of timeline traces
+     */
+    public TraceConfig getTrace() {
+        return trace;
+    }
+
+    /**
+     * @return settings of latency budgets of page-object methods
+     */
+    public SlaConfig getSla() {
+        return sla;
+    }
+
+    /**
+     * @return settings of recording and replay of browser traffic
+     */
+    public ArchiveConfig getArchive() {
+        return archive;
+    }
+
+    /**
+     * @return settings of the run history and regression detection
+     */
+    public PerfConfig getPerf() {
+        return perf;
+    }
+
+    private static boolean readResource(String name, Map<String, String> values) {
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        if (loader == null) {
+            loader = TestConfig.class.getClassLoader();
+        }
+        try (InputStream input = loader.getResourceAsStream(name)) {
+            if (input == null) {
+                return false;
+            }
+            Properties properties = new Properties();
+            properties.load(input);
+            for (String key : properties.stringPropertyNames()) {
+                values.put(key, properties.getProperty(key).trim());
+            }
+            return true;
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read " + name + " from the classpath", e);
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+}
@@ -0,0 +1,46 @@
+package com.openway.utils;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Timeline traces of tests, the {@code trace.*} settings of a {@link TestConfig}
+ */
+public final class TraceConfig {
+    private final boolean enabled;
+    private final File directory;
+    private final List<String> categories;
+
+    TraceConfig(ConfigValues values) {
+        enabled = values.bool("trace.enabled");
+        directory = values.file("trace.dir");
+        categories = values.list("trace.categories");
+    }
+
+    static void defaults(Map<String, String> defaults) {
+        defaults.put("trace.enabled", "false");
+        defaults.put("trace.dir", "target/traces");
+        defaults.put("trace.categories", "devtools.timeline,disabled-by-default-devtools.timeline,loading,netlog,"
+                + "blink.user_timing,v8.execute");
+    }
+
+    /**
+     * @return true to write a timeline trace of every test, {@code trace.enabled}
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return browser trace categories, from the comma separated {@code trace.categories}; empty to trace
+     *         the framework only
+     */
+    public List<String> getCategories() {
+        return categories;
+    }
+}
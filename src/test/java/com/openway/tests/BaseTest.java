@@ -1,44 +1,262 @@
 package com.openway.tests;
 
+import com.openway.archive.HttpArchives;
+import com.openway.artifacts.FailureArtifacts;
 import com.openway.pages.HomePage;
+import com.openway.pages.Pages;
+import com.openway.perf.TimelineTrace;
+import com.openway.standin.Catalog;
+import com.openway.standin.StandInServer;
+import com.openway.utils.ArchiveConfig;
 import com.openway.utils.ConfigManager;
 import com.openway.utils.DriverFactory;
+import com.openway.utils.LoggerUtil;
+import com.openway.utils.StandInConfig;
+import com.openway.utils.TestConfig;
+import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.testng.ITestResult;
 import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.AfterSuite;
 import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Optional;
 import org.testng.annotations.Parameters;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.logging.Logger;
 
 public class BaseTest {
+    private static final String CART_STATE_SCRIPT =
+            "var rows = Array.prototype.map.call(document.querySelectorAll('.row-cart-product'), function (row) {"
+            + "  var quantity = row.querySelector('.row.qty input');"
+            + "  return {text: row.innerText.replace(/\\s+/g, ' ').trim(), quantity: quantity ? quantity.value : null};"
+            + "});"
+            + "var count = document.querySelector('.cart-icon .total-count');"
+            + "return {url: location.href, headerCount: count ? count.textContent.trim() : null, rows: rows};";
+    
+    private static StandInServer standIn;
+    
     protected WebDriver driver;
     protected HomePage homePage;
+    protected String baseUrl;
     protected final Logger logger = Logger.getLogger(this.getClass().getName());
     
+    private BrowserSessions sessions;
+    
+    /**
+     * Load and validate the configuration, start the stand-in if enabled and open the browser.
+     * The {@code browser} and {@code headless} suite parameters win over {@code browser.name} and
+     * {@code browser.headless} of the configuration.
+     *
+     * @param browser browser name, empty to use the configuration
+     * @param headless "true" or "false", empty to use the configuration
+     */
     @BeforeClass
     @Parameters({"browser", "headless"})
-    public void setUp(@Optional("chrome") String browser, @Optional("false") String headless) {
+    public void setUp(@Optional("") String browser, @Optional("") String headless) {
+        LoggerUtil.initLogger();
         logger.info("Setting up test environment");
         
         ConfigManager.init();
+        startStandIn();
+        TestConfig config = ConfigManager.get();
+        baseUrl = config.getAppUrl();
         
-        boolean isHeadless = Boolean.parseBoolean(headless);
-        driver = DriverFactory.createDriver(browser, isHeadless);
+        boolean isHeadless = headless.isEmpty() ? config.getBrowser().isHeadless() : Boolean.parseBoolean(headless);
+        String engine = browser.isEmpty() ? config.getBrowser().getName() : browser;
+        driver = DriverFactory.createDriver(engine, isHeadless);
+        HttpArchives.startScenario(driver, getClass().getSimpleName());
         
-        homePage = new HomePage(driver);
+        homePage = Pages.create(HomePage.class, driver);
+        sessions = new BrowserSessions(driver, homePage, engine, isHeadless);
         
         logger.info("Test environment setup complete");
     }
     
+    /**
+     * Start the local stand-in storefront once per run when {@code standin.enabled} is true, e.g. with
+     * the {@code standin} configuration profile, and point {@code app.url} at it. Options:
+     * <ul>
+     *     <li>{@code standin.catalogSize} number of synthetic products, default 10000</li>
+     *     <li>{@code standin.latencyMs} fixed delay per request, default 0</li>
+     *     <li>{@code standin.jitterMs} maximum random delay per request, default 0</li>
+     *     <li>{@code standin.port} port to listen on, default any free port</li>
+     * </ul>
+     */
+    private static synchronized void startStandIn() {
+        TestConfig config = ConfigManager.get();
+        if (standIn != null || !config.getStandIn().isEnabled()) {
+            return;
+        }
+        
+        try {
+            StandInConfig settings = config.getStandIn();
+            standIn = new StandInServer(Catalog.synthetic(settings.getCatalogSize(), 42), settings.getPort())
+                    .setLatency(settings.getLatencyMillis(), settings.getJitterMillis())
+                    .start();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to start stand-in storefront", e);
+        }
+        ConfigManager.setProperty("app.url", standIn.getBaseUrl());
+    }
+    
+    /**
+     * Switch the HTTP archive of the current thread's browser to the test about to run. Traffic of
+     * the test's own configuration methods and of class teardown after the last test belongs to
+     * the same scenario, so replays see requests in the order they were recorded.
+     *
+     * @param method the test method
+     * @param parameters data provider row of the invocation, if any
+     */
+    @BeforeMethod(alwaysRun = true)
+    public void startHttpArchiveScenario(Method method, Object[] parameters) {
+        if (HttpArchives.getMode() == ArchiveConfig.Mode.OFF) {
+            return;
+        }
+        
+        String scenario = getClass().getSimpleName() + "." + method.getName();
+        if (parameters.length > 0) {
+            scenario += Arrays.toString(parameters);
+        }
+        HttpArchives.startScenario(getDriver(), scenario);
+    }
+    
+    /**
+     * Start the timeline trace of the test about to run when {@code trace.enabled} is true. It covers the
+     * test's own configuration methods, its page-object calls and, through DevTools, its browser.
+     *
+     * @param method the test method
+     * @param parameters data provider row of the invocation, if any
+     */
+    @BeforeMethod(alwaysRun = true)
+    public void startTimelineTrace(Method method, Object[] parameters) {
+        TestConfig config = ConfigManager.get();
+        if (!config.getTrace().isEnabled()) {
+            return;
+        }
+        
+        String name = getClass().getSimpleName() + "." + method.getName();
+        if (parameters.length > 0) {
+            name += Arrays.toString(parameters);
+        }
+        TimelineTrace.start(name, getDriver(), config.getTrace().getCategories());
+    }
+    
+    /**
+     * Write the timeline trace of the test that just ran to {@code trace.dir}
+     *
+     * @param result the test's result
+     */
+    @AfterMethod(alwaysRun = true)
+    public void finishTimelineTrace(ITestResult result) {
+        String outcome = result.getStatus() == ITestResult.SUCCESS ? "success"
+                : result.getStatus() == ITestResult.FAILURE ? "failure" : "skipped";
+        TimelineTrace.finish(ConfigManager.get().getTrace().getDirectory(), outcome);
+    }
+    
+    /**
+     * Get the running stand-in storefront, e.g. to inject latency or inspect carts
+     *
+     * @return the stand-in, or null if the suite runs against the live site
+     */
+    protected static StandInServer getStandIn() {
+        return standIn;
+    }
+    
+    /**
+     * Get the driver of the current thread. Rows of a parallel data provider run on worker threads,
+     * each of which gets its own browser session on first use.
+     *
+     * @return WebDriver instance owned by the current thread
+     */
+    protected WebDriver getDriver() {
+        return sessions.getDriver();
+    }
+    
+    /**
+     * Get the home page bound to the driver of the current thread
+     *
+     * @return HomePage instance owned by the current thread
+     */
+    protected HomePage getHomePage() {
+        return sessions.getHomePage();
+    }
+    
+    /**
+     * Get the browser sessions of this class, e.g. for listeners that sample or close them
+     *
+     * @return the sessions, or null before {@code setUp} opened the browser
+     */
+    public BrowserSessions getBrowserSessions() {
+        return sessions;
+    }
+    
+    /**
+     * Capture screenshot, page source, browser console and cart state of a failed test. Called by
+     * {@code FailureArtifactListener} on the test's thread, before {@code @AfterMethod} cleanup
+     * changes the page; the files are written in the background by {@link FailureArtifacts}.
+     *
+     * @param result the failed test
+     */
+    public void captureFailureArtifacts(ITestResult result) {
+        WebDriver threadDriver = sessions == null ? null : sessions.getOpenDriver();
+        if (threadDriver == null) {
+            return;
+        }
+        
+        Map<String, Object> extras = new LinkedHashMap<>();
+        if (result.getThrowable() != null) {
+            extras.put("failure.txt", result.getThrowable());
+        }
+        if (result.getParameters().length > 0) {
+            extras.put("parameters.txt", Arrays.toString(result.getParameters()));
+        }
+        try {
+            extras.put("cart-state.json", ((JavascriptExecutor) threadDriver).executeScript(CART_STATE_SCRIPT));
+        } catch (WebDriverException e) {
+            logger.fine(() -> "Cannot read cart state: " + e.getMessage());
+        }
+        if (standIn != null) {
+            extras.put("standin-cart.json", standIn.getAccountCart(ConfigManager.get().getTestEmail()).getLines());
+        }
+        
+        String name = getClass().getSimpleName() + "." + result.getMethod().getMethodName();
+        if (!FailureArtifacts.capture(threadDriver, name, extras)) {
+            logger.warning("No failure artifacts captured for " + name);
+        }
+    }
+    
     @AfterClass
     public void tearDown() {
         logger.info("Tearing down test environment");
         
-        if (driver != null) {
-            driver.quit();
+        if (sessions != null) {
+            sessions.closeAll();
         }
         
         logger.info("Test environment cleanup complete");
     }
+    
+    @AfterSuite(alwaysRun = true)
+    public void closeSharedBrowser() {
+        DriverFactory.closeSharedBrowser();
+    }
+    
+    @AfterSuite(alwaysRun = true)
+    public void stopStandIn() {
+        synchronized (BaseTest.class) {
+            if (standIn != null) {
+                standIn.close();
+                standIn = null;
+            }
+        }
+    }
 }
\ No newline at end of file
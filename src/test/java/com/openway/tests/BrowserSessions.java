@@ -0,0 +1,125 @@
+package com.openway.tests;
+
+import com.openway.archive.HttpArchives;
+import com.openway.pages.HomePage;
+import com.openway.pages.Pages;
+import com.openway.utils.DriverFactory;
+import org.openqa.selenium.WebDriver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * The browser sessions of a test class: the one its {@code @BeforeClass} opened, used by every method
+ * running on that thread, and one per worker thread that runs rows of a parallel data provider, opened
+ * on first use.
+ */
+public class BrowserSessions {
+    private static final Logger logger = Logger.getLogger(BrowserSessions.class.getName());
+    
+    private final WebDriver driver;
+    private final HomePage homePage;
+    private final String browser;
+    private final boolean headless;
+    private final Thread setUpThread = Thread.currentThread();
+    private final ThreadLocal<WebDriver> workerDriver = new ThreadLocal<>();
+    private final ThreadLocal<HomePage> workerHomePage = new ThreadLocal<>();
+    private final List<WebDriver> workerDrivers = new ArrayList<>();
+    
+    /**
+     * Constructor, called on the thread that opened the class's session
+     *
+     * @param driver the class's driver
+     * @param homePage the home page bound to it
+     * @param browser browser name for the sessions of worker threads
+     * @param headless whether the sessions of worker threads are headless
+     */
+    BrowserSessions(WebDriver driver, HomePage homePage, String browser, boolean headless) {
+        this.driver = driver;
+        this.homePage = homePage;
+        this.browser = browser;
+        this.headless = headless;
+    }
+    
+    /**
+     * Get the driver of the current thread, opening a session for a worker thread on first use
+     *
+     * @return WebDriver instance owned by the current thread
+     */
+    public WebDriver getDriver() {
+        if (Thread.currentThread() == setUpThread) {
+            return driver;
+        }
+        
+        if (workerDriver.get() == null) {
+            logger.info("Creating browser session for worker thread " + Thread.currentThread().getName());
+            WebDriver threadDriver = DriverFactory.createDriver(browser, headless);
+            synchronized (workerDrivers) {
+                workerDrivers.add(threadDriver);
+            }
+            workerDriver.set(threadDriver);
+            workerHomePage.set(Pages.create(HomePage.class, threadDriver));
+        }
+        return workerDriver.get();
+    }
+    
+    /**
+     * Get the home page bound to the driver of the current thread
+     *
+     * @return HomePage instance owned by the current thread
+     */
+    public HomePage getHomePage() {
+        if (Thread.currentThread() == setUpThread) {
+            return homePage;
+        }
+        
+        getDriver();
+        return workerHomePage.get();
+    }
+    
+    /**
+     * @return the driver of the current thread, or null if a worker thread has not opened one
+     */
+    public WebDriver getOpenDriver() {
+        return Thread.currentThread() == setUpThread ? driver : workerDriver.get();
+    }
+    
+    /**
+     * Quit the browser session of the current worker thread, if it has one, e.g. while the thread waits
+     * for the concurrency governor to allow another session. The next test on the thread opens a new one.
+     */
+    public void closeWorkerDriver() {
+        WebDriver threadDriver = workerDriver.get();
+        if (threadDriver == null) {
+            return;
+        }
+        
+        logger.info("Closing browser session of worker thread " + Thread.currentThread().getName());
+        synchronized (workerDrivers) {
+            workerDrivers.remove(threadDriver);
+        }
+        workerDriver.remove();
+        workerHomePage.remove();
+        quit(threadDriver);
+    }
+    
+    /**
+     * Quit every session, the class's own and those of the worker threads
+     */
+    void closeAll() {
+        quit(driver);
+        synchronized (workerDrivers) {
+            for (WebDriver threadDriver : workerDrivers) {
+                quit(threadDriver);
+            }
+            workerDrivers.clear();
+        }
+    }
+    
+    private static void quit(WebDriver driver) {
+        HttpArchives.detach(driver);
+        Pages.release(driver);
+        driver.quit();
+    }
+}
@@ -1,49 +1,130 @@
 package com.openway.tests;
 
 import com.openway.pages.CartPage;
+import com.openway.pages.HomePage;
 import com.openway.pages.ProductPage;
+import com.openway.pages.ProductTabs;
 import com.openway.pages.ProductsPage;
+import com.openway.tests.data.RowStream;
+import com.openway.tests.fixtures.CartFixture;
+import com.openway.tests.fixtures.CartLine;
 import com.openway.utils.ConfigManager;
 
+import org.openqa.selenium.WebDriver;
 import org.testng.Assert;
+import org.testng.annotations.AfterClass;
 import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Test class for cart functionality
  */
 public class ShoppingCartTest extends BaseTest {
     
-    private static final String BASE_URL = ConfigManager.getProperty("app.url", "https://www.periplus.com/");
-    private static final String TEST_EMAIL = ConfigManager.getProperty("test.email");
-    private static final String TEST_PASSWORD = ConfigManager.getProperty("test.password");
-    private static final String SEARCH_TERM = ConfigManager.getProperty("search.term", "Blockchains");
+    private static final String TEST_EMAIL = ConfigManager.get().getTestEmail();
+    private static final String TEST_PASSWORD = ConfigManager.get().getTestPassword();
+    private static final String SEARCH_TERM = ConfigManager.get().getSearchTerm();
+    private static final String CART_TEST_DATA = ConfigManager.get().getData().getCartTestData();
+    private static final String MULTIPLE_PRODUCTS_DATA = ConfigManager.get().getData().getMultipleProductsData();
+    
+    /**
+     * Tests in this group start from a named cart state restored by the cart fixture
+     */
+    private static final String CART_FIXTURE_GROUP = "cartFixture";
+    private static final String ONE_ITEM_QTY_1 = "one " + SEARCH_TERM + " item, qty 1";
+    private static final String ONE_ITEM_QTY_3 = "one " + SEARCH_TERM + " item, qty 3";
+    
+    private CartFixture cartFixture;
+    private final List<RowStream> rowStreams = new CopyOnWriteArrayList<>();
+    
+    /**
+     * Register the named cart states shared by the cart fixture tests
+     */
+    @BeforeClass
+    public void setUpCartFixture() {
+        cartFixture = new CartFixture(driver, homePage, baseUrl, TEST_EMAIL, TEST_PASSWORD)
+                .register(ONE_ITEM_QTY_1, home -> addFirstSearchResult(home, 1))
+                .register(ONE_ITEM_QTY_3, home -> addFirstSearchResult(home, 3));
+    }
+    
+    /**
+     * Empty the cart left behind by the cart fixture and report how its states were served
+     */
+    @AfterClass
+    public void tearDownCartFixture() {
+        try {
+            cartFixture.release();
+        } catch (Exception e) {
+            logger.warning("Failed to release cart fixture: " + e.getMessage());
+        }
+        logger.info(cartFixture.getSummary());
+    }
+    
+    /**
+     * Close the data files of the data providers, including those whose rows were not all run
+     */
+    @AfterClass(alwaysRun = true)
+    public void closeRowStreams() {
+        for (RowStream rows : rowStreams) {
+            try {
+                rows.close();
+            } catch (IOException e) {
+                logger.warning("Failed to close test data: " + e.getMessage());
+            }
+        }
+        rowStreams.clear();
+    }
     
     /**
      * Navigate to home page before each test
      */
     @BeforeMethod
-    public void navigateToHomePage() {
-        homePage.navigateTo(BASE_URL);
+    public void navigateToHomePage(Method method) {
+        if (isCartFixtureTest(method)) {
+            // The cart fixture restores the session and the cart state itself
+            return;
+        }
+        
+        HomePage homePage = getHomePage();
+        homePage.navigateTo(baseUrl);
         // Login before each test to ensure we have a consistent state
         homePage.goToLoginPage()
                .login(TEST_EMAIL, TEST_PASSWORD);
+        // Logging in again may rotate the session the fixture snapshotted
+        cartFixture.invalidateSession();
+        
+        if (cartFixture.isOccupied()) {
+            cartFixture.release(homePage);
+        }
     }
     
     /**
      * Clear the cart after each test to ensure a clean state for the next test
      */
     @AfterMethod
-    public void clearCart() {
+    public void clearCart(Method method) {
+        if (isCartFixtureTest(method)) {
+            // Left in place so the next fixture test can reuse or cheaply repair it
+            return;
+        }
+        
         try {
-            CartPage cartPage = homePage.goToCart();
+            CartPage cartPage = getHomePage().goToCart();
             if (cartPage.hasItems()) {
                 cartPage.clearCart();
                 Assert.assertTrue(cartPage.isEmpty(), "Cart should be empty after clearing");
@@ -55,16 +136,14 @@ public class ShoppingCartTest extends BaseTest {
     }
     
     /**
-     * Data provider for different cart testing scenarios
-     * @return Object array containing test data for cart operations
+     * Data provider for different cart testing scenarios, streamed row by row from
+     * {@code data.cartTestData} (CSV or JSON lines) so large matrices are never held in memory
+     * @param method the test method receiving the rows
+     * @return Iterator over rows containing test data for cart operations
      */
     @DataProvider(name = "cartTestData")
-    public Object[][] getCartTestData() {
-        return new Object[][] {
-            {"Blockchain", 0, 1, true},         // Choosing the first product with the quantity of 1
-            {"Java Programming", 0, 3, true},   // Choosing the first product with the quantity of 3
-            {"Design Patterns", 1, 2, true}     // Choosing the second product with the quantity of 2
-        };
+    public Iterator<Object[]> getCartTestData(Method method) {
+        return track(RowStream.open(CART_TEST_DATA, method, "searchTerm", "productIndex", "quantity", "expectedResult"));
     }
     
     /**
@@ -76,6 +155,8 @@ public class ShoppingCartTest extends BaseTest {
      */
     @Test(description = "Add products to cart with different scenarios", dataProvider = "cartTestData")
     public void testAddProductsToCart(String searchTerm, int productIndex, int quantity, boolean expectedResult) {
+        HomePage homePage = getHomePage();
+        WebDriver driver = getDriver();
         try {
             ProductsPage productsPage = homePage.searchForProduct(searchTerm);
             
@@ -111,17 +192,12 @@ public class ShoppingCartTest extends BaseTest {
     }
     
     /**
-     * DataProvider for testing multiple products in a single cart session
+     * DataProvider for testing multiple products in a single cart session, streamed from
+     * {@code data.multipleProductsData}
      */
     @DataProvider(name = "multipleProductsData")
-    public Object[][] getMultipleProductsData() {
-        return new Object[][] {
-            {
-                Arrays.asList("Java Programming", "Python", "Data Science"),
-                Arrays.asList(0, 1, 0),
-                Arrays.asList(1, 2, 3)
-            }
-        };
+    public Iterator<Object[]> getMultipleProductsData(Method method) {
+        return track(RowStream.open(MULTIPLE_PRODUCTS_DATA, method, "searchTerms", "productIndices", "quantities"));
     }
     
     /**
@@ -130,32 +206,28 @@ public class ShoppingCartTest extends BaseTest {
     @Test(description = "Add multiple different products to cart", dataProvider = "multipleProductsData")
     public void testAddMultipleProductsToCart(List<String> searchTerms, List<Integer> productIndices, List<Integer> quantities) {
         logger.info("Starting test: Add multiple products to cart");
+        HomePage homePage = getHomePage();
+        WebDriver driver = getDriver();
         
         try {
             Map<String, Double> productDetails = new HashMap<>();
             Map<String, Integer> productQuantities = new HashMap<>();
             
-            for (int i = 0; i < searchTerms.size(); i++) {
-                String searchTerm = searchTerms.get(i);
-                int productIndex = productIndices.get(i);
-                int quantity = quantities.get(i);
-                logger.info("Adding: searchTerm: " + searchTerm + ", productIndex: " + productIndex + ", quantity: " + quantity);
-                
-                ProductsPage productsPage = homePage.searchForProduct(searchTerm);
-                ProductPage productPage = productsPage.selectProductByIndex(productIndex);
-                
-                String productId = driver.getCurrentUrl().replaceAll(".*/p/([0-9]+).*", "$1");
-                double productPrice = productPage.getProductPrice();
-                
-                productDetails.put(productId, productPrice);
-                productQuantities.put(productId, quantity);
-                
-                if (quantity > 1) {
-                    productPage.setQuantity(quantity);
+            // The products load in tabs at the same time; only adding them to the cart is done one by one
+            try (ProductTabs tabs = new ProductTabs(driver)) {
+                List<CompletableFuture<ProductTabs.ProductTab>> opened = tabs.open(searchTerms, productIndices);
+                List<CompletableFuture<ProductTabs.ProductTab>> added = new ArrayList<>();
+                for (int i = 0; i < searchTerms.size(); i++) {
+                    int quantity = quantities.get(i);
+                    logger.info("Adding: searchTerm: " + searchTerms.get(i) + ", productIndex: " + productIndices.get(i) + ", quantity: " + quantity);
+                    added.add(opened.get(i).thenCompose(tab -> tabs.addToCart(tab, quantity)));
                 }
-                productPage.addToCart();
                 
-                homePage.navigateTo(BASE_URL);
+                for (int i = 0; i < added.size(); i++) {
+                    ProductTabs.ProductTab tab = ProductTabs.await(added.get(i));
+                    productDetails.put(tab.getProductId(), tab.getPrice());
+                    productQuantities.put(tab.getProductId(), quantities.get(i));
+                }
             }
             
             CartPage cartPage = homePage.goToCart();
@@ -193,19 +265,14 @@ public class ShoppingCartTest extends BaseTest {
     /**
      * Test removing a product from cart and verifying it was successfully removed
      */
-    @Test(description = "Remove product from cart and verify it was successfully removed")
+    @Test(description = "Remove product from cart and verify it was successfully removed", groups = CART_FIXTURE_GROUP)
     public void testRemoveFromCart() {
         logger.info("Starting test: Remove product from cart");
         
         try {
-            ProductsPage productsPage = homePage.searchForProduct(SEARCH_TERM);
-            ProductPage productPage = productsPage.selectFirstProduct();
+            CartPage cartPage = cartFixture.restore(ONE_ITEM_QTY_1);
+            String productId = cartFixture.getLines(ONE_ITEM_QTY_1).get(0).getProductId();
             
-            String productId = driver.getCurrentUrl().replaceAll(".*/p/([0-9]+).*", "$1");
-
-            productPage.addToCart();
-            
-            CartPage cartPage = productPage.goToCart();
             Assert.assertTrue(cartPage.hasItems(), "Cart should not be empty");
             Assert.assertTrue(cartPage.containsProduct(productId), "Cart should contain the added product");
             
@@ -235,20 +302,15 @@ public class ShoppingCartTest extends BaseTest {
     /**
      * Test increasing the quantity of a product in the cart and verifying related fields changes
      */
-    @Test(description = "Increase product quantity in cart and verify field updates")
+    @Test(description = "Increase product quantity in cart and verify field updates", groups = CART_FIXTURE_GROUP)
     public void testIncreaseQuantityInCart() {
         logger.info("Starting test: Increase product quantity in cart");
         
         try {
-            ProductsPage productsPage = homePage.searchForProduct(SEARCH_TERM);
-            ProductPage productPage = productsPage.selectFirstProduct();
-            
-            String productId = driver.getCurrentUrl().replaceAll(".*/p/([0-9]+).*", "$1");
-            double productPrice = productPage.getProductPrice();
-            
-            productPage.addToCart();
-            
-            CartPage cartPage = productPage.goToCart();
+            CartPage cartPage = cartFixture.restore(ONE_ITEM_QTY_1);
+            CartLine line = cartFixture.getLines(ONE_ITEM_QTY_1).get(0);
+            String productId = line.getProductId();
+            double productPrice = line.getUnitPrice();
             
             Assert.assertTrue(cartPage.hasItems(), "Cart should not be empty");
             Assert.assertEquals(cartPage.getProductQuantity(productId), 1, "Initial quantity should be 1");
@@ -285,21 +347,15 @@ public class ShoppingCartTest extends BaseTest {
     /**
      * Test decreasing the quantity of a product in the cart and verifying related fields changes
      */
-    @Test(description = "Decrease product quantity in cart and verify field updates")
+    @Test(description = "Decrease product quantity in cart and verify field updates", groups = CART_FIXTURE_GROUP)
     public void testDecreaseQuantityInCart() {
         logger.info("Starting test: Decrease product quantity in cart");
         
         try {
-            ProductsPage productsPage = homePage.searchForProduct(SEARCH_TERM);
-            ProductPage productPage = productsPage.selectFirstProduct();
-            
-            String productId = driver.getCurrentUrl().replaceAll(".*/p/([0-9]+).*", "$1");
-            double productPrice = productPage.getProductPrice();
-            
-            productPage.setQuantity(3);
-            productPage.addToCart();
-            
-            CartPage cartPage = productPage.goToCart();
+            CartPage cartPage = cartFixture.restore(ONE_ITEM_QTY_3);
+            CartLine line = cartFixture.getLines(ONE_ITEM_QTY_3).get(0);
+            String productId = line.getProductId();
+            double productPrice = line.getUnitPrice();
             
             Assert.assertTrue(cartPage.hasItems(), "Cart should not be empty");
             Assert.assertEquals(cartPage.getProductQuantity(productId), 3, "Initial quantity should be 3");
@@ -335,24 +391,21 @@ public class ShoppingCartTest extends BaseTest {
     /**
      * Test cart persistence between sessions
      */
-    @Test(description = "Verify cart persists between sessions")
+    @Test(description = "Verify cart persists between sessions", groups = CART_FIXTURE_GROUP)
     public void testCartPersistence() {
         logger.info("Starting test: Cart persistence between sessions");
         
         try {
-            ProductsPage productsPage = homePage.searchForProduct(SEARCH_TERM);
-            ProductPage productPage = productsPage.selectFirstProduct();
+            CartPage cartPage = cartFixture.restore(ONE_ITEM_QTY_1);
+            String productId = cartFixture.getLines(ONE_ITEM_QTY_1).get(0).getProductId();
             
-            String productId = driver.getCurrentUrl().replaceAll(".*/p/([0-9]+).*", "$1");
-            productPage.addToCart();
-            
-            CartPage cartPage = productPage.goToCart();
             Assert.assertTrue(cartPage.containsProduct(productId), "Cart should contain the added product");
             
             int quantity = cartPage.getProductQuantity(productId);
             double subtotal = cartPage.getProductSubtotal(productId);
             
             homePage.logout();
+            cartFixture.invalidateSession();
             homePage.goToLoginPage()
                    .login(TEST_EMAIL, TEST_PASSWORD);
             
@@ -371,4 +424,34 @@ public class ShoppingCartTest extends BaseTest {
             throw e;  
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Keep a data provider's stream so it is closed with the class even if not all its rows are run
+     */
+    private RowStream track(RowStream rows) {
+        rowStreams.add(rows);
+        return rows;
+    }
+    
+    private static boolean isCartFixtureTest(Method method) {
+        Test test = method.getAnnotation(Test.class);
+        return test != null && Arrays.asList(test.groups()).contains(CART_FIXTURE_GROUP);
+    }
+    
+    /**
+     * Cart scenario: search for the default term and add the first result with the given quantity
+     */
+    private List<CartLine> addFirstSearchResult(HomePage home, int quantity) {
+        ProductPage productPage = home.searchForProduct(SEARCH_TERM).selectFirstProduct();
+        
+        String productId = driver.getCurrentUrl().replaceAll(".*/p/([0-9]+).*", "$1");
+        double productPrice = productPage.getProductPrice();
+        
+        if (quantity > 1) {
+            productPage.setQuantity(quantity);
+        }
+        productPage.addToCart();
+        
+        return Collections.singletonList(new CartLine(productId, quantity, productPrice));
+    }
+}
@@ -0,0 +1,344 @@
+package com.openway.tests.data;
+
+import com.openway.utils.ConfigManager;
+import org.openqa.selenium.json.Json;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.logging.Logger;
+
+/**
+ * Lazily reads test data rows from a CSV or JSON-lines file for use as a TestNG data provider.
+ * <p>
+ * Only the current line is held in memory, so files with many thousands of rows can be streamed.
+ * Values are converted to the parameter types of the test method; list parameters are written as
+ * {@code a;b;c} in CSV and as JSON arrays in JSON lines. JSON-lines rows are either arrays in parameter
+ * order or objects keyed by the column names given to {@link #open}.
+ * <p>
+ * The rows handed out can be restricted to a slice of the file, so each fork runs its own part:
+ * <ul>
+ *     <li>{@code -Ddata.rows=100-200} runs rows 100 (inclusive) to 200 (exclusive)</li>
+ *     <li>{@code -Ddata.shard=2/4} runs the third of four equal contiguous slices</li>
+ * </ul>
+ * Blank lines and lines starting with {@code #} are not rows. The CSV header line is not a row.
+ * Within the slice, a {@link RowFilter} set with {@link #setFilter} can skip further rows. The next row is
+ * only read and filtered when {@link #hasNext()} asks for it, which TestNG does just before running it
+ * unless the data provider is parallel.
+ */
+public class RowStream implements Iterator<Object[]>, AutoCloseable {
+    private static final Logger logger = Logger.getLogger(RowStream.class.getName());
+    private static final Json JSON = new Json();
+    private static volatile RowFilter filter;
+
+    /**
+     * Decides which rows run, e.g. only those affected by a change
+     */
+    public interface RowFilter {
+        /**
+         * @param test test method as {@code Class.method}
+         * @param row the row's values
+         * @return true if the row runs
+         */
+        boolean accept(String test, Object[] row);
+    }
+
+    private final BufferedReader reader;
+    private final boolean csv;
+    private final Type[] parameterTypes;
+    private final String[] columns;
+    private final String test;
+    private final long lastRow;
+    private long rowIndex;
+    private String nextLine;
+    private Object[] nextRow;
+    private boolean selected;
+    private boolean headerSkipped;
+
+    private RowStream(BufferedReader reader, boolean csv, Type[] parameterTypes, String[] columns, String test,
+                      long firstRow, long lastRow) throws IOException {
+        this.reader = reader;
+        this.csv = csv;
+        this.parameterTypes = parameterTypes;
+        this.columns = columns;
+        this.test = test;
+        this.lastRow = lastRow;
+        while (rowIndex < firstRow && readRow() != null) {
+            rowIndex++;
+        }
+    }
+
+    /**
+     * Open a data file for the given test method, honouring the configured row range or shard
+     *
+     * @param location file path or classpath resource, ending in .csv or .jsonl
+     * @param method the test method, used to convert values to its parameter types
+     * @param columns column names used to read JSON object rows, in parameter order
+     * @return a lazy iterator over the selected rows
+     */
+    public static RowStream open(String location, Method method, String... columns) {
+        boolean csv = location.toLowerCase().endsWith(".csv");
+        try {
+            long[] range = resolveRange(location, csv);
+            logger.info("Streaming rows [" + range[0] + ", " + (range[1] == Long.MAX_VALUE ? "end" : range[1])
+                    + ") from " + location + " for " + method.getName());
+            return new RowStream(openReader(location), csv, method.getGenericParameterTypes(), columns,
+                    method.getDeclaringClass().getSimpleName() + "." + method.getName(), range[0], range[1]);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open test data: " + location, e);
+        }
+    }
+
+    /**
+     * Restrict the rows of every stream opened from now on
+     *
+     * @param rowFilter the filter, or null to run all rows
+     */
+    public static void setFilter(RowFilter rowFilter) {
+        filter = rowFilter;
+    }
+
+    /**
+     * @return the filter of streams opened from now on, or null if all rows run
+     */
+    public static RowFilter getFilter() {
+        return filter;
+    }
+
+    @Override
+    public synchronized boolean hasNext() {
+        if (!selected) {
+            selected = true;
+            try {
+                nextLine = readSelectedRow();
+                if (nextLine == null) {
+                    close();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return nextLine != null;
+    }
+
+    @Override
+    public synchronized Object[] next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Object[] row = nextRow != null ? nextRow : toRow(nextLine);
+        nextLine = null;
+        nextRow = null;
+        selected = false;
+        rowIndex++;
+        return row;
+    }
+
+    /**
+     * Close the file; TestNG stops asking for rows without closing it when a run is cut short, so
+     * whoever opened the stream closes it once the rows are no longer needed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        nextLine = null;
+        nextRow = null;
+        selected = true;
+        reader.close();
+    }
+
+    private String readSelectedRow() throws IOException {
+        RowFilter current = filter;
+        while (rowIndex < lastRow) {
+            String line = readRow();
+            if (line == null || current == null) {
+                return line;
+            }
+            Object[] row = toRow(line);
+            if (current.accept(test, row)) {
+                nextRow = row;
+                return line;
+            }
+            rowIndex++;
+        }
+        return null;
+    }
+
+    private String readRow() throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            if (csv && !headerSkipped) {
+                headerSkipped = true;
+                continue;
+            }
+            return line;
+        }
+        return null;
+    }
+
+    private Object[] toRow(String line) {
+        List<?> values;
+        if (csv) {
+            values = splitCsv(line);
+        } else {
+            Object parsed = JSON.toType(line, Object.class);
+            if (parsed instanceof List) {
+                values = (List<?>) parsed;
+            } else if (parsed instanceof Map) {
+                List<Object> ordered = new ArrayList<>();
+                for (String column : columns) {
+                    ordered.add(((Map<?, ?>) parsed).get(column));
+                }
+                values = ordered;
+            } else {
+                throw new IllegalArgumentException("JSON row must be an array or an object: " + line);
+            }
+        }
+
+        if (values.size() != parameterTypes.length) {
+            throw new IllegalArgumentException("Expected " + parameterTypes.length + " values but got "
+                    + values.size() + " in row: " + line);
+        }
+
+        Object[] row = new Object[parameterTypes.length];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = convert(values.get(i), parameterTypes[i]);
+        }
+        return row;
+    }
+
+    private static Object convert(Object raw, Type type) {
+        if (type instanceof ParameterizedType && ((ParameterizedType) type).getRawType() == List.class) {
+            Type elementType = ((ParameterizedType) type).getActualTypeArguments()[0];
+            List<?> rawValues;
+            if (raw instanceof List) {
+                rawValues = (List<?>) raw;
+            } else {
+                List<String> split = new ArrayList<>();
+                for (String value : String.valueOf(raw).split(";")) {
+                    split.add(value.trim());
+                }
+                rawValues = split;
+            }
+            List<Object> converted = new ArrayList<>();
+            for (Object value : rawValues) {
+                converted.add(convert(value, elementType));
+            }
+            return converted;
+        }
+
+        String value = String.valueOf(raw).trim();
+        if (type == String.class) {
+            return String.valueOf(raw);
+        } else if (type == int.class || type == Integer.class) {
+            return Integer.parseInt(value);
+        } else if (type == long.class || type == Long.class) {
+            return Long.parseLong(value);
+        } else if (type == double.class || type == Double.class) {
+            return Double.parseDouble(value);
+        } else if (type == boolean.class || type == Boolean.class) {
+            return Boolean.parseBoolean(value);
+        }
+        throw new IllegalArgumentException("Unsupported data provider parameter type: " + type);
+    }
+
+    /**
+     * Split a CSV line, honouring double-quoted fields and doubled quotes inside them
+     */
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Resolve the configured row range; a shard needs one extra streaming pass to count the rows
+     */
+    private static long[] resolveRange(String location, boolean csv) throws IOException {
+        String rows = ConfigManager.getProperty("data.rows");
+        if (rows != null && !rows.trim().isEmpty()) {
+            String[] bounds = rows.trim().split("-");
+            return new long[] {Long.parseLong(bounds[0]), Long.parseLong(bounds[1])};
+        }
+
+        String shard = ConfigManager.getProperty("data.shard");
+        if (shard != null && !shard.trim().isEmpty()) {
+            String[] parts = shard.trim().split("/");
+            int index = Integer.parseInt(parts[0]);
+            int count = Integer.parseInt(parts[1]);
+            if (index < 0 || index >= count) {
+                throw new IllegalArgumentException("Invalid data shard: " + shard);
+            }
+            long total = countRows(location, csv);
+            return new long[] {total * index / count, total * (index + 1) / count};
+        }
+
+        return new long[] {0, Long.MAX_VALUE};
+    }
+
+    private static long countRows(String location, boolean csv) throws IOException {
+        long count = 0;
+        // An empty range keeps the constructor from converting and filtering; the counter reads raw lines
+        try (RowStream counter = new RowStream(openReader(location), csv, new Type[0], new String[0], null,
+                0, 0)) {
+            counter.nextLine = counter.readRow();
+            while (counter.nextLine != null) {
+                count++;
+                counter.nextLine = counter.readRow();
+            }
+        }
+        return count;
+    }
+
+    private static BufferedReader openReader(String location) throws IOException {
+        InputStream input;
+        File file = new File(location);
+        if (file.isFile()) {
+            input = new FileInputStream(file);
+        } else {
+            input = RowStream.class.getClassLoader().getResourceAsStream(location);
+            if (input == null) {
+                throw new IOException("Test data not found on disk or classpath: " + location);
+            }
+        }
+        return new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+    }
+}
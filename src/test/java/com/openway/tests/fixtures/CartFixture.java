@@ -0,0 +1,236 @@
+package com.openway.tests.fixtures;
+
+import com.openway.pages.CartPage;
+import com.openway.pages.HomePage;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.WebDriver;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Builds named cart states once and restores them cheaply for the tests that depend on them.
+ * <p>
+ * The first restore of a state runs its scenario (login, search, add to cart) and snapshots the
+ * session cookies and the resulting cart lines. Later restores reuse the cookies instead of logging in
+ * and only verify the cart: when it still matches nothing is done, when only quantities differ they are
+ * adjusted in place, and only when the products differ is the cart cleared and the scenario rebuilt.
+ */
+public class CartFixture {
+    private static final Logger logger = Logger.getLogger(CartFixture.class.getName());
+
+    /**
+     * Builds a cart state from a logged-in home page with an empty cart
+     */
+    public interface CartScenario {
+        /**
+         * @param homePage the home page of a logged-in session
+         * @return the lines added to the cart
+         */
+        List<CartLine> build(HomePage homePage);
+    }
+
+    private final WebDriver driver;
+    private final HomePage homePage;
+    private final String baseUrl;
+    private final String email;
+    private final String password;
+    private final Map<String, CartScenario> scenarios = new HashMap<>();
+    private final Map<String, List<CartLine>> snapshots = new HashMap<>();
+    private Set<Cookie> sessionCookies;
+    private volatile boolean occupied;
+    private int builds;
+    private int repairs;
+    private int reuses;
+
+    /**
+     * Constructor
+     *
+     * @param driver WebDriver instance
+     * @param homePage home page object bound to the driver
+     * @param baseUrl base URL of the application
+     * @param email account email
+     * @param password account password
+     */
+    public CartFixture(WebDriver driver, HomePage homePage, String baseUrl, String email, String password) {
+        this.driver = driver;
+        this.homePage = homePage;
+        this.baseUrl = baseUrl;
+        this.email = email;
+        this.password = password;
+    }
+
+    /**
+     * Register a named cart state
+     *
+     * @param name the name of the state
+     * @param scenario the scenario that builds the state
+     * @return this fixture for method chaining
+     */
+    public CartFixture register(String name, CartScenario scenario) {
+        scenarios.put(name, scenario);
+        return this;
+    }
+
+    /**
+     * Bring the cart into the named state
+     *
+     * @param name the name of a registered state
+     * @return the cart page showing the restored state
+     */
+    public CartPage restore(String name) {
+        CartScenario scenario = scenarios.get(name);
+        if (scenario == null) {
+            throw new IllegalArgumentException("Unknown cart state: " + name);
+        }
+
+        restoreSession();
+        occupied = true;
+        CartPage cartPage = homePage.goToCart();
+        Map<String, Integer> actual = readLines(cartPage);
+        List<CartLine> snapshot = snapshots.get(name);
+
+        if (snapshot == null) {
+            if (!actual.isEmpty()) {
+                cartPage.clearCart();
+            }
+            return build(name, scenario);
+        }
+
+        Map<String, Integer> expected = toQuantities(snapshot);
+        if (actual.equals(expected)) {
+            reuses++;
+            logger.info("Cart state '" + name + "' reused from snapshot");
+            return cartPage;
+        }
+
+        if (actual.keySet().equals(expected.keySet())) {
+            repairs++;
+            logger.info("Cart state '" + name + "' repaired: " + actual + " -> " + expected);
+            for (Map.Entry<String, Integer> line : expected.entrySet()) {
+                if (!line.getValue().equals(actual.get(line.getKey()))) {
+                    cartPage.updateProductQuantity(line.getKey(), line.getValue());
+                }
+            }
+            return cartPage.updateCartPage();
+        }
+
+        logger.info("Cart state '" + name + "' changed by a previous test, rebuilding");
+        if (!actual.isEmpty()) {
+            cartPage.clearCart();
+        }
+        return build(name, scenario);
+    }
+
+    /**
+     * Get the lines of a state that has been restored at least once
+     *
+     * @param name the name of the state
+     * @return the snapshot lines
+     */
+    public List<CartLine> getLines(String name) {
+        List<CartLine> lines = snapshots.get(name);
+        if (lines == null) {
+            throw new IllegalStateException("Cart state '" + name + "' has not been built yet");
+        }
+        return lines;
+    }
+
+    /**
+     * Whether the physical cart may still hold a fixture state
+     *
+     * @return true if a state was restored and the cart has not been released since
+     */
+    public boolean isOccupied() {
+        return occupied;
+    }
+
+    /**
+     * Empty the cart so tests that expect an empty cart can run, keeping the snapshots for later restores
+     */
+    public void release() {
+        release(homePage);
+    }
+
+    /**
+     * Empty the cart through another session of the same account, e.g. the one of a worker thread, which
+     * must not drive the browser of the fixture
+     *
+     * @param session home page of a logged-in session on the calling thread
+     */
+    public synchronized void release(HomePage session) {
+        if (!occupied) {
+            return;
+        }
+        CartPage cartPage = session.goToCart();
+        if (cartPage.hasItems()) {
+            cartPage.clearCart();
+        }
+        occupied = false;
+    }
+
+    /**
+     * Forget the session cookies, e.g. after a test logged out, so the next restore logs in again
+     */
+    public void invalidateSession() {
+        sessionCookies = null;
+    }
+
+    /**
+     * @return a one-line summary of how each restore was served
+     */
+    public String getSummary() {
+        return "Cart fixture: " + builds + " built, " + repairs + " repaired, " + reuses + " reused";
+    }
+
+    private CartPage build(String name, CartScenario scenario) {
+        builds++;
+        logger.info("Building cart state '" + name + "'");
+        homePage.navigateTo(baseUrl);
+        List<CartLine> lines = new ArrayList<>(scenario.build(homePage));
+        homePage.navigateTo(baseUrl);
+        snapshots.put(name, lines);
+        return homePage.goToCart();
+    }
+
+    private void restoreSession() {
+        homePage.navigateTo(baseUrl);
+        if (sessionCookies != null) {
+            driver.manage().deleteAllCookies();
+            for (Cookie cookie : sessionCookies) {
+                driver.manage().addCookie(cookie);
+            }
+            homePage.navigateTo(baseUrl);
+            return;
+        }
+
+        homePage.goToLoginPage().login(email, password);
+        homePage.navigateTo(baseUrl);
+        sessionCookies = new HashSet<>(driver.manage().getCookies());
+    }
+
+    private static Map<String, Integer> readLines(CartPage cartPage) {
+        Map<String, Integer> lines = new LinkedHashMap<>();
+        if (!cartPage.hasItems()) {
+            return lines;
+        }
+        for (String productId : cartPage.getProductIds()) {
+            lines.put(productId, cartPage.getProductQuantity(productId));
+        }
+        return lines;
+    }
+
+    private static Map<String, Integer> toQuantities(List<CartLine> lines) {
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        for (CartLine line : lines) {
+            quantities.put(line.getProductId(), line.getQuantity());
+        }
+        return quantities;
+    }
+}
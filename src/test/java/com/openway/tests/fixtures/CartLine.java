@@ -0,0 +1,40 @@
+package com.openway.tests.fixtures;
+
+/**
+ * A single product line of a named cart state
+ */
+public class CartLine {
+    private final String productId;
+    private final int quantity;
+    private final double unitPrice;
+
+    /**
+     * Constructor
+     *
+     * @param productId the product ID (ISBN) of the line
+     * @param quantity the quantity of the product in the cart
+     * @param unitPrice the price of a single item as shown on the product page
+     */
+    public CartLine(String productId, int quantity, double unitPrice) {
+        this.productId = productId;
+        this.quantity = quantity;
+        this.unitPrice = unitPrice;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public double getUnitPrice() {
+        return unitPrice;
+    }
+
+    @Override
+    public String toString() {
+        return productId + " x" + quantity + " @ " + unitPrice;
+    }
+}
@@ -0,0 +1,114 @@
+package com.openway.tests.listeners;
+
+import com.openway.perf.ConcurrencyGovernor;
+import com.openway.tests.BaseTest;
+import com.openway.tests.BrowserSessions;
+import com.openway.utils.ConfigManager;
+import com.openway.utils.TestConfig;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestClass;
+import org.testng.ITestNGMethod;
+import org.testng.ITestResult;
+
+import java.util.logging.Logger;
+
+/**
+ * Lets the {@link ConcurrencyGovernor} decide how many data provider rows run at once when
+ * {@code governor.enabled} is true.
+ * <p>
+ * The suite's {@code data-provider-thread-count} is raised to {@code governor.maxSessions} so the
+ * governor has threads to grow into. Each test invocation holds a permit from its {@code @BeforeMethod}
+ * up to its last {@code @AfterMethod}, so setup and cleanup count as load too. A worker thread that has
+ * to wait for a permit first quits its browser session, which is what actually frees the host.
+ */
+public class ConcurrencyGovernorListener implements IInvokedMethodListener, ISuiteListener {
+    private static final Logger logger = Logger.getLogger(ConcurrencyGovernorListener.class.getName());
+
+    private final ThreadLocal<Boolean> holding = ThreadLocal.withInitial(() -> false);
+    private final ThreadLocal<Integer> afterMethodsLeft = ThreadLocal.withInitial(() -> 0);
+    private volatile ConcurrencyGovernor governor;
+
+    @Override
+    public void onStart(ISuite suite) {
+        TestConfig config = ConfigManager.get();
+        if (!config.getGovernor().isEnabled()) {
+            return;
+        }
+
+        governor = new ConcurrencyGovernor(config.getGovernor());
+        if (suite.getXmlSuite().getDataProviderThreadCount() < governor.getMaxSessions()) {
+            logger.info("Raising data-provider-thread-count from " + suite.getXmlSuite().getDataProviderThreadCount()
+                    + " to " + governor.getMaxSessions() + " for the concurrency governor");
+            suite.getXmlSuite().setDataProviderThreadCount(governor.getMaxSessions());
+        }
+    }
+
+    @Override
+    public void beforeInvocation(IInvokedMethod method, ITestResult testResult) {
+        ITestNGMethod testMethod = method.getTestMethod();
+        if (governor == null || holding.get()
+                || !method.isTestMethod() && !testMethod.isBeforeMethodConfiguration()) {
+            return;
+        }
+
+        if (!governor.tryAcquire()) {
+            if (testResult.getInstance() instanceof BaseTest) {
+                BrowserSessions sessions = ((BaseTest) testResult.getInstance()).getBrowserSessions();
+                if (sessions != null) {
+                    sessions.closeWorkerDriver();
+                }
+            }
+            try {
+                governor.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the concurrency governor", e);
+            }
+        }
+        holding.set(true);
+    }
+
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+        if (governor == null || !holding.get()) {
+            return;
+        }
+
+        ITestNGMethod testMethod = method.getTestMethod();
+        boolean last;
+        if (method.isTestMethod()) {
+            afterMethodsLeft.set(afterMethods(testResult));
+            last = afterMethodsLeft.get() == 0;
+        } else if (testMethod.isAfterMethodConfiguration()) {
+            afterMethodsLeft.set(afterMethodsLeft.get() - 1);
+            last = afterMethodsLeft.get() <= 0;
+        } else {
+            // A failed @BeforeMethod skips the test and its cleanup
+            last = testMethod.isBeforeMethodConfiguration() && !testResult.isSuccess();
+        }
+        if (last) {
+            afterMethodsLeft.set(0);
+            holding.set(false);
+            governor.release();
+        }
+    }
+
+    /**
+     * @return the number of {@code @AfterMethod} methods that run after each test of the result's class
+     */
+    private static int afterMethods(ITestResult testResult) {
+        return testResult.getTestClass() instanceof ITestClass
+                ? ((ITestClass) testResult.getTestClass()).getAfterTestMethods().length : 0;
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        if (governor != null) {
+            governor.close();
+            governor = null;
+        }
+    }
+}
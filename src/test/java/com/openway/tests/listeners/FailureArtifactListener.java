@@ -0,0 +1,30 @@
+package com.openway.tests.listeners;
+
+import com.openway.artifacts.FailureArtifacts;
+import com.openway.tests.BaseTest;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestResult;
+
+/**
+ * Captures failure artifacts right after a failed test method returns, on the test's own thread and
+ * before any {@code @AfterMethod} cleanup navigates away from the page that failed. At the end of the
+ * suite it waits for the background writers to finish.
+ */
+public class FailureArtifactListener implements IInvokedMethodListener, ISuiteListener {
+
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+        if (method.isTestMethod() && testResult.getStatus() == ITestResult.FAILURE
+                && testResult.getInstance() instanceof BaseTest) {
+            ((BaseTest) testResult.getInstance()).captureFailureArtifacts(testResult);
+        }
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        FailureArtifacts.close();
+    }
+}
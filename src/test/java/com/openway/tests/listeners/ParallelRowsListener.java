@@ -0,0 +1,45 @@
+package com.openway.tests.listeners;
+
+import com.openway.utils.ConfigManager;
+import com.openway.utils.TestConfig;
+import org.testng.IAnnotationTransformer;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.IDataProviderAnnotation;
+
+import java.lang.reflect.Method;
+
+/**
+ * Runs the rows of every data provider in parallel when {@code data.parallel} or {@code governor.enabled}
+ * is true; otherwise rows run one after the other, as the data providers declare them. While
+ * {@code soak.tests} is set rows stay sequential, since {@link SoakListener} repeats a row on the thread
+ * that reads it.
+ * <p>
+ * Sequential rows run on the thread of the class's {@code @BeforeClass}, in its logged-in browser session.
+ * Parallel rows run on {@code data-provider-thread-count} worker threads, and each worker opens its own
+ * browser and logs in on first use, so every worker costs a browser process and a login. TestNG also reads
+ * a parallel data provider to its end before the first row runs, so its rows are held in memory instead of
+ * streamed.
+ */
+public class ParallelRowsListener implements IAnnotationTransformer {
+
+    @Override
+    public void transform(IDataProviderAnnotation annotation, Method method) {
+        if (parallelRows()) {
+            annotation.setParallel(true);
+        }
+    }
+
+    /**
+     * @param dataProvider a data provider as declared
+     * @return whether its rows run in parallel
+     */
+    public static boolean isParallel(DataProvider dataProvider) {
+        return dataProvider.parallel() || parallelRows();
+    }
+
+    private static boolean parallelRows() {
+        TestConfig config = ConfigManager.get();
+        return config.getSoak().getTests().isEmpty()
+                && (config.getData().isParallel() || config.getGovernor().isEnabled());
+    }
+}
@@ -0,0 +1,178 @@
+package com.openway.tests.listeners;
+
+import com.openway.perf.SoakMonitor;
+import com.openway.tests.BaseTest;
+import com.openway.tests.BrowserSessions;
+import com.openway.utils.ConfigManager;
+import com.openway.utils.SoakConfig;
+import org.testng.IAnnotationTransformer;
+import org.testng.IDataProviderInterceptor;
+import org.testng.IDataProviderMethod;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ITestContext;
+import org.testng.ITestNGMethod;
+import org.testng.ITestResult;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.ITestAnnotation;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.logging.Logger;
+
+/**
+ * Soaks the tests that {@code soak.tests} names, or every test with {@code *}: each invocation, i.e. each
+ * data provider row or the single invocation of a plain test, is repeated as further TestNG invocations
+ * for {@code soak.iterations} or {@code soak.durationMinutes}, whichever ends first. TestNG runs the class's
+ * {@code @BeforeMethod} and {@code @AfterMethod} methods and every listener around each repetition, so
+ * each starts from the state a single run would. The memory of the browser and the JVM is sampled every
+ * {@code soak.sampleEvery} repetitions by a {@link SoakMonitor}.
+ * <p>
+ * The soak of a row stops at its first failing repetition; with {@code soak.failOnLeak} a leak fails the
+ * last one. Repetitions run on the thread that reads the rows, so a soaked data provider must be sequential;
+ * {@link ParallelRowsListener} keeps rows sequential while {@code soak.tests} is set. Restrict the rows with
+ * {@code data.rows} for long runs.
+ */
+public class SoakListener implements IAnnotationTransformer, IDataProviderInterceptor, IInvokedMethodListener {
+    private static final Logger logger = Logger.getLogger(SoakListener.class.getName());
+
+    /**
+     * Data provider given to soaked tests without one, so their repetitions are rows like any other
+     */
+    public static final String SINGLE_INVOCATION = "soakSingleInvocation";
+
+    private static final ThreadLocal<Soak> current = new ThreadLocal<>();
+
+    /**
+     * @return one row without parameters
+     */
+    @DataProvider(name = SINGLE_INVOCATION)
+    public static Object[][] singleInvocation() {
+        return new Object[][] {{}};
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public void transform(ITestAnnotation annotation, Class testClass, Constructor testConstructor,
+                          Method testMethod) {
+        if (testMethod != null && annotation.getDataProvider().isEmpty() && isSoaked(testMethod.getName())) {
+            annotation.setDataProvider(SINGLE_INVOCATION);
+            annotation.setDataProviderClass(SoakListener.class);
+        }
+    }
+
+    @Override
+    public Iterator<Object[]> intercept(Iterator<Object[]> rows, IDataProviderMethod dataProviderMethod,
+                                        ITestNGMethod method, ITestContext context) {
+        if (!isSoaked(method.getMethodName())) {
+            return rows;
+        }
+        if (dataProviderMethod.isParallel()) {
+            logger.warning("Not soaking " + method.getMethodName() + ", its data provider "
+                    + dataProviderMethod.getName() + " runs rows in parallel");
+            return rows;
+        }
+
+        SoakConfig config = ConfigManager.get().getSoak();
+        String test = method.getRealClass().getSimpleName() + "." + method.getMethodName();
+        return new Iterator<Object[]>() {
+            private Soak soak;
+
+            @Override
+            public boolean hasNext() {
+                return soak != null && !soak.finished || rows.hasNext();
+            }
+
+            @Override
+            public Object[] next() {
+                if (soak == null || soak.finished) {
+                    if (!rows.hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    Object[] row = rows.next();
+                    soak = new Soak(config, row.length == 0 ? test : test + Arrays.toString(row), row);
+                }
+                current.set(soak);
+                return soak.row.clone();
+            }
+        };
+    }
+
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+        Soak soak = current.get();
+        if (soak == null || !method.isTestMethod()) {
+            return;
+        }
+        current.remove();
+
+        soak.iteration++;
+        if (testResult.getStatus() != ITestResult.SUCCESS) {
+            logger.warning("Soak of " + soak.name + " stopped by a failure in iteration " + soak.iteration);
+            soak.finish(testResult);
+            return;
+        }
+        if (soak.iteration % soak.config.getSampleEvery() == 0 && testResult.getInstance() instanceof BaseTest) {
+            BrowserSessions sessions = ((BaseTest) testResult.getInstance()).getBrowserSessions();
+            soak.monitor.sample(sessions.getDriver(), soak.iteration);
+        }
+        if (soak.iteration >= soak.maxIterations || System.nanoTime() >= soak.deadline) {
+            soak.finish(testResult);
+        }
+    }
+
+    private static boolean isSoaked(String methodName) {
+        List<String> tests = ConfigManager.get().getSoak().getTests();
+        return tests.contains("*") || tests.contains(methodName);
+    }
+
+    /**
+     * The soak of one row, from its first repetition to its last
+     */
+    private static final class Soak {
+        private final SoakConfig config;
+        private final String name;
+        private final Object[] row;
+        private final SoakMonitor monitor;
+        private final int maxIterations;
+        private final long deadline;
+        private int iteration;
+        private boolean finished;
+
+        Soak(SoakConfig config, String name, Object[] row) {
+            this.config = config;
+            this.name = name;
+            this.row = row;
+            maxIterations = config.getIterations() == 0 ? Integer.MAX_VALUE : config.getIterations();
+            deadline = config.getDuration().isZero() ? Long.MAX_VALUE
+                    : System.nanoTime() + config.getDuration().toNanos();
+            String minutes = config.getDuration().toMinutes() + " minutes";
+            String iterations = config.getIterations() + " iterations";
+            logger.info("Soaking " + name + " for " + (config.getIterations() == 0 ? minutes
+                    : config.getDuration().isZero() ? iterations : iterations + " or " + minutes));
+            monitor = new SoakMonitor(config, name);
+        }
+
+        /**
+         * Judge the samples after the last repetition, failing it on a leak with {@code soak.failOnLeak}
+         */
+        void finish(ITestResult last) {
+            finished = true;
+            List<String> leaks = monitor.finish(iteration);
+            if (leaks.isEmpty()) {
+                return;
+            }
+
+            logger.warning("Possible memory leak in " + name + ": " + String.join("; ", leaks));
+            if (config.isFailOnLeak() && last.getStatus() == ITestResult.SUCCESS) {
+                last.setStatus(ITestResult.FAILURE);
+                last.setThrowable(new AssertionError("Memory leak in soak of " + name + ": "
+                        + String.join("; ", leaks)));
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.openway.tests.listeners;
+
+import com.openway.perf.PerfHistory;
+import com.openway.perf.RegressionReport;
+import com.openway.perf.StepTimings;
+import com.openway.utils.ConfigManager;
+import com.openway.utils.SlaConfig;
+import com.openway.utils.TestConfig;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestResult;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Turns {@code @MaxDuration} budgets into a latency gate: budget violations of page-object calls made
+ * during a test, and of the test method itself, fail the test when {@code sla.mode=fail}.
+ * At the end of the suite the per-method latency summary is logged and written to
+ * {@code target/perf/step-latency.txt}.
+ * <p>
+ * Every run is also appended to the {@link PerfHistory} and compared with the previous
+ * {@code perf.baselineRuns} runs (default 10); the {@link RegressionReport} is written to
+ * {@code target/perf/regression-report.txt}. A method is reported as slower when its median grew by at
+ * least {@code perf.minSlowdown} (default 0.10) with a p-value below {@code perf.alpha} (default 0.01).
+ * The history also records the wall-clock time of the suite, from its start to its end. Set
+ * {@code perf.history=off} to keep no history.
+ * <p>
+ * Timings are recorded and the history is kept with any {@code sla.mode}; the mode only decides whether
+ * budget violations fail tests.
+ */
+public class StepLatencyListener implements IInvokedMethodListener, ISuiteListener {
+    private static final Logger logger = Logger.getLogger(StepLatencyListener.class.getName());
+    private static final String REPORT_FILE = "target/perf/step-latency.txt";
+    private static final String REGRESSION_REPORT_FILE = "target/perf/regression-report.txt";
+
+    private volatile Instant started = Instant.now();
+    private volatile long startedNanos = System.nanoTime();
+
+    @Override
+    public void onStart(ISuite suite) {
+        started = Instant.now();
+        startedNanos = System.nanoTime();
+    }
+
+    @Override
+    public void beforeInvocation(IInvokedMethod method, ITestResult testResult) {
+        if (method.isTestMethod()) {
+            // Violations from configuration methods belong to no test
+            StepTimings.drainViolations();
+        }
+    }
+
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+        if (!method.isTestMethod()) {
+            return;
+        }
+
+        Method testMethod = method.getTestMethod().getConstructorOrMethod().getMethod();
+        long nanos = (testResult.getEndMillis() - testResult.getStartMillis()) * 1_000_000;
+        StepTimings.recordTest(testMethod, nanos, testResult.isSuccess());
+
+        List<String> violations = StepTimings.drainViolations();
+        if (!violations.isEmpty() && StepTimings.getMode() == SlaConfig.Mode.FAIL && testResult.isSuccess()) {
+            testResult.setStatus(ITestResult.FAILURE);
+            testResult.setThrowable(new AssertionError("Latency budget exceeded: " + String.join("; ", violations)));
+        }
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        File report = new File(REPORT_FILE);
+        report.getParentFile().mkdirs();
+        try (PrintStream out = new PrintStream(report, StandardCharsets.UTF_8.name())) {
+            StepTimings.printSummary(out);
+            logger.info("Step latency summary written to " + report.getAbsolutePath());
+        } catch (IOException e) {
+            logger.warning("Failed to write step latency summary: " + e.getMessage());
+        }
+        StepTimings.printSummary(System.out);
+
+        if (ConfigManager.get().getPerf().isHistoryEnabled()) {
+            compareWithHistory();
+        }
+    }
+
+    private void compareWithHistory() {
+        PerfHistory.Run run = new PerfHistory.Run(started.toString() + "-" + ProcessHandle.current().pid(), started)
+                .setWallMillis((System.nanoTime() - startedNanos) / 1e6);
+        for (Map.Entry<String, double[]> samples : StepTimings.getSamples().entrySet()) {
+            String name = samples.getKey();
+            run.add(name, StepTimings.isTest(name), StepTimings.getFailures(name), samples.getValue());
+        }
+
+        TestConfig config = ConfigManager.get();
+        PerfHistory history = PerfHistory.fromConfig();
+        try {
+            List<PerfHistory.Run> baseline = history.loadRecent(config.getPerf().getBaselineRuns());
+            history.append(run);
+
+            RegressionReport report = RegressionReport.compare(run, baseline, config.getPerf().getAlpha(),
+                    config.getPerf().getMinSlowdown());
+            File file = new File(REGRESSION_REPORT_FILE);
+            file.getParentFile().mkdirs();
+            try (PrintStream out = new PrintStream(file, StandardCharsets.UTF_8.name())) {
+                report.print(out);
+            }
+            report.print(System.out);
+            if (!report.getSlowdowns().isEmpty()) {
+                logger.warning("Significantly slower than the last " + baseline.size() + " runs: "
+                        + String.join(", ", report.getSlowdowns()));
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warning("Failed to update performance history " + history.getFile() + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.openway.tests.listeners;
+
+import com.openway.impact.ChangeSet;
+import com.openway.impact.ImpactMap;
+import com.openway.impact.ImpactSelector;
+import com.openway.impact.PageCallRecorder;
+import com.openway.tests.data.RowStream;
+import com.openway.utils.ConfigManager;
+import com.openway.utils.ImpactConfig;
+import com.openway.utils.TestConfig;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestContext;
+import org.testng.ITestNGMethod;
+import org.testng.ITestResult;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Records which page-object methods each test calls and, with {@code impact.select=true}, runs only the
+ * tests and data rows that the changes since {@code impact.since} can affect.
+ * <p>
+ * Calls made by a test's {@code @BeforeMethod} and {@code @AfterMethod} count as the test's own; calls
+ * made by class-level configuration count for every test of the class. A passed invocation replaces
+ * what the {@link ImpactMap} held for it, a failed one only adds to it, since it may have stopped before
+ * reaching some pages. The map is saved at the end of the suite with the commit that was checked out.
+ */
+public class TestImpactListener implements IInvokedMethodListener, ISuiteListener, IMethodInterceptor {
+    private static final Logger logger = Logger.getLogger(TestImpactListener.class.getName());
+
+    private final ThreadLocal<String[]> lastInvocation = new ThreadLocal<>();
+    private final Map<String, Set<String>> classCalls = new ConcurrentHashMap<>();
+    private ImpactMap map;
+    private boolean recording;
+    private volatile ImpactSelector.Selection selection;
+
+    @Override
+    public void onStart(ISuite suite) {
+        TestConfig config = ConfigManager.get();
+        if (!config.getImpact().isRecord() && !config.getImpact().isSelect()) {
+            return;
+        }
+
+        try {
+            map = ImpactMap.load(config.getImpact().getMap());
+        } catch (IOException e) {
+            logger.warning("Failed to read test impact map " + config.getImpact().getMap() + ": " + e.getMessage());
+            map = new ImpactMap();
+        }
+
+        recording = config.getImpact().isRecord();
+        PageCallRecorder.setRecording(recording);
+
+        if (config.getImpact().isSelect()) {
+            ImpactSelector.Selection current = select(config);
+            current.log();
+            if (!current.isFull()) {
+                RowStream.setFilter((test, row) -> current.includesRow(test, Arrays.toString(row)));
+            }
+            selection = current;
+        }
+    }
+
+    @Override
+    public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+        ImpactSelector.Selection current = selection;
+        if (current == null || current.isFull()) {
+            return methods;
+        }
+
+        List<IMethodInstance> selected = new ArrayList<>();
+        for (IMethodInstance instance : methods) {
+            if (current.includesTest(testName(instance.getMethod()))) {
+                selected.add(instance);
+            }
+        }
+        logger.info("Test impact: running " + selected.size() + " of " + methods.size() + " test methods of "
+                + context.getName());
+        return selected;
+    }
+
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+        if (!recording) {
+            return;
+        }
+
+        ITestNGMethod testMethod = method.getTestMethod();
+        if (method.isTestMethod()) {
+            String test = testName(testMethod);
+            String row = testResult.getParameters().length == 0 ? "" : Arrays.toString(testResult.getParameters());
+            if (testResult.isSuccess()) {
+                map.record(test, row, PageCallRecorder.drain());
+            } else {
+                map.addCalls(test, row, PageCallRecorder.drain());
+            }
+            lastInvocation.set(new String[] {test, row});
+        } else if (testMethod.isAfterMethodConfiguration()) {
+            String[] last = lastInvocation.get();
+            if (last != null) {
+                map.addCalls(last[0], last[1], PageCallRecorder.drain());
+            }
+        } else if (!testMethod.isBeforeMethodConfiguration()) {
+            // Class-level configuration prepares every test of the class
+            classCalls.computeIfAbsent(testMethod.getRealClass().getSimpleName(),
+                    key -> ConcurrentHashMap.newKeySet()).addAll(PageCallRecorder.drain());
+        }
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        RowStream.setFilter(null);
+        PageCallRecorder.setRecording(false);
+        if (!recording) {
+            return;
+        }
+
+        for (Map.Entry<String, Set<String>> entry : classCalls.entrySet()) {
+            for (String test : map.getTests()) {
+                if (test.startsWith(entry.getKey() + ".")) {
+                    for (String row : map.getRows(test).keySet()) {
+                        map.addCalls(test, row, new TreeSet<>(entry.getValue()));
+                    }
+                }
+            }
+        }
+
+        File file = ConfigManager.get().getImpact().getMap();
+        try {
+            map.setCommit(ChangeSet.git(new File("."), "rev-parse", "HEAD").trim());
+        } catch (IOException e) {
+            logger.fine(() -> "No commit for the test impact map: " + e.getMessage());
+        }
+        try {
+            map.save(file);
+            logger.info("Test impact map written to " + file.getAbsolutePath());
+        } catch (IOException e) {
+            logger.warning("Failed to write test impact map " + file + ": " + e.getMessage());
+        }
+    }
+
+    private ImpactSelector.Selection select(TestConfig config) {
+        String base = config.getImpact().getSince().isEmpty() ? map.getCommit() : config.getImpact().getSince();
+        if (base == null) {
+            return ImpactSelector.Selection.everything("no revision to compare with, set impact.since");
+        }
+
+        try {
+            File root = new File(ChangeSet.git(new File("."), "rev-parse", "--show-toplevel").trim());
+            ChangeSet changes = ChangeSet.fromGit(root, base);
+            ImpactConfig impact = config.getImpact();
+            return new ImpactSelector(map, root, impact.getIgnore(), impact.isFullSuiteFallback())
+                    .select(changes);
+        } catch (IOException e) {
+            return ImpactSelector.Selection.everything("cannot compare with " + base + ": " + e.getMessage());
+        }
+    }
+
+    private static String testName(ITestNGMethod method) {
+        return method.getRealClass().getSimpleName() + "." + method.getMethodName();
+    }
+}
@@ -0,0 +1,172 @@
+package com.openway.tests.listeners;
+
+import com.openway.perf.PerfHistory;
+import com.openway.perf.TimeBudgetScheduler;
+import com.openway.tests.data.RowStream;
+import com.openway.utils.ConfigManager;
+import com.openway.utils.TestConfig;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestContext;
+import org.testng.ITestNGMethod;
+import org.testng.ITestResult;
+import org.testng.SkipException;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * With {@code schedule.timeBudget} set, runs the suite within that wall-clock budget: the tests and data
+ * rows are planned by a {@link TimeBudgetScheduler} from the recent runs of the performance history,
+ * reordered so the likeliest failures per second run first, and cut to what fits. Tests beyond the plan
+ * are dropped before the run and rows beyond it are never read from their data file. A row of a sequential
+ * data provider that can no longer finish in time is not taken either; any other invocation that cannot is
+ * reported as skipped before it runs. What was left out is written to
+ * {@code target/perf/schedule-report.txt}.
+ * <p>
+ * Register it after {@link TestImpactListener}, so it plans the tests that the impact selection kept.
+ */
+public class TimeBudgetListener implements ISuiteListener, IMethodInterceptor, IInvokedMethodListener {
+    private static final Logger logger = Logger.getLogger(TimeBudgetListener.class.getName());
+    private static final String REPORT_FILE = "target/perf/schedule-report.txt";
+
+    private volatile TimeBudgetScheduler scheduler;
+
+    @Override
+    public void onStart(ISuite suite) {
+        TestConfig config = ConfigManager.get();
+        if (config.getSchedule().getTimeBudget().isZero()) {
+            return;
+        }
+
+        List<PerfHistory.Run> history;
+        try {
+            history = PerfHistory.fromConfig().loadRecent(config.getSchedule().getHistoryRuns());
+        } catch (IOException e) {
+            logger.warning("No performance history for the time budget, every test counts as unknown: "
+                    + e.getMessage());
+            history = Collections.emptyList();
+        }
+
+        TimeBudgetScheduler current = new TimeBudgetScheduler(config.getSchedule().getTimeBudget(),
+                suite.getXmlSuite().getDataProviderThreadCount(), config.getSchedule().getOverheadSeconds(), history);
+        RowStream.RowFilter previous = RowStream.getFilter();
+        RowStream.setFilter((test, row) -> (previous == null || previous.accept(test, row))
+                && current.acceptRow(test));
+        TimeBudgetScheduler.setActive(current);
+        scheduler = current;
+        logger.info("Scheduling the suite in a time budget of " + config.getSchedule().getTimeBudget().getSeconds()
+                + "s from " + history.size() + " recent runs");
+    }
+
+    @Override
+    public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+        TimeBudgetScheduler current = scheduler;
+        if (current == null) {
+            return methods;
+        }
+
+        Map<String, Boolean> tests = new LinkedHashMap<>();
+        List<String> parallelTests = new ArrayList<>();
+        Map<String, List<IMethodInstance>> instances = new LinkedHashMap<>();
+        for (IMethodInstance instance : methods) {
+            ITestNGMethod method = instance.getMethod();
+            String test = testName(method);
+            DataProvider dataProvider = dataProvider(method);
+            tests.put(test, dataProvider != null);
+            if (dataProvider != null && ParallelRowsListener.isParallel(dataProvider)) {
+                parallelTests.add(test);
+            }
+            instances.computeIfAbsent(test, key -> new ArrayList<>()).add(instance);
+        }
+
+        List<IMethodInstance> selected = new ArrayList<>();
+        for (String test : current.plan(tests, parallelTests)) {
+            selected.addAll(instances.remove(test));
+        }
+        logger.info("Time budget: running " + selected.size() + " of " + methods.size() + " test methods of "
+                + context.getName() + (instances.isEmpty() ? "" : ", leaving out " + instances.keySet()));
+        return selected;
+    }
+
+    @Override
+    public void beforeInvocation(IInvokedMethod method, ITestResult testResult) {
+        TimeBudgetScheduler current = scheduler;
+        if (current == null || !method.isTestMethod()) {
+            return;
+        }
+
+        String test = testName(method.getTestMethod());
+        if (!current.isLaunchedByRow(test) && !current.tryLaunch(test)) {
+            throw new SkipException("Time budget: " + test + " cannot finish in the "
+                    + current.getRemaining().getSeconds() + "s left");
+        }
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        TimeBudgetScheduler current = scheduler;
+        if (current == null) {
+            return;
+        }
+        TimeBudgetScheduler.setActive(null);
+        RowStream.setFilter(null);
+        scheduler = null;
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (PrintStream out = new PrintStream(buffer, true, StandardCharsets.UTF_8)) {
+            current.print(out);
+        }
+        System.out.print(buffer.toString(StandardCharsets.UTF_8));
+
+        File report = new File(REPORT_FILE);
+        report.getParentFile().mkdirs();
+        try (FileOutputStream out = new FileOutputStream(report)) {
+            buffer.writeTo(out);
+            logger.info("Time budget report written to " + report.getAbsolutePath());
+        } catch (IOException e) {
+            logger.warning("Failed to write time budget report " + report + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return the data provider of a test method, or null if it is not data-driven
+     */
+    private static DataProvider dataProvider(ITestNGMethod method) {
+        Test test = method.getConstructorOrMethod().getMethod().getAnnotation(Test.class);
+        if (test == null || test.dataProvider().isEmpty()) {
+            return null;
+        }
+
+        Class<?> providerClass = test.dataProviderClass() == Object.class ? method.getRealClass()
+                : test.dataProviderClass();
+        for (Method candidate : providerClass.getMethods()) {
+            DataProvider dataProvider = candidate.getAnnotation(DataProvider.class);
+            if (dataProvider != null && test.dataProvider().equals(dataProvider.name())) {
+                return dataProvider;
+            }
+        }
+        return null;
+    }
+
+    private static String testName(ITestNGMethod method) {
+        return method.getRealClass().getSimpleName() + "." + method.getMethodName();
+    }
+}